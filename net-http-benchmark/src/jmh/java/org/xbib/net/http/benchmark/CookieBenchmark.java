@@ -0,0 +1,85 @@
+package org.xbib.net.http.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xbib.net.http.cookie.Cookie;
+import org.xbib.net.http.cookie.DefaultCookie;
+import org.xbib.net.http.server.cookie.CookieDecoder;
+import org.xbib.net.http.server.cookie.CookieEncoder;
+import org.xbib.net.http.server.cookie.CookieSignatureUtil;
+import org.xbib.net.http.server.cookie.CookieSigner;
+
+/**
+ * Server side cookie decoding, encoding and signing, as done per request by the cookie and session handlers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CookieBenchmark {
+
+    private static final String COOKIE_HEADER =
+            "SESS=eyJpZCI6IjdmM2U5YzFhMmI0ZCJ9:1c2a8e; lang=de; theme=dark; _ga=GA1.1.1234567890.1697623200; consent=true";
+
+    private Cookie cookie;
+
+    private String payload;
+
+    private CookieSigner hmacSHA1Signer;
+
+    private CookieSigner hmacSHA256Signer;
+
+    @Setup
+    public void setup() throws Exception {
+        DefaultCookie defaultCookie = new DefaultCookie("SESS", "eyJpZCI6IjdmM2U5YzFhMmI0ZCJ9:1c2a8e");
+        defaultCookie.setDomain("localhost");
+        defaultCookie.setPath("/");
+        defaultCookie.setMaxAge(3600L);
+        defaultCookie.setHttpOnly(true);
+        cookie = defaultCookie;
+        payload = "eyJpZCI6IjdmM2U5YzFhMmI0ZCIsInVzZXIiOiJqb2VyZyJ9";
+        hmacSHA1Signer = new CookieSigner("secret", CookieSigner.HMAC_SHA1);
+        hmacSHA256Signer = new CookieSigner("secret", CookieSigner.HMAC_SHA256);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return CookieDecoder.LAX.decode(COOKIE_HEADER);
+    }
+
+    @Benchmark
+    public String encode() {
+        return CookieEncoder.STRICT.encode(cookie);
+    }
+
+    @Benchmark
+    public String hmac() throws Exception {
+        return CookieSignatureUtil.hmac(payload, "secret", "HmacSHA1");
+    }
+
+    @Benchmark
+    public String hmacSHA256() throws Exception {
+        return CookieSignatureUtil.hmac(payload, "secret", "HmacSHA256");
+    }
+
+    @Benchmark
+    public String signerHmacSHA1() {
+        return hmacSHA1Signer.sign(payload);
+    }
+
+    @Benchmark
+    public String signerHmacSHA256() {
+        return hmacSHA256Signer.sign(payload);
+    }
+}
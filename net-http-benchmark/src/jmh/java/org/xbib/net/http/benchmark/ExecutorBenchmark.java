@@ -0,0 +1,78 @@
+package org.xbib.net.http.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xbib.net.http.server.executor.BaseExecutor;
+import org.xbib.net.http.server.executor.Executor;
+import org.xbib.net.http.server.executor.VirtualThreadExecutor;
+
+/**
+ * Request throughput of the platform thread pool and the virtual thread executor, with handlers
+ * that block for a while, like a JDBC query or an LDAP search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutorBenchmark {
+
+    private static final int REQUESTS = 1000;
+
+    @Param({"platform", "virtual"})
+    public String executorType;
+
+    @Param({"1", "10"})
+    public long blockMillis;
+
+    private Executor executor;
+
+    @Setup
+    public void setup() {
+        executor = switch (executorType) {
+            case "virtual" -> VirtualThreadExecutor.builder()
+                    .setMaxConcurrency(REQUESTS)
+                    .build();
+            default -> BaseExecutor.builder()
+                    .setQueueCount(REQUESTS)
+                    .build();
+        };
+    }
+
+    @TearDown
+    public void teardown() throws IOException {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public void blockingRequests() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            executor.execute(() -> {
+                try {
+                    Thread.sleep(blockMillis);
+                } finally {
+                    latch.countDown();
+                }
+                return true;
+            });
+        }
+        latch.await();
+    }
+}
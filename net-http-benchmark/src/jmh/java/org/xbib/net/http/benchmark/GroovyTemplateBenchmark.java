@@ -0,0 +1,143 @@
+package org.xbib.net.http.benchmark;
+
+import groovy.text.markup.BaseTemplate;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xbib.net.http.template.groovy.GroovyMarkupTemplateHandler;
+
+/**
+ * Throughput of Groovy markup template rendering with negotiated locales, by the number of rendering threads.
+ * With "globalLock", rendering is serialized like it was with a shared mutable locale, and the throughput
+ * does not scale with the number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GroovyTemplateBenchmark {
+
+    private static final int RENDERINGS = 1000;
+
+    private static final Locale[] LOCALES = { Locale.ENGLISH, Locale.GERMANY, Locale.FRANCE, Locale.ITALY };
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"false", "true"})
+    public boolean globalLock;
+
+    private Path dir;
+
+    private Path page;
+
+    private GroovyMarkupTemplateHandler templateHandler;
+
+    private ExecutorService executorService;
+
+    private ReentrantLock lock;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("groovy-template-benchmark");
+        page = dir.resolve("page.tpl");
+        Files.writeString(page, """
+                html {
+                  head { title(title) }
+                  body {
+                    include template: 'greeting.tpl'
+                    ul { items.each { item -> li(item) } }
+                  }
+                }
+                """, StandardCharsets.UTF_8);
+        Files.writeString(dir.resolve("greeting.tpl"), "p('hello')\n", StandardCharsets.UTF_8);
+        Files.writeString(dir.resolve("greeting_de.tpl"), "p('hallo')\n", StandardCharsets.UTF_8);
+        Files.writeString(dir.resolve("greeting_fr.tpl"), "p('bonjour')\n", StandardCharsets.UTF_8);
+        templateHandler = new GroovyMarkupTemplateHandler(this::resolve,
+                GroovyTemplateBenchmark.class.getClassLoader(), BaseTemplate.class, Locale.ENGLISH,
+                true, false, "  ", false, true, null, true, "\n", true);
+        executorService = Executors.newFixedThreadPool(threads);
+        lock = new ReentrantLock();
+    }
+
+    @TearDown
+    public void teardown() throws IOException {
+        executorService.shutdownNow();
+        try (Stream<Path> stream = Files.walk(dir)) {
+            for (Path path : stream.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RENDERINGS)
+    public long render() throws InterruptedException, ExecutionException {
+        List<Future<Integer>> futures = new ArrayList<>(RENDERINGS);
+        for (int i = 0; i < RENDERINGS; i++) {
+            Locale locale = LOCALES[i % LOCALES.length];
+            futures.add(executorService.submit(() -> globalLock ? renderLocked(locale) : render(locale)));
+        }
+        long length = 0L;
+        for (Future<Integer> future : futures) {
+            length += future.get();
+        }
+        return length;
+    }
+
+    private int renderLocked(Locale locale) throws IOException {
+        lock.lock();
+        try {
+            return render(locale);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int render(Locale locale) throws IOException {
+        Map<String, Object> model = new HashMap<>();
+        model.put("title", "Benchmark");
+        model.put("items", List.of("one", "two", "three", "four", "five"));
+        StringWriter writer = new StringWriter();
+        templateHandler.getTemplate(page, locale).make(model).writeTo(writer);
+        return writer.getBuffer().length();
+    }
+
+    private Path resolve(String name) {
+        Path path = dir.resolve(name);
+        if (!Files.exists(path)) {
+            throw new IllegalArgumentException("unable to resolve " + name);
+        }
+        return path;
+    }
+}
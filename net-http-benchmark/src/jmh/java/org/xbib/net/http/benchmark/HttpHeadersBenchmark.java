@@ -0,0 +1,173 @@
+package org.xbib.net.http.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xbib.datastructures.common.Pair;
+import org.xbib.net.http.HttpHeaderNames;
+import org.xbib.net.http.HttpHeaders;
+
+/**
+ * Header access on a typical browser request with 20 headers.
+ * The "list" benchmarks use a copy of the former implementation, which scanned a list of pairs, as a baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpHeadersBenchmark {
+
+    private HttpHeaders httpHeaders;
+
+    private ListHeaders listHeaders;
+
+    @Setup
+    public void setup() {
+        httpHeaders = createBrowserHeaders();
+        listHeaders = createListHeaders();
+    }
+
+    @Benchmark
+    public void get(Blackhole blackhole) {
+        blackhole.consume(httpHeaders.get(HttpHeaderNames.HOST));
+        blackhole.consume(httpHeaders.get(HttpHeaderNames.CONTENT_TYPE));
+        blackhole.consume(httpHeaders.get(HttpHeaderNames.COOKIE));
+        blackhole.consume(httpHeaders.get(HttpHeaderNames.IF_NONE_MATCH));
+        blackhole.consume(httpHeaders.get(HttpHeaderNames.RANGE));
+        blackhole.consume(httpHeaders.getAll(HttpHeaderNames.ACCEPT_LANGUAGE));
+        blackhole.consume(httpHeaders.containsHeader(HttpHeaderNames.AUTHORIZATION));
+    }
+
+    @Benchmark
+    public HttpHeaders build() {
+        return createBrowserHeaders();
+    }
+
+    @Benchmark
+    public HttpHeaders set() {
+        HttpHeaders headers = createBrowserHeaders();
+        headers.set(HttpHeaderNames.CONTENT_TYPE, "text/html; charset=utf-8");
+        headers.set(HttpHeaderNames.CACHE_CONTROL, "no-cache");
+        headers.set(HttpHeaderNames.CONNECTION, "close");
+        return headers;
+    }
+
+    @Benchmark
+    public void getList(Blackhole blackhole) {
+        blackhole.consume(listHeaders.get(HttpHeaderNames.HOST));
+        blackhole.consume(listHeaders.get(HttpHeaderNames.CONTENT_TYPE));
+        blackhole.consume(listHeaders.get(HttpHeaderNames.COOKIE));
+        blackhole.consume(listHeaders.get(HttpHeaderNames.IF_NONE_MATCH));
+        blackhole.consume(listHeaders.get(HttpHeaderNames.RANGE));
+        blackhole.consume(listHeaders.getAll(HttpHeaderNames.ACCEPT_LANGUAGE));
+        blackhole.consume(listHeaders.containsHeader(HttpHeaderNames.AUTHORIZATION));
+    }
+
+    @Benchmark
+    public ListHeaders buildList() {
+        return createListHeaders();
+    }
+
+    @Benchmark
+    public ListHeaders setList() {
+        ListHeaders headers = createListHeaders();
+        headers.set(HttpHeaderNames.CONTENT_TYPE, "text/html; charset=utf-8");
+        headers.set(HttpHeaderNames.CACHE_CONTROL, "no-cache");
+        headers.set(HttpHeaderNames.CONNECTION, "close");
+        return headers;
+    }
+
+    static HttpHeaders createBrowserHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        forEachBrowserHeader(headers::add);
+        return headers;
+    }
+
+    static ListHeaders createListHeaders() {
+        ListHeaders headers = new ListHeaders();
+        forEachBrowserHeader(headers::add);
+        return headers;
+    }
+
+    private static void forEachBrowserHeader(BrowserHeaderConsumer consumer) {
+        consumer.add("Host", "localhost:8008");
+        consumer.add("Connection", "keep-alive");
+        consumer.add("Cache-Control", "max-age=0");
+        consumer.add("sec-ch-ua", "\"Chromium\";v=\"118\", \"Google Chrome\";v=\"118\", \"Not=A?Brand\";v=\"99\"");
+        consumer.add("sec-ch-ua-mobile", "?0");
+        consumer.add("sec-ch-ua-platform", "\"Linux\"");
+        consumer.add("Upgrade-Insecure-Requests", "1");
+        consumer.add("User-Agent", "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/118.0.0.0 Safari/537.36");
+        consumer.add("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,*/*;q=0.8");
+        consumer.add("Sec-Fetch-Site", "same-origin");
+        consumer.add("Sec-Fetch-Mode", "navigate");
+        consumer.add("Sec-Fetch-User", "?1");
+        consumer.add("Sec-Fetch-Dest", "document");
+        consumer.add("Referer", "http://localhost:8008/index.html");
+        consumer.add("Accept-Encoding", "gzip, deflate, br");
+        consumer.add("Accept-Language", "de-DE,de;q=0.9,en-US;q=0.8,en;q=0.7");
+        consumer.add("Cookie", "SESS=7f3e9c1a2b4d; lang=de; theme=dark");
+        consumer.add("If-None-Match", "\"18c4b5e3f21\"");
+        consumer.add("If-Modified-Since", "Wed, 18 Oct 2023 10:00:00 GMT");
+        consumer.add("DNT", "1");
+    }
+
+    private interface BrowserHeaderConsumer {
+        void add(String name, String value);
+    }
+
+    /**
+     * The former header implementation, a list of pairs that is scanned case-insensitively.
+     */
+    public static class ListHeaders {
+
+        private final List<Pair<String, String>> list = new ArrayList<>();
+
+        public void add(CharSequence name, String value) {
+            if (name != null && value != null) {
+                list.add(Pair.of(name.toString(), value));
+            }
+        }
+
+        public void set(CharSequence name, String value) {
+            if (name != null && value != null) {
+                List<Pair<String, String>> list = this.list.stream()
+                        .filter(e -> !e.getKey().equalsIgnoreCase(name.toString())).collect(Collectors.toList());
+                this.list.clear();
+                this.list.addAll(list);
+            }
+            add(name, value);
+        }
+
+        public boolean containsHeader(CharSequence name) {
+            String k = name.toString();
+            return list.stream().anyMatch(e -> e.getKey().equalsIgnoreCase(k));
+        }
+
+        public String get(CharSequence header) {
+            String k = header.toString();
+            return list.stream().filter(e -> e.getKey().equalsIgnoreCase(k))
+                    .map(Pair::getValue).findFirst().orElse(null);
+        }
+
+        public List<String> getAll(CharSequence header) {
+            String k = header.toString();
+            return list.stream().filter(e -> e.getKey().equalsIgnoreCase(k))
+                    .map(Pair::getValue).collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.xbib.net.http.benchmark;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xbib.net.URL;
+import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpHeaderNames;
+import org.xbib.net.http.HttpHeaderValues;
+import org.xbib.net.http.HttpMethod;
+import org.xbib.net.http.HttpResponseStatus;
+import org.xbib.net.http.HttpVersion;
+import org.xbib.net.http.server.application.Application;
+import org.xbib.net.http.server.application.BaseApplication;
+import org.xbib.net.http.server.domain.BaseHttpDomain;
+import org.xbib.net.http.server.route.BaseHttpRouter;
+import org.xbib.net.http.server.service.BaseHttpService;
+import org.xbib.net.http.server.simple.HttpRequest;
+import org.xbib.net.http.server.simple.HttpRequestBuilder;
+import org.xbib.net.http.server.simple.HttpResponse;
+
+/**
+ * Routes a request through {@link BaseHttpRouter}. The query, form, JSON and cookie parameters of the request
+ * are built when the handler asks for them. With "readParameter" false, the handler never reads the parameters,
+ * like a handler for static files. Run with {@code -prof gc} to compare the allocations per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestParameterBenchmark {
+
+    private static final byte[] FORM_BODY =
+            "name=J%C3%B6rg&email=joerg%40example.com&subject=Hello&message=Hello+World".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] JSON_BODY =
+            "{\"name\":\"Jörg\",\"email\":\"joerg@example.com\",\"tags\":[\"a\",\"b\",\"c\"],\"count\":42}".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"query", "form", "json"})
+    public String request;
+
+    @Param({"true", "false"})
+    public boolean readParameter;
+
+    private URL baseURL;
+
+    private Application application;
+
+    @Setup
+    public void setup() throws Exception {
+        baseURL = URL.http().host("localhost").port(8008).build();
+        BaseHttpRouter router = BaseHttpRouter.builder()
+                .addDomain(BaseHttpDomain.builder()
+                        .setHttpAddress(HttpAddress.of(baseURL))
+                        .addService(BaseHttpService.builder()
+                                .setMethod(HttpMethod.GET, HttpMethod.POST)
+                                .setPath("/form")
+                                .setHandler(ctx -> ctx.status(HttpResponseStatus.OK)
+                                        .header(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN)
+                                        .body(ctx.getRequest().getParameter().toString()))
+                                .build())
+                        .addService(BaseHttpService.builder()
+                                .setMethod(HttpMethod.GET, HttpMethod.POST)
+                                .setPath("/ignore")
+                                .setHandler(ctx -> ctx.status(HttpResponseStatus.OK)
+                                        .header(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN)
+                                        .body(ctx.getRequest().getRequestPath()))
+                                .build())
+                        .build())
+                .build();
+        application = BaseApplication.builder()
+                .setRouter(router)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        application.close();
+    }
+
+    @Benchmark
+    public void route() {
+        String path = readParameter ? "/form" : "/ignore";
+        HttpRequestBuilder httpRequestBuilder = HttpRequest.builder()
+                .setBaseURL(baseURL)
+                .setVersion(HttpVersion.HTTP_1_1)
+                .addHeader(HttpHeaderNames.HOST, "localhost:8008")
+                .addHeader(HttpHeaderNames.COOKIE, "lang=de; theme=dark");
+        switch (request) {
+            case "form" -> httpRequestBuilder.setMethod(HttpMethod.POST)
+                    .setRequestURI(path)
+                    .addHeader(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_X_WWW_FORM_URLENCODED)
+                    .setBody(ByteBuffer.wrap(FORM_BODY));
+            case "json" -> httpRequestBuilder.setMethod(HttpMethod.POST)
+                    .setRequestURI(path)
+                    .addHeader(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON)
+                    .setBody(ByteBuffer.wrap(JSON_BODY));
+            default -> httpRequestBuilder.setMethod(HttpMethod.GET)
+                    .setRequestURI(path + "?name=J%C3%B6rg&email=joerg%40example.com&subject=Hello&page=1&size=20");
+        }
+        application.getRouter().route(application, httpRequestBuilder,
+                HttpResponse.builder().setOutputStream(OutputStream.nullOutputStream()));
+    }
+}
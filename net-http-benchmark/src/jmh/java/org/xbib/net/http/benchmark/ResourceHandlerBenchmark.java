@@ -0,0 +1,116 @@
+package org.xbib.net.http.benchmark;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xbib.net.URL;
+import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpHeaderNames;
+import org.xbib.net.http.HttpMethod;
+import org.xbib.net.http.HttpVersion;
+import org.xbib.net.http.server.application.Application;
+import org.xbib.net.http.server.application.BaseApplication;
+import org.xbib.net.http.server.domain.BaseHttpDomain;
+import org.xbib.net.http.server.resource.FileResourceHandler;
+import org.xbib.net.http.server.route.BaseHttpRouter;
+import org.xbib.net.http.server.service.BaseHttpService;
+import org.xbib.net.http.server.simple.HttpRequest;
+import org.xbib.net.http.server.simple.HttpRequestBuilder;
+import org.xbib.net.http.server.simple.HttpResponse;
+
+/**
+ * Static file responses of {@link FileResourceHandler}: full response, conditional response
+ * with a matching {@code If-None-Match}, a single range and multiple ranges.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResourceHandlerBenchmark {
+
+    @Param({"full", "notmodified", "range", "multirange"})
+    public String request;
+
+    @Param({"16384", "1048576"})
+    public int size;
+
+    private Path home;
+
+    private URL baseURL;
+
+    private Application application;
+
+    private String eTag;
+
+    @Setup
+    public void setup() throws Exception {
+        home = Files.createTempDirectory("benchmark");
+        Path file = Files.createDirectories(home.resolve("static")).resolve("file.bin");
+        byte[] b = new byte[size];
+        new Random(42L).nextBytes(b);
+        Files.write(file, b);
+        baseURL = URL.http().host("localhost").port(8008).build();
+        BaseHttpRouter router = BaseHttpRouter.builder()
+                .addDomain(BaseHttpDomain.builder()
+                        .setHttpAddress(HttpAddress.of(baseURL))
+                        .addService(BaseHttpService.builder()
+                                .setMethod(HttpMethod.GET)
+                                .setPath("/static/**")
+                                .setHandler(new FileResourceHandler())
+                                .build())
+                        .build())
+                .build();
+        application = BaseApplication.builder()
+                .setHome(home)
+                .setRouter(router)
+                .build();
+        // the entity tag of FileResourceHandler is derived from resource path, modification time and length
+        eTag = Long.toHexString("/static/file.bin".hashCode() +
+                Files.getLastModifiedTime(file).toMillis() + size);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        application.close();
+        try (Stream<Path> stream = Files.walk(home)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void route() {
+        HttpRequestBuilder httpRequestBuilder = HttpRequest.builder()
+                .setBaseURL(baseURL)
+                .setVersion(HttpVersion.HTTP_1_1)
+                .setMethod(HttpMethod.GET)
+                .setRequestURI("/static/file.bin")
+                .addHeader(HttpHeaderNames.HOST, "localhost:8008");
+        switch (request) {
+            case "notmodified" -> httpRequestBuilder.addHeader(HttpHeaderNames.IF_NONE_MATCH, eTag);
+            case "range" -> httpRequestBuilder.addHeader(HttpHeaderNames.RANGE, "bytes=1024-4095");
+            case "multirange" -> httpRequestBuilder.addHeader(HttpHeaderNames.RANGE, "bytes=0-1023,4096-8191,-1024");
+            default -> {
+            }
+        }
+        application.getRouter().route(application, httpRequestBuilder,
+                HttpResponse.builder().setOutputStream(OutputStream.nullOutputStream()));
+    }
+}
@@ -0,0 +1,66 @@
+package org.xbib.net.http.benchmark;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpMethod;
+import org.xbib.net.http.server.route.BaseHttpRoute;
+import org.xbib.net.http.server.route.BaseHttpRouteResolver;
+import org.xbib.net.http.server.route.CompiledHttpRouteResolver;
+import org.xbib.net.http.server.route.HttpRoute;
+import org.xbib.net.http.server.route.HttpRouteResolver;
+
+/**
+ * Route resolution for a request path against a growing number of routes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteResolverBenchmark {
+
+    @Param({"base", "compiled"})
+    public String resolver;
+
+    @Param({"10", "100", "500"})
+    public int routes;
+
+    private HttpRouteResolver<Integer> httpRouteResolver;
+
+    private HttpAddress httpAddress;
+
+    private String path;
+
+    @Setup
+    public void setup() {
+        httpAddress = HttpAddress.http1("localhost", 8008);
+        HttpRouteResolver.Builder<Integer> builder = "compiled".equals(resolver) ?
+                CompiledHttpRouteResolver.builder() : BaseHttpRouteResolver.builder();
+        for (int i = 0; i < routes; i++) {
+            builder.add(httpAddress, HttpMethod.GET, "", "/api/v1/resource" + i + "/{id}", i);
+        }
+        builder.add(httpAddress, HttpMethod.GET, "", "/static/**", routes);
+        httpRouteResolver = builder.sort(true).build();
+        path = "/api/v1/resource" + (routes / 2) + "/4711";
+    }
+
+    @Benchmark
+    public void resolve(Blackhole blackhole) {
+        HttpRoute httpRoute = new BaseHttpRoute(httpAddress, Set.of(HttpMethod.GET), "", path, true);
+        httpRouteResolver.resolve(httpRoute, blackhole::consume);
+    }
+}
@@ -0,0 +1,149 @@
+package org.xbib.net.http.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xbib.net.NetworkClass;
+import org.xbib.net.URL;
+import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpHeaderNames;
+import org.xbib.net.http.HttpHeaderValues;
+import org.xbib.net.http.HttpResponseStatus;
+import org.xbib.net.http.server.HttpServer;
+import org.xbib.net.http.server.HttpServerConfig;
+import org.xbib.net.http.server.application.Application;
+import org.xbib.net.http.server.application.BaseApplication;
+import org.xbib.net.http.server.domain.BaseHttpDomain;
+import org.xbib.net.http.server.executor.BaseExecutor;
+import org.xbib.net.http.server.netty.NettyHttpServer;
+import org.xbib.net.http.server.netty.NettyHttpServerConfig;
+import org.xbib.net.http.server.nio.NioHttpServer;
+import org.xbib.net.http.server.route.BaseHttpRouter;
+import org.xbib.net.http.server.service.BaseHttpService;
+import org.xbib.net.http.server.simple.SimpleHttpServer;
+
+/**
+ * Loopback request throughput of the Netty, the simple and the NIO server, with the JDK HTTP client
+ * as a common load generator. The simple and the NIO server close the connection after each response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class ServerThroughputBenchmark {
+
+    @Param({"netty", "simple", "nio"})
+    public String server;
+
+    private HttpServer httpServer;
+
+    private Thread serverThread;
+
+    private HttpClient httpClient;
+
+    private java.net.http.HttpRequest httpRequest;
+
+    @Setup
+    public void setup() throws Exception {
+        int port = switch (server) {
+            case "netty" -> 8011;
+            case "simple" -> 8012;
+            default -> 8013;
+        };
+        URL url = URL.from("http://localhost:" + port + "/hello");
+        BaseHttpRouter router = BaseHttpRouter.builder()
+                .addDomain(BaseHttpDomain.builder()
+                        .setHttpAddress(HttpAddress.http1(url))
+                        .addService(BaseHttpService.builder()
+                                .setPath("/hello")
+                                .setHandler(ctx -> ctx.status(HttpResponseStatus.OK)
+                                        .header(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN)
+                                        .charset(StandardCharsets.UTF_8)
+                                        .body("Hello World"))
+                                .build())
+                        .build())
+                .build();
+        Application application = BaseApplication.builder()
+                .setExecutor(BaseExecutor.builder().build())
+                .setRouter(router)
+                .build();
+        switch (server) {
+            case "netty" -> {
+                NettyHttpServerConfig serverConfig = new NettyHttpServerConfig();
+                serverConfig.setServerName("NettyHttpServer", null);
+                serverConfig.setNetworkClass(NetworkClass.LOCAL);
+                httpServer = NettyHttpServer.builder()
+                        .setHttpServerConfig(serverConfig)
+                        .setApplication(application)
+                        .build();
+                httpServer.bind();
+            }
+            case "simple" -> {
+                httpServer = SimpleHttpServer.builder()
+                        .setHttpServerConfig(new HttpServerConfig()
+                                .setServerName("SimpleHttpServer", null)
+                                .setNetworkClass(NetworkClass.LOCAL))
+                        .setApplication(application)
+                        .build();
+                httpServer.bind();
+            }
+            default -> {
+                httpServer = NioHttpServer.builder()
+                        .setHttpServerConfig(new HttpServerConfig()
+                                .setServerName("NioHttpServer", null)
+                                .setNetworkClass(NetworkClass.LOCAL))
+                        .setApplication(application)
+                        .build();
+                // the NIO server runs its selector loop in bind()
+                serverThread = new Thread(() -> {
+                    try {
+                        httpServer.bind();
+                    } catch (Exception e) {
+                        // closed
+                    }
+                });
+                serverThread.setDaemon(true);
+                serverThread.start();
+                Thread.sleep(500L);
+            }
+        }
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        httpRequest = java.net.http.HttpRequest.newBuilder(URI.create(url.toString()))
+                .GET()
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        httpServer.close();
+        if (serverThread != null) {
+            serverThread.interrupt();
+        }
+    }
+
+    @Benchmark
+    public int request() throws Exception {
+        return httpClient.send(httpRequest, java.net.http.HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
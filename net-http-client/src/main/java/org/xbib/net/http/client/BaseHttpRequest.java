@@ -5,9 +5,6 @@ import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.time.ZoneOffset;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -17,6 +14,7 @@ import org.xbib.net.ParameterBuilder;
 import org.xbib.net.Request;
 import org.xbib.net.URL;
 import org.xbib.net.URLBuilder;
+import org.xbib.net.http.HttpDate;
 import org.xbib.net.http.HttpHeaderNames;
 import org.xbib.net.http.HttpHeaders;
 import org.xbib.net.http.HttpMethod;
@@ -42,7 +40,7 @@ public abstract class BaseHttpRequest implements HttpRequest {
             builder.url = urlBuilder.build();
             validatedHeaders.set(HttpHeaderNames.HOST, builder.url.getHostInfo());
         }
-        validatedHeaders.set(HttpHeaderNames.DATE, DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC)));
+        validatedHeaders.set(HttpHeaderNames.DATE, HttpDate.currentDate());
         if (builder.userAgent != null) {
             validatedHeaders.set(HttpHeaderNames.USER_AGENT, builder.userAgent);
         }
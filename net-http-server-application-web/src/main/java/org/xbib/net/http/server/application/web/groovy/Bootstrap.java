@@ -23,6 +23,7 @@ import org.xbib.net.http.server.executor.BaseExecutor;
 import org.xbib.net.http.server.executor.Executor;
 import org.xbib.net.http.server.route.HttpRouter;
 import org.xbib.net.http.server.service.HttpService;
+import org.xbib.net.http.server.auth.AuthenticationCache;
 import org.xbib.net.http.server.auth.BasicAuthenticationHandler;
 import org.xbib.net.http.server.auth.FormAuthenticationHandler;
 import org.xbib.net.http.server.ldap.LdapContextFactory;
@@ -37,6 +38,7 @@ import org.xbib.net.http.server.netty.secure.HttpsAddress;
 import org.xbib.net.http.server.netty.secure.HttpsRequest;
 import org.xbib.net.http.server.netty.secure.NettyHttpsServerConfig;
 import org.xbib.net.http.server.resource.ClassLoaderResourceHandler;
+import org.xbib.net.http.server.resource.ResourceCache;
 import org.xbib.net.http.template.groovy.GroovyInternalServerErrorHandler;
 import org.xbib.net.http.template.groovy.GroovyHttpStatusHandler;
 import org.xbib.net.http.template.groovy.GroovyTemplateResourceHandler;
@@ -122,12 +124,14 @@ public final class Bootstrap {
         groupMappings.put("default", groupMapping);
         LdapRealm ldapRealm = new LdapRealm("Web Application Realm", contextFactories, userMappings, groupMappings);
 
+        AuthenticationCache authenticationCache = AuthenticationCache.builder().build();
+
         BasicAuthenticationHandler basicAuthenticationHandler =
-                new BasicAuthenticationHandler(ldapRealm);
+                new BasicAuthenticationHandler(ldapRealm, authenticationCache);
 
         FormAuthenticationHandler formAuthenticationHandler =
                 new FormAuthenticationHandler("j_username", "j_password", "j_remember",
-                        "demo/auth/form/index.gtpl", ldapRealm);
+                        "demo/auth/form/index.gtpl", ldapRealm, authenticationCache);
 
         HttpSecurityDomain securityDomain = BaseHttpSecurityDomain.builder()
                 .setSecurityRealm(ldapRealm)
@@ -172,7 +176,8 @@ public final class Bootstrap {
                                 .build())
                         .addService(BaseHttpService.builder()
                                 .setPath("/webjars/**")
-                                .setHandler(new ClassLoaderResourceHandler(Bootstrap.class.getClassLoader(), "META-INF/resources/"))
+                                .setHandler(new ClassLoaderResourceHandler(Bootstrap.class.getClassLoader(), "META-INF/resources/")
+                                        .setResourceCache(ResourceCache.builder().build()))
                                 .build())
                         .addService(httpService)
                         .addService(GroovyTemplateService.builder()
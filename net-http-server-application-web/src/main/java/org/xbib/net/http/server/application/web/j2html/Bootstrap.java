@@ -12,6 +12,7 @@ import org.xbib.net.http.HttpVersion;
 import org.xbib.net.http.j2html.J2HtmlResourceHandler;
 import org.xbib.net.http.j2html.J2HtmlService;
 import org.xbib.net.http.server.application.web.WebApplication;
+import org.xbib.net.http.server.auth.AuthenticationCache;
 import org.xbib.net.http.server.auth.BasicAuthenticationHandler;
 import org.xbib.net.http.server.auth.FormAuthenticationHandler;
 import org.xbib.net.http.server.domain.BaseHttpDomain;
@@ -29,6 +30,7 @@ import org.xbib.net.http.server.netty.secure.HttpsAddress;
 import org.xbib.net.http.server.netty.secure.HttpsRequest;
 import org.xbib.net.http.server.netty.secure.NettyHttpsServerConfig;
 import org.xbib.net.http.server.resource.ClassLoaderResourceHandler;
+import org.xbib.net.http.server.resource.ResourceCache;
 import org.xbib.net.http.server.route.BaseHttpRouter;
 import org.xbib.net.http.server.route.HttpRouter;
 import org.xbib.net.http.server.service.BaseHttpService;
@@ -121,12 +123,14 @@ public final class Bootstrap {
         groupMappings.put("default", groupMapping);
         LdapRealm ldapRealm = new LdapRealm("Web Application Realm", contextFactories, userMappings, groupMappings);
 
+        AuthenticationCache authenticationCache = AuthenticationCache.builder().build();
+
         BasicAuthenticationHandler basicAuthenticationHandler =
-                new BasicAuthenticationHandler(ldapRealm);
+                new BasicAuthenticationHandler(ldapRealm, authenticationCache);
 
         FormAuthenticationHandler formAuthenticationHandler =
                 new FormAuthenticationHandler("j_username", "j_password", "j_remember",
-                        "demo/auth/form/index.gtpl", ldapRealm);
+                        "demo/auth/form/index.gtpl", ldapRealm, authenticationCache);
 
         HttpSecurityDomain securityDomain = BaseHttpSecurityDomain.builder()
                 .setSecurityRealm(ldapRealm)
@@ -166,7 +170,8 @@ public final class Bootstrap {
                                 .build())
                         .addService(BaseHttpService.builder()
                                 .setPath("/webjars/**")
-                                .setHandler(new ClassLoaderResourceHandler(Bootstrap.class.getClassLoader(), "META-INF/resources/"))
+                                .setHandler(new ClassLoaderResourceHandler(Bootstrap.class.getClassLoader(), "META-INF/resources/")
+                                        .setResourceCache(ResourceCache.builder().build()))
                                 .build())
                         .addService(httpService)
                         .addService(J2HtmlService.builder()
@@ -73,9 +73,9 @@ public class Https1ChannelInitializer implements HttpChannelInitializer {
             HttpFileUploadHandler httpFileUploadHandler = new HttpFileUploadHandler(nettyHttpServer);
             pipeline.addLast("server-file-upload", httpFileUploadHandler);
         }
-        if (nettyHttpsServerConfig.isChunkedWriteEnabled()) {
-            pipeline.addLast("server-chunked-write", new ChunkedWriteHandler());
-        }
+        // always present, for file bodies that are too large for a buffer
+        pipeline.addLast("server-chunked-write", new ChunkedWriteHandler());
+        channel.attr(NettyHttpsServerConfig.ATTRIBUTE_CHUNKED_WRITE).set(nettyHttpsServerConfig.isChunkedWriteEnabled());
         if (nettyHttpsServerConfig.isPipeliningEnabled()) {
             pipeline.addLast("server-pipelining", new HttpPipeliningHandler(nettyHttpsServerConfig.getPipeliningCapacity()));
         }
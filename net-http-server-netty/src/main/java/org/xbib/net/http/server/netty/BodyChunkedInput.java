@@ -0,0 +1,212 @@
+package org.xbib.net.http.server.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A chunked input that is fed by an output stream, for bodies that are produced while they are written.
+ *
+ * The producing thread writes into pooled buffers of the chunk size, and hands full buffers over to the
+ * chunked write handler on the event loop. At most a few chunks are pending, so a producer that is faster
+ * than the client waits, and the body is never held in memory as a whole. The producer must not run on the
+ * event loop.
+ */
+class BodyChunkedInput implements ChunkedInput<ByteBuf> {
+
+    private static final int MAX_PENDING_CHUNKS = 4;
+
+    private final ByteBufAllocator allocator;
+
+    private final ChunkedWriteHandler chunkedWriteHandler;
+
+    private final int chunkSize;
+
+    private final BlockingQueue<ByteBuf> chunks;
+
+    private final Output output;
+
+    private volatile boolean endOfOutput;
+
+    private volatile boolean closed;
+
+    private long progress;
+
+    BodyChunkedInput(ByteBufAllocator allocator, ChunkedWriteHandler chunkedWriteHandler, int chunkSize) {
+        this.allocator = allocator;
+        this.chunkedWriteHandler = chunkedWriteHandler;
+        this.chunkSize = chunkSize > 0 ? chunkSize : 8192;
+        this.chunks = new ArrayBlockingQueue<>(MAX_PENDING_CHUNKS);
+        this.output = new Output();
+    }
+
+    /**
+     * The output stream for the producer. Closing the stream ends the input.
+     *
+     * @return the output stream
+     */
+    OutputStream getOutputStream() {
+        return output;
+    }
+
+    /**
+     * Discard the output after the producer has failed. The input never ends, the channel must be closed.
+     */
+    void abort() {
+        output.release();
+        close();
+    }
+
+    /**
+     * The number of bytes written by the producer.
+     *
+     * @return the length
+     */
+    long getLength() {
+        return output.length;
+    }
+
+    @Override
+    public boolean isEndOfInput() {
+        return endOfOutput && chunks.isEmpty();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        ByteBuf byteBuf;
+        while ((byteBuf = chunks.poll()) != null) {
+            byteBuf.release();
+        }
+    }
+
+    @Deprecated
+    @Override
+    public ByteBuf readChunk(ChannelHandlerContext ctx) {
+        return readChunk(ctx.alloc());
+    }
+
+    /**
+     * Read the next chunk. If the producer has not handed over a chunk yet, null is returned, and the
+     * transfer is resumed when the next chunk arrives.
+     */
+    @Override
+    public ByteBuf readChunk(ByteBufAllocator allocator) {
+        ByteBuf byteBuf = chunks.poll();
+        if (byteBuf != null) {
+            progress += byteBuf.readableBytes();
+        }
+        return byteBuf;
+    }
+
+    @Override
+    public long length() {
+        return -1L;
+    }
+
+    @Override
+    public long progress() {
+        return progress;
+    }
+
+    private void handOver(ByteBuf byteBuf) throws IOException {
+        try {
+            while (!chunks.offer(byteBuf, 100L, TimeUnit.MILLISECONDS)) {
+                if (closed) {
+                    throw new IOException("chunked input closed");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            byteBuf.release();
+            throw new IOException(e);
+        } catch (IOException e) {
+            byteBuf.release();
+            throw e;
+        }
+        if (closed) {
+            // closed while the chunk was offered
+            close();
+            throw new IOException("chunked input closed");
+        }
+        chunkedWriteHandler.resumeTransfer();
+    }
+
+    private class Output extends OutputStream {
+
+        private ByteBuf current;
+
+        private long length;
+
+        private boolean done;
+
+        @Override
+        public void write(int b) throws IOException {
+            ensureBuffer();
+            current.writeByte(b);
+            length++;
+            if (!current.isWritable()) {
+                handOverCurrent();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                ensureBuffer();
+                int n = Math.min(len, current.writableBytes());
+                current.writeBytes(b, off, n);
+                length += n;
+                off += n;
+                len -= n;
+                if (!current.isWritable()) {
+                    handOverCurrent();
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (done) {
+                return;
+            }
+            done = true;
+            if (current != null && current.isReadable()) {
+                handOverCurrent();
+            } else {
+                release();
+            }
+            endOfOutput = true;
+            chunkedWriteHandler.resumeTransfer();
+        }
+
+        private void ensureBuffer() throws IOException {
+            if (done || closed) {
+                throw new IOException("stream closed");
+            }
+            if (current == null) {
+                current = allocator.buffer(chunkSize, chunkSize);
+            }
+        }
+
+        private void handOverCurrent() throws IOException {
+            ByteBuf byteBuf = current;
+            current = null;
+            handOver(byteBuf);
+        }
+
+        private void release() {
+            if (current != null) {
+                current.release();
+                current = null;
+            }
+        }
+    }
+}
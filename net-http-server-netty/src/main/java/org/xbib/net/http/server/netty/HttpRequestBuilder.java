@@ -8,7 +8,6 @@ import java.io.IOException;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import org.xbib.net.Parameter;
 import org.xbib.net.URL;
 import org.xbib.net.http.HttpAddress;
 import org.xbib.net.http.HttpMethod;
@@ -73,7 +72,7 @@ public class HttpRequestBuilder extends BaseHttpRequestBuilder {
     @Override
     public CharBuffer getBodyAsChars(Charset charset) {
         if (charBuffer == null) {
-            charBuffer = byteBuffer != null ? charset.decode(byteBuffer) : null;
+            charBuffer = byteBuffer != null ? charset.decode(byteBuffer.duplicate()) : null;
         }
         return charBuffer;
     }
@@ -139,10 +138,6 @@ public class HttpRequestBuilder extends BaseHttpRequestBuilder {
         return this;
     }
 
-    protected Parameter getParameter() {
-        return super.parameter;
-    }
-
     @Override
     public HttpRequest build() {
         return new HttpRequest(this);
@@ -1,28 +1,43 @@
 package org.xbib.net.http.server.netty;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.DefaultFileRegion;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpContent;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpChunkedInput;
+import io.netty.handler.codec.http.HttpContentCompressor;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http2.Http2StreamChannel;
 import io.netty.handler.codec.http2.HttpConversionUtil;
+import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.stream.ChunkedNioFile;
 import io.netty.handler.stream.ChunkedStream;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import org.xbib.datastructures.common.Pair;
 import org.xbib.net.buffer.DataBuffer;
 import org.xbib.net.http.server.netty.buffer.NettyDataBuffer;
 import org.xbib.net.http.server.netty.buffer.NettyDataBufferFactory;
 import org.xbib.net.http.server.netty.http1.HttpPipelinedResponse;
 import org.xbib.net.http.server.BaseHttpResponseBuilder;
+import org.xbib.net.http.server.BodyWriter;
+import org.xbib.net.http.server.CommittingOutputStream;
+import org.xbib.net.http.server.FileRegion;
+import org.xbib.net.http.server.MultipartFileRegion;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -30,6 +45,9 @@ import java.io.UncheckedIOException;
 import java.nio.CharBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -40,6 +58,11 @@ public class HttpResponseBuilder extends BaseHttpResponseBuilder {
 
     private static final Logger logger = Logger.getLogger(HttpResponseBuilder.class.getName());
 
+    /**
+     * The maximum length of a file body that can be read into a buffer when chunked writes are not enabled.
+     */
+    private static final long MAX_BUFFERED_LENGTH = Integer.MAX_VALUE;
+
     private ChannelHandlerContext ctx;
 
     HttpResponseBuilder() {
@@ -49,7 +72,7 @@ public class HttpResponseBuilder extends BaseHttpResponseBuilder {
     @Override
     public void reset() {
         super.reset();
-        this.dataBufferFactory = NettyDataBufferFactory.getInstance();
+        this.dataBufferFactory = createDataBufferFactory();
     }
 
     @Override
@@ -120,9 +143,22 @@ public class HttpResponseBuilder extends BaseHttpResponseBuilder {
 
     public HttpResponseBuilder setChannelHandlerContext(ChannelHandlerContext ctx) {
         this.ctx = ctx;
+        this.dataBufferFactory = createDataBufferFactory();
         return this;
     }
 
+    public ChannelHandlerContext getChannelHandlerContext() {
+        return ctx;
+    }
+
+    /**
+     * The body buffers of handlers are allocated by the allocator of the channel, usually from its pool.
+     */
+    private NettyDataBufferFactory createDataBufferFactory() {
+        return ctx != null && ctx.alloc() != ByteBufAllocator.DEFAULT ?
+                new NettyDataBufferFactory(ctx.alloc()) : NettyDataBufferFactory.getInstance();
+    }
+
     @Override
     public HttpResponse build() {
         Objects.requireNonNull(ctx);
@@ -132,10 +168,19 @@ public class HttpResponseBuilder extends BaseHttpResponseBuilder {
             internalBufferWrite(charBuffer, charset);
         } else if (dataBuffer != null) {
             internalBufferWrite(dataBuffer);
+        } else if (fileRegion != null) {
+            internalFileRegionWrite(fileRegion, bufferSize, true);
+        } else if (multipartFileRegion != null) {
+            internalMultipartFileRegionWrite(multipartFileRegion, bufferSize, true);
         } else if (fileChannel != null) {
             internalFileWrite(fileChannel, bufferSize, true);
         } else if (inputStream != null) {
             internalStreamWrite(inputStream, bufferSize, true);
+        } else if (bodyWriter != null) {
+            // run once, a later build for an error page must not write the body again
+            BodyWriter writer = bodyWriter;
+            bodyWriter = null;
+            internalBodyWrite(writer, bufferSize, true);
         } else {
             logger.log(Level.FINEST, "no content, we assume header only");
             flush();
@@ -145,8 +190,7 @@ public class HttpResponseBuilder extends BaseHttpResponseBuilder {
 
     public void flush() {
         logger.log(Level.FINEST, "flush netty response");
-        this.dataBuffer = NettyDataBufferFactory.getInstance().wrap(Unpooled.buffer(0));
-        internalBufferWrite(dataBuffer);
+        internalBufferWrite(Unpooled.EMPTY_BUFFER);
     }
 
     @Override
@@ -155,7 +199,7 @@ public class HttpResponseBuilder extends BaseHttpResponseBuilder {
     }
 
     private void internalByteWrite(byte[] bytes) {
-        internalBufferWrite(dataBufferFactory.wrap(bytes));
+        internalBufferWrite(Unpooled.wrappedBuffer(bytes));
     }
 
     private void internalBufferWrite(DataBuffer dataBuffer) {
@@ -171,42 +215,81 @@ public class HttpResponseBuilder extends BaseHttpResponseBuilder {
         internalBufferWrite(byteBuf, byteBuf.readableBytes(), true);
     }
 
+    /**
+     * Write a response with the complete body in a buffer. The head and the body go out in a single
+     * write and flush, so the encoder can merge a small body into the buffer of the head, and a response
+     * that is written from outside the event loop is a single task for the event loop.
+     */
     private void internalBufferWrite(ByteBuf byteBuf, int length, boolean keepAlive) {
         if (!ctx.channel().isWritable()) {
             logger.log(Level.WARNING, "the channel " + ctx.channel() + " is not writable");
+            byteBuf.release();
             return;
         }
         super.buildHeaders(length);
         HttpResponseStatus responseStatus = HttpResponseStatus.valueOf(status.code());
-        HttpHeaders headers = new DefaultHttpHeaders();
-        super.headers.entries().forEach(e -> headers.add(e.getKey(), e.getValue()));
+        HttpHeaders headers = createHeaders();
         // fix headers
-        if (streamId != null) {
-            headers.add(HttpConversionUtil.ExtensionHeaderNames.STREAM_ID.text(), String.valueOf(streamId));
-        }
         if (!headers.contains(HttpHeaderNames.CONTENT_LENGTH)) {
             headers.remove(HttpHeaderNames.TRANSFER_ENCODING);
-            headers.set(HttpHeaderNames.CONTENT_LENGTH, length);
+            headers.setInt(HttpHeaderNames.CONTENT_LENGTH, length);
         }
-        HttpHeaders trailingHeaders = new DefaultHttpHeaders();
-        super.trailingHeaders.entries().forEach(e -> trailingHeaders.add(e.getKey(), e.getValue()));
-        HttpVersion httpVersion = HttpVersion.valueOf(version.text());
-        FullHttpResponse fullHttpResponse =
-                new DefaultFullHttpResponse(httpVersion, responseStatus, byteBuf, headers, trailingHeaders);
+        FullHttpResponse fullHttpResponse = new DefaultFullHttpResponse(getNettyVersion(), responseStatus,
+                byteBuf, headers, createTrailingHeaders());
         ChannelFuture channelFuture;
         if (sequenceId != null) {
             HttpPipelinedResponse httpPipelinedResponse = new HttpPipelinedResponse(fullHttpResponse,
                     ctx.channel().newPromise(), sequenceId);
-            channelFuture = ctx.write(httpPipelinedResponse);
+            channelFuture = ctx.writeAndFlush(httpPipelinedResponse);
         } else {
-            channelFuture = ctx.write(fullHttpResponse);
+            channelFuture = ctx.writeAndFlush(fullHttpResponse);
         }
         if (!keepAlive || shouldClose()) {
             logger.log(Level.FINEST, "adding close listener to channel future " + channelFuture);
             channelFuture.addListener(CLOSE);
         }
-        logger.log(Level.FINEST, "flush netty ctx");
-        ctx.flush();
+    }
+
+    /**
+     * Copy the response headers into netty headers. This is the only copy, the netty headers become
+     * the headers of the response message.
+     *
+     * @return the netty headers
+     */
+    private HttpHeaders createHeaders() {
+        HttpHeaders headers = new DefaultHttpHeaders();
+        List<Pair<String, String>> entries = super.headers.entries();
+        for (int i = 0; i < entries.size(); i++) {
+            Pair<String, String> entry = entries.get(i);
+            headers.add(entry.getKey(), entry.getValue());
+        }
+        if (streamId != null) {
+            headers.add(HttpConversionUtil.ExtensionHeaderNames.STREAM_ID.text(), String.valueOf(streamId));
+        }
+        return headers;
+    }
+
+    private HttpHeaders createTrailingHeaders() {
+        List<Pair<String, String>> entries = super.trailingHeaders.entries();
+        if (entries.isEmpty()) {
+            return EmptyHttpHeaders.INSTANCE;
+        }
+        HttpHeaders trailingHeaders = new DefaultHttpHeaders();
+        for (int i = 0; i < entries.size(); i++) {
+            Pair<String, String> entry = entries.get(i);
+            trailingHeaders.add(entry.getKey(), entry.getValue());
+        }
+        return trailingHeaders;
+    }
+
+    private HttpVersion getNettyVersion() {
+        if (org.xbib.net.http.HttpVersion.HTTP_1_1.equals(version)) {
+            return HttpVersion.HTTP_1_1;
+        }
+        if (org.xbib.net.http.HttpVersion.HTTP_1_0.equals(version)) {
+            return HttpVersion.HTTP_1_0;
+        }
+        return HttpVersion.valueOf(version.text());
     }
 
     private void internalFileWrite(FileChannel fileChannel, int bufferSize, boolean keepAlive) {
@@ -227,8 +310,241 @@ public class HttpResponseBuilder extends BaseHttpResponseBuilder {
             logger.log(Level.FINEST, "adding close listener to channel future " + channelFuture);
             channelFuture.addListener(CLOSE);
         }
-        logger.log(Level.FINEST, "flush netty ctx");
-        ctx.flush();
+    }
+
+    private void internalFileRegionWrite(FileRegion fileRegion, int bufferSize, boolean keepAlive) {
+        if (!ctx.channel().isWritable()) {
+            logger.log(Level.WARNING, "the channel is not writeable: " + ctx.channel());
+            return;
+        }
+        FileChannel fileChannel;
+        try {
+            fileChannel = FileChannel.open(fileRegion.getPath(), StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long offset = fileRegion.getOffset();
+        long length = fileRegion.getLength();
+        List<Object> contents = new ArrayList<>(2);
+        if (isZeroCopyWritable()) {
+            // the file channel is closed when the region is released after the transfer
+            logger.log(Level.FINEST, "zero-copy file region write: " + fileRegion);
+            contents.add(new DefaultFileRegion(fileChannel, offset, length));
+            contents.add(LastHttpContent.EMPTY_LAST_CONTENT);
+        } else if (isChunkedWrite(length)) {
+            logger.log(Level.FINEST, "chunked file region write: " + fileRegion);
+            try {
+                contents.add(new HttpChunkedInput(new ChunkedNioFile(fileChannel, offset, length, bufferSize)));
+            } catch (IOException e) {
+                closeQuietly(fileChannel);
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            logger.log(Level.FINEST, "buffered file region write: " + fileRegion);
+            if (length > MAX_BUFFERED_LENGTH) {
+                closeQuietly(fileChannel);
+                throw tooLarge(length);
+            }
+            ByteBuf byteBuf = ctx.alloc().buffer(Math.toIntExact(length));
+            try (fileChannel) {
+                while (byteBuf.readableBytes() < length) {
+                    int n = byteBuf.writeBytes(fileChannel, offset + byteBuf.readableBytes(),
+                            (int) length - byteBuf.readableBytes());
+                    if (n < 0) {
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                byteBuf.release();
+                throw new UncheckedIOException(e);
+            }
+            internalBufferWrite(byteBuf, byteBuf.readableBytes(), keepAlive);
+            return;
+        }
+        internalContentsWrite(length, contents, keepAlive);
+    }
+
+    private void internalMultipartFileRegionWrite(MultipartFileRegion multipartFileRegion, int bufferSize, boolean keepAlive) {
+        if (!ctx.channel().isWritable()) {
+            logger.log(Level.WARNING, "the channel is not writeable: " + ctx.channel());
+            return;
+        }
+        List<Object> contents = new ArrayList<>();
+        if (isZeroCopyWritable()) {
+            logger.log(Level.FINEST, "zero-copy multipart file region write: " + multipartFileRegion);
+            for (MultipartFileRegion.Part part : multipartFileRegion.getParts()) {
+                contents.add(new DefaultHttpContent(Unpooled.wrappedBuffer(part.getHeader())));
+                FileRegion fileRegion = part.getFileRegion();
+                // the file is opened when the transfer of the region starts
+                contents.add(new DefaultFileRegion(fileRegion.getPath().toFile(), fileRegion.getOffset(), fileRegion.getLength()));
+            }
+            contents.add(new DefaultLastHttpContent(Unpooled.wrappedBuffer(multipartFileRegion.getEnd())));
+        } else if (isChunkedWrite(multipartFileRegion.getLength())) {
+            logger.log(Level.FINEST, "chunked multipart file region write: " + multipartFileRegion);
+            contents.add(new HttpChunkedInput(new MultipartChunkedInput(multipartFileRegion, bufferSize)));
+        } else {
+            logger.log(Level.FINEST, "buffered multipart file region write: " + multipartFileRegion);
+            if (multipartFileRegion.getLength() > MAX_BUFFERED_LENGTH) {
+                throw tooLarge(multipartFileRegion.getLength());
+            }
+            ByteBuf byteBuf = ctx.alloc().buffer(Math.toIntExact(multipartFileRegion.getLength()));
+            try (MultipartChunkedInput chunkedInput = new MultipartChunkedInput(multipartFileRegion, bufferSize)) {
+                ByteBuf chunk;
+                while ((chunk = chunkedInput.readChunk(ctx.alloc())) != null) {
+                    byteBuf.writeBytes(chunk);
+                    chunk.release();
+                }
+            } catch (IOException e) {
+                byteBuf.release();
+                throw new UncheckedIOException(e);
+            }
+            internalBufferWrite(byteBuf, byteBuf.readableBytes(), keepAlive);
+            return;
+        }
+        internalContentsWrite(multipartFileRegion.getLength(), contents, keepAlive);
+    }
+
+    /**
+     * Whether chunked writes are enabled for the channel, see {@link NettyHttpServerConfig#ATTRIBUTE_CHUNKED_WRITE}.
+     */
+    private boolean isChunkedWriteEnabled() {
+        Boolean chunkedWrite = ctx.channel().attr(NettyHttpServerConfig.ATTRIBUTE_CHUNKED_WRITE).get();
+        return chunkedWrite != null ? chunkedWrite : ctx.pipeline().get(ChunkedWriteHandler.class) != null;
+    }
+
+    /**
+     * Whether a file body of the given length is written in chunks. Bodies that are too large for a buffer
+     * are always written in chunks, by the chunked write handler the channel initializers install.
+     */
+    private boolean isChunkedWrite(long length) {
+        return isChunkedWriteEnabled() ||
+                (length > MAX_BUFFERED_LENGTH && ctx.pipeline().get(ChunkedWriteHandler.class) != null);
+    }
+
+    private static IllegalStateException tooLarge(long length) {
+        return new IllegalStateException("body of " + length + " bytes is too large for a buffer and the pipeline has no chunked write handler");
+    }
+
+    /**
+     * Write the response head with a known content length, followed by the given body messages.
+     */
+    private void internalContentsWrite(long length, List<Object> contents, boolean keepAlive) {
+        super.buildHeaders(length);
+        HttpResponseStatus responseStatus = HttpResponseStatus.valueOf(status.code());
+        HttpHeaders headers = createHeaders();
+        headers.remove(HttpHeaderNames.TRANSFER_ENCODING);
+        headers.set(HttpHeaderNames.CONTENT_LENGTH, length);
+        DefaultHttpResponse defaultHttpResponse = new DefaultHttpResponse(getNettyVersion(), responseStatus, headers);
+        ChannelFuture channelFuture;
+        if (sequenceId != null) {
+            HttpPipelinedResponse httpPipelinedResponse = new HttpPipelinedResponse(defaultHttpResponse, contents,
+                    ctx.channel().newPromise(), sequenceId);
+            channelFuture = ctx.writeAndFlush(httpPipelinedResponse);
+        } else {
+            channelFuture = ctx.write(defaultHttpResponse);
+            for (int i = 0; i < contents.size(); i++) {
+                channelFuture = i < contents.size() - 1 ? ctx.write(contents.get(i)) : ctx.writeAndFlush(contents.get(i));
+            }
+        }
+        if (!keepAlive || shouldClose()) {
+            logger.log(Level.FINEST, "adding close listener to channel future " + channelFuture);
+            channelFuture.addListener(CLOSE);
+        }
+    }
+
+    /**
+     * Stream the output of a body writer in chunks as it is produced. The chunked write handler sends the chunks
+     * with chunked transfer encoding on HTTP/1.1, or as DATA frames on HTTP/2. The head is only sent when the
+     * output exceeds the buffer size, so a short body is sent with a content length, and a body writer that
+     * fails before that throws, with nothing sent. The body is buffered if it can not be streamed: if chunked
+     * writes are not enabled, with a content length set by a handler, or if the response is built on the
+     * event loop, where the producer must not wait for the client.
+     */
+    private void internalBodyWrite(BodyWriter bodyWriter, int bufferSize, boolean keepAlive) {
+        if (!ctx.channel().isWritable()) {
+            logger.log(Level.WARNING, "the channel is not writeable: " + ctx.channel());
+            return;
+        }
+        ChunkedWriteHandler chunkedWriteHandler = ctx.pipeline().get(ChunkedWriteHandler.class);
+        if (chunkedWriteHandler == null || !isChunkedWriteEnabled() || ctx.executor().inEventLoop() || !isStreamable()) {
+            logger.log(Level.FINEST, "buffered body write");
+            DataBuffer dataBuffer;
+            try {
+                dataBuffer = bufferBody(bodyWriter);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            internalBufferWrite(dataBuffer);
+            return;
+        }
+        BodyChunkedInput bodyChunkedInput = new BodyChunkedInput(ctx.alloc(), chunkedWriteHandler, bufferSize);
+        CommittingOutputStream outputStream = new CommittingOutputStream(bufferSize, () -> {
+            writeChunkedHead(bodyChunkedInput, keepAlive);
+            return bodyChunkedInput.getOutputStream();
+        });
+        try {
+            bodyWriter.writeTo(outputStream);
+            outputStream.close();
+        } catch (IOException | RuntimeException e) {
+            if (!outputStream.isCommitted()) {
+                // nothing is sent yet, the failure can still be answered with an error page
+                throw e instanceof IOException ? new UncheckedIOException((IOException) e) : (RuntimeException) e;
+            }
+            // the head is sent, closing the channel is the only way to tell the client that the body is truncated
+            logger.log(Level.WARNING, "unable to write body, closing channel " + ctx.channel() + ": " + e.getMessage(), e);
+            bodyChunkedInput.abort();
+            ctx.channel().close();
+            return;
+        }
+        if (outputStream.isCommitted()) {
+            this.length = bodyChunkedInput.getLength();
+        } else {
+            logger.log(Level.FINEST, "short body write");
+            internalBufferWrite(Unpooled.wrappedBuffer(outputStream.getBuffer()));
+        }
+    }
+
+    private void writeChunkedHead(BodyChunkedInput bodyChunkedInput, boolean keepAlive) {
+        super.buildChunkedHeaders();
+        HttpResponseStatus responseStatus = HttpResponseStatus.valueOf(status.code());
+        HttpHeaders headers = createHeaders();
+        LastHttpContent lastHttpContent = new DefaultLastHttpContent();
+        lastHttpContent.trailingHeaders().add(createTrailingHeaders());
+        DefaultHttpResponse defaultHttpResponse = new DefaultHttpResponse(getNettyVersion(), responseStatus, headers);
+        HttpChunkedInput httpChunkedInput = new HttpChunkedInput(bodyChunkedInput, lastHttpContent);
+        ChannelFuture channelFuture;
+        if (sequenceId != null) {
+            HttpPipelinedResponse httpPipelinedResponse = new HttpPipelinedResponse(defaultHttpResponse,
+                    List.of(httpChunkedInput), ctx.channel().newPromise(), sequenceId);
+            channelFuture = ctx.writeAndFlush(httpPipelinedResponse);
+        } else {
+            ctx.write(defaultHttpResponse);
+            channelFuture = ctx.writeAndFlush(httpChunkedInput);
+        }
+        if (!keepAlive || shouldClose()) {
+            logger.log(Level.FINEST, "adding close listener to channel future " + channelFuture);
+            channelFuture.addListener(CLOSE);
+        }
+    }
+
+    /**
+     * A file region can be transferred by sendfile only if the bytes reach the socket unmodified.
+     * This is not the case with TLS, with HTTP/2 framing, or with content compression.
+     *
+     * @return true if a file region can be written to the channel
+     */
+    private boolean isZeroCopyWritable() {
+        return !(ctx.channel() instanceof Http2StreamChannel) &&
+                ctx.pipeline().get(SslHandler.class) == null &&
+                ctx.pipeline().get(HttpContentCompressor.class) == null;
+    }
+
+    private static void closeQuietly(FileChannel fileChannel) {
+        try {
+            fileChannel.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, e.getMessage(), e);
+        }
     }
 
     private void internalStreamWrite(InputStream inputStream, int bufferSize, boolean keepAlive) {
@@ -255,13 +571,7 @@ public class HttpResponseBuilder extends BaseHttpResponseBuilder {
             // chunked
             super.buildHeaders(0);
             HttpResponseStatus responseStatus = HttpResponseStatus.valueOf(status.code());
-            HttpHeaders headers = new DefaultHttpHeaders();
-            super.headers.entries().forEach(e -> headers.add(e.getKey(), e.getValue()));
-            if (streamId != null) {
-                headers.add(HttpConversionUtil.ExtensionHeaderNames.STREAM_ID.text(), String.valueOf(streamId));
-            }
-            HttpHeaders trailingHeaders = new DefaultHttpHeaders();
-            super.trailingHeaders.entries().forEach(e -> trailingHeaders.add(e.getKey(), e.getValue()));
+            HttpHeaders headers = createHeaders();
             DefaultHttpResponse defaultHttpResponse = new DefaultHttpResponse(HttpVersion.HTTP_1_1, responseStatus);
             if (!headers.contains(HttpHeaderNames.CONTENT_LENGTH)) {
                 headers.set(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
@@ -278,8 +588,6 @@ public class HttpResponseBuilder extends BaseHttpResponseBuilder {
                 logger.log(Level.FINEST, "adding close listener to channel future " + channelFuture);
                 channelFuture.addListener(CLOSE);
             }
-            logger.log(Level.FINEST, "flush netty ctx");
-            ctx.flush();
         }
     }
 }
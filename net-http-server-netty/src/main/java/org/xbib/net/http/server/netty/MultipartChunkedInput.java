@@ -0,0 +1,130 @@
+package org.xbib.net.http.server.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.stream.ChunkedInput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.xbib.net.http.server.FileRegion;
+import org.xbib.net.http.server.MultipartFileRegion;
+
+/**
+ * A chunked input over a multipart file region, for channels where file regions can not be
+ * transferred directly. The files are opened one after another while the parts are read,
+ * so at most one file is open at a time.
+ */
+class MultipartChunkedInput implements ChunkedInput<ByteBuf> {
+
+    private final MultipartFileRegion multipartFileRegion;
+
+    private final int chunkSize;
+
+    private int partIndex;
+
+    private FileChannel fileChannel;
+
+    private long position;
+
+    private long remaining;
+
+    private long progress;
+
+    private boolean endOfInput;
+
+    MultipartChunkedInput(MultipartFileRegion multipartFileRegion, int chunkSize) {
+        this.multipartFileRegion = multipartFileRegion;
+        this.chunkSize = chunkSize > 0 ? chunkSize : 8192;
+    }
+
+    @Override
+    public boolean isEndOfInput() {
+        return endOfInput;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeFile();
+    }
+
+    @Deprecated
+    @Override
+    public ByteBuf readChunk(ChannelHandlerContext ctx) throws IOException {
+        return readChunk(ctx.alloc());
+    }
+
+    @Override
+    public ByteBuf readChunk(ByteBufAllocator allocator) throws IOException {
+        if (endOfInput) {
+            return null;
+        }
+        List<MultipartFileRegion.Part> parts = multipartFileRegion.getParts();
+        if (partIndex == parts.size()) {
+            endOfInput = true;
+            progress += multipartFileRegion.getEnd().length;
+            return Unpooled.wrappedBuffer(multipartFileRegion.getEnd());
+        }
+        MultipartFileRegion.Part part = parts.get(partIndex);
+        if (fileChannel == null) {
+            FileRegion fileRegion = part.getFileRegion();
+            fileChannel = FileChannel.open(fileRegion.getPath(), StandardOpenOption.READ);
+            position = fileRegion.getOffset();
+            remaining = fileRegion.getLength();
+            nextPartIfComplete();
+            progress += part.getHeader().length;
+            return Unpooled.wrappedBuffer(part.getHeader());
+        }
+        int length = (int) Math.min(chunkSize, remaining);
+        ByteBuf byteBuf = allocator.buffer(length);
+        boolean release = true;
+        try {
+            while (byteBuf.readableBytes() < length) {
+                int n = byteBuf.writeBytes(fileChannel, position + byteBuf.readableBytes(), length - byteBuf.readableBytes());
+                if (n < 0) {
+                    throw new EOFException("unexpected end of file: " + part.getFileRegion());
+                }
+            }
+            position += length;
+            remaining -= length;
+            progress += length;
+            nextPartIfComplete();
+            release = false;
+            return byteBuf;
+        } finally {
+            if (release) {
+                byteBuf.release();
+            }
+        }
+    }
+
+    @Override
+    public long length() {
+        return multipartFileRegion.getLength();
+    }
+
+    @Override
+    public long progress() {
+        return progress;
+    }
+
+    private void nextPartIfComplete() throws IOException {
+        if (remaining == 0L) {
+            closeFile();
+            partIndex++;
+        }
+    }
+
+    private void closeFile() throws IOException {
+        if (fileChannel != null) {
+            try {
+                fileChannel.close();
+            } finally {
+                fileChannel = null;
+            }
+        }
+    }
+}
@@ -8,6 +8,7 @@ import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.handler.codec.http2.Http2StreamChannel;
 import io.netty.handler.codec.http.multipart.HttpDataFactory;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
@@ -19,6 +20,7 @@ import java.util.Collection;
 import java.util.ServiceLoader;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -32,6 +34,9 @@ import org.xbib.net.http.server.HttpResponseBuilder;
 import org.xbib.net.http.server.route.HttpRouterContext;
 import org.xbib.net.http.server.HttpServer;
 import org.xbib.net.http.server.domain.HttpDomain;
+import org.xbib.net.http.server.executor.BlockingDetector;
+import org.xbib.net.http.server.executor.Executor;
+import org.xbib.net.http.server.executor.OverloadPolicy;
 import org.xbib.net.http.server.route.HttpRouter;
 
 /**
@@ -41,6 +46,8 @@ public class NettyHttpServer implements HttpServer {
 
     private static final Logger logger = Logger.getLogger(NettyHttpServer.class.getName());
 
+    private static final long PAUSE_RETRY_MILLIS = 10L;
+
     private final NettyHttpServerBuilder builder;
 
     private final EventLoopGroup parentEventLoopGroup;
@@ -57,6 +64,8 @@ public class NettyHttpServer implements HttpServer {
 
     private final Collection<Channel> channels;
 
+    private final BlockingDetector blockingDetector;
+
     NettyHttpServer(NettyHttpServerBuilder builder,
                     EventLoopGroup parentEventLoopGroup,
                     EventLoopGroup childEventLoopGroup,
@@ -69,6 +78,10 @@ public class NettyHttpServer implements HttpServer {
         this.serviceLoader = ServiceLoader.load(HttpChannelInitializer.class);
         this.channelFutures = new ArrayList<>();
         this.channels = new ArrayList<>();
+        NettyHttpServerConfig nettyHttpServerConfig = builder.nettyHttpServerConfig;
+        this.blockingDetector = nettyHttpServerConfig.isNonBlockingDispatchEnabled() &&
+                nettyHttpServerConfig.getBlockingDetectionThresholdMillis() > 0L ?
+                new BlockingDetector(nettyHttpServerConfig.getBlockingDetectionThresholdMillis()) : null;
         logger.log(Level.FINE, "parent event loop group = " + parentEventLoopGroup +
                 " child event loop group = " + childEventLoopGroup  +
                 " socket channel class = " + socketChannelClass +
@@ -185,12 +198,18 @@ public class NettyHttpServer implements HttpServer {
     @Override
     public void dispatch(HttpRequestBuilder requestBuilder,
                          HttpResponseBuilder responseBuilder) {
+        if (builder.nettyHttpServerConfig.isNonBlockingDispatchEnabled() &&
+                builder.application.isNonBlocking() &&
+                builder.application.getRouter().isNonBlocking(requestBuilder)) {
+            routeOnEventLoop(requestBuilder, responseBuilder);
+            return;
+        }
         Callable<?> callable = (Callable<Object>) () -> {
             HttpRouter router = builder.application.getRouter();
             router.route(builder.application, requestBuilder, responseBuilder);
             return true;
         };
-        builder.application.getExecutor().execute(callable);
+        execute(callable, requestBuilder, responseBuilder, 0L);
     }
 
     @Override
@@ -203,7 +222,76 @@ public class NettyHttpServer implements HttpServer {
             router.routeStatus(responseStatus, httpRouterContext);
             return true;
         };
-        builder.application.getExecutor().execute(callable);
+        execute(callable, requestBuilder, responseBuilder, 0L);
+    }
+
+    /**
+     * Route a request for non-blocking services on the event loop that received it,
+     * without the hand-over to the executor.
+     */
+    private void routeOnEventLoop(HttpRequestBuilder requestBuilder,
+                                  HttpResponseBuilder responseBuilder) {
+        Runnable runnable = () -> {
+            HttpRouter router = builder.application.getRouter();
+            router.route(builder.application, requestBuilder, responseBuilder);
+        };
+        try {
+            if (blockingDetector != null) {
+                blockingDetector.run(requestBuilder.getRequestURI(), runnable);
+            } else {
+                runnable.run();
+            }
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Submit a callable to the executor. If the executor is saturated and the overload policy is
+     * {@link OverloadPolicy#PAUSE}, reading from the connection stops and the submission is retried
+     * on the event loop, until the retry-after time has passed. Then, the request is rejected.
+     */
+    private void execute(Callable<?> callable,
+                         HttpRequestBuilder requestBuilder,
+                         HttpResponseBuilder responseBuilder,
+                         long pausedMillis) {
+        Executor executor = builder.application.getExecutor();
+        Channel channel = getConnectionChannel(responseBuilder);
+        try {
+            executor.execute(callable);
+            if (pausedMillis > 0L && channel != null) {
+                logger.log(Level.FINER, () -> "resume reading from " + channel + " after " + pausedMillis + " ms");
+                channel.config().setAutoRead(true);
+            }
+        } catch (RejectedExecutionException e) {
+            if (executor.getOverloadPolicy() == OverloadPolicy.PAUSE &&
+                    channel != null && channel.isActive() &&
+                    pausedMillis < executor.getRetryAfterSeconds() * 1000L) {
+                if (pausedMillis == 0L) {
+                    logger.log(Level.FINER, () -> "executor saturated, pause reading from " + channel);
+                }
+                channel.config().setAutoRead(false);
+                channel.eventLoop().schedule(() -> execute(callable, requestBuilder, responseBuilder,
+                        pausedMillis + PAUSE_RETRY_MILLIS), PAUSE_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+            } else {
+                if (pausedMillis > 0L && channel != null) {
+                    channel.config().setAutoRead(true);
+                }
+                rejected(requestBuilder, responseBuilder, executor);
+            }
+        }
+    }
+
+    /**
+     * The channel of the connection, i.e. the parent channel of an HTTP/2 stream.
+     */
+    private static Channel getConnectionChannel(HttpResponseBuilder responseBuilder) {
+        if (responseBuilder instanceof org.xbib.net.http.server.netty.HttpResponseBuilder nettyResponseBuilder &&
+                nettyResponseBuilder.getChannelHandlerContext() != null) {
+            Channel channel = nettyResponseBuilder.getChannelHandlerContext().channel();
+            return channel instanceof Http2StreamChannel ? channel.parent() : channel;
+        }
+        return null;
     }
 
     @Override
@@ -244,6 +332,9 @@ public class NettyHttpServer implements HttpServer {
                 channelFuture.cancel(true);
             }
         }
+        if (blockingDetector != null) {
+            blockingDetector.close();
+        }
         builder.application.close();
         logger.log(Level.INFO, "server shutdown complete");
     }
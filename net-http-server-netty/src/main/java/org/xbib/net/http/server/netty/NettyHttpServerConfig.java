@@ -15,6 +15,13 @@ public class NettyHttpServerConfig extends HttpServerConfig {
 
     public static final AttributeKey<HttpDataFactory> ATTRIBUTE_HTTP_DATAFACTORY = AttributeKey.valueOf("_datafactory");
 
+    /**
+     * Whether responses use the chunked write handler of the pipeline. HTTP/1.1 pipelines always have one,
+     * for file bodies that are too large for a buffer. Without this attribute, the chunked write handler is
+     * used whenever the pipeline has one.
+     */
+    public static final AttributeKey<Boolean> ATTRIBUTE_CHUNKED_WRITE = AttributeKey.valueOf("_chunked_write");
+
     /**
      * Enforce the transport class name if many transport providers are given.
      * Default is null so no transport provider is enforced, the first one
@@ -95,6 +102,17 @@ public class NettyHttpServerConfig extends HttpServerConfig {
 
     private int fileUploadDiskThreshold = 1 *1024 * 1024;
 
+    /**
+     * Route requests for non-blocking services on the event loop. Disabled by default.
+     */
+    private boolean isNonBlockingDispatchEnabled = false;
+
+    /**
+     * Report non-blocking services that block the event loop for longer than this time.
+     * 0 disables the detection.
+     */
+    private long blockingDetectionThresholdMillis = 100L;
+
     public NettyHttpServerConfig() {
     }
 
@@ -178,6 +196,24 @@ public class NettyHttpServerConfig extends HttpServerConfig {
         return pipeliningCapacity;
     }
 
+    public NettyHttpServerConfig setNonBlockingDispatchEnabled(boolean isNonBlockingDispatchEnabled) {
+        this.isNonBlockingDispatchEnabled = isNonBlockingDispatchEnabled;
+        return this;
+    }
+
+    public boolean isNonBlockingDispatchEnabled() {
+        return isNonBlockingDispatchEnabled;
+    }
+
+    public NettyHttpServerConfig setBlockingDetectionThresholdMillis(long blockingDetectionThresholdMillis) {
+        this.blockingDetectionThresholdMillis = blockingDetectionThresholdMillis;
+        return this;
+    }
+
+    public long getBlockingDetectionThresholdMillis() {
+        return blockingDetectionThresholdMillis;
+    }
+
     public NettyHttpServerConfig setObjectAggregationEnabled(boolean isObjectAgregationEnabled) {
         this.isObjectAggregationEnabled = isObjectAgregationEnabled;
         return this;
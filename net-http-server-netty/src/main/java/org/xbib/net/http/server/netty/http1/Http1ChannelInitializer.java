@@ -55,9 +55,9 @@ public class Http1ChannelInitializer implements HttpChannelInitializer {
             httpObjectAggregator.setMaxCumulationBufferComponents(nettyHttpServerConfig.getMaxCompositeBufferComponents());
             pipeline.addLast("server-aggregator", httpObjectAggregator);
         }
-        if (nettyHttpServerConfig.isChunkedWriteEnabled()) {
-            pipeline.addLast("server-chunked-write", new ChunkedWriteHandler());
-        }
+        // always present, for file bodies that are too large for a buffer
+        pipeline.addLast("server-chunked-write", new ChunkedWriteHandler());
+        channel.attr(NettyHttpServerConfig.ATTRIBUTE_CHUNKED_WRITE).set(nettyHttpServerConfig.isChunkedWriteEnabled());
         if (nettyHttpServerConfig.isFileUploadEnabled()) {
             HttpFileUploadHandler httpFileUploadHandler = new HttpFileUploadHandler(server);
             pipeline.addLast("server-file-upload", httpFileUploadHandler);
@@ -3,18 +3,41 @@ package org.xbib.net.http.server.netty.http1;
 import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.util.ReferenceCountUtil;
 import io.netty.util.ReferenceCounted;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class HttpPipelinedResponse implements ReferenceCounted, Comparable<HttpPipelinedResponse> {
 
-    private final FullHttpResponse response;
+    private static final Logger logger = Logger.getLogger(HttpPipelinedResponse.class.getName());
+
+    private final HttpResponse response;
+
+    private final List<Object> contents;
 
     private final ChannelPromise promise;
 
     private final int sequenceId;
 
     public HttpPipelinedResponse(FullHttpResponse response, ChannelPromise promise, int sequenceId) {
+        this(response, List.of(), promise, sequenceId);
+    }
+
+    /**
+     * A pipelined response with a head and body messages that are written after the head,
+     * for example a file region followed by the last HTTP content, or a chunked input.
+     *
+     * @param response the response head
+     * @param contents the body messages
+     * @param promise the promise, completed when the last message is written
+     * @param sequenceId the sequence ID of the request
+     */
+    public HttpPipelinedResponse(HttpResponse response, List<Object> contents, ChannelPromise promise, int sequenceId) {
         this.response = response;
+        this.contents = contents;
         this.promise = promise;
         this.sequenceId = sequenceId;
     }
@@ -27,6 +50,10 @@ public class HttpPipelinedResponse implements ReferenceCounted, Comparable<HttpP
         return response;
     }
 
+    public List<Object> getContents() {
+        return contents;
+    }
+
     public ChannelPromise getPromise() {
         return promise;
     }
@@ -38,40 +65,56 @@ public class HttpPipelinedResponse implements ReferenceCounted, Comparable<HttpP
 
     @Override
     public int refCnt() {
-        return response.refCnt();
+        return response instanceof ReferenceCounted ? ((ReferenceCounted) response).refCnt() : 1;
     }
 
     @Override
     public ReferenceCounted retain() {
-        response.retain();
+        ReferenceCountUtil.retain(response);
         return this;
     }
 
     @Override
     public ReferenceCounted retain(int increment) {
-        response.retain(increment);
+        ReferenceCountUtil.retain(response, increment);
         return this;
     }
 
     @Override
     public ReferenceCounted touch() {
-        response.touch();
+        ReferenceCountUtil.touch(response);
         return this;
     }
 
     @Override
     public ReferenceCounted touch(Object hint) {
-        response.touch(hint);
+        ReferenceCountUtil.touch(response, hint);
         return this;
     }
 
     @Override
     public boolean release() {
-        return response.release();
+        releaseContents();
+        return ReferenceCountUtil.release(response);
     }
 
     @Override
     public boolean release(int decrement) {
-        return response.release(decrement);
+        releaseContents();
+        return ReferenceCountUtil.release(response, decrement);
+    }
+
+    private void releaseContents() {
+        for (Object content : contents) {
+            if (content instanceof ChunkedInput) {
+                try {
+                    ((ChunkedInput<?>) content).close();
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, e.getMessage(), e);
+                }
+            } else {
+                ReferenceCountUtil.release(content);
+            }
+        }
     }
 }
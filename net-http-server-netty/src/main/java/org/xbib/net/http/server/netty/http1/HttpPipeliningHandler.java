@@ -4,13 +4,12 @@ import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.concurrent.PromiseNotifier;
 
 import java.nio.channels.ClosedChannelException;
+import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Queue;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -21,6 +20,10 @@ import java.util.logging.Logger;
  * Based on <a href="https://github.com/typesafehub/netty-http-pipelining">https://github.com/typesafehub/netty-http-pipelining</a>
  * which uses Netty3.
  *
+ * A handler instance belongs to exactly one channel. Sequence numbers are counted per channel, and all state is
+ * confined to the channel's event loop, so no locking is required. Responses that are written from other threads
+ * are handed over to the event loop by Netty before they reach this handler.
+ *
  * WARNING: this only works if there are no pipeline interuptions, for example by exceptions that force connection close.
  * In that case, the responses will be generated but can not be written. It looks like no message reaches the network.
  * This could be a bug.
@@ -31,13 +34,11 @@ public class HttpPipeliningHandler extends ChannelDuplexHandler {
 
     private final int pipelineCapacity;
 
-    private final Lock lock;
-
     private final Queue<HttpPipelinedResponse> httpPipelinedResponses;
 
-    private static final AtomicInteger sequenceIdCounter = new AtomicInteger(0);
+    private int sequenceIdCounter;
 
-    private static final AtomicInteger writtenRequests = new AtomicInteger(0);
+    private int writtenRequests;
 
     /**
      * @param pipelineCapacity the maximum number of channel events that will be retained prior to aborting the channel
@@ -45,16 +46,14 @@ public class HttpPipeliningHandler extends ChannelDuplexHandler {
      *                      memory if this was the case.
      */
     public HttpPipeliningHandler(int pipelineCapacity) {
-
         this.pipelineCapacity = pipelineCapacity;
-        this.lock = new ReentrantLock();
         this.httpPipelinedResponses = new PriorityQueue<>(1);
     }
 
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) {
         if (msg instanceof LastHttpContent) {
-            ctx.fireChannelRead(new HttpPipelinedRequest((LastHttpContent) msg, sequenceIdCounter.getAndIncrement()));
+            ctx.fireChannelRead(new HttpPipelinedRequest((LastHttpContent) msg, sequenceIdCounter++));
         } else {
             ctx.fireChannelRead(msg);
         }
@@ -62,30 +61,20 @@ public class HttpPipeliningHandler extends ChannelDuplexHandler {
 
     @Override
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
-        if (msg instanceof HttpPipelinedResponse) {
-            boolean channelShouldClose = false;
-            lock.lock();
-            try {
-                if (httpPipelinedResponses.size() < pipelineCapacity) {
-                    HttpPipelinedResponse httpPipelinedResponse = (HttpPipelinedResponse) msg;
-                    httpPipelinedResponses.add(httpPipelinedResponse);
-                    while (!httpPipelinedResponses.isEmpty()) {
-                        HttpPipelinedResponse queuedPipelinedResponse = httpPipelinedResponses.peek();
-                        if (queuedPipelinedResponse.getSequenceId() != writtenRequests.get()) {
-                            break;
-                        }
-                        httpPipelinedResponses.remove();
-                        super.write(ctx, queuedPipelinedResponse.getResponse(), queuedPipelinedResponse.getPromise());
-                        writtenRequests.getAndIncrement();
-                    }
-                } else {
-                    logger.log(Level.WARNING, "pipeline capacity exceeded, closing channel");
-                    channelShouldClose = true;
-                }
-            } finally {
-                lock.unlock();
-            }
-            if (channelShouldClose) {
+        if (msg instanceof HttpPipelinedResponse httpPipelinedResponse) {
+            // the caller waits on the promise of the ctx.write() call, complete it with the pipelined write
+            httpPipelinedResponse.getPromise().addListener(new PromiseNotifier<>(promise.unvoid()));
+            if (httpPipelinedResponse.getSequenceId() == writtenRequests) {
+                // fast path: the response is next in line, no need to queue it
+                write(ctx, httpPipelinedResponse);
+                writtenRequests++;
+                drain(ctx);
+            } else if (httpPipelinedResponses.size() < pipelineCapacity) {
+                httpPipelinedResponses.add(httpPipelinedResponse);
+            } else {
+                logger.log(Level.WARNING, "pipeline capacity exceeded, closing channel");
+                httpPipelinedResponse.release();
+                httpPipelinedResponse.getPromise().tryFailure(new IllegalStateException("pipeline capacity exceeded"));
                 ctx.close();
             }
         } else {
@@ -93,6 +82,28 @@ public class HttpPipeliningHandler extends ChannelDuplexHandler {
         }
     }
 
+    private void drain(ChannelHandlerContext ctx) throws Exception {
+        HttpPipelinedResponse queuedPipelinedResponse;
+        while ((queuedPipelinedResponse = httpPipelinedResponses.peek()) != null &&
+                queuedPipelinedResponse.getSequenceId() == writtenRequests) {
+            httpPipelinedResponses.remove();
+            write(ctx, queuedPipelinedResponse);
+            writtenRequests++;
+        }
+    }
+
+    private void write(ChannelHandlerContext ctx, HttpPipelinedResponse httpPipelinedResponse) throws Exception {
+        List<Object> contents = httpPipelinedResponse.getContents();
+        if (contents.isEmpty()) {
+            super.write(ctx, httpPipelinedResponse.getResponse(), httpPipelinedResponse.getPromise());
+            return;
+        }
+        super.write(ctx, httpPipelinedResponse.getResponse(), ctx.newPromise());
+        for (int i = 0; i < contents.size(); i++) {
+            super.write(ctx, contents.get(i), i == contents.size() - 1 ? httpPipelinedResponse.getPromise() : ctx.newPromise());
+        }
+    }
+
     @Override
     public void close(ChannelHandlerContext ctx, ChannelPromise promise) {
         if (!httpPipelinedResponses.isEmpty()) {
@@ -101,7 +112,7 @@ public class HttpPipeliningHandler extends ChannelDuplexHandler {
             while ((pipelinedResponse = httpPipelinedResponses.poll()) != null) {
                 try {
                     pipelinedResponse.release();
-                    pipelinedResponse.getPromise().setFailure(closedChannelException);
+                    pipelinedResponse.getPromise().tryFailure(closedChannelException);
                 } catch (Exception e) {
                     logger.log(Level.SEVERE, "unexpected error while releasing pipelined http responses", e);
                 }
@@ -0,0 +1,141 @@
+package org.xbib.net.http.netty.test;
+
+import io.netty.bootstrap.Bootstrap;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.xbib.net.NetworkClass;
+import org.xbib.net.URL;
+import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpHeaderNames;
+import org.xbib.net.http.HttpMethod;
+import org.xbib.net.http.HttpResponseStatus;
+import org.xbib.net.http.client.netty.HttpRequest;
+import org.xbib.net.http.client.netty.NettyHttpClient;
+import org.xbib.net.http.client.netty.NettyHttpClientConfig;
+import org.xbib.net.http.server.application.BaseApplication;
+import org.xbib.net.http.server.domain.BaseHttpDomain;
+import org.xbib.net.http.server.executor.BaseExecutor;
+import org.xbib.net.http.server.netty.NettyHttpServer;
+import org.xbib.net.http.server.netty.NettyHttpServerConfig;
+import org.xbib.net.http.server.resource.FileResourceHandler;
+import org.xbib.net.http.server.route.BaseHttpRouter;
+import org.xbib.net.http.server.route.HttpRouter;
+import org.xbib.net.http.server.service.BaseHttpService;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NettyHttpServerFileRegionTest {
+
+    private static final Logger logger = Logger.getLogger(NettyHttpServerFileRegionTest.class.getName());
+
+    @Test
+    public void testFileRegion() throws Exception {
+        Path home = Files.createTempDirectory("fileregion");
+        byte[] content = new byte[256 * 1024];
+        new Random(42L).nextBytes(content);
+        Files.write(Files.createDirectories(home.resolve("static")).resolve("file.bin"), content);
+        URL url = URL.from("http://localhost:8008/static/file.bin");
+        HttpAddress httpAddress = HttpAddress.http1(url);
+        NettyHttpServerConfig nettyHttpServerConfig = new NettyHttpServerConfig();
+        nettyHttpServerConfig.setServerName("NettyHttpServer",
+                Bootstrap.class.getPackage().getImplementationVersion());
+        nettyHttpServerConfig.setNetworkClass(NetworkClass.LOCAL);
+        HttpRouter router = BaseHttpRouter.builder()
+                .addDomain(BaseHttpDomain.builder()
+                        .setHttpAddress(httpAddress)
+                        .addService(BaseHttpService.builder()
+                                .setMethod(HttpMethod.GET)
+                                .setPath("/static/**")
+                                .setHandler(new FileResourceHandler())
+                                .build())
+                        .build())
+                .build();
+        try (NettyHttpServer server = NettyHttpServer.builder()
+                .setHttpServerConfig(nettyHttpServerConfig)
+                .setApplication(BaseApplication.builder()
+                        .setHome(home)
+                        .setExecutor(BaseExecutor.builder().build())
+                        .setRouter(router)
+                        .build())
+                .build()) {
+            server.bind();
+            try (NettyHttpClient client = NettyHttpClient.builder()
+                    .setConfig(new NettyHttpClientConfig())
+                    .build()) {
+                AtomicReference<HttpResponseStatus> status = new AtomicReference<>();
+                AtomicReference<byte[]> body = new AtomicReference<>();
+                HttpRequest request = HttpRequest.get()
+                        .setURL(url)
+                        .setResponseListener(resp -> {
+                            logger.log(Level.INFO, "got response: status = " + resp.getStatus() +
+                                    " header = " + resp.getHeaders());
+                            status.set(resp.getStatus());
+                            body.set(toBytes(resp.getBody()));
+                        })
+                        .build();
+                client.execute(request).get().close();
+                assertEquals(HttpResponseStatus.OK, status.get());
+                assertArrayEquals(content, body.get());
+                request = HttpRequest.get()
+                        .setURL(url)
+                        .addHeader(HttpHeaderNames.RANGE, "bytes=1024-4095")
+                        .setResponseListener(resp -> {
+                            logger.log(Level.INFO, "got response: status = " + resp.getStatus() +
+                                    " header = " + resp.getHeaders());
+                            status.set(resp.getStatus());
+                            body.set(toBytes(resp.getBody()));
+                        })
+                        .build();
+                client.execute(request).get().close();
+                assertEquals(HttpResponseStatus.PARTIAL_CONTENT, status.get());
+                assertArrayEquals(Arrays.copyOfRange(content, 1024, 4096), body.get());
+                AtomicReference<String> contentLength = new AtomicReference<>();
+                request = HttpRequest.get()
+                        .setURL(url)
+                        .addHeader(HttpHeaderNames.RANGE, "bytes=0-99,8192-16383")
+                        .setResponseListener(resp -> {
+                            logger.log(Level.INFO, "got response: status = " + resp.getStatus() +
+                                    " header = " + resp.getHeaders());
+                            status.set(resp.getStatus());
+                            contentLength.set(resp.getHeaders().get(HttpHeaderNames.CONTENT_LENGTH));
+                            body.set(toBytes(resp.getBody()));
+                        })
+                        .build();
+                client.execute(request).get().close();
+                assertEquals(HttpResponseStatus.PARTIAL_CONTENT, status.get());
+                assertEquals(Long.parseLong(contentLength.get()), body.get().length);
+                String multipart = new String(body.get(), StandardCharsets.ISO_8859_1);
+                String part1 = "content-range: bytes 0-99/" + content.length + "\r\n\r\n";
+                String part2 = "content-range: bytes 8192-16383/" + content.length + "\r\n\r\n";
+                int pos1 = multipart.indexOf(part1) + part1.length();
+                int pos2 = multipart.indexOf(part2) + part2.length();
+                assertArrayEquals(Arrays.copyOfRange(content, 0, 100),
+                        Arrays.copyOfRange(body.get(), pos1, pos1 + 100));
+                assertArrayEquals(Arrays.copyOfRange(content, 8192, 16384),
+                        Arrays.copyOfRange(body.get(), pos2, pos2 + 8192));
+                assertTrue(multipart.endsWith("\r\n--MULTIPART_BOUNDARY--\r\n"));
+            }
+        } finally {
+            try (Stream<Path> stream = Files.walk(home)) {
+                stream.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    private static byte[] toBytes(ByteBuffer byteBuffer) {
+        byte[] b = new byte[byteBuffer.remaining()];
+        byteBuffer.get(b);
+        return b;
+    }
+}
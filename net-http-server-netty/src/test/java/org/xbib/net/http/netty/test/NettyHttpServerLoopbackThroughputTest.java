@@ -0,0 +1,203 @@
+package org.xbib.net.http.netty.test;
+
+import io.netty.bootstrap.Bootstrap;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.jupiter.api.Test;
+import org.xbib.net.NetworkClass;
+import org.xbib.net.URL;
+import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpHeaderNames;
+import org.xbib.net.http.HttpHeaderValues;
+import org.xbib.net.http.HttpMethod;
+import org.xbib.net.http.HttpResponseStatus;
+import org.xbib.net.http.server.application.BaseApplication;
+import org.xbib.net.http.server.domain.BaseHttpDomain;
+import org.xbib.net.http.server.executor.BaseExecutor;
+import org.xbib.net.http.server.netty.NettyHttpServer;
+import org.xbib.net.http.server.netty.NettyHttpServerConfig;
+import org.xbib.net.http.server.route.BaseHttpRouter;
+import org.xbib.net.http.server.route.HttpRouter;
+import org.xbib.net.http.server.service.BaseHttpService;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Throughput of small responses over keep-alive connections on the loopback interface, with the heap allocated
+ * per request in the JVM, and the number of socket reads the client needs per response. The head and the body
+ * of a response are written and flushed together, so a response normally arrives with a single read.
+ */
+public class NettyHttpServerLoopbackThroughputTest {
+
+    private static final Logger logger = Logger.getLogger(NettyHttpServerLoopbackThroughputTest.class.getName());
+
+    private static final String BODY = "Hello World";
+
+    private static final int CONNECTIONS = 4;
+
+    private static final int REQUESTS = 5000;
+
+    @Test
+    public void testLoopbackThroughput() throws Exception {
+        URL url = URL.from("http://localhost:8008/");
+        HttpAddress httpAddress = HttpAddress.http1(url);
+        NettyHttpServerConfig nettyHttpServerConfig = new NettyHttpServerConfig();
+        nettyHttpServerConfig.setServerName("NettyHttpServer",
+                Bootstrap.class.getPackage().getImplementationVersion());
+        nettyHttpServerConfig.setNetworkClass(NetworkClass.LOCAL);
+        HttpRouter router = BaseHttpRouter.builder()
+                .addDomain(BaseHttpDomain.builder()
+                        .setHttpAddress(httpAddress)
+                        .addService(BaseHttpService.builder()
+                                .setMethod(HttpMethod.GET)
+                                .setPath("/hello")
+                                .setHandler(ctx -> ctx.status(HttpResponseStatus.OK)
+                                        .header(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN)
+                                        .charset(StandardCharsets.UTF_8)
+                                        .body(BODY))
+                                .build())
+                        .build())
+                .build();
+        try (NettyHttpServer server = NettyHttpServer.builder()
+                .setHttpServerConfig(nettyHttpServerConfig)
+                .setApplication(BaseApplication.builder()
+                        .setExecutor(BaseExecutor.builder().build())
+                        .setRouter(router)
+                        .build())
+                .build()) {
+            server.bind();
+            // warm up
+            run(REQUESTS / 10);
+            long allocatedBytes = getAllocatedBytes();
+            long start = System.nanoTime();
+            Result result = run(REQUESTS);
+            long nanos = System.nanoTime() - start;
+            allocatedBytes = getAllocatedBytes() - allocatedBytes;
+            long requests = (long) CONNECTIONS * REQUESTS;
+            logger.log(Level.INFO, String.format(Locale.ROOT,
+                    "%d requests, %.0f requests/s, %d bytes allocated/request, %.2f reads/response",
+                    requests, requests * 1.0e9 / nanos, allocatedBytes / requests,
+                    (double) result.reads / result.responses));
+            assertEquals(requests, result.responses);
+            assertEquals(requests, result.ok);
+            assertTrue(result.reads < 2L * result.responses, "reads = " + result.reads);
+        }
+    }
+
+    private static Result run(int requests) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(CONNECTIONS);
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (int i = 0; i < CONNECTIONS; i++) {
+                futures.add(executorService.submit(() -> get(requests)));
+            }
+            Result result = new Result();
+            for (Future<Result> future : futures) {
+                Result r = future.get();
+                result.responses += r.responses;
+                result.ok += r.ok;
+                result.reads += r.reads;
+            }
+            return result;
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * Send requests one after another on a keep-alive connection, and count the socket reads of the responses.
+     */
+    private static Result get(int requests) throws IOException {
+        Result result = new Result();
+        byte[] request = "GET /hello HTTP/1.1\r\nHost: localhost:8008\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+        byte[] buffer = new byte[16384];
+        try (Socket socket = new Socket("localhost", 8008)) {
+            socket.setTcpNoDelay(true);
+            OutputStream outputStream = socket.getOutputStream();
+            InputStream inputStream = socket.getInputStream();
+            for (int i = 0; i < requests; i++) {
+                outputStream.write(request);
+                outputStream.flush();
+                int length = 0;
+                int headLength = -1;
+                int contentLength = -1;
+                while (headLength < 0 || length < headLength + contentLength) {
+                    int n = inputStream.read(buffer, length, buffer.length - length);
+                    if (n < 0) {
+                        return result;
+                    }
+                    result.reads++;
+                    length += n;
+                    if (headLength < 0) {
+                        headLength = indexOfEndOfHead(buffer, length);
+                        if (headLength >= 0) {
+                            contentLength = getContentLength(new String(buffer, 0, headLength, StandardCharsets.US_ASCII));
+                        }
+                    }
+                }
+                result.responses++;
+                String head = new String(buffer, 0, headLength, StandardCharsets.US_ASCII);
+                String body = new String(buffer, headLength, contentLength, StandardCharsets.UTF_8);
+                if (head.startsWith("HTTP/1.1 200") && BODY.equals(body)) {
+                    result.ok++;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static int indexOfEndOfHead(byte[] buffer, int length) {
+        for (int i = 3; i < length; i++) {
+            if (buffer[i - 3] == '\r' && buffer[i - 2] == '\n' && buffer[i - 1] == '\r' && buffer[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int getContentLength(String head) {
+        for (String line : head.split("\r\n")) {
+            int pos = line.indexOf(':');
+            if (pos > 0 && line.substring(0, pos).trim().equalsIgnoreCase("content-length")) {
+                return Integer.parseInt(line.substring(pos + 1).trim());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * The heap allocated by all live threads of the JVM so far.
+     */
+    private static long getAllocatedBytes() {
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long sum = 0L;
+        for (long allocatedBytes : threadMXBean.getThreadAllocatedBytes(threadMXBean.getAllThreadIds())) {
+            if (allocatedBytes > 0L) {
+                sum += allocatedBytes;
+            }
+        }
+        return sum;
+    }
+
+    private static class Result {
+
+        private long responses;
+
+        private long ok;
+
+        private long reads;
+    }
+}
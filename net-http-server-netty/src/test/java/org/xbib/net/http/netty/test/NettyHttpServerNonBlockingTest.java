@@ -0,0 +1,107 @@
+package org.xbib.net.http.netty.test;
+
+import io.netty.bootstrap.Bootstrap;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.jupiter.api.Test;
+import org.xbib.net.NetworkClass;
+import org.xbib.net.URL;
+import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpHeaderNames;
+import org.xbib.net.http.HttpHeaderValues;
+import org.xbib.net.http.HttpResponseStatus;
+import org.xbib.net.http.client.netty.HttpRequest;
+import org.xbib.net.http.client.netty.NettyHttpClient;
+import org.xbib.net.http.client.netty.NettyHttpClientConfig;
+import org.xbib.net.http.server.application.BaseApplication;
+import org.xbib.net.http.server.domain.BaseHttpDomain;
+import org.xbib.net.http.server.executor.BaseExecutor;
+import org.xbib.net.http.server.netty.NettyHttpServer;
+import org.xbib.net.http.server.netty.NettyHttpServerConfig;
+import org.xbib.net.http.server.route.BaseHttpRouter;
+import org.xbib.net.http.server.route.HttpRouter;
+import org.xbib.net.http.server.service.BaseHttpService;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NettyHttpServerNonBlockingTest {
+
+    private static final Logger logger = Logger.getLogger(NettyHttpServerNonBlockingTest.class.getName());
+
+    private static final String EXECUTOR_THREAD_PREFIX = "test-executor";
+
+    @Test
+    public void testNonBlockingServiceRunsOnEventLoop() throws Exception {
+        URL url = URL.from("http://localhost:8008/");
+        HttpAddress httpAddress = HttpAddress.http1(url);
+        NettyHttpServerConfig serverConfig = new NettyHttpServerConfig();
+        serverConfig.setServerName("NettyHttpServer", Bootstrap.class.getPackage().getImplementationVersion());
+        serverConfig.setNetworkClass(NetworkClass.LOCAL);
+        serverConfig.setNonBlockingDispatchEnabled(true);
+        AtomicReference<String> threadName = new AtomicReference<>();
+        HttpRouter router = BaseHttpRouter.builder()
+                .addDomain(BaseHttpDomain.builder()
+                        .setHttpAddress(httpAddress)
+                        .addService(BaseHttpService.builder()
+                                .setPath("/health")
+                                .setNonBlocking(true)
+                                .setHandler(ctx -> {
+                                    threadName.set(Thread.currentThread().getName());
+                                    ctx.status(HttpResponseStatus.OK)
+                                            .header(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN)
+                                            .charset(StandardCharsets.UTF_8)
+                                            .body("ok")
+                                            .done();
+                                })
+                                .build())
+                        .addService(BaseHttpService.builder()
+                                .setPath("/blocking")
+                                .setHandler(ctx -> {
+                                    threadName.set(Thread.currentThread().getName());
+                                    ctx.status(HttpResponseStatus.OK)
+                                            .header(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN)
+                                            .charset(StandardCharsets.UTF_8)
+                                            .body("ok")
+                                            .done();
+                                })
+                                .build())
+                        .build())
+                .build();
+        try (NettyHttpServer server = NettyHttpServer.builder()
+                .setHttpServerConfig(serverConfig)
+                .setApplication(BaseApplication.builder()
+                        .setExecutor(BaseExecutor.builder()
+                                .setThreadPrefix(EXECUTOR_THREAD_PREFIX)
+                                .build())
+                        .setSessionsEnabled(false)
+                        .setRouter(router)
+                        .build())
+                .build()) {
+            server.bind();
+            try (NettyHttpClient client = NettyHttpClient.builder()
+                    .setConfig(new NettyHttpClientConfig())
+                    .build()) {
+                AtomicReference<HttpResponseStatus> status = new AtomicReference<>();
+                HttpRequest request = HttpRequest.get()
+                        .setURL(url.resolve("/health"))
+                        .setResponseListener(resp -> status.set(resp.getStatus()))
+                        .build();
+                client.execute(request).get().close();
+                logger.log(Level.INFO, "non-blocking service ran on " + threadName.get());
+                assertEquals(HttpResponseStatus.OK, status.get());
+                assertFalse(threadName.get().startsWith(EXECUTOR_THREAD_PREFIX));
+                request = HttpRequest.get()
+                        .setURL(url.resolve("/blocking"))
+                        .setResponseListener(resp -> status.set(resp.getStatus()))
+                        .build();
+                client.execute(request).get().close();
+                logger.log(Level.INFO, "blocking service ran on " + threadName.get());
+                assertEquals(HttpResponseStatus.OK, status.get());
+                assertTrue(threadName.get().startsWith(EXECUTOR_THREAD_PREFIX));
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.xbib.net.http.netty.test;
+
+import io.netty.bootstrap.Bootstrap;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.jupiter.api.Test;
+import org.xbib.net.NetworkClass;
+import org.xbib.net.URL;
+import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpHeaderNames;
+import org.xbib.net.http.HttpHeaderValues;
+import org.xbib.net.http.HttpResponseStatus;
+import org.xbib.net.http.server.application.BaseApplication;
+import org.xbib.net.http.server.domain.BaseHttpDomain;
+import org.xbib.net.http.server.executor.BaseExecutor;
+import org.xbib.net.http.server.netty.NettyHttpServer;
+import org.xbib.net.http.server.netty.NettyHttpServerConfig;
+import org.xbib.net.http.server.route.BaseHttpRouter;
+import org.xbib.net.http.server.route.HttpRouter;
+import org.xbib.net.http.server.service.BaseHttpService;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Many concurrent keep-alive connections, each sending a burst of pipelined requests in a single write.
+ * The handler completes requests in random order, so the server must restore the request order per connection.
+ */
+public class NettyHttpServerPipeliningLoadTest {
+
+    private static final Logger logger = Logger.getLogger(NettyHttpServerPipeliningLoadTest.class.getName());
+
+    private static final int CONNECTIONS = 32;
+
+    private static final int ROUNDS = 16;
+
+    private static final int PIPELINE_DEPTH = 16;
+
+    @Test
+    public void testPipeliningLoad() throws Exception {
+        URL url = URL.from("http://localhost:8008/pipelined");
+        HttpAddress httpAddress = HttpAddress.http1(url);
+        NettyHttpServerConfig serverConfig = new NettyHttpServerConfig();
+        serverConfig.setServerName("NettyHttpServer", Bootstrap.class.getPackage().getImplementationVersion());
+        serverConfig.setNetworkClass(NetworkClass.LOCAL);
+        serverConfig.setPipelining(true);
+        HttpRouter router = BaseHttpRouter.builder()
+                .addDomain(BaseHttpDomain.builder()
+                        .setHttpAddress(httpAddress)
+                        .addService(BaseHttpService.builder()
+                                .setPath("/pipelined/**")
+                                .setHandler(ctx -> {
+                                    // let later requests overtake earlier ones
+                                    LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(2000000L));
+                                    ctx.status(HttpResponseStatus.OK)
+                                            .header(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN)
+                                            .charset(StandardCharsets.UTF_8)
+                                            .body(ctx.getRequest().getRequestPath())
+                                            .done();
+                                })
+                                .build())
+                        .build())
+                .build();
+        try (NettyHttpServer server = NettyHttpServer.builder()
+                .setHttpServerConfig(serverConfig)
+                .setApplication(BaseApplication.builder()
+                        .setExecutor(BaseExecutor.builder().build())
+                        .setRouter(router)
+                        .build())
+                .build()) {
+            server.bind();
+            ExecutorService clients = Executors.newFixedThreadPool(CONNECTIONS);
+            try {
+                long start = System.nanoTime();
+                List<Future<long[]>> futures = new ArrayList<>();
+                for (int c = 0; c < CONNECTIONS; c++) {
+                    int connection = c;
+                    futures.add(clients.submit(() -> runConnection(url, connection)));
+                }
+                long[] latencies = new long[CONNECTIONS * ROUNDS * PIPELINE_DEPTH];
+                int n = 0;
+                for (Future<long[]> future : futures) {
+                    long[] l = future.get(60L, TimeUnit.SECONDS);
+                    System.arraycopy(l, 0, latencies, n, l.length);
+                    n += l.length;
+                }
+                long elapsed = System.nanoTime() - start;
+                assertEquals(latencies.length, n);
+                Arrays.sort(latencies);
+                logger.log(Level.INFO, String.format(Locale.ROOT,
+                        "%d connections, %d pipelined requests: %.0f req/s, latency p50 = %.2f ms, p99 = %.2f ms, p999 = %.2f ms, max = %.2f ms",
+                        CONNECTIONS, n, n * 1.0e9 / elapsed,
+                        percentile(latencies, 0.50), percentile(latencies, 0.99),
+                        percentile(latencies, 0.999), latencies[latencies.length - 1] / 1.0e6));
+            } finally {
+                clients.shutdownNow();
+            }
+        }
+    }
+
+    private static long[] runConnection(URL url, int connection) throws IOException {
+        long[] latencies = new long[ROUNDS * PIPELINE_DEPTH];
+        try (Socket socket = new Socket(url.getHost(), url.getPort())) {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(30000);
+            OutputStream outputStream = socket.getOutputStream();
+            InputStream inputStream = new BufferedInputStream(socket.getInputStream());
+            for (int round = 0; round < ROUNDS; round++) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < PIPELINE_DEPTH; i++) {
+                    sb.append("GET ").append(url.getPath()).append('/').append(connection).append('/')
+                            .append(round).append('/').append(i).append(" HTTP/1.1\r\n")
+                            .append("Host: ").append(url.getHost()).append(':').append(url.getPort()).append("\r\n")
+                            .append("\r\n");
+                }
+                long sent = System.nanoTime();
+                outputStream.write(sb.toString().getBytes(StandardCharsets.US_ASCII));
+                outputStream.flush();
+                for (int i = 0; i < PIPELINE_DEPTH; i++) {
+                    String body = readResponse(inputStream);
+                    latencies[round * PIPELINE_DEPTH + i] = System.nanoTime() - sent;
+                    assertEquals(url.getPath() + "/" + connection + "/" + round + "/" + i, body);
+                }
+            }
+        }
+        return latencies;
+    }
+
+    private static String readResponse(InputStream inputStream) throws IOException {
+        String statusLine = readLine(inputStream);
+        assertEquals("HTTP/1.1 200 OK", statusLine);
+        int contentLength = -1;
+        String line;
+        while (!(line = readLine(inputStream)).isEmpty()) {
+            int pos = line.indexOf(':');
+            if (pos > 0 && line.substring(0, pos).trim().equalsIgnoreCase("content-length")) {
+                contentLength = Integer.parseInt(line.substring(pos + 1).trim());
+            }
+        }
+        if (contentLength < 0) {
+            throw new IOException("no content length");
+        }
+        byte[] b = inputStream.readNBytes(contentLength);
+        if (b.length < contentLength) {
+            throw new IOException("unexpected end of stream");
+        }
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static String readLine(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int ch;
+        while ((ch = inputStream.read()) != '\n') {
+            if (ch < 0) {
+                throw new IOException("unexpected end of stream");
+            }
+            if (ch != '\r') {
+                line.write(ch);
+            }
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1.0e6;
+    }
+}
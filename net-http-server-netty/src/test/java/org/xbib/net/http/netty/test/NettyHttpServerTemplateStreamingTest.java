@@ -0,0 +1,312 @@
+package org.xbib.net.http.netty.test;
+
+import groovy.lang.Writable;
+import groovy.text.Template;
+import groovy.text.markup.MarkupTemplateEngine;
+import io.netty.bootstrap.Bootstrap;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.jupiter.api.Test;
+import org.xbib.net.NetworkClass;
+import org.xbib.net.URL;
+import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpMethod;
+import org.xbib.net.http.server.HttpHandler;
+import org.xbib.net.http.server.application.BaseApplication;
+import org.xbib.net.http.server.domain.BaseHttpDomain;
+import org.xbib.net.http.server.executor.BaseExecutor;
+import org.xbib.net.http.server.netty.NettyHttpServer;
+import org.xbib.net.http.server.netty.NettyHttpServerConfig;
+import org.xbib.net.http.server.route.BaseHttpRouter;
+import org.xbib.net.http.server.route.HttpRouter;
+import org.xbib.net.http.server.service.BaseHttpService;
+import org.xbib.net.http.template.groovy.GroovyTemplateRenderer;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Time to first byte and peak heap of a 5 MB template page, streamed and buffered. The first byte of a streamed
+ * page reaches the client before the template has finished, the first byte of a buffered page only after.
+ */
+public class NettyHttpServerTemplateStreamingTest {
+
+    private static final Logger logger = Logger.getLogger(NettyHttpServerTemplateStreamingTest.class.getName());
+
+    private static final int ROWS = 50000;
+
+    @Test
+    public void testStreaming() throws Exception {
+        Template template = new MarkupTemplateEngine()
+                .createTemplate("html { body { rows.each { row -> p(row) } } }");
+        List<String> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(String.format(Locale.ROOT, "%08d", i) + "x".repeat(92));
+        }
+        Map<String, Object> model = Map.of("rows", rows);
+        long pageLength = render(template, model);
+        assertTrue(pageLength > 5L * 1000L * 1000L);
+        URL url = URL.from("http://localhost:8008/");
+        HttpAddress httpAddress = HttpAddress.http1(url);
+        NettyHttpServerConfig nettyHttpServerConfig = new NettyHttpServerConfig();
+        nettyHttpServerConfig.setServerName("NettyHttpServer",
+                Bootstrap.class.getPackage().getImplementationVersion());
+        nettyHttpServerConfig.setNetworkClass(NetworkClass.LOCAL);
+        nettyHttpServerConfig.setChunkWriteEnabled(true);
+        HttpRouter router = BaseHttpRouter.builder()
+                .addDomain(BaseHttpDomain.builder()
+                        .setHttpAddress(httpAddress)
+                        .addService(BaseHttpService.builder()
+                                .setMethod(HttpMethod.GET)
+                                .setPath("/stream")
+                                .setHandler(createHandler(template, model, true))
+                                .build())
+                        .addService(BaseHttpService.builder()
+                                .setMethod(HttpMethod.GET)
+                                .setPath("/buffered")
+                                .setHandler(createHandler(template, model, false))
+                                .build())
+                        .build())
+                .build();
+        try (NettyHttpServer server = NettyHttpServer.builder()
+                .setHttpServerConfig(nettyHttpServerConfig)
+                .setApplication(BaseApplication.builder()
+                        .setExecutor(BaseExecutor.builder().build())
+                        .setRouter(router)
+                        .build())
+                .build()) {
+            server.bind();
+            // warm up
+            get("/stream");
+            get("/buffered");
+            Result streamed = get("/stream");
+            Result buffered = get("/buffered");
+            logger.log(Level.INFO, "streamed: " + streamed);
+            logger.log(Level.INFO, "buffered: " + buffered);
+            assertTrue(streamed.head.contains("transfer-encoding: chunked"), streamed.head);
+            assertTrue(streamed.endsWithLastChunk);
+            assertTrue(streamed.bodyLength > pageLength);
+            assertTrue(buffered.head.contains("content-length: " + pageLength), buffered.head);
+            assertEquals(pageLength, buffered.bodyLength);
+        }
+    }
+
+    @Test
+    public void testFirstByteBeforeTemplateFinishes() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicBoolean finished = new AtomicBoolean();
+        // more output than the buffer size, then wait for the client before the template finishes
+        Writable writable = new Writable() {
+            @Override
+            public Writer writeTo(Writer out) throws IOException {
+                out.write("x".repeat(65536));
+                out.flush();
+                try {
+                    latch.await(2L, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+                finished.set(true);
+                out.write("end");
+                return out;
+            }
+        };
+        Writable failing = new Writable() {
+            @Override
+            public Writer writeTo(Writer out) throws IOException {
+                out.write("short");
+                throw new IOException("template failed");
+            }
+        };
+        URL url = URL.from("http://localhost:8008/");
+        HttpAddress httpAddress = HttpAddress.http1(url);
+        NettyHttpServerConfig nettyHttpServerConfig = new NettyHttpServerConfig();
+        nettyHttpServerConfig.setServerName("NettyHttpServer",
+                Bootstrap.class.getPackage().getImplementationVersion());
+        nettyHttpServerConfig.setNetworkClass(NetworkClass.LOCAL);
+        nettyHttpServerConfig.setChunkWriteEnabled(true);
+        HttpRouter router = BaseHttpRouter.builder()
+                .addDomain(BaseHttpDomain.builder()
+                        .setHttpAddress(httpAddress)
+                        .addService(BaseHttpService.builder()
+                                .setMethod(HttpMethod.GET)
+                                .setPath("/stream")
+                                .setHandler(createHandler(writable, true))
+                                .build())
+                        .addService(BaseHttpService.builder()
+                                .setMethod(HttpMethod.GET)
+                                .setPath("/buffered")
+                                .setHandler(createHandler(writable, false))
+                                .build())
+                        .addService(BaseHttpService.builder()
+                                .setMethod(HttpMethod.GET)
+                                .setPath("/failing")
+                                .setHandler(createHandler(failing, true))
+                                .build())
+                        .build())
+                .build();
+        try (NettyHttpServer server = NettyHttpServer.builder()
+                .setHttpServerConfig(nettyHttpServerConfig)
+                .setApplication(BaseApplication.builder()
+                        .setExecutor(BaseExecutor.builder().build())
+                        .setRouter(router)
+                        .build())
+                .build()) {
+            server.bind();
+            boolean[] finishedAtFirstByte = new boolean[1];
+            Result streamed = get("/stream", () -> {
+                finishedAtFirstByte[0] = finished.get();
+                latch.countDown();
+            });
+            assertFalse(finishedAtFirstByte[0]);
+            assertTrue(streamed.head.contains("transfer-encoding: chunked"), streamed.head);
+            assertTrue(streamed.endsWithLastChunk);
+            finished.set(false);
+            Result buffered = get("/buffered", () -> finishedAtFirstByte[0] = finished.get());
+            assertTrue(finishedAtFirstByte[0]);
+            assertTrue(buffered.head.contains("content-length: " + (65536 + 3)), buffered.head);
+            // nothing is sent before the template fails, so the failure is answered with an error page
+            Result failed = get("/failing");
+            assertTrue(failed.head.startsWith("http/1.1 500"), failed.head);
+        }
+    }
+
+    private static HttpHandler createHandler(Template template, Map<String, Object> model, boolean streaming) {
+        GroovyTemplateRenderer renderer = new GroovyTemplateRenderer(streaming, 8192);
+        return ctx -> {
+            ctx.getAttributes().put("writable", template.make(model));
+            renderer.handle(ctx);
+        };
+    }
+
+    private static HttpHandler createHandler(Writable writable, boolean streaming) {
+        GroovyTemplateRenderer renderer = new GroovyTemplateRenderer(streaming, 8192);
+        return ctx -> {
+            ctx.getAttributes().put("writable", writable);
+            renderer.handle(ctx);
+            // the buffered response is sent when the context is closed
+        };
+    }
+
+    private static long render(Template template, Map<String, Object> model) throws IOException {
+        long[] length = new long[1];
+        Writer writer = new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) {
+                length[0] += len;
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        template.make(model).writeTo(writer);
+        return length[0];
+    }
+
+    /**
+     * Read a response from a plain socket and discard the body, so the client does not add to the heap.
+     */
+    private static Result get(String path) throws IOException {
+        return get(path, () -> {});
+    }
+
+    /**
+     * @param onFirstByte called when the first byte of the response has arrived
+     */
+    private static Result get(String path, Runnable onFirstByte) throws IOException {
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+            }
+        }
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        Result result = new Result();
+        try (Socket socket = new Socket("localhost", 8008)) {
+            OutputStream outputStream = socket.getOutputStream();
+            long start = System.nanoTime();
+            outputStream.write(("GET " + path + " HTTP/1.1\r\nHost: localhost:8008\r\nConnection: close\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            outputStream.flush();
+            InputStream inputStream = socket.getInputStream();
+            int b = inputStream.read();
+            result.firstByteNanos = System.nanoTime() - start;
+            onFirstByte.run();
+            ByteArrayOutputStream head = new ByteArrayOutputStream();
+            int state = 0;
+            while (b != -1 && state < 4) {
+                head.write(b);
+                state = (b == '\r' || b == '\n') ? state + 1 : 0;
+                if (state < 4) {
+                    b = inputStream.read();
+                }
+            }
+            result.head = head.toString(StandardCharsets.US_ASCII).toLowerCase(Locale.ROOT);
+            byte[] buffer = new byte[8192];
+            byte[] tail = new byte[5];
+            int n;
+            while ((n = inputStream.read(buffer)) != -1) {
+                result.bodyLength += n;
+                if (n >= tail.length) {
+                    System.arraycopy(buffer, n - tail.length, tail, 0, tail.length);
+                } else {
+                    System.arraycopy(tail, n, tail, 0, tail.length - n);
+                    System.arraycopy(buffer, 0, tail, tail.length - n, n);
+                }
+            }
+            result.totalNanos = System.nanoTime() - start;
+            result.endsWithLastChunk = "0\r\n\r\n".equals(new String(tail, StandardCharsets.US_ASCII));
+        }
+        for (MemoryPoolMXBean pool : heapPools) {
+            result.peakHeapBytes += pool.getPeakUsage().getUsed();
+        }
+        return result;
+    }
+
+    private static class Result {
+
+        private String head;
+
+        private long bodyLength;
+
+        private long firstByteNanos;
+
+        private long totalNanos;
+
+        private long peakHeapBytes;
+
+        private boolean endsWithLastChunk;
+
+        @Override
+        public String toString() {
+            return "[bodyLength=" + bodyLength +
+                    ",firstByteMillis=" + firstByteNanos / 1000000L +
+                    ",totalMillis=" + totalNanos / 1000000L +
+                    ",peakHeapBytes=" + peakHeapBytes + "]";
+        }
+    }
+}
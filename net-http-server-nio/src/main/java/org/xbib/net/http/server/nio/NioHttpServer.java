@@ -2,6 +2,7 @@ package org.xbib.net.http.server.nio;
 
 import java.util.Collection;
 import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
 import org.xbib.net.http.HttpAddress;
 import org.xbib.net.http.HttpHeaderNames;
 import org.xbib.net.http.HttpHeaders;
@@ -34,6 +35,7 @@ import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.xbib.net.http.server.domain.HttpDomain;
+import org.xbib.net.http.server.executor.Executor;
 import org.xbib.net.http.server.route.HttpRouter;
 
 public class NioHttpServer implements HttpServer {
@@ -140,7 +142,12 @@ public class NioHttpServer implements HttpServer {
             router.route(builder.application, requestBuilder, responseBuilder);
             return true;
         };
-        builder.application.getExecutor().execute(callable);
+        Executor executor = builder.application.getExecutor();
+        try {
+            executor.execute(callable);
+        } catch (RejectedExecutionException e) {
+            rejected(requestBuilder, responseBuilder, executor);
+        }
     }
 
     @Override
@@ -153,7 +160,12 @@ public class NioHttpServer implements HttpServer {
             router.routeStatus(responseStatus, httpRouterContext);
             return true;
         };
-        builder.application.getExecutor().execute(callable);
+        Executor executor = builder.application.getExecutor();
+        try {
+            executor.execute(callable);
+        } catch (RejectedExecutionException e) {
+            rejected(requestBuilder, responseBuilder, executor);
+        }
     }
 
     @Override
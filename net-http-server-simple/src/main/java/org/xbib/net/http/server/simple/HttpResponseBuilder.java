@@ -2,10 +2,16 @@ package org.xbib.net.http.server.simple;
 
 import org.xbib.net.buffer.DataBuffer;
 import org.xbib.net.http.server.BaseHttpResponseBuilder;
+import org.xbib.net.http.server.BodyWriter;
+import org.xbib.net.http.server.ChunkedOutputStream;
+import org.xbib.net.http.server.CommittingOutputStream;
+import org.xbib.net.http.server.FileRegion;
+import org.xbib.net.http.server.MultipartFileRegion;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.channels.Channels;
@@ -13,6 +19,7 @@ import java.nio.channels.FileChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -44,10 +51,19 @@ public class HttpResponseBuilder extends BaseHttpResponseBuilder {
                 internalWrite(charBuffer, charset);
             } else if (dataBuffer != null) {
                 internalWrite(dataBuffer);
+            } else if (fileRegion != null) {
+                internalWrite(fileRegion);
+            } else if (multipartFileRegion != null) {
+                internalWrite(multipartFileRegion);
             } else if (fileChannel != null) {
                 internalWrite(fileChannel, bufferSize);
             } else if (inputStream != null) {
                 internalWrite(inputStream, bufferSize);
+            } else if (bodyWriter != null) {
+                // run once, a later build for an error page must not write the body again
+                BodyWriter writer = bodyWriter;
+                bodyWriter = null;
+                internalWrite(writer, bufferSize);
             }
         } catch (IOException e) {
             logger.log(Level.SEVERE, e.getMessage(), e);
@@ -112,6 +128,40 @@ public class HttpResponseBuilder extends BaseHttpResponseBuilder {
         }
     }
 
+    void internalWrite(BodyWriter bodyWriter, int bufferSize) throws IOException {
+        if (!isStreamable()) {
+            internalWrite(bufferBody(bodyWriter));
+            return;
+        }
+        ChunkedOutputStream[] chunkedOutputStream = new ChunkedOutputStream[1];
+        // the head is sent when the output exceeds the buffer size
+        CommittingOutputStream committingOutputStream = new CommittingOutputStream(bufferSize, () -> {
+            super.buildChunkedHeaders();
+            ByteBuffer head = US_ASCII.encode(super.wrapHeaders());
+            outputStream.write(head.array(), head.arrayOffset() + head.position(), head.remaining());
+            chunkedOutputStream[0] = new ChunkedOutputStream(outputStream, bufferSize, trailingHeaders);
+            return chunkedOutputStream[0];
+        });
+        try {
+            bodyWriter.writeTo(committingOutputStream);
+        } catch (IOException | RuntimeException e) {
+            if (!committingOutputStream.isCommitted()) {
+                // nothing is sent yet, the failure can still be answered with an error page
+                throw e instanceof IOException ? new UncheckedIOException((IOException) e) : (RuntimeException) e;
+            }
+            // the chunked stream is not closed on failure, the truncated body has no last chunk
+            outputStream.close();
+            throw e;
+        }
+        committingOutputStream.close();
+        if (committingOutputStream.isCommitted()) {
+            this.length = chunkedOutputStream[0].getLength();
+            outputStream.close();
+        } else {
+            internalWrite(dataBufferFactory.wrap(committingOutputStream.getBuffer()));
+        }
+    }
+
     void internalWrite(FileChannel fileChannel, int bufferSize) throws IOException {
         try (WritableByteChannel channel = Channels.newChannel(outputStream)) {
             long contentLength = fileChannel.size();
@@ -120,4 +170,39 @@ public class HttpResponseBuilder extends BaseHttpResponseBuilder {
             channel.write(fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, contentLength));
         }
     }
+
+    void internalWrite(FileRegion fileRegion) throws IOException {
+        try (WritableByteChannel channel = Channels.newChannel(outputStream)) {
+            super.buildHeaders(fileRegion.getLength());
+            channel.write(US_ASCII.encode(super.wrapHeaders()));
+            transfer(fileRegion, channel);
+        }
+    }
+
+    void internalWrite(MultipartFileRegion multipartFileRegion) throws IOException {
+        try (WritableByteChannel channel = Channels.newChannel(outputStream)) {
+            super.buildHeaders(multipartFileRegion.getLength());
+            channel.write(US_ASCII.encode(super.wrapHeaders()));
+            for (MultipartFileRegion.Part part : multipartFileRegion.getParts()) {
+                channel.write(ByteBuffer.wrap(part.getHeader()));
+                transfer(part.getFileRegion(), channel);
+            }
+            channel.write(ByteBuffer.wrap(multipartFileRegion.getEnd()));
+        }
+    }
+
+    private static void transfer(FileRegion fileRegion, WritableByteChannel channel) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(fileRegion.getPath(), StandardOpenOption.READ)) {
+            long position = fileRegion.getOffset();
+            long remaining = fileRegion.getLength();
+            while (remaining > 0L) {
+                long n = fileChannel.transferTo(position, remaining, channel);
+                if (n <= 0L) {
+                    break;
+                }
+                position += n;
+                remaining -= n;
+            }
+        }
+    }
 }
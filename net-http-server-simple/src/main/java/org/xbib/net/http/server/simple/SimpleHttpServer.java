@@ -2,6 +2,7 @@ package org.xbib.net.http.server.simple;
 
 import java.util.Collection;
 import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
 import org.xbib.net.NetworkClass;
 import org.xbib.net.NetworkUtils;
 import org.xbib.net.SocketConfig;
@@ -35,6 +36,7 @@ import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.xbib.net.http.server.domain.HttpDomain;
+import org.xbib.net.http.server.executor.Executor;
 import org.xbib.net.http.server.route.HttpRouter;
 
 public class SimpleHttpServer implements HttpServer {
@@ -142,7 +144,12 @@ public class SimpleHttpServer implements HttpServer {
             router.route(builder.application, requestBuilder, responseBuilder);
             return true;
         };
-        builder.application.getExecutor().execute(callableReleasable);
+        Executor executor = builder.application.getExecutor();
+        try {
+            executor.execute(callableReleasable);
+        } catch (RejectedExecutionException e) {
+            rejected(requestBuilder, responseBuilder, executor);
+        }
     }
 
     @Override
@@ -155,7 +162,12 @@ public class SimpleHttpServer implements HttpServer {
             router.routeStatus(responseStatus, httpRouterContext);
             return true;
         };
-        builder.application.getExecutor().execute(callable);
+        Executor executor = builder.application.getExecutor();
+        try {
+            executor.execute(callable);
+        } catch (RejectedExecutionException e) {
+            rejected(requestBuilder, responseBuilder, executor);
+        }
     }
 
     @Override
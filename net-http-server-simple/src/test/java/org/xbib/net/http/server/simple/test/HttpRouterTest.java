@@ -1,6 +1,8 @@
 package org.xbib.net.http.server.simple.test;
 
 import org.junit.jupiter.api.Test;
+import org.xbib.net.Parameter;
+import org.xbib.net.ParameterException;
 import org.xbib.net.URL;
 import org.xbib.net.http.HttpAddress;
 import org.xbib.net.http.HttpHeaderNames;
@@ -19,10 +21,12 @@ import org.xbib.net.http.server.simple.HttpResponse;
 import org.xbib.net.http.server.simple.HttpResponseBuilder;
 
 import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class HttpRouterTest {
@@ -71,4 +75,51 @@ public class HttpRouterTest {
         Logger.getAnonymousLogger().log(Level.INFO, "the response string is = " + string);
         assertTrue(string.contains("/demo"));
     }
+
+    @Test
+    public void jsonParameterTest() throws Exception {
+        URL baseURL = URL.http().host("localhost").port(8008).build();
+        HttpAddress httpAddress = HttpAddress.of(baseURL);
+        String json = "{\"name\":\"J\u00f6rg\",\"tags\":[\"a\",\"b\"]}";
+        BaseHttpRouter router = BaseHttpRouter.builder()
+                .addDomain(BaseHttpDomain.builder()
+                        .setHttpAddress(httpAddress)
+                        .addService(BaseHttpService.builder()
+                                .setMethod(HttpMethod.POST)
+                                .setPath("/json")
+                                .setHandler(ctx -> {
+                                    // the body can be read before and after the parameters are decoded from it
+                                    String body = StandardCharsets.UTF_8.decode(ctx.getRequest().getBody().duplicate()).toString();
+                                    try {
+                                        String name = ctx.getRequest().getParameter().getAsString("name", Parameter.Domain.FORM);
+                                        ctx.status(HttpResponseStatus.OK)
+                                                .header(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN)
+                                                .charset(StandardCharsets.UTF_8)
+                                                .body(body + " " + name + " " + ctx.getRequest().getBodyAsChars(StandardCharsets.UTF_8));
+                                    } catch (ParameterException e) {
+                                        ctx.status(HttpResponseStatus.BAD_REQUEST);
+                                    }
+                                })
+                                .build())
+                        .build())
+                .build();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        HttpResponseBuilder httpResponse = HttpResponse.builder()
+                .setOutputStream(outputStream);
+        HttpRequestBuilder httpRequest = HttpRequest.builder()
+                .setBaseURL(baseURL)
+                .setVersion(HttpVersion.HTTP_1_1)
+                .setMethod(HttpMethod.POST)
+                .setRequestURI("/json")
+                .addHeader(HttpHeaderNames.HOST, httpAddress.hostAndPort())
+                .addHeader(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON)
+                .setBody(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+        Application application = BaseApplication.builder()
+                .setRouter(router)
+                .build();
+        router.route(application, httpRequest, httpResponse);
+        String string = outputStream.toString(StandardCharsets.UTF_8);
+        assertTrue(string.endsWith(json + " J\u00f6rg " + json), string);
+        assertEquals(json, httpRequest.getBodyAsChars(StandardCharsets.UTF_8).toString());
+    }
 }
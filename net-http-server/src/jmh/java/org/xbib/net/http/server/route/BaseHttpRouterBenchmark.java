@@ -0,0 +1,91 @@
+package org.xbib.net.http.server.route;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xbib.net.URL;
+import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpMethod;
+import org.xbib.net.http.server.domain.BaseHttpDomain;
+import org.xbib.net.http.server.domain.BaseHttpDomainBuilder;
+import org.xbib.net.http.server.domain.HttpDomain;
+import org.xbib.net.http.server.service.BaseHttpService;
+import org.xbib.net.http.server.service.HttpService;
+
+/**
+ * Measures domain lookup and route resolution of {@link BaseHttpRouter} per request.
+ * Run with {@code -prof gc} to see the allocation rate per routed request, e.g.
+ * {@code gradle :net-http-server:jmh --args='BaseHttpRouterBenchmark -prof gc'}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BaseHttpRouterBenchmark {
+
+    @Param({"base", "compiled"})
+    public String resolver;
+
+    @Param({"10", "100", "500"})
+    public int routes;
+
+    private BaseHttpRouter router;
+
+    private URL baseURL;
+
+    private String path;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        baseURL = URL.http().host("localhost").port(8008).build();
+        BaseHttpDomainBuilder domainBuilder = BaseHttpDomain.builder()
+                .setHttpAddress(HttpAddress.of(baseURL));
+        for (int i = 0; i < routes; i++) {
+            domainBuilder.addService(BaseHttpService.builder()
+                    .setPath("/api/v1/resource" + i + "/{id}")
+                    .setHandler(ctx -> {})
+                    .build());
+        }
+        domainBuilder.addService(BaseHttpService.builder()
+                .setPath("/static/**")
+                .setHandler(ctx -> {})
+                .build());
+        BaseHttpRouterBuilder routerBuilder = BaseHttpRouter.builder()
+                .addDomain(domainBuilder.build());
+        if ("compiled".equals(resolver)) {
+            routerBuilder.setRouteResolverBuilder(CompiledHttpRouteResolver.builder());
+        }
+        router = routerBuilder.build();
+        path = "/api/v1/resource" + (routes / 2) + "/4711";
+    }
+
+    @Benchmark
+    public void route(Blackhole blackhole) {
+        BaseHttpRouter.RouteScratch routeScratch = router.acquireScratch();
+        try {
+            HttpDomain httpDomain = router.findDomain(baseURL);
+            List<HttpRouteResolver.Result<HttpService>> results =
+                    router.resolve(httpDomain, HttpMethod.GET, path, routeScratch);
+            for (HttpRouteResolver.Result<HttpService> result : results) {
+                blackhole.consume(result.getValue());
+                blackhole.consume(result.getParameter());
+            }
+        } finally {
+            router.releaseScratch(routeScratch);
+        }
+    }
+}
@@ -9,6 +9,7 @@ module org.xbib.net.http.server {
     exports org.xbib.net.http.server.domain;
     exports org.xbib.net.http.server.handler;
     exports org.xbib.net.http.server.ldap;
+    exports org.xbib.net.http.server.log;
     exports org.xbib.net.http.server.persist;
     exports org.xbib.net.http.server.persist.file;
     exports org.xbib.net.http.server.persist.memory;
@@ -19,6 +20,7 @@ module org.xbib.net.http.server {
     exports org.xbib.net.http.server.service;
     exports org.xbib.net.http.server.session;
     exports org.xbib.net.http.server.session.file;
+    exports org.xbib.net.http.server.session.jdbc;
     exports org.xbib.net.http.server.session.memory;
     exports org.xbib.net.http.server.validate;
     exports org.xbib.net.http.server.executor;
@@ -32,4 +34,5 @@ module org.xbib.net.http.server {
     requires java.logging;
     requires java.naming;
     requires java.sql;
+    requires jdk.jfr;
 }
@@ -93,7 +93,7 @@ public abstract class BaseHttpRequest implements HttpRequest {
 
     @Override
     public Parameter getParameter() {
-        return builder.parameter;
+        return builder.getParameter();
     }
 
     @Override
@@ -143,23 +143,23 @@ public abstract class BaseHttpRequest implements HttpRequest {
             jsonBuilder.buildKey("header").buildMap(headerMap);
             jsonBuilder.buildKey("requesturi").buildValue(builder.getRequestURI());
             jsonBuilder.buildKey("requestpath").buildValue(builder.getRequestPath());
-            Parameter queryParameter = builder.parameter.get(Parameter.Domain.QUERY);
+            Parameter queryParameter = builder.getParameter().get(Parameter.Domain.QUERY);
             Map<String, Object> queryParameterMap = queryParameter != null ?
                     queryParameter.asMultiMap().asMap().entrySet().stream()
                     .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (x, y) -> y, LinkedHashMap::new)) : Map.of();
-            Parameter pathParameter = builder.parameter.get(Parameter.Domain.PATH);
+            Parameter pathParameter = builder.getParameter().get(Parameter.Domain.PATH);
             Map<String, Object> pathParameterMap = pathParameter != null ?
                     pathParameter.asMultiMap().asMap().entrySet().stream()
                     .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (x, y) -> y, LinkedHashMap::new)) : Map.of();
-            Parameter formParameter = builder.parameter.get(Parameter.Domain.FORM);
+            Parameter formParameter = builder.getParameter().get(Parameter.Domain.FORM);
             Map<String, Object> formParameterMap = formParameter != null ?
                     formParameter.asMultiMap().asMap().entrySet().stream()
                     .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (x, y) -> y, LinkedHashMap::new)) : Map.of();
-            Parameter cookieParameter = builder.parameter.get(Parameter.Domain.COOKIE);
+            Parameter cookieParameter = builder.getParameter().get(Parameter.Domain.COOKIE);
             Map<String, Object> cookieParameterMap = cookieParameter != null ?
                     cookieParameter.asMultiMap().asMap().entrySet().stream()
                     .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (x, y) -> y, LinkedHashMap::new)) : Map.of();
-            Parameter headerParameter = builder.parameter.get(Parameter.Domain.HEADER);
+            Parameter headerParameter = builder.getParameter().get(Parameter.Domain.HEADER);
             Map<String, Object> headerParameterMap = headerParameter != null ?
                     headerParameter.asMultiMap().asMap().entrySet().stream()
                     .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (x, y) -> y, LinkedHashMap::new)) : Map.of();
@@ -11,6 +11,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 import org.xbib.datastructures.common.Maps;
 import org.xbib.net.Parameter;
@@ -41,6 +42,8 @@ public abstract class BaseHttpRequestBuilder implements HttpRequestBuilder {
 
     protected Parameter parameter;
 
+    protected Supplier<Parameter> parameterSupplier;
+
     protected Integer sequenceId;
 
     protected Integer streamId;
@@ -261,7 +264,8 @@ public abstract class BaseHttpRequestBuilder implements HttpRequestBuilder {
 
     @Override
     public CharBuffer getBodyAsChars(Charset charset) {
-        return byteBuffer != null ? charset.decode(byteBuffer) : null;
+        // decode a duplicate, so the body can be read again
+        return byteBuffer != null ? charset.decode(byteBuffer.duplicate()) : null;
     }
 
     @Override
@@ -269,10 +273,38 @@ public abstract class BaseHttpRequestBuilder implements HttpRequestBuilder {
         if (done) {
             return this;
         }
-        this.parameter = parameter;
+        synchronized (this) {
+            this.parameter = parameter;
+            this.parameterSupplier = null;
+        }
         return this;
     }
 
+    @Override
+    public BaseHttpRequestBuilder setParameter(Supplier<Parameter> parameterSupplier) {
+        if (done) {
+            return this;
+        }
+        synchronized (this) {
+            this.parameter = null;
+            this.parameterSupplier = parameterSupplier;
+        }
+        return this;
+    }
+
+    /**
+     * The request parameter. A parameter supplier is called on first access only, the parameter is kept.
+     *
+     * @return the request parameter
+     */
+    public synchronized Parameter getParameter() {
+        if (parameter == null && parameterSupplier != null) {
+            parameter = parameterSupplier.get();
+            parameterSupplier = null;
+        }
+        return parameter;
+    }
+
     public BaseHttpRequestBuilder setAddress(HttpAddress httpAddress) {
         if (done) {
             return this;
@@ -1,12 +1,11 @@
 package org.xbib.net.http.server;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.CharBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
-import java.time.ZoneOffset;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.logging.Level;
@@ -16,6 +15,7 @@ import org.xbib.net.Attributes;
 import org.xbib.net.buffer.DataBuffer;
 import org.xbib.net.buffer.DataBufferFactory;
 import org.xbib.net.buffer.DefaultDataBufferFactory;
+import org.xbib.net.http.HttpDate;
 import org.xbib.net.http.HttpHeaderNames;
 import org.xbib.net.http.HttpHeaderValues;
 import org.xbib.net.http.HttpHeaders;
@@ -81,6 +81,12 @@ public abstract class BaseHttpResponseBuilder implements HttpResponseBuilder {
 
     protected FileChannel fileChannel;
 
+    protected FileRegion fileRegion;
+
+    protected MultipartFileRegion multipartFileRegion;
+
+    protected BodyWriter bodyWriter;
+
     protected int bufferSize;
 
     protected Long length;
@@ -310,6 +316,45 @@ public abstract class BaseHttpResponseBuilder implements HttpResponseBuilder {
         return this;
     }
 
+    @Override
+    public BaseHttpResponseBuilder write(FileRegion fileRegion, int bufferSize) {
+        if (fileRegion != null) {
+            if (this.fileRegion == null) {
+                this.fileRegion = fileRegion;
+                this.bufferSize = bufferSize;
+            } else {
+                logger.log(Level.WARNING, "cannot write more than one FileRegion");
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public BaseHttpResponseBuilder write(MultipartFileRegion multipartFileRegion, int bufferSize) {
+        if (multipartFileRegion != null) {
+            if (this.multipartFileRegion == null) {
+                this.multipartFileRegion = multipartFileRegion;
+                this.bufferSize = bufferSize;
+            } else {
+                logger.log(Level.WARNING, "cannot write more than one MultipartFileRegion");
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public BaseHttpResponseBuilder write(BodyWriter bodyWriter, int bufferSize) {
+        if (bodyWriter != null) {
+            if (this.bodyWriter == null) {
+                this.bodyWriter = bodyWriter;
+                this.bufferSize = bufferSize;
+            } else {
+                logger.log(Level.WARNING, "cannot write more than one BodyWriter");
+            }
+        }
+        return this;
+    }
+
     @Override
     public BaseHttpResponseBuilder addCookie(Cookie cookie) {
         if (done) {
@@ -350,6 +395,53 @@ public abstract class BaseHttpResponseBuilder implements HttpResponseBuilder {
 
     public void buildHeaders(long contentLength) {
         this.length = contentLength;
+        buildHeaders(true);
+    }
+
+    /**
+     * Build the headers of a response with a body of unknown length. On HTTP/1.1, the body is sent with
+     * chunked transfer encoding, on HTTP/2, DATA frames need no transfer encoding.
+     */
+    public void buildChunkedHeaders() {
+        this.length = null;
+        headers.remove(HttpHeaderNames.CONTENT_LENGTH);
+        if (version.majorVersion() == 1) {
+            headers.set(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+        }
+        buildHeaders(false);
+    }
+
+    /**
+     * Whether the body of a body writer can be streamed. HTTP/1.0 clients do not understand chunked transfer
+     * encoding, and a handler that has set a content length header needs the body to be buffered.
+     *
+     * @return true if the body can be streamed
+     */
+    protected boolean isStreamable() {
+        return !HttpVersion.HTTP_1_0.equals(version) && !headers.containsHeader(HttpHeaderNames.CONTENT_LENGTH);
+    }
+
+    /**
+     * Write the body of a body writer into a data buffer, for responses that need a content length.
+     * A content length header set by a handler is replaced by the length of the buffered body.
+     *
+     * @param bodyWriter the body writer
+     * @return the data buffer
+     * @throws IOException if the body can not be written
+     */
+    protected DataBuffer bufferBody(BodyWriter bodyWriter) throws IOException {
+        headers.remove(HttpHeaderNames.CONTENT_LENGTH);
+        DataBuffer dataBuffer = dataBufferFactory.allocateBuffer();
+        try (OutputStream outputStream = dataBuffer.asOutputStream()) {
+            bodyWriter.writeTo(outputStream);
+        } catch (IOException | RuntimeException e) {
+            dataBuffer.release();
+            throw e;
+        }
+        return dataBuffer;
+    }
+
+    private void buildHeaders(boolean withContentLength) {
         if (!headers.containsHeader(HttpHeaderNames.CONTENT_TYPE)) {
             if (contentType == null) {
                 contentType = HttpHeaderValues.APPLICATION_OCTET_STREAM;
@@ -363,16 +455,16 @@ public abstract class BaseHttpResponseBuilder implements HttpResponseBuilder {
             logger.log(Level.WARNING, "no status code set by handlers, assuming OK");
             status = HttpResponseStatus.OK;
         }
-        if (status.code() >= 200 && status.code() != 204) {
+        if (withContentLength && status.code() >= 200 && status.code() != 204) {
             if (!headers.containsHeader(HttpHeaderNames.CONTENT_LENGTH)) {
-                headers.add(HttpHeaderNames.CONTENT_LENGTH, Long.toString(contentLength));
+                headers.add(HttpHeaderNames.CONTENT_LENGTH, Long.toString(length));
             }
         }
         if (withConnectionCloseHeader) {
             headers.add(HttpHeaderNames.CONNECTION, "close");
         }
         if (!headers.containsHeader(HttpHeaderNames.DATE)) {
-            headers.add(HttpHeaderNames.DATE, DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC)));
+            headers.add(HttpHeaderNames.DATE, HttpDate.currentDate());
         }
         if (httpServerConfig != null && httpServerConfig.getServerName() != null) {
             headers.add(HttpHeaderNames.SERVER, httpServerConfig.getServerName());
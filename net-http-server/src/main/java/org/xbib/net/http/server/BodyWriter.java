@@ -0,0 +1,28 @@
+package org.xbib.net.http.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A response body that is produced while it is written, like the output of a template. The response builder
+ * calls the body writer when the response is built. Server implementations stream the output in chunks
+ * as it is produced, with chunked transfer encoding on HTTP/1.1 or with DATA frames on HTTP/2, so the body
+ * is never held in memory as a whole. If a handler has set a content length header, the body is buffered
+ * to compute the content length.
+ *
+ * The head of the response is sent when the output exceeds the buffer size. A shorter body is sent with
+ * a content length, and if the body writer fails before, building the response throws and nothing is sent.
+ * Once the head is sent, the response status can not be changed anymore. If the body writer fails then,
+ * the connection is closed, so the client can tell the truncated body from a complete one.
+ */
+@FunctionalInterface
+public interface BodyWriter {
+
+    /**
+     * Write the body.
+     *
+     * @param outputStream the output stream, must not be closed by the body writer
+     * @throws IOException if the body can not be written
+     */
+    void writeTo(OutputStream outputStream) throws IOException;
+}
@@ -0,0 +1,117 @@
+package org.xbib.net.http.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import org.xbib.datastructures.common.Pair;
+import org.xbib.net.http.HttpHeaders;
+
+/**
+ * An output stream that writes HTTP/1.1 chunked transfer encoding to a blocking output stream, for server
+ * implementations that write responses to sockets directly. Output is collected in a buffer and written
+ * as one chunk when the buffer is full. Closing the stream writes the last chunk and the trailing headers,
+ * but does not close the underlying stream.
+ */
+public class ChunkedOutputStream extends OutputStream {
+
+    private static final byte[] CRLF = { '\r', '\n' };
+
+    private static final byte[] LAST_CHUNK = { '0', '\r', '\n' };
+
+    private final OutputStream out;
+
+    private final byte[] buffer;
+
+    private final HttpHeaders trailingHeaders;
+
+    private int count;
+
+    private long length;
+
+    private boolean closed;
+
+    public ChunkedOutputStream(OutputStream out, int bufferSize, HttpHeaders trailingHeaders) {
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+        this.trailingHeaders = trailingHeaders;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (count == buffer.length) {
+            writeChunk();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            if (count == buffer.length) {
+                writeChunk();
+            }
+            int n = Math.min(len, buffer.length - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Write the buffered output as a chunk and flush the underlying stream.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        writeChunk();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        writeChunk();
+        closed = true;
+        out.write(LAST_CHUNK);
+        if (trailingHeaders != null) {
+            for (Pair<String, String> pair : trailingHeaders.entries()) {
+                out.write((pair.getKey() + ": " + pair.getValue()).getBytes(StandardCharsets.ISO_8859_1));
+                out.write(CRLF);
+            }
+        }
+        out.write(CRLF);
+        out.flush();
+    }
+
+    /**
+     * The number of body bytes written so far, without the chunk framing.
+     *
+     * @return the length
+     */
+    public long getLength() {
+        return length + count;
+    }
+
+    private void writeChunk() throws IOException {
+        if (count == 0) {
+            return;
+        }
+        out.write(Integer.toHexString(count).getBytes(StandardCharsets.US_ASCII));
+        out.write(CRLF);
+        out.write(buffer, 0, count);
+        out.write(CRLF);
+        length += count;
+        count = 0;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("stream closed");
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.xbib.net.http.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An output stream that holds the output of a {@link BodyWriter} back until it exceeds the buffer size.
+ * Only then is the response committed: the committer sends the head and returns the stream for the body,
+ * which receives the held back output and everything after it.
+ *
+ * A short body never commits the response, it is sent with a content length like a buffered body. A body writer
+ * that fails before the output exceeds the buffer size leaves nothing sent, so the failure can still be
+ * answered with an error page.
+ */
+public class CommittingOutputStream extends OutputStream {
+
+    private final byte[] buffer;
+
+    private final Committer committer;
+
+    private int count;
+
+    private OutputStream out;
+
+    private boolean closed;
+
+    public CommittingOutputStream(int bufferSize, Committer committer) {
+        this.buffer = new byte[bufferSize];
+        this.committer = committer;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (out == null && count == buffer.length) {
+            commit();
+        }
+        if (out != null) {
+            out.write(b);
+        } else {
+            buffer[count++] = (byte) b;
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (out == null && len > buffer.length - count) {
+            commit();
+        }
+        if (out != null) {
+            out.write(b, off, len);
+        } else {
+            System.arraycopy(b, off, buffer, count, len);
+            count += len;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // held back output is not flushed, the response is not committed before the buffer size is exceeded
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    /**
+     * Close the stream. If the response is committed, the body stream is closed, which completes the body.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            if (out != null) {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Whether the head of the response has been sent.
+     *
+     * @return true if the response is committed
+     */
+    public boolean isCommitted() {
+        return out != null;
+    }
+
+    /**
+     * The held back output of a body writer that did not exceed the buffer size.
+     *
+     * @return the output, as a buffer that shares the bytes of this stream
+     */
+    public ByteBuffer getBuffer() {
+        return ByteBuffer.wrap(buffer, 0, count);
+    }
+
+    private void commit() throws IOException {
+        out = committer.commit();
+        out.write(buffer, 0, count);
+        count = 0;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("stream closed");
+        }
+    }
+
+    /**
+     * Sends the head of a streamed response.
+     */
+    @FunctionalInterface
+    public interface Committer {
+
+        /**
+         * Send the head of the response.
+         *
+         * @return the output stream for the body
+         * @throws IOException if the head can not be sent
+         */
+        OutputStream commit() throws IOException;
+    }
+}
@@ -0,0 +1,47 @@
+package org.xbib.net.http.server;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * A region of a file to be written as response body. The file is opened by the response builder
+ * when the response is built, so the region stays valid after the handler has returned.
+ * Server implementations may transfer the region without copying it into user space.
+ */
+public class FileRegion {
+
+    private final Path path;
+
+    private final long offset;
+
+    private final long length;
+
+    public FileRegion(Path path, long offset, long length) {
+        this.path = Objects.requireNonNull(path);
+        if (offset < 0L) {
+            throw new IllegalArgumentException("offset must not be negative: " + offset);
+        }
+        if (length < 0L) {
+            throw new IllegalArgumentException("length must not be negative: " + length);
+        }
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return "[FileRegion:path=" + path + ",offset=" + offset + ",length=" + length + "]";
+    }
+}
@@ -2,6 +2,7 @@ package org.xbib.net.http.server;
 
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.util.function.Supplier;
 import org.xbib.net.Parameter;
 import org.xbib.net.URL;
 import org.xbib.net.http.HttpAddress;
@@ -22,6 +23,14 @@ public interface HttpRequestBuilder {
 
     HttpRequestBuilder setParameter(Parameter parameter);
 
+    /**
+     * Set a supplier for the request parameter, so the parameter is only created if it is accessed.
+     *
+     * @param parameterSupplier the parameter supplier
+     * @return this builder
+     */
+    HttpRequestBuilder setParameter(Supplier<Parameter> parameterSupplier);
+
     HttpRequestBuilder setContext(HttpRouterContext context);
 
     HttpRequestBuilder setVersion(HttpVersion version);
@@ -62,6 +62,12 @@ public interface HttpResponseBuilder {
 
     HttpResponseBuilder write(FileChannel fileChannel, int bufferSize);
 
+    HttpResponseBuilder write(FileRegion fileRegion, int bufferSize);
+
+    HttpResponseBuilder write(MultipartFileRegion multipartFileRegion, int bufferSize);
+
+    HttpResponseBuilder write(BodyWriter bodyWriter, int bufferSize);
+
     Long getLength();
 
     Attributes getAttributes();
@@ -2,10 +2,14 @@ package org.xbib.net.http.server;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.BindException;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
+import org.xbib.net.http.HttpHeaderNames;
 import org.xbib.net.http.HttpResponseStatus;
 import org.xbib.net.http.server.domain.HttpDomain;
+import org.xbib.net.http.server.executor.Executor;
 
 public interface HttpServer extends Closeable {
 
@@ -22,4 +26,25 @@ public interface HttpServer extends Closeable {
 
     Collection<HttpDomain> getDomains();
 
+    /**
+     * Answer a request that the executor did not accept, because it is saturated.
+     * The response is 503 Service Unavailable with a Retry-After header, written on the calling thread.
+     *
+     * @param requestBuilder the request builder
+     * @param responseBuilder the response builder
+     * @param executor the executor that rejected the request
+     */
+    default void rejected(HttpRequestBuilder requestBuilder,
+                          HttpResponseBuilder responseBuilder,
+                          Executor executor) {
+        try {
+            responseBuilder.setResponseStatus(HttpResponseStatus.SERVICE_UNAVAILABLE)
+                    .setHeader(HttpHeaderNames.RETRY_AFTER, String.valueOf(executor.getRetryAfterSeconds()))
+                    .setHeader(HttpHeaderNames.CONTENT_TYPE, "text/plain; charset=utf-8")
+                    .write(HttpResponseStatus.SERVICE_UNAVAILABLE.reasonPhrase().getBytes(StandardCharsets.UTF_8));
+            responseBuilder.build().flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
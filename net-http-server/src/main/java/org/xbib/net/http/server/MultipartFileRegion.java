@@ -0,0 +1,102 @@
+package org.xbib.net.http.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A multipart body made of file regions, e.g. a {@code multipart/byteranges} response.
+ * Each part consists of the encoded part header, followed by a file region. The body ends with
+ * the closing delimiter. The parts are written in order, and the length of the body is known in advance.
+ */
+public class MultipartFileRegion {
+
+    private final List<Part> parts;
+
+    private final byte[] end;
+
+    private final long length;
+
+    private MultipartFileRegion(List<Part> parts, byte[] end) {
+        this.parts = Collections.unmodifiableList(parts);
+        this.end = end;
+        long l = end.length;
+        for (Part part : parts) {
+            l += part.header.length + part.fileRegion.getLength();
+        }
+        this.length = l;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public List<Part> getParts() {
+        return parts;
+    }
+
+    public byte[] getEnd() {
+        return end;
+    }
+
+    /**
+     * The total length of the body in bytes, including part headers and the closing delimiter.
+     *
+     * @return the body length
+     */
+    public long getLength() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return "[MultipartFileRegion:parts=" + parts.size() + ",length=" + length + "]";
+    }
+
+    public static class Part {
+
+        private final byte[] header;
+
+        private final FileRegion fileRegion;
+
+        private Part(byte[] header, FileRegion fileRegion) {
+            this.header = header;
+            this.fileRegion = fileRegion;
+        }
+
+        public byte[] getHeader() {
+            return header;
+        }
+
+        public FileRegion getFileRegion() {
+            return fileRegion;
+        }
+    }
+
+    public static class Builder {
+
+        private final List<Part> parts;
+
+        private byte[] end;
+
+        private Builder() {
+            this.parts = new ArrayList<>();
+            this.end = new byte[0];
+        }
+
+        public Builder addPart(byte[] header, FileRegion fileRegion) {
+            parts.add(new Part(Objects.requireNonNull(header), Objects.requireNonNull(fileRegion)));
+            return this;
+        }
+
+        public Builder setEnd(byte[] end) {
+            this.end = Objects.requireNonNull(end);
+            return this;
+        }
+
+        public MultipartFileRegion build() {
+            return new MultipartFileRegion(parts, end);
+        }
+    }
+}
@@ -54,6 +54,17 @@ public interface Application extends SessionListener, Resolver<Path>, Closeable
 
     void releaseContext(HttpRouterContext httpRouterContext);
 
+    /**
+     * Whether the handlers this application adds to every request context, e.g. for cookies and sessions,
+     * neither wait for I/O nor for locks, so requests for non-blocking services can be routed on the thread
+     * that received them.
+     *
+     * @return true if the request context handlers are non-blocking
+     */
+    default boolean isNonBlocking() {
+        return false;
+    }
+
     Executor getExecutor();
 
     HttpRouter getRouter();
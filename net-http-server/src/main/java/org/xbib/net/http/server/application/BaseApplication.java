@@ -1,5 +1,6 @@
 package org.xbib.net.http.server.application;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -25,6 +26,7 @@ import org.xbib.net.http.server.HttpResponseBuilder;
 import org.xbib.net.http.server.route.HttpRouterContext;
 import org.xbib.net.http.server.cookie.IncomingCookieHandler;
 import org.xbib.net.http.server.cookie.OutgoingCookieHandler;
+import org.xbib.net.http.server.cookie.CookieSigner;
 import org.xbib.net.http.server.domain.HttpDomain;
 import org.xbib.net.http.server.executor.Executor;
 import org.xbib.net.http.server.persist.Codec;
@@ -34,7 +36,9 @@ import org.xbib.net.http.server.session.IncomingSessionHandler;
 import org.xbib.net.http.server.session.OutgoingSessionHandler;
 import org.xbib.net.http.server.session.PersistSessionHandler;
 import org.xbib.net.http.server.session.Session;
-import org.xbib.net.http.server.session.memory.MemoryPropertiesSessionCodec;
+import org.xbib.net.http.server.session.SessionWriteMetrics;
+import org.xbib.net.http.server.session.WriteBehindSessionCodec;
+import org.xbib.net.http.server.session.memory.MemorySessionCodec;
 import org.xbib.net.http.server.validate.HttpRequestValidator;
 import org.xbib.net.mime.MimeTypeService;
 import org.xbib.net.util.RandomUtil;
@@ -56,11 +60,20 @@ public class BaseApplication implements Application {
 
     private Throwable throwable;
 
+    private final SessionWriteMetrics sessionWriteMetrics;
+
+    private final CookieSigner cookieSigner;
+
+    private volatile Codec<Session> sessionCodec;
+
     protected BaseApplication(BaseApplicationBuilder builder) {
         this.builder = builder;
         this.sessionName = builder.settings.get("session.name", "SESS");
         this.httpResponseRenderer = newResponseRenderer();
         this.attributes = newAttributes();
+        this.sessionWriteMetrics = new SessionWriteMetrics();
+        this.cookieSigner = CookieSigner.of(builder.secret,
+                builder.settings.get("session.cookie.algorithm", CookieSigner.HMAC_SHA1));
         this.applicationModuleList = new ArrayList<>();
         for (Map.Entry<String, Settings> entry : builder.settings.getGroups("module").entrySet()) {
             String moduleName = entry.getKey();
@@ -159,7 +172,7 @@ public class BaseApplication implements Application {
         httpRouterContext.addOpenHandler(newRequestValidator());
         httpRouterContext.addOpenHandler(newIncomingCookieHandler());
         if (builder.sessionsEnabled) {
-            Codec<Session> sessionCodec = newSessionCodec(httpRouterContext);
+            Codec<Session> sessionCodec = getSessionCodec(httpRouterContext);
             httpRouterContext.getAttributes().put("sessioncodec", sessionCodec);
             httpRouterContext.addOpenHandler(newIncomingSessionHandler(sessionCodec));
             httpRouterContext.addCloseHandler(newOutgoingSessionHandler());
@@ -178,6 +191,18 @@ public class BaseApplication implements Application {
         }
     }
 
+    /**
+     * The request validator and the cookie handlers do no I/O. Session handlers only do no I/O with
+     * the in-memory session codec, so requests with sessions stay on the executor until the codec is known
+     * to be a {@link MemorySessionCodec}.
+     *
+     * @return true if the request context handlers are non-blocking
+     */
+    @Override
+    public boolean isNonBlocking() {
+        return !builder.sessionsEnabled || sessionCodec instanceof MemorySessionCodec;
+    }
+
     protected HttpRequestValidator newRequestValidator() {
         return new HttpRequestValidator();
     }
@@ -198,14 +223,47 @@ public class BaseApplication implements Application {
         return new BaseAttributes();
     }
 
+    public SessionWriteMetrics getSessionWriteMetrics() {
+        return sessionWriteMetrics;
+    }
+
+    /**
+     * Create the session codec of this application. This method is called once, with the context of the first
+     * request, and the codec is shared by all requests. If session.writebehind is set to a number of milliseconds,
+     * the codec is wrapped into a write-behind codec with this window.
+     *
+     * @param httpRouterContext the router context of the first request
+     * @return the session codec
+     */
     protected Codec<Session> newSessionCodec(HttpRouterContext httpRouterContext) {
-        return new MemoryPropertiesSessionCodec(sessionName,this, 1024, Duration.ofDays(1));
+        return new MemorySessionCodec(sessionName, this, 1024, Duration.ofDays(1),
+                builder.settings.getAsInt("session.memory.shards", 16),
+                builder.settings.getAsInt("session.memory.maxsessions", Integer.MAX_VALUE))
+                .startSweeper(Duration.ofSeconds(builder.settings.getAsInt("session.memory.sweepinterval", 60)));
+    }
+
+    private Codec<Session> getSessionCodec(HttpRouterContext httpRouterContext) {
+        Codec<Session> codec = sessionCodec;
+        if (codec == null) {
+            synchronized (this) {
+                codec = sessionCodec;
+                if (codec == null) {
+                    codec = newSessionCodec(httpRouterContext);
+                    int writeBehindMillis = builder.settings.getAsInt("session.writebehind", 0);
+                    if (writeBehindMillis > 0) {
+                        codec = new WriteBehindSessionCodec(codec, Duration.ofMillis(writeBehindMillis),
+                                sessionWriteMetrics);
+                    }
+                    sessionCodec = codec;
+                }
+            }
+        }
+        return codec;
     }
 
     protected HttpHandler newIncomingSessionHandler(Codec<Session> sessionCodec) {
         return new IncomingSessionHandler(
-                getSecret(),
-                "HmacSHA1",
+                cookieSigner,
                 sessionName,
                 sessionCodec,
                 getStaticFileSuffixes(),
@@ -216,8 +274,7 @@ public class BaseApplication implements Application {
 
     protected HttpHandler newOutgoingSessionHandler() {
         return new OutgoingSessionHandler(
-                getSecret(),
-                "HmacSHA1",
+                cookieSigner,
                 sessionName,
                 getStaticFileSuffixes(),
                 "user_id",
@@ -230,7 +287,9 @@ public class BaseApplication implements Application {
     }
 
     protected HttpHandler newPersistSessionHandler(Codec<Session> sessionCodec) {
-        return new PersistSessionHandler(sessionCodec);
+        return new PersistSessionHandler(sessionCodec,
+                Duration.ofSeconds(builder.settings.getAsInt("session.refreshinterval", 300)),
+                sessionWriteMetrics);
     }
 
     @Override
@@ -298,26 +357,36 @@ public class BaseApplication implements Application {
 
     @Override
     public Path resolve(String string) {
+        Path p = tryResolve(string);
+        if (p != null) {
+            return p;
+        }
+        logger.log(Level.WARNING, "unable to find path: " + string + " on home " + builder.home);
+        throw new IllegalArgumentException("unable to resolve '" + string + "' on home '" + builder.home + "'");
+    }
+
+    @Override
+    public Path tryResolve(String string) {
         if (string == null) {
             return builder.home;
         }
         try {
             Path p = builder.home.resolve(string);
-            if (Files.exists(p) && Files.isReadable(p)) {
-                return p;
-            } else {
-                logger.log(Level.WARNING, "unable to find path: " + p + " on home " + builder.home);
-            }
+            return Files.exists(p) && Files.isReadable(p) ? p : null;
         } catch (Exception e) {
-            // ignore
+            return null;
         }
-        throw new IllegalArgumentException("unable to resolve '" + string + "' on home '" + builder.home + "'");
     }
 
     @Override
     public void close() throws IOException {
         logger.log(Level.INFO, "application closing");
         builder.executor.shutdown();
+        synchronized (this) {
+            if (sessionCodec instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
         // stop dispatching and stop dispatched requests
         applicationModuleList.forEach(module -> {
             logger.log(Level.FINE, "application closing module " + module);
@@ -14,6 +14,8 @@ import org.xbib.config.ConfigParams;
 import org.xbib.config.SystemConfigLogger;
 import org.xbib.net.http.server.executor.BaseExecutor;
 import org.xbib.net.http.server.executor.Executor;
+import org.xbib.net.http.server.executor.OverloadPolicy;
+import org.xbib.net.http.server.executor.VirtualThreadExecutor;
 import org.xbib.net.http.server.route.HttpRouter;
 import org.xbib.net.mime.MimeTypeService;
 import org.xbib.settings.Settings;
@@ -187,8 +189,35 @@ public class BaseApplicationBuilder implements ApplicationBuilder {
             this.staticFileSuffixes = DEFAULT_SUFFIXES;
         }
         if (executor == null) {
-            this.executor = BaseExecutor.builder().build();
+            this.executor = createExecutor();
         }
         return new BaseApplication(this);
     }
+
+    /**
+     * Create the executor from the settings, if no executor was set. The setting {@code executor.type}
+     * selects a platform thread pool ({@code platform}, the default) or a virtual thread per request ({@code virtual}).
+     *
+     * @return the executor
+     */
+    protected Executor createExecutor() {
+        OverloadPolicy overloadPolicy = OverloadPolicy.valueOf(settings.get("executor.overloadpolicy", "reject")
+                .toUpperCase(Locale.ROOT));
+        int retryAfterSeconds = settings.getAsInt("executor.retryafter", 1);
+        if ("virtual".equalsIgnoreCase(settings.get("executor.type", "platform"))) {
+            return VirtualThreadExecutor.builder()
+                    .setMaxConcurrency(settings.getAsInt("executor.maxconcurrency", 1024))
+                    .setQueueCount(settings.getAsInt("executor.queuecount", 4096))
+                    .setOverloadPolicy(overloadPolicy)
+                    .setRetryAfterSeconds(retryAfterSeconds)
+                    .setPinningDiagnostics(settings.getAsBoolean("executor.pinningdiagnostics", false))
+                    .build();
+        }
+        return BaseExecutor.builder()
+                .setThreadCount(settings.getAsInt("executor.threadcount", Runtime.getRuntime().availableProcessors()))
+                .setQueueCount(settings.getAsInt("executor.queuecount", 1024))
+                .setOverloadPolicy(overloadPolicy)
+                .setRetryAfterSeconds(retryAfterSeconds)
+                .build();
+    }
 }
@@ -3,4 +3,18 @@ package org.xbib.net.http.server.application;
 public interface Resolver<R> {
 
     R resolve(String string);
+
+    /**
+     * Resolve a string that may legitimately be missing, for example a localized variant of a file.
+     *
+     * @param string the string
+     * @return the resolved value, or null if it can not be resolved
+     */
+    default R tryResolve(String string) {
+        try {
+            return resolve(string);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 }
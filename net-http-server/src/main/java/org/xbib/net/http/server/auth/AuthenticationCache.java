@@ -0,0 +1,290 @@
+package org.xbib.net.http.server.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import org.xbib.net.UserProfile;
+
+/**
+ * A bounded cache of authentication results, for handlers that authenticate the same credentials repeatedly,
+ * like HTTP basic authentication from machine clients. A hit skips the security realm entirely: the authenticator,
+ * the users provider, and the groups provider.
+ *
+ * Credentials are never stored. The cache key is a SHA-256 hash of the user name and the password with a random
+ * salt, which is created per cache instance and never leaves the process. Successful authentications are cached
+ * for the time to live, failed authentications for the negative time to live, so repeated attempts with a wrong
+ * password do not reach the realm either. Errors of the realm, e.g. an unreachable directory, are not cached.
+ * Password changes or revoked accounts take effect after the time to live,
+ * or immediately with {@link #invalidate(String)}.
+ */
+public class AuthenticationCache {
+
+    private final int maxSize;
+
+    private final long ttlNanos;
+
+    private final long negativeTtlNanos;
+
+    private final byte[] salt;
+
+    private final MessageDigest prototype;
+
+    private final ReentrantLock lock;
+
+    private final LinkedHashMap<String, Entry> map;
+
+    private final LongAdder hits;
+
+    private final LongAdder misses;
+
+    private AuthenticationCache(Builder builder) {
+        this.maxSize = builder.maxSize;
+        this.ttlNanos = builder.timeToLive.toNanos();
+        this.negativeTtlNanos = builder.negativeTimeToLive.toNanos();
+        this.salt = new byte[16];
+        new SecureRandom().nextBytes(salt);
+        try {
+            this.prototype = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        this.lock = new ReentrantLock();
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Create the cache key for credentials.
+     *
+     * @param username the user name
+     * @param password the password
+     * @return the key
+     */
+    public String key(String username, String password) {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = (MessageDigest) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            try {
+                messageDigest = MessageDigest.getInstance(prototype.getAlgorithm(), prototype.getProvider());
+            } catch (NoSuchAlgorithmException e2) {
+                throw new IllegalStateException(e2);
+            }
+        }
+        messageDigest.update(salt);
+        messageDigest.update(username.getBytes(StandardCharsets.UTF_8));
+        // separator, so "ab" + "c" and "a" + "bc" differ
+        messageDigest.update((byte) 0);
+        messageDigest.update(password.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(messageDigest.digest());
+    }
+
+    /**
+     * Look up a cached authentication result and copy it into the user profile.
+     *
+     * @param key the key of the credentials
+     * @param userProfile the user profile to fill in on a successful authentication
+     * @return the result, or null if there is no valid cached result
+     */
+    public Result get(String key, UserProfile userProfile) {
+        Entry entry;
+        lock.lock();
+        try {
+            entry = map.get(key);
+            if (entry != null && System.nanoTime() - entry.expiresNanos > 0L) {
+                map.remove(key);
+                entry = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        if (entry.result == Result.SUCCESS) {
+            userProfile.setUserId(entry.userId);
+            userProfile.setEffectiveUserId(entry.effectiveUserId);
+            userProfile.setName(entry.name);
+            for (String role : entry.roles) {
+                userProfile.addRole(role);
+            }
+        }
+        return entry.result;
+    }
+
+    /**
+     * Cache a successful authentication.
+     *
+     * @param key the key of the credentials
+     * @param username the user name
+     * @param userProfile the user profile that the realm has filled in
+     */
+    public void putSuccess(String key, String username, UserProfile userProfile) {
+        put(key, new Entry(Result.SUCCESS, username, userProfile, System.nanoTime() + ttlNanos));
+    }
+
+    /**
+     * Cache a failed authentication.
+     *
+     * @param key the key of the credentials
+     * @param username the user name
+     */
+    public void putFailure(String key, String username) {
+        if (negativeTtlNanos > 0L) {
+            put(key, new Entry(Result.FAILURE, username, null, System.nanoTime() + negativeTtlNanos));
+        }
+    }
+
+    /**
+     * Remove all cached results of a user, for example after a password change.
+     *
+     * @param username the user name
+     */
+    public void invalidate(String username) {
+        lock.lock();
+        try {
+            map.values().removeIf(entry -> entry.username.equals(username));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            map.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return map.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private void put(String key, Entry entry) {
+        lock.lock();
+        try {
+            map.put(key, entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public enum Result {
+        SUCCESS, FAILURE
+    }
+
+    private static class Entry {
+
+        private final Result result;
+
+        private final String username;
+
+        private final String userId;
+
+        private final String effectiveUserId;
+
+        private final String name;
+
+        private final List<String> roles;
+
+        private final long expiresNanos;
+
+        private Entry(Result result, String username, UserProfile userProfile, long expiresNanos) {
+            this.result = result;
+            this.username = username;
+            this.userId = userProfile != null ? userProfile.getUserId() : null;
+            this.effectiveUserId = userProfile != null ? userProfile.getEffectiveUserId() : null;
+            this.name = userProfile != null ? userProfile.getName() : null;
+            this.roles = userProfile != null ? new ArrayList<>(userProfile.getRoles()) : List.of();
+            this.expiresNanos = expiresNanos;
+        }
+    }
+
+    public static class Builder {
+
+        private int maxSize;
+
+        private Duration timeToLive;
+
+        private Duration negativeTimeToLive;
+
+        private Builder() {
+            this.maxSize = 1024;
+            this.timeToLive = Duration.ofMinutes(5);
+            this.negativeTimeToLive = Duration.ofSeconds(30);
+        }
+
+        /**
+         * Set the maximum number of cached results. The least recently used results are evicted first.
+         *
+         * @param maxSize the maximum number of results
+         * @return this builder
+         */
+        public Builder setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * Set the time to live of successful authentications.
+         *
+         * @param timeToLive the time to live
+         * @return this builder
+         */
+        public Builder setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+            return this;
+        }
+
+        /**
+         * Set the time to live of failed authentications. With zero, failures are not cached.
+         *
+         * @param negativeTimeToLive the time to live
+         * @return this builder
+         */
+        public Builder setNegativeTimeToLive(Duration negativeTimeToLive) {
+            this.negativeTimeToLive = negativeTimeToLive;
+            return this;
+        }
+
+        public AuthenticationCache build() {
+            return new AuthenticationCache(this);
+        }
+    }
+}
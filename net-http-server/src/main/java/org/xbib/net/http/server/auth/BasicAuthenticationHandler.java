@@ -17,7 +17,11 @@ public class BasicAuthenticationHandler extends LoginAuthenticationHandler imple
     private static final Logger logger = Logger.getLogger(BasicAuthenticationHandler.class.getName());
 
     public BasicAuthenticationHandler(SecurityRealm securityRealm) {
-        super(null, null, securityRealm);
+        this(securityRealm, null);
+    }
+
+    public BasicAuthenticationHandler(SecurityRealm securityRealm, AuthenticationCache authenticationCache) {
+        super(null, null, securityRealm, authenticationCache);
     }
 
     @Override
@@ -28,7 +28,16 @@ public class FormAuthenticationHandler extends LoginAuthenticationHandler implem
                                      String rememberParameter,
                                      String loginPage,
                                      SecurityRealm securityRealm) {
-        super(usernameParameter, passwordParameter, securityRealm);
+        this(usernameParameter, passwordParameter, rememberParameter, loginPage, securityRealm, null);
+    }
+
+    public FormAuthenticationHandler(String usernameParameter,
+                                     String passwordParameter,
+                                     String rememberParameter,
+                                     String loginPage,
+                                     SecurityRealm securityRealm,
+                                     AuthenticationCache authenticationCache) {
+        super(usernameParameter, passwordParameter, securityRealm, authenticationCache);
         this.usernameParameter = usernameParameter;
         this.passwordParameter = passwordParameter;
         this.rememberParameter = rememberParameter;
@@ -25,12 +25,26 @@ public class LoginAuthenticationHandler implements HttpHandler {
 
     protected final SecurityRealm securityRealm;
 
+    protected final AuthenticationCache authenticationCache;
+
     public LoginAuthenticationHandler(String userParameterName,
                                       String passwordParameterName,
                                       SecurityRealm securityRealm) {
+        this(userParameterName, passwordParameterName, securityRealm, null);
+    }
+
+    public LoginAuthenticationHandler(String userParameterName,
+                                      String passwordParameterName,
+                                      SecurityRealm securityRealm,
+                                      AuthenticationCache authenticationCache) {
         this.userParameterName = userParameterName;
         this.passwordParameterName = passwordParameterName;
         this.securityRealm = securityRealm;
+        this.authenticationCache = authenticationCache;
+    }
+
+    public AuthenticationCache getAuthenticationCache() {
+        return authenticationCache;
     }
 
     @Override
@@ -60,6 +74,27 @@ public class LoginAuthenticationHandler implements HttpHandler {
             logger.log(Level.FINE, "no password given for check, doing nothing");
             return;
         }
+        if (authenticationCache == null) {
+            authenticateWithRealm(userProfile, username, password, request);
+            return;
+        }
+        String key = authenticationCache.key(username, password);
+        AuthenticationCache.Result result = authenticationCache.get(key, userProfile);
+        if (result != null) {
+            logger.log(Level.FINE, "authenticate: cached result = " + result + " userProfile = " + userProfile);
+            return;
+        }
+        // realm errors, e.g. an unreachable directory, are thrown and not cached,
+        // only credentials that the realm rejected are cached as a failure
+        authenticateWithRealm(userProfile, username, password, request);
+        if (userProfile.getUserId() != null) {
+            authenticationCache.putSuccess(key, username, userProfile);
+        } else {
+            authenticationCache.putFailure(key, username);
+        }
+    }
+
+    private void authenticateWithRealm(UserProfile userProfile, String username, String password, Request request) {
         Authenticator auth = securityRealm.getAuthenticator();
         Authenticator.Context authContext = new Authenticator.Context(username, password, request);
         if (auth.authenticate(authContext)) {
@@ -1,12 +1,11 @@
 package org.xbib.net.http.server.cookie;
 
-import java.time.Instant;
 import java.util.Locale;
 import java.util.Objects;
+import org.xbib.net.http.HttpDate;
 import org.xbib.net.http.cookie.Cookie;
 import org.xbib.net.http.cookie.CookieHeaderNames;
 import org.xbib.net.http.cookie.CookieUtil;
-import org.xbib.net.util.DateTimeUtil;
 
 /**
  * A <a href="http://tools.ietf.org/html/rfc6265">RFC6265</a> compliant cookie encoder to be used server side,
@@ -60,10 +59,9 @@ public final class CookieEncoder extends org.xbib.net.http.cookie.CookieEncoder
         }
         if (cookie.maxAge() != Long.MIN_VALUE) {
             CookieUtil.add(stringBuilder, CookieHeaderNames.MAX_AGE, cookie.maxAge());
-            Instant expires = Instant.ofEpochMilli(cookie.maxAge() * 1000 + System.currentTimeMillis());
             stringBuilder.append(CookieHeaderNames.EXPIRES);
             stringBuilder.append(CookieUtil.EQUALS);
-            stringBuilder.append(DateTimeUtil.formatRfc1123(expires.toEpochMilli()));
+            stringBuilder.append(HttpDate.format(cookie.maxAge() * 1000 + System.currentTimeMillis()));
             stringBuilder.append(CookieUtil.SEMICOLON);
             stringBuilder.append(CookieUtil.SP);
         }
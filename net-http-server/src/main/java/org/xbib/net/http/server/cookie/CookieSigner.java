@@ -0,0 +1,189 @@
+package org.xbib.net.http.server.cookie;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Signs cookie values with a HMAC of a fixed secret. Looking up a {@link Mac} provider and initializing the key
+ * is more expensive than signing a short cookie value, so the signer keeps initialized {@link Mac} instances,
+ * together with preallocated buffers for the input and the hex encoded output, in a small lock-free pool.
+ * Pooled instances are not bound to a thread, so the pool works for platform threads as well as for virtual threads.
+ *
+ * Signatures are lower case hex strings, as created by {@link CookieSignatureUtil#hmac(String, String, String)}.
+ */
+public class CookieSigner {
+
+    public static final String HMAC_SHA1 = "HmacSHA1";
+
+    public static final String HMAC_SHA256 = "HmacSHA256";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String algorithm;
+
+    private final SecretKeySpec key;
+
+    private final Mac prototype;
+
+    private final AtomicReferenceArray<State> pool;
+
+    private final int mask;
+
+    public CookieSigner(String secret, String algorithm) throws NoSuchAlgorithmException, InvalidKeyException {
+        this.algorithm = algorithm;
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), algorithm);
+        this.prototype = Mac.getInstance(algorithm);
+        prototype.init(key);
+        int size = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+        this.pool = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Create a signer, or return null if there is no secret.
+     *
+     * @param secret the secret, or null
+     * @param algorithm the HMAC algorithm
+     * @return the signer, or null
+     * @throws IllegalArgumentException if the algorithm is not available or the secret is not a valid key
+     */
+    public static CookieSigner of(String secret, String algorithm) {
+        if (secret == null) {
+            return null;
+        }
+        try {
+            return new CookieSigner(secret, algorithm);
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Sign a text.
+     *
+     * @param plainText the text
+     * @return the signature in hex encoding
+     */
+    public String sign(String plainText) {
+        State state = acquire();
+        try {
+            return state.sign(plainText);
+        } finally {
+            release(state);
+        }
+    }
+
+    /**
+     * Verify the signature of a text. The signatures are compared in constant time.
+     *
+     * @param plainText the text
+     * @param signature the signature in hex encoding
+     * @return true if the signature is valid
+     */
+    public boolean verify(String plainText, String signature) {
+        if (signature == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(sign(plainText).getBytes(StandardCharsets.ISO_8859_1),
+                signature.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private State acquire() {
+        int start = System.identityHashCode(Thread.currentThread());
+        for (int i = 0; i < pool.length(); i++) {
+            int index = (start + i) & mask;
+            State state = pool.get(index);
+            if (state != null && pool.compareAndSet(index, state, null)) {
+                return state;
+            }
+        }
+        return new State(newMac());
+    }
+
+    private void release(State state) {
+        int start = System.identityHashCode(Thread.currentThread());
+        for (int i = 0; i < pool.length(); i++) {
+            if (pool.compareAndSet((start + i) & mask, null, state)) {
+                return;
+            }
+        }
+        // pool is full, drop the state
+    }
+
+    private Mac newMac() {
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            // providers are not required to support cloning, initialize a new instance
+            try {
+                Mac mac = Mac.getInstance(algorithm, prototype.getProvider());
+                mac.init(key);
+                return mac;
+            } catch (NoSuchAlgorithmException | InvalidKeyException e2) {
+                throw new IllegalStateException(e2);
+            }
+        }
+    }
+
+    private static class State {
+
+        private final Mac mac;
+
+        private final byte[] digest;
+
+        private final char[] hex;
+
+        private byte[] input;
+
+        private State(Mac mac) {
+            this.mac = mac;
+            this.digest = new byte[mac.getMacLength()];
+            this.hex = new char[2 * digest.length];
+            this.input = new byte[256];
+        }
+
+        private String sign(String plainText) {
+            try {
+                int length = plainText.length();
+                if (isAscii(plainText, length)) {
+                    if (input.length < length) {
+                        input = new byte[Math.max(length, 2 * input.length)];
+                    }
+                    for (int i = 0; i < length; i++) {
+                        input[i] = (byte) plainText.charAt(i);
+                    }
+                    mac.update(input, 0, length);
+                } else {
+                    mac.update(plainText.getBytes(StandardCharsets.UTF_8));
+                }
+                mac.doFinal(digest, 0);
+            } catch (Exception e) {
+                mac.reset();
+                throw new IllegalStateException(e);
+            }
+            for (int i = 0; i < digest.length; i++) {
+                hex[2 * i] = HEX[(digest[i] >> 4) & 0x0f];
+                hex[2 * i + 1] = HEX[digest[i] & 0x0f];
+            }
+            return new String(hex);
+        }
+
+        private static boolean isAscii(String s, int length) {
+            for (int i = 0; i < length; i++) {
+                if (s.charAt(i) >= 0x80) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -58,4 +58,9 @@ public class DecoratingHttpService implements HttpService {
     public HttpSecurityDomain getSecurityDomain() {
         return delegate.getSecurityDomain();
     }
+
+    @Override
+    public boolean isNonBlocking() {
+        return delegate.isNonBlocking();
+    }
 }
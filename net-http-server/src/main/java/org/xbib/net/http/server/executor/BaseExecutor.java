@@ -3,6 +3,7 @@ package org.xbib.net.http.server.executor;
 import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -22,7 +23,35 @@ public class BaseExecutor implements Executor {
 
     @Override
     public void execute(Callable<?> callable) {
-        builder.executor.submit(callable);
+        try {
+            builder.executor.submit(callable);
+            builder.metrics.submitted();
+        } catch (RejectedExecutionException e) {
+            builder.metrics.rejected();
+            if (builder.overloadPolicy == OverloadPolicy.CALLER_RUNS && !builder.executor.isShutdown()) {
+                logger.log(Level.FINE, "executor saturated, running on caller thread");
+                builder.metrics.callerRuns();
+                new Task<>(callable).run();
+                return;
+            }
+            logger.log(Level.FINE, "executor saturated, rejected");
+            throw e;
+        }
+    }
+
+    @Override
+    public OverloadPolicy getOverloadPolicy() {
+        return builder.overloadPolicy;
+    }
+
+    @Override
+    public int getRetryAfterSeconds() {
+        return builder.retryAfterSeconds;
+    }
+
+    @Override
+    public ExecutorMetrics getMetrics() {
+        return builder.metrics;
     }
 
     @Override
@@ -2,14 +2,10 @@ package org.xbib.net.http.server.executor;
 
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 import org.xbib.net.util.NamedThreadFactory;
 
 public class BaseExecutorBuilder implements ExecutorBuilder {
 
-    private static final Logger logger = Logger.getLogger(BaseExecutorBuilder.class.getName());
-
     protected String threadPrefix;
 
     protected int threadCount;
@@ -22,12 +18,20 @@ public class BaseExecutorBuilder implements ExecutorBuilder {
 
     protected ThreadPoolExecutor executor;
 
+    protected OverloadPolicy overloadPolicy;
+
+    protected int retryAfterSeconds;
+
+    protected ExecutorMetrics metrics;
+
     protected BaseExecutorBuilder() {
         this.threadPrefix = "org-xbib-net-server-executor";
         this.threadCount = Runtime.getRuntime().availableProcessors();
-        this.threadQueueCount = 0; // use fair synchronous queue
+        this.threadQueueCount = 1024; // bounded queue, 0 = use fair synchronous queue
         this.threadKeepAliveTime = 10;
         this.threadKeepAliveTimeUnit = TimeUnit.SECONDS;
+        this.overloadPolicy = OverloadPolicy.REJECT;
+        this.retryAfterSeconds = 1;
     }
 
     @Override
@@ -66,14 +70,26 @@ public class BaseExecutorBuilder implements ExecutorBuilder {
         return this;
     }
 
+    @Override
+    public ExecutorBuilder setOverloadPolicy(OverloadPolicy overloadPolicy) {
+        this.overloadPolicy = overloadPolicy;
+        return this;
+    }
+
+    @Override
+    public ExecutorBuilder setRetryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+        return this;
+    }
+
     @Override
     public Executor build() {
+        this.metrics = new ExecutorMetrics(() -> executor.getQueue().size());
         if (executor == null) {
+            // the default abort policy throws RejectedExecutionException, the executor applies the overload policy
             this.executor = new BaseThreadPoolExecutor(threadCount, threadQueueCount,
                     threadKeepAliveTime, threadKeepAliveTimeUnit,
-                    new NamedThreadFactory(threadPrefix));
-            this.executor.setRejectedExecutionHandler((runnable, threadPoolExecutor) ->
-                    logger.log(Level.SEVERE, "rejected " + runnable + " for thread pool executor = " + threadPoolExecutor));
+                    new NamedThreadFactory(threadPrefix), metrics);
         }
         return new BaseExecutor(this);
     }
@@ -17,12 +17,24 @@ public class BaseThreadPoolExecutor extends ThreadPoolExecutor {
 
     private final Logger logger = Logger.getLogger(BaseThreadPoolExecutor.class.getName());
 
+    private final ExecutorMetrics metrics;
+
     public BaseThreadPoolExecutor(int nThreads,
                                   int maxQueue,
                                   long keepAliveTime,
                                   TimeUnit timeUnit,
                                   ThreadFactory threadFactory) {
+        this(nThreads, maxQueue, keepAliveTime, timeUnit, threadFactory, null);
+    }
+
+    public BaseThreadPoolExecutor(int nThreads,
+                                  int maxQueue,
+                                  long keepAliveTime,
+                                  TimeUnit timeUnit,
+                                  ThreadFactory threadFactory,
+                                  ExecutorMetrics metrics) {
         super(nThreads, nThreads, keepAliveTime, timeUnit, createBlockingQueue(maxQueue), threadFactory);
+        this.metrics = metrics;
         logger.log(Level.FINE, () -> "threadpool executor up with nThreads = " + nThreads +
                 " keepAliveTime = " + keepAliveTime +
                 " time unit = " + timeUnit +
@@ -39,6 +51,14 @@ public class BaseThreadPoolExecutor extends ThreadPoolExecutor {
         return new Task<>(callable);
     }
 
+    @Override
+    protected void beforeExecute(Thread thread, Runnable runnable) {
+        super.beforeExecute(thread, runnable);
+        if (metrics != null && runnable instanceof Task<?> task) {
+            metrics.waited(System.nanoTime() - task.getCreatedNanos());
+        }
+    }
+
     @Override
     protected void afterExecute(Runnable runnable, Throwable terminationCause) {
         super.afterExecute(runnable, terminationCause);
@@ -0,0 +1,142 @@
+package org.xbib.net.http.server.executor;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Detects blocking work on threads that must not block, e.g. non-blocking services running on an event loop.
+ * A watchdog thread checks the running work periodically. Work that runs longer than the threshold is reported
+ * once, with the stack trace of the thread at the time of detection, which usually shows the blocking call.
+ * Work that completes but took longer than the threshold is counted as well.
+ */
+public class BlockingDetector implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(BlockingDetector.class.getName());
+
+    private final long thresholdNanos;
+
+    private final Map<Thread, Slot> slots;
+
+    private final ThreadLocal<Slot> threadSlot;
+
+    private final ScheduledExecutorService watchdog;
+
+    private final LongAdder blockedCount;
+
+    public BlockingDetector(long thresholdMillis) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.slots = new ConcurrentHashMap<>();
+        this.threadSlot = ThreadLocal.withInitial(this::createSlot);
+        this.blockedCount = new LongAdder();
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "org-xbib-net-server-blocking-detector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1L, thresholdMillis / 2L);
+        watchdog.scheduleAtFixedRate(this::check, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Run non-blocking work on the current thread under observation.
+     *
+     * @param name the name of the work, e.g. the request path, for the report
+     * @param runnable the work
+     */
+    public void run(String name, Runnable runnable) {
+        Slot slot = threadSlot.get();
+        if (slot.startNanos != 0L) {
+            // nested, the outer run observes
+            runnable.run();
+            return;
+        }
+        slot.name = name;
+        slot.reported.set(false);
+        long startNanos = System.nanoTime();
+        slot.startNanos = startNanos;
+        try {
+            runnable.run();
+        } finally {
+            slot.startNanos = 0L;
+            long nanos = System.nanoTime() - startNanos;
+            if (nanos > thresholdNanos && slot.reported.compareAndSet(false, true)) {
+                blockedCount.increment();
+                logger.log(Level.WARNING, () -> "non-blocking work " + name + " ran for " +
+                        TimeUnit.NANOSECONDS.toMillis(nanos) + " ms on thread " + slot.thread.getName());
+            }
+        }
+    }
+
+    /**
+     * The number of times non-blocking work exceeded the threshold.
+     *
+     * @return the blocked count
+     */
+    public long getBlockedCount() {
+        return blockedCount.sum();
+    }
+
+    @Override
+    public void close() {
+        watchdog.shutdownNow();
+    }
+
+    private Slot createSlot() {
+        Slot slot = new Slot(Thread.currentThread());
+        slots.put(slot.thread, slot);
+        return slot;
+    }
+
+    private void check() {
+        long now = System.nanoTime();
+        for (Slot slot : slots.values()) {
+            if (!slot.thread.isAlive()) {
+                slots.remove(slot.thread);
+                continue;
+            }
+            long startNanos = slot.startNanos;
+            if (startNanos != 0L && !slot.reported.get() && now - startNanos > thresholdNanos) {
+                StackTraceElement[] stackTrace = slot.thread.getStackTrace();
+                // the work may have completed in the meantime
+                if (slot.startNanos == startNanos && slot.reported.compareAndSet(false, true)) {
+                    blockedCount.increment();
+                    logger.log(Level.WARNING, () -> "non-blocking work " + slot.name + " is blocking thread " +
+                            slot.thread.getName() + " for more than " +
+                            TimeUnit.NANOSECONDS.toMillis(now - startNanos) + " ms" + format(stackTrace));
+                }
+            }
+        }
+    }
+
+    private static String format(StackTraceElement[] stackTrace) {
+        StringBuilder sb = new StringBuilder();
+        for (StackTraceElement element : stackTrace) {
+            sb.append(System.lineSeparator()).append("\tat ").append(element);
+        }
+        return sb.toString();
+    }
+
+    private static class Slot {
+
+        private final Thread thread;
+
+        private volatile long startNanos;
+
+        private volatile String name;
+
+        private final AtomicBoolean reported;
+
+        private Slot(Thread thread) {
+            this.thread = thread;
+            this.reported = new AtomicBoolean();
+        }
+    }
+}
@@ -5,7 +5,20 @@ import java.util.concurrent.Callable;
 
 public interface Executor {
 
+    /**
+     * Execute a callable.
+     *
+     * @param callable the callable
+     * @throws java.util.concurrent.RejectedExecutionException if the executor is saturated
+     * and the overload policy does not run the callable on the calling thread
+     */
     void execute(Callable<?> callable);
 
+    OverloadPolicy getOverloadPolicy();
+
+    int getRetryAfterSeconds();
+
+    ExecutorMetrics getMetrics();
+
     void shutdown() throws IOException;
 }
@@ -17,5 +17,9 @@ public interface ExecutorBuilder {
 
     ExecutorBuilder setExecutor(ThreadPoolExecutor executor);
 
+    ExecutorBuilder setOverloadPolicy(OverloadPolicy overloadPolicy);
+
+    ExecutorBuilder setRetryAfterSeconds(int retryAfterSeconds);
+
     Executor build();
 }
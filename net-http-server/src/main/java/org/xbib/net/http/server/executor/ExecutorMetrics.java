@@ -0,0 +1,89 @@
+package org.xbib.net.http.server.executor;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Admission metrics of an executor: submitted, rejected and caller-run requests, the queue depth,
+ * and the time requests wait in the queue before they run.
+ */
+public class ExecutorMetrics {
+
+    private final IntSupplier queueDepth;
+
+    private final LongAdder submitted;
+
+    private final LongAdder rejected;
+
+    private final LongAdder callerRuns;
+
+    private final LongAdder waited;
+
+    private final LongAdder waitNanos;
+
+    private final LongAccumulator maxWaitNanos;
+
+    public ExecutorMetrics(IntSupplier queueDepth) {
+        this.queueDepth = queueDepth;
+        this.submitted = new LongAdder();
+        this.rejected = new LongAdder();
+        this.callerRuns = new LongAdder();
+        this.waited = new LongAdder();
+        this.waitNanos = new LongAdder();
+        this.maxWaitNanos = new LongAccumulator(Math::max, 0L);
+    }
+
+    public void submitted() {
+        submitted.increment();
+    }
+
+    public void rejected() {
+        rejected.increment();
+    }
+
+    public void callerRuns() {
+        callerRuns.increment();
+    }
+
+    public void waited(long nanos) {
+        waited.increment();
+        waitNanos.add(nanos);
+        maxWaitNanos.accumulate(nanos);
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getCallerRunsCount() {
+        return callerRuns.sum();
+    }
+
+    public long getAverageWaitNanos() {
+        long n = waited.sum();
+        return n > 0L ? waitNanos.sum() / n : 0L;
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    @Override
+    public String toString() {
+        return "[ExecutorMetrics:queueDepth=" + getQueueDepth() +
+                ",submitted=" + getSubmittedCount() +
+                ",rejected=" + getRejectedCount() +
+                ",callerRuns=" + getCallerRunsCount() +
+                ",averageWaitNanos=" + getAverageWaitNanos() +
+                ",maxWaitNanos=" + getMaxWaitNanos() + "]";
+    }
+}
@@ -0,0 +1,24 @@
+package org.xbib.net.http.server.executor;
+
+/**
+ * What happens to a request when the executor is saturated, i.e. all threads are busy and the queue is full.
+ */
+public enum OverloadPolicy {
+
+    /**
+     * Answer the request with 503 Service Unavailable and a Retry-After header.
+     */
+    REJECT,
+
+    /**
+     * Stop reading from the connection and retry the submission until the executor accepts the request,
+     * or until the retry-after time has passed, then reject. Servers that can not pause reading reject immediately.
+     */
+    PAUSE,
+
+    /**
+     * Run the request on the thread that submits it. On an event loop, this stops reading from all connections
+     * of that event loop while the request is running.
+     */
+    CALLER_RUNS
+}
@@ -0,0 +1,71 @@
+package org.xbib.net.http.server.executor;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Logs virtual threads that are pinned to their carrier thread, from the {@code jdk.VirtualThreadPinned}
+ * flight recorder event. Only loaded when pinning diagnostics are enabled.
+ */
+class PinningMonitor implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(PinningMonitor.class.getName());
+
+    private static final String EVENT_NAME = "jdk.VirtualThreadPinned";
+
+    private final RecordingStream recordingStream;
+
+    private final LongAdder pinnedCount;
+
+    private PinningMonitor(Duration threshold) {
+        this.pinnedCount = new LongAdder();
+        this.recordingStream = new RecordingStream();
+        recordingStream.enable(EVENT_NAME).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(EVENT_NAME, this::pinned);
+        recordingStream.startAsync();
+    }
+
+    static PinningMonitor start(Duration threshold) {
+        try {
+            return new PinningMonitor(threshold);
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "pinning diagnostics not available: " + e.getMessage());
+            return null;
+        }
+    }
+
+    long getPinnedCount() {
+        return pinnedCount.sum();
+    }
+
+    private void pinned(RecordedEvent event) {
+        pinnedCount.increment();
+        logger.log(Level.WARNING, () -> "virtual thread pinned for " + event.getDuration().toMillis() + " ms" +
+                format(event.getStackTrace()));
+    }
+
+    private static String format(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            sb.append(System.lineSeparator()).append("\tat ")
+                    .append(frame.getMethod().getType().getName()).append('.')
+                    .append(frame.getMethod().getName())
+                    .append(" line ").append(frame.getLineNumber());
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void close() {
+        recordingStream.close();
+    }
+}
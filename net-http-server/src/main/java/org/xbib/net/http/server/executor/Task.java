@@ -7,15 +7,22 @@ public class Task<T> extends FutureTask<T> {
 
     private final Callable<T> callable;
 
+    private final long createdNanos;
+
     public Task(Callable<T> callable) {
         super(callable);
         this.callable = callable;
+        this.createdNanos = System.nanoTime();
     }
 
     public Callable<T> getCallable() {
         return callable;
     }
 
+    public long getCreatedNanos() {
+        return createdNanos;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
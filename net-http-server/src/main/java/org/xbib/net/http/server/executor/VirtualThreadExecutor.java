@@ -0,0 +1,143 @@
+package org.xbib.net.http.server.executor;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An executor that runs each request on a new virtual thread. Handlers that block on JDBC, LDAP or file I/O
+ * release their carrier thread while they wait, so a small number of platform threads serves many requests.
+ *
+ * A semaphore limits the number of concurrently running requests. Requests beyond this limit wait, as parked
+ * virtual threads, up to the queue count. Beyond the queue count, the overload policy applies.
+ */
+public class VirtualThreadExecutor implements Executor {
+
+    private static final Logger logger = Logger.getLogger(VirtualThreadExecutor.class.getName());
+
+    private final VirtualThreadExecutorBuilder builder;
+
+    private final ExecutorService executorService;
+
+    private final Semaphore semaphore;
+
+    private final AtomicInteger pending;
+
+    private final int maxPending;
+
+    private final ExecutorMetrics metrics;
+
+    private final PinningMonitor pinningMonitor;
+
+    protected VirtualThreadExecutor(VirtualThreadExecutorBuilder builder) {
+        this.builder = builder;
+        this.executorService = Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                .name(builder.threadPrefix + "-", 0L)
+                .factory());
+        this.semaphore = new Semaphore(builder.maxConcurrency);
+        this.pending = new AtomicInteger();
+        this.maxPending = builder.maxConcurrency + builder.queueCount;
+        this.metrics = new ExecutorMetrics(semaphore::getQueueLength);
+        this.pinningMonitor = builder.pinningDiagnostics ? PinningMonitor.start(builder.pinningThreshold) : null;
+        logger.log(Level.FINE, () -> "virtual thread executor up with maxConcurrency = " + builder.maxConcurrency +
+                " queueCount = " + builder.queueCount +
+                " pinningDiagnostics = " + (pinningMonitor != null));
+    }
+
+    public static VirtualThreadExecutorBuilder builder() {
+        return new VirtualThreadExecutorBuilder();
+    }
+
+    @Override
+    public void execute(Callable<?> callable) {
+        if (pending.incrementAndGet() > maxPending || executorService.isShutdown()) {
+            pending.decrementAndGet();
+            metrics.rejected();
+            if (builder.overloadPolicy == OverloadPolicy.CALLER_RUNS && !executorService.isShutdown()) {
+                logger.log(Level.FINE, "executor saturated, running on caller thread");
+                metrics.callerRuns();
+                new Task<>(callable).run();
+                return;
+            }
+            logger.log(Level.FINE, "executor saturated, rejected");
+            throw new RejectedExecutionException("executor saturated, pending = " + maxPending);
+        }
+        long submitNanos = System.nanoTime();
+        try {
+            executorService.execute(() -> run(callable, submitNanos));
+            metrics.submitted();
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            metrics.rejected();
+            throw e;
+        }
+    }
+
+    private void run(Callable<?> callable, long submitNanos) {
+        try {
+            semaphore.acquire();
+            try {
+                metrics.waited(System.nanoTime() - submitNanos);
+                callable.call();
+            } finally {
+                semaphore.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable t) {
+            logger.log(Level.SEVERE, t.getMessage(), t);
+        } finally {
+            pending.decrementAndGet();
+        }
+    }
+
+    @Override
+    public OverloadPolicy getOverloadPolicy() {
+        return builder.overloadPolicy;
+    }
+
+    @Override
+    public int getRetryAfterSeconds() {
+        return builder.retryAfterSeconds;
+    }
+
+    @Override
+    public ExecutorMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * The number of virtual thread pinning events that exceeded the threshold, if pinning diagnostics are enabled.
+     *
+     * @return the pinned count
+     */
+    public long getPinnedCount() {
+        return pinningMonitor != null ? pinningMonitor.getPinnedCount() : 0L;
+    }
+
+    @Override
+    public void shutdown() throws IOException {
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(builder.shutdownTime, builder.shutdownTimeUnit)) {
+                List<Runnable> list = executorService.shutdownNow();
+                logger.log(Level.WARNING, "unable to stop runnables " + list);
+            }
+        } catch (InterruptedException e) {
+            List<Runnable> list = executorService.shutdownNow();
+            logger.log(Level.WARNING, "unable to stop runnables " + list);
+            throw new IOException(e);
+        } finally {
+            if (pinningMonitor != null) {
+                pinningMonitor.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.xbib.net.http.server.executor;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+public class VirtualThreadExecutorBuilder {
+
+    protected String threadPrefix;
+
+    protected int maxConcurrency;
+
+    protected int queueCount;
+
+    protected int shutdownTime;
+
+    protected TimeUnit shutdownTimeUnit;
+
+    protected OverloadPolicy overloadPolicy;
+
+    protected int retryAfterSeconds;
+
+    protected boolean pinningDiagnostics;
+
+    protected Duration pinningThreshold;
+
+    protected VirtualThreadExecutorBuilder() {
+        this.threadPrefix = "org-xbib-net-server-virtual";
+        this.maxConcurrency = 1024;
+        this.queueCount = 4096;
+        this.shutdownTime = 10;
+        this.shutdownTimeUnit = TimeUnit.SECONDS;
+        this.overloadPolicy = OverloadPolicy.REJECT;
+        this.retryAfterSeconds = 1;
+        this.pinningDiagnostics = false;
+        this.pinningThreshold = Duration.ofMillis(20L);
+    }
+
+    public VirtualThreadExecutorBuilder setThreadPrefix(String threadPrefix) {
+        this.threadPrefix = threadPrefix;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of requests that run at the same time. This protects the resources
+     * the handlers block on, e.g. a database connection pool, from an unbounded number of virtual threads.
+     *
+     * @param maxConcurrency the maximum number of concurrently running requests
+     * @return this builder
+     */
+    public VirtualThreadExecutorBuilder setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of requests that wait for a free slot when the maximum concurrency is reached.
+     * Waiting requests are parked virtual threads. Beyond this count, the overload policy applies.
+     *
+     * @param queueCount the maximum number of waiting requests
+     * @return this builder
+     */
+    public VirtualThreadExecutorBuilder setQueueCount(int queueCount) {
+        this.queueCount = queueCount;
+        return this;
+    }
+
+    public VirtualThreadExecutorBuilder setShutdownTime(int shutdownTime) {
+        this.shutdownTime = shutdownTime;
+        return this;
+    }
+
+    public VirtualThreadExecutorBuilder setShutdownTimeUnit(TimeUnit shutdownTimeUnit) {
+        this.shutdownTimeUnit = shutdownTimeUnit;
+        return this;
+    }
+
+    public VirtualThreadExecutorBuilder setOverloadPolicy(OverloadPolicy overloadPolicy) {
+        this.overloadPolicy = overloadPolicy;
+        return this;
+    }
+
+    public VirtualThreadExecutorBuilder setRetryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+        return this;
+    }
+
+    /**
+     * Log virtual threads that are pinned to their carrier thread, e.g. by blocking inside a
+     * {@code synchronized} block, for longer than the threshold. Requires JDK Flight Recorder.
+     *
+     * @param pinningDiagnostics true if pinned virtual threads should be logged
+     * @return this builder
+     */
+    public VirtualThreadExecutorBuilder setPinningDiagnostics(boolean pinningDiagnostics) {
+        this.pinningDiagnostics = pinningDiagnostics;
+        return this;
+    }
+
+    public VirtualThreadExecutorBuilder setPinningThreshold(Duration pinningThreshold) {
+        this.pinningThreshold = pinningThreshold;
+        return this;
+    }
+
+    public VirtualThreadExecutor build() {
+        return new VirtualThreadExecutor(this);
+    }
+}
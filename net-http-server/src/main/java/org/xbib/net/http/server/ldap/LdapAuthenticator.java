@@ -3,6 +3,7 @@ package org.xbib.net.http.server.ldap;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.naming.AuthenticationException;
 import javax.naming.NamingException;
 import javax.naming.directory.InitialDirContext;
 import javax.naming.directory.SearchResult;
@@ -35,8 +36,11 @@ public class LdapAuthenticator extends Authenticator {
      * @param login The login to use.
      * @param password The password to use.
      * @return false if specified user cannot be authenticated with specified password on any LDAP server
+     * @throws LdapException if the user was not authenticated and a server could not be asked,
+     * e.g. because it is unreachable, so the credentials were not rejected by all servers
      */
     public boolean authenticate(String login, String password) {
+        NamingException directoryError = null;
         for (String ldapKey : userMappings.keySet()) {
             final String principal;
             if (contextFactories.get(ldapKey).isSasl()) {
@@ -47,6 +51,7 @@ public class LdapAuthenticator extends Authenticator {
                     result = userMappings.get(ldapKey).createSearch(contextFactories.get(ldapKey), login).findUnique();
                 } catch (NamingException e) {
                     logger.log(Level.FINE, "user " + login + " not found in server " + ldapKey + ": " + e.getMessage());
+                    directoryError = e;
                     continue;
                 }
                 if (result == null) {
@@ -59,26 +64,45 @@ public class LdapAuthenticator extends Authenticator {
             if (contextFactories.get(ldapKey).isGssapi()) {
                 passwordValid = checkPasswordUsingGssapi(principal, password, ldapKey);
             } else {
-                passwordValid = checkPasswordUsingBind(principal, password, ldapKey);
+                try {
+                    passwordValid = checkPasswordUsingBind(principal, password, ldapKey);
+                } catch (NamingException e) {
+                    logger.log(Level.FINE, "unable to check password for user " + principal + " in server " + ldapKey + ": " + e.getMessage());
+                    directoryError = e;
+                    continue;
+                }
             }
             if (passwordValid) {
                 return true;
             }
         }
+        if (directoryError != null) {
+            throw new LdapException("unable to authenticate user " + login + ": " + directoryError.getMessage(), directoryError);
+        }
         logger.log(Level.FINE, "user not found: " + login);
         return false;
     }
 
-    private boolean checkPasswordUsingBind(String principal, String password, String ldapKey) {
+    /**
+     * Check a password by binding with it.
+     *
+     * @return true if the bind succeeded, false if the credentials were rejected
+     * @throws NamingException if the server could not be asked
+     */
+    private boolean checkPasswordUsingBind(String principal, String password, String ldapKey) throws NamingException {
         if (password.isEmpty()) {
             logger.log(Level.FINE, "password is blank");
             return false;
         }
+        LdapConnectionPool connectionPool = contextFactories.get(ldapKey).getConnectionPool();
+        if (connectionPool != null) {
+            return connectionPool.bind(principal, password);
+        }
         InitialDirContext context = null;
         try {
             context = contextFactories.get(ldapKey).createUserContext(principal, password);
             return true;
-        } catch (NamingException e) {
+        } catch (AuthenticationException e) {
             logger.log(Level.FINE, "password not valid for user " + principal + " in server " + ldapKey + ": " + e.getMessage());
             return false;
         } finally {
@@ -0,0 +1,280 @@
+package org.xbib.net.http.server.ldap;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A bounded cache for directory lookups, like group memberships of users.
+ *
+ * Entries live for the time to live. When many requests miss the same key at the same time, only one of them
+ * runs the lookup, and the others wait for its result. Entries that are used after the refresh time are reloaded
+ * by a background thread, while requests keep getting the current value, so frequently used entries never expire
+ * on the request path. If a background reload fails, the current value is kept until it expires.
+ * The least recently used entries are evicted when the cache is full.
+ *
+ * @param <V> the value type
+ */
+public class LdapCache<V> implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(LdapCache.class.getName());
+
+    private final Function<String, V> loader;
+
+    private final long ttlNanos;
+
+    private final long refreshNanos;
+
+    private final ReentrantLock lock;
+
+    private final LinkedHashMap<String, Entry<V>> map;
+
+    private final Map<String, CompletableFuture<V>> loading;
+
+    private final ExecutorService refresher;
+
+    private final LongAdder hits;
+
+    private final LongAdder misses;
+
+    private final LongAdder loads;
+
+    private LdapCache(Builder builder, Function<String, V> loader) {
+        this.loader = loader;
+        this.ttlNanos = builder.timeToLive.toNanos();
+        this.refreshNanos = builder.refreshAfter != null ? builder.refreshAfter.toNanos() : ttlNanos;
+        int maxSize = builder.maxSize;
+        this.lock = new ReentrantLock();
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.loading = new ConcurrentHashMap<>();
+        this.refresher = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "org-xbib-net-server-ldap-cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.loads = new LongAdder();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Get the value of a key, loading it if it is not cached or expired.
+     *
+     * @param key the key
+     * @return the value
+     * @throws RuntimeException if the lookup fails
+     */
+    public V get(String key) {
+        long now = System.nanoTime();
+        Entry<V> entry = getEntry(key);
+        if (entry != null) {
+            long age = now - entry.loadedNanos;
+            if (age < ttlNanos) {
+                hits.increment();
+                if (age >= refreshNanos && entry.refreshing.compareAndSet(false, true)) {
+                    refresh(key, entry);
+                }
+                return entry.value;
+            }
+        }
+        misses.increment();
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw e;
+            }
+        }
+        try {
+            // a load that finished between the lookup above and putIfAbsent has already cached the value
+            entry = getEntry(key);
+            if (entry != null && System.nanoTime() - entry.loadedNanos < ttlNanos) {
+                future.complete(entry.value);
+                return entry.value;
+            }
+            V value = load(key);
+            future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    public void invalidate(String key) {
+        lock.lock();
+        try {
+            map.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            map.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return map.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * The number of lookups, including background reloads.
+     *
+     * @return the load count
+     */
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    @Override
+    public void close() {
+        refresher.shutdownNow();
+    }
+
+    private Entry<V> getEntry(String key) {
+        lock.lock();
+        try {
+            return map.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private V load(String key) {
+        loads.increment();
+        V value = loader.apply(key);
+        Entry<V> entry = new Entry<>(value, System.nanoTime());
+        lock.lock();
+        try {
+            map.put(key, entry);
+        } finally {
+            lock.unlock();
+        }
+        return value;
+    }
+
+    private void refresh(String key, Entry<V> entry) {
+        try {
+            refresher.execute(() -> {
+                try {
+                    load(key);
+                } catch (RuntimeException e) {
+                    logger.log(Level.WARNING, "unable to refresh " + key + ": " + e.getMessage(), e);
+                    entry.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            entry.refreshing.set(false);
+        }
+    }
+
+    private static class Entry<V> {
+
+        private final V value;
+
+        private final long loadedNanos;
+
+        private final AtomicBoolean refreshing;
+
+        private Entry(V value, long loadedNanos) {
+            this.value = value;
+            this.loadedNanos = loadedNanos;
+            this.refreshing = new AtomicBoolean();
+        }
+    }
+
+    public static class Builder {
+
+        private int maxSize;
+
+        private Duration timeToLive;
+
+        private Duration refreshAfter;
+
+        private Builder() {
+            this.maxSize = 4096;
+            this.timeToLive = Duration.ofMinutes(10);
+            this.refreshAfter = Duration.ofMinutes(8);
+        }
+
+        /**
+         * Set the maximum number of entries. The least recently used entries are evicted first.
+         *
+         * @param maxSize the maximum number of entries
+         * @return this builder
+         */
+        public Builder setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        public Builder setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+            return this;
+        }
+
+        /**
+         * Set the age after which used entries are reloaded in the background. Should be less than the time to live.
+         * With null, entries are not refreshed and are loaded again on the request path after they expire.
+         *
+         * @param refreshAfter the refresh age
+         * @return this builder
+         */
+        public Builder setRefreshAfter(Duration refreshAfter) {
+            this.refreshAfter = refreshAfter;
+            return this;
+        }
+
+        public <V> LdapCache<V> build(Function<String, V> loader) {
+            return new LdapCache<>(this, loader);
+        }
+    }
+}
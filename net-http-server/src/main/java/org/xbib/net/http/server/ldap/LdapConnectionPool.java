@@ -0,0 +1,401 @@
+package org.xbib.net.http.server.ldap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.naming.AuthenticationException;
+import javax.naming.CommunicationException;
+import javax.naming.NamingException;
+import javax.naming.ServiceUnavailableException;
+import javax.naming.ldap.LdapContext;
+import javax.naming.ldap.StartTlsResponse;
+
+/**
+ * A pool of bound connections to one LDAP server.
+ *
+ * Connections are created by the {@link LdapContextFactory} of the server. With StartTLS, the TLS handshake
+ * is negotiated once per connection, not once per operation, and the bind with the bind DN is kept, too.
+ * A connection is used by one operation at a time. Idle connections are checked with a read of the base entry
+ * when they are borrowed, and connections that were idle for longer than the maximum idle time are closed.
+ * Password checks rebind a pooled connection with the user credentials and then rebind it with the bind DN,
+ * so they do not need a new connection either.
+ *
+ * The pool is sized per server with {@link Builder#setMaxSize(int)}. Operations that find no free connection
+ * wait for the borrow timeout. The borrow wait times are recorded, see {@link #getAverageBorrowWaitNanos()}
+ * and {@link #getMaxBorrowWaitNanos()}.
+ */
+public class LdapConnectionPool implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(LdapConnectionPool.class.getName());
+
+    private static final String[] NO_ATTRIBUTES = { "1.1" };
+
+    private final LdapContextFactory contextFactory;
+
+    private final int maxSize;
+
+    private final long borrowTimeoutNanos;
+
+    private final long maxIdleNanos;
+
+    private final boolean validateOnBorrow;
+
+    private final Semaphore permits;
+
+    private final LinkedBlockingDeque<Connection> idle;
+
+    private final LongAdder borrowed;
+
+    private final LongAdder borrowWaitNanos;
+
+    private final LongAccumulator maxBorrowWaitNanos;
+
+    private final LongAdder timeouts;
+
+    private final LongAdder created;
+
+    private final LongAdder destroyed;
+
+    private final LongAdder validationFailures;
+
+    private volatile boolean closed;
+
+    private LdapConnectionPool(Builder builder, LdapContextFactory contextFactory) {
+        this.contextFactory = contextFactory;
+        this.maxSize = builder.maxSize;
+        this.borrowTimeoutNanos = builder.borrowTimeout.toNanos();
+        this.maxIdleNanos = builder.maxIdleTime.toNanos();
+        this.validateOnBorrow = builder.validateOnBorrow;
+        this.permits = new Semaphore(maxSize, true);
+        this.idle = new LinkedBlockingDeque<>();
+        this.borrowed = new LongAdder();
+        this.borrowWaitNanos = new LongAdder();
+        this.maxBorrowWaitNanos = new LongAccumulator(Math::max, 0L);
+        this.timeouts = new LongAdder();
+        this.created = new LongAdder();
+        this.destroyed = new LongAdder();
+        this.validationFailures = new LongAdder();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Run an operation with a pooled connection. The operation must not keep references to the context or to
+     * enumerations of it after it returns, because the connection is used by other operations afterwards.
+     *
+     * @param operation the operation
+     * @param <T> the result type
+     * @return the result of the operation
+     * @throws NamingException if no connection is available, or if the operation fails
+     */
+    public <T> T execute(Operation<T> operation) throws NamingException {
+        Connection connection = borrow();
+        boolean broken = true;
+        try {
+            T t = operation.execute(connection.context);
+            broken = false;
+            return t;
+        } catch (NamingException e) {
+            broken = isConnectionFailure(e);
+            throw e;
+        } finally {
+            release(connection, broken);
+        }
+    }
+
+    /**
+     * Check the credentials of a user by binding a pooled connection with them.
+     * Afterwards, the connection is bound with the bind DN again.
+     *
+     * @param principal the DN of the user
+     * @param credentials the password
+     * @return true if the bind succeeded, false if the credentials were rejected
+     * @throws NamingException if no connection is available, or if the bind fails for other reasons
+     */
+    public boolean bind(String principal, String credentials) throws NamingException {
+        try {
+            return tryBind(principal, credentials);
+        } catch (AuthenticationException e) {
+            throw e;
+        } catch (NamingException e) {
+            // the connection was dropped by the server, try once more with a new one
+            logger.log(Level.FINE, "bind failed, retrying: " + e.getMessage());
+            return tryBind(principal, credentials);
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getActiveCount() {
+        return maxSize - permits.availablePermits();
+    }
+
+    /**
+     * The number of borrow attempts, including the attempts that timed out.
+     *
+     * @return the borrow count
+     */
+    public long getBorrowCount() {
+        return borrowed.sum();
+    }
+
+    public long getAverageBorrowWaitNanos() {
+        long n = borrowed.sum();
+        return n > 0L ? borrowWaitNanos.sum() / n : 0L;
+    }
+
+    public long getMaxBorrowWaitNanos() {
+        return maxBorrowWaitNanos.get();
+    }
+
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    public long getCreatedCount() {
+        return created.sum();
+    }
+
+    public long getDestroyedCount() {
+        return destroyed.sum();
+    }
+
+    public long getValidationFailureCount() {
+        return validationFailures.sum();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Connection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            destroy(connection);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "[LdapConnectionPool:url=" + contextFactory.getProviderUrl() +
+                ",maxSize=" + maxSize +
+                ",active=" + getActiveCount() +
+                ",idle=" + getIdleCount() +
+                ",borrowed=" + getBorrowCount() +
+                ",timeouts=" + getTimeoutCount() +
+                ",created=" + getCreatedCount() +
+                ",destroyed=" + getDestroyedCount() +
+                ",validationFailures=" + getValidationFailureCount() +
+                ",averageBorrowWaitNanos=" + getAverageBorrowWaitNanos() +
+                ",maxBorrowWaitNanos=" + getMaxBorrowWaitNanos() + "]";
+    }
+
+    private boolean tryBind(String principal, String credentials) throws NamingException {
+        Connection connection = borrow();
+        boolean broken = true;
+        try {
+            boolean valid;
+            try {
+                contextFactory.bind(connection.context, principal, credentials);
+                valid = true;
+            } catch (AuthenticationException e) {
+                logger.log(Level.FINE, "bind failed for " + principal + ": " + e.getMessage());
+                valid = false;
+            }
+            // restore the bind of the pool, a connection that can not be restored is dropped
+            contextFactory.bind(connection.context);
+            broken = false;
+            return valid;
+        } finally {
+            release(connection, broken);
+        }
+    }
+
+    private Connection borrow() throws NamingException {
+        if (closed) {
+            throw new NamingException("LDAP connection pool is closed: " + contextFactory.getProviderUrl());
+        }
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(borrowTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("interrupted while waiting for an LDAP connection");
+        }
+        long waited = System.nanoTime() - start;
+        borrowed.increment();
+        borrowWaitNanos.add(waited);
+        maxBorrowWaitNanos.accumulate(waited);
+        if (!acquired) {
+            timeouts.increment();
+            throw new ServiceUnavailableException("no LDAP connection available within " +
+                    TimeUnit.NANOSECONDS.toMillis(borrowTimeoutNanos) + " ms: " + contextFactory.getProviderUrl());
+        }
+        try {
+            Connection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                if (isUsable(connection)) {
+                    return connection;
+                }
+                destroy(connection);
+            }
+            connection = contextFactory.createPooledConnection();
+            created.increment();
+            return connection;
+        } catch (NamingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void release(Connection connection, boolean broken) {
+        try {
+            if (broken || closed) {
+                destroy(connection);
+            } else {
+                connection.idleSinceNanos = System.nanoTime();
+                idle.offerFirst(connection);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private boolean isUsable(Connection connection) {
+        if (System.nanoTime() - connection.idleSinceNanos > maxIdleNanos) {
+            return false;
+        }
+        if (!validateOnBorrow) {
+            return true;
+        }
+        try {
+            connection.context.getAttributes("", NO_ATTRIBUTES);
+            return true;
+        } catch (NamingException e) {
+            logger.log(Level.FINE, "pooled LDAP connection is not valid: " + e.getMessage());
+            validationFailures.increment();
+            return false;
+        }
+    }
+
+    private void destroy(Connection connection) {
+        destroyed.increment();
+        if (connection.tls != null) {
+            try {
+                connection.tls.close();
+            } catch (IOException e) {
+                logger.log(Level.FINE, "unable to close TLS: " + e.getMessage());
+            }
+        }
+        try {
+            connection.context.close();
+        } catch (NamingException e) {
+            logger.log(Level.FINE, "unable to close pooled LDAP connection: " + e.getMessage());
+        }
+    }
+
+    private static boolean isConnectionFailure(NamingException e) {
+        return e instanceof CommunicationException || e instanceof ServiceUnavailableException;
+    }
+
+    /**
+     * An operation on a pooled LDAP context.
+     *
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    public interface Operation<T> {
+
+        T execute(LdapContext context) throws NamingException;
+    }
+
+    static class Connection {
+
+        private final LdapContext context;
+
+        private final StartTlsResponse tls;
+
+        private long idleSinceNanos;
+
+        Connection(LdapContext context, StartTlsResponse tls) {
+            this.context = context;
+            this.tls = tls;
+            this.idleSinceNanos = System.nanoTime();
+        }
+    }
+
+    public static class Builder {
+
+        private int maxSize;
+
+        private Duration borrowTimeout;
+
+        private Duration maxIdleTime;
+
+        private boolean validateOnBorrow;
+
+        private Builder() {
+            this.maxSize = 8;
+            this.borrowTimeout = Duration.ofSeconds(5);
+            this.maxIdleTime = Duration.ofMinutes(5);
+            this.validateOnBorrow = true;
+        }
+
+        /**
+         * Set the maximum number of connections to the server.
+         *
+         * @param maxSize the maximum number of connections
+         * @return this builder
+         */
+        public Builder setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * Set the maximum time to wait for a free connection.
+         *
+         * @param borrowTimeout the borrow timeout
+         * @return this builder
+         */
+        public Builder setBorrowTimeout(Duration borrowTimeout) {
+            this.borrowTimeout = borrowTimeout;
+            return this;
+        }
+
+        /**
+         * Set the time after which idle connections are closed. This should be less than the idle timeout
+         * of the server.
+         *
+         * @param maxIdleTime the maximum idle time
+         * @return this builder
+         */
+        public Builder setMaxIdleTime(Duration maxIdleTime) {
+            this.maxIdleTime = maxIdleTime;
+            return this;
+        }
+
+        public Builder setValidateOnBorrow(boolean validateOnBorrow) {
+            this.validateOnBorrow = validateOnBorrow;
+            return this;
+        }
+
+        public LdapConnectionPool build(LdapContextFactory contextFactory) {
+            return new LdapConnectionPool(this, contextFactory);
+        }
+    }
+}
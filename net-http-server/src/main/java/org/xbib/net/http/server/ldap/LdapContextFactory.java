@@ -1,5 +1,6 @@
 package org.xbib.net.http.server.ldap;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
@@ -10,6 +11,7 @@ import javax.naming.Context;
 import javax.naming.NamingException;
 import javax.naming.directory.InitialDirContext;
 import javax.naming.ldap.InitialLdapContext;
+import javax.naming.ldap.LdapContext;
 import javax.naming.ldap.StartTlsRequest;
 import javax.naming.ldap.StartTlsResponse;
 import javax.security.auth.Subject;
@@ -17,7 +19,7 @@ import javax.security.auth.login.Configuration;
 import javax.security.auth.login.LoginContext;
 import javax.security.auth.login.LoginException;
 
-public class LdapContextFactory {
+public class LdapContextFactory implements Closeable {
 
     private static final Logger logger = Logger.getLogger(LdapContextFactory.class.getName());
 
@@ -57,6 +59,8 @@ public class LdapContextFactory {
 
     private final String referral;
 
+    private final LdapConnectionPool connectionPool;
+
     public LdapContextFactory(String authentication,
                               String factory,
                               String realm,
@@ -65,6 +69,30 @@ public class LdapContextFactory {
                               String username,
                               String password,
                               String referral) {
+        this(authentication, factory, realm, providerUrl, startTLS, username, password, referral, null);
+    }
+
+    /**
+     * @param authentication the authentication method
+     * @param factory the JNDI context factory class name
+     * @param realm the SASL realm, or null
+     * @param providerUrl the LDAP URL of the server
+     * @param startTLS true if connections are upgraded with StartTLS
+     * @param username the bind DN, or null
+     * @param password the bind password, or null
+     * @param referral the referral mode
+     * @param connectionPoolBuilder the builder of the connection pool of this server,
+     *                              or null for a new connection per operation
+     */
+    public LdapContextFactory(String authentication,
+                              String factory,
+                              String realm,
+                              String providerUrl,
+                              boolean startTLS,
+                              String username,
+                              String password,
+                              String referral,
+                              LdapConnectionPool.Builder connectionPoolBuilder) {
         this.authentication =  authentication;
         this.factory = factory;
         this.realm = realm;
@@ -73,6 +101,7 @@ public class LdapContextFactory {
         this.username = username;
         this.password = password;
         this.referral = referral;
+        this.connectionPool = connectionPoolBuilder != null ? connectionPoolBuilder.build(this) : null;
     }
 
     public InitialDirContext createBindContext() throws NamingException {
@@ -91,6 +120,15 @@ public class LdapContextFactory {
         return referral;
     }
 
+    /**
+     * The connection pool of this server.
+     *
+     * @return the connection pool, or null if connections are not pooled
+     */
+    public LdapConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
     public InitialDirContext createUserContext(String principal, String credentials) throws NamingException {
         return createInitialDirContext(principal, credentials, false);
     }
@@ -98,29 +136,9 @@ public class LdapContextFactory {
     private InitialDirContext createInitialDirContext(String principal, String credentials, boolean pooling) throws NamingException {
         final InitialLdapContext ctx;
         if (startTLS) {
-            Properties env = new Properties();
-            env.put(Context.INITIAL_CONTEXT_FACTORY, factory);
-            env.put(Context.PROVIDER_URL, providerUrl);
-            env.put(Context.REFERRAL, referral);
-            logger.log(Level.FINE, "new initial LDAP context: " + env);
-            ctx = new InitialLdapContext(env, null);
-            // http://docs.oracle.com/javase/jndi/tutorial/ldap/ext/starttls.html
-            StartTlsResponse tls = (StartTlsResponse) ctx.extendedOperation(new StartTlsRequest());
-            try {
-                tls.negotiate();
-            } catch (IOException e) {
-                NamingException ex = new NamingException("StartTLS failed");
-                ex.initCause(e);
-                throw ex;
-            }
-            ctx.addToEnvironment(Context.SECURITY_AUTHENTICATION, authentication);
-            if (principal != null) {
-                ctx.addToEnvironment(Context.SECURITY_PRINCIPAL, principal);
-            }
-            if (credentials != null) {
-                ctx.addToEnvironment(Context.SECURITY_CREDENTIALS, credentials);
-            }
-            ctx.reconnect(null);
+            ctx = new InitialLdapContext(getStartTlsEnvironment(), null);
+            startTls(ctx);
+            bind(ctx, principal, credentials);
         } else {
             Properties env = getEnvironment(principal, credentials, pooling);
             logger.log(Level.FINE, "new initial LDAP context: " + env);
@@ -129,13 +147,87 @@ public class LdapContextFactory {
         return ctx;
     }
 
-    private InitialDirContext createInitialDirContextUsingGssapi(String principal, String credentials) throws NamingException {
+    /**
+     * Create a connection for the connection pool, bound with the bind DN. The connection is not pooled by JNDI.
+     */
+    LdapConnectionPool.Connection createPooledConnection() throws NamingException {
+        if (isGssapi()) {
+            return new LdapConnectionPool.Connection(createInitialDirContextUsingGssapi(username, password), null);
+        }
+        if (startTLS) {
+            InitialLdapContext ctx = new InitialLdapContext(getStartTlsEnvironment(), null);
+            StartTlsResponse tls = null;
+            boolean ok = false;
+            try {
+                tls = startTls(ctx);
+                bind(ctx, username, password);
+                ok = true;
+            } finally {
+                if (!ok) {
+                    ctx.close();
+                }
+            }
+            return new LdapConnectionPool.Connection(ctx, tls);
+        }
+        Properties env = getEnvironment(username, password, false);
+        logger.log(Level.FINE, "new pooled LDAP context: " + env);
+        return new LdapConnectionPool.Connection(new InitialLdapContext(env, null), null);
+    }
+
+    /**
+     * Bind an existing connection with the bind DN.
+     */
+    void bind(LdapContext ctx) throws NamingException {
+        bind(ctx, username, password);
+    }
+
+    /**
+     * Bind an existing connection. With StartTLS, the bind is sent over the negotiated TLS session.
+     */
+    void bind(LdapContext ctx, String principal, String credentials) throws NamingException {
+        ctx.addToEnvironment(Context.SECURITY_AUTHENTICATION, authentication);
+        if (principal != null) {
+            ctx.addToEnvironment(Context.SECURITY_PRINCIPAL, principal);
+        } else {
+            ctx.removeFromEnvironment(Context.SECURITY_PRINCIPAL);
+        }
+        if (credentials != null) {
+            ctx.addToEnvironment(Context.SECURITY_CREDENTIALS, credentials);
+        } else {
+            ctx.removeFromEnvironment(Context.SECURITY_CREDENTIALS);
+        }
+        ctx.reconnect(null);
+    }
+
+    private Properties getStartTlsEnvironment() {
+        Properties env = new Properties();
+        env.put(Context.INITIAL_CONTEXT_FACTORY, factory);
+        env.put(Context.PROVIDER_URL, providerUrl);
+        env.put(Context.REFERRAL, referral);
+        logger.log(Level.FINE, "new initial LDAP context: " + env);
+        return env;
+    }
+
+    private static StartTlsResponse startTls(InitialLdapContext ctx) throws NamingException {
+        // http://docs.oracle.com/javase/jndi/tutorial/ldap/ext/starttls.html
+        StartTlsResponse tls = (StartTlsResponse) ctx.extendedOperation(new StartTlsRequest());
+        try {
+            tls.negotiate();
+        } catch (IOException e) {
+            NamingException ex = new NamingException("StartTLS failed");
+            ex.initCause(e);
+            throw ex;
+        }
+        return tls;
+    }
+
+    private InitialLdapContext createInitialDirContextUsingGssapi(String principal, String credentials) throws NamingException {
         Configuration.setConfiguration(new Krb5LoginConfiguration());
-        InitialDirContext initialDirContext;
+        InitialLdapContext initialDirContext;
         try {
             LoginContext lc = new LoginContext(getClass().getName(), new CallbackHandlerImpl(principal, credentials));
             lc.login();
-            initialDirContext = Subject.doAs(lc.getSubject(), (PrivilegedExceptionAction<InitialDirContext>) () -> {
+            initialDirContext = Subject.doAs(lc.getSubject(), (PrivilegedExceptionAction<InitialLdapContext>) () -> {
                 Properties env = new Properties();
                 env.put(Context.INITIAL_CONTEXT_FACTORY, factory);
                 env.put(Context.PROVIDER_URL, providerUrl);
@@ -187,7 +279,12 @@ public class LdapContextFactory {
             throw new IllegalArgumentException("when using SASL, property bindDn is required");
         }
         try {
-            createBindContext();
+            if (connectionPool != null) {
+                // opens the first pooled connection
+                connectionPool.execute(ctx -> null);
+            } else {
+                createBindContext();
+            }
             logger.log(Level.INFO, "test LDAP connection on " + providerUrl + ": OK");
         } catch (NamingException e) {
             logger.info("test LDAP connection: FAIL");
@@ -196,6 +293,13 @@ public class LdapContextFactory {
     }
 
 
+    @Override
+    public void close() {
+        if (connectionPool != null) {
+            connectionPool.close();
+        }
+    }
+
     @Override
     public String toString() {
         return getClass().getSimpleName() + "{" +
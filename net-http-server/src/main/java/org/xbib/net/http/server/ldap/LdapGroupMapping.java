@@ -11,6 +11,12 @@ public class LdapGroupMapping {
     private static final String DEFAULT_MEMBER_ATTRIBUTE = "uniqueMember";
     private static final String DEFAULT_FILTER = "(&(objectClass=groupOfUniqueNames)(uniqueMember={dn}))";
 
+    /**
+     * The OID of the LDAP_MATCHING_RULE_IN_CHAIN matching rule, which matches the member attribute transitively
+     * through nested groups. Supported by Active Directory.
+     */
+    public static final String MATCHING_RULE_IN_CHAIN = "1.2.840.113556.1.4.1941";
+
     private final String baseDn;
 
     private final String idAttribute;
@@ -29,6 +35,26 @@ public class LdapGroupMapping {
         this.filterArgNames = filterArgNames;
     }
 
+    /**
+     * Create a group mapping that resolves nested groups with a single search, by matching the member attribute
+     * of the groups with the user DN through the {@link #MATCHING_RULE_IN_CHAIN} rule. The directory server must
+     * support this matching rule.
+     *
+     * @param baseDn the base DN of the groups
+     * @param idAttribute the attribute with the group ID, e.g. cn
+     * @param objectClass the object class of the groups, e.g. group
+     * @param memberAttribute the attribute with the member DNs, e.g. member
+     * @return the group mapping
+     */
+    public static LdapGroupMapping nested(String baseDn,
+                                          String idAttribute,
+                                          String objectClass,
+                                          String memberAttribute) {
+        return new LdapGroupMapping(baseDn, idAttribute,
+                "(&(objectClass=" + objectClass + ")(" + memberAttribute + ":" + MATCHING_RULE_IN_CHAIN + ":={0}))",
+                new String[] { "dn" });
+    }
+
     /**
      * Search for this mapping.
      */
@@ -65,6 +91,10 @@ public class LdapGroupMapping {
         return idAttribute;
     }
 
+    public String getFilter() {
+        return filter;
+    }
+
     public String[] getFilterArgNames() {
         return filterArgNames;
     }
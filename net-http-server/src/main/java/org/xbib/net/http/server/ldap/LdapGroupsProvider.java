@@ -1,7 +1,9 @@
 package org.xbib.net.http.server.ldap;
 
+import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -14,7 +16,10 @@ import javax.naming.directory.Attributes;
 import javax.naming.directory.SearchResult;
 import org.xbib.net.GroupsProvider;
 
-public class LdapGroupsProvider extends GroupsProvider {
+/**
+ * Provides the groups of users from a directory. Optionally, group memberships are cached, see {@link LdapCache}.
+ */
+public class LdapGroupsProvider extends GroupsProvider implements Closeable {
 
     private static final Logger logger = Logger.getLogger(LdapGroupsProvider.class.getName());
 
@@ -24,12 +29,44 @@ public class LdapGroupsProvider extends GroupsProvider {
 
     private final Map<String, LdapGroupMapping> groupMappings;
 
+    private final LdapCache<Collection<String>> cache;
+
     public LdapGroupsProvider(Map<String, LdapContextFactory> contextFactories,
                               Map<String, LdapUserMapping> userMappings,
                               Map<String, LdapGroupMapping> groupMapping) {
+        this(contextFactories, userMappings, groupMapping, null);
+    }
+
+    /**
+     * @param contextFactories the context factories
+     * @param userMappings the user mappings
+     * @param groupMapping the group mappings
+     * @param cacheBuilder the builder of the group membership cache, or null for no caching
+     */
+    public LdapGroupsProvider(Map<String, LdapContextFactory> contextFactories,
+                              Map<String, LdapUserMapping> userMappings,
+                              Map<String, LdapGroupMapping> groupMapping,
+                              LdapCache.Builder cacheBuilder) {
         this.contextFactories = contextFactories;
         this.userMappings = userMappings;
         this.groupMappings = groupMapping;
+        this.cache = cacheBuilder != null ? cacheBuilder.build(this::loadGroups) : null;
+    }
+
+    /**
+     * The group membership cache.
+     *
+     * @return the cache, or null if groups are not cached
+     */
+    public LdapCache<Collection<String>> getCache() {
+        return cache;
+    }
+
+    @Override
+    public void close() {
+        if (cache != null) {
+            cache.close();
+        }
     }
 
     @Override
@@ -42,6 +79,13 @@ public class LdapGroupsProvider extends GroupsProvider {
      * @throws LdapException if unable to retrieve groups
      */
     public Collection<String> getGroups(String username) {
+        if (cache != null && username != null) {
+            return cache.get(username);
+        }
+        return loadGroups(username);
+    }
+
+    private Collection<String> loadGroups(String username) {
         if (userMappings == null) {
             return null;
         }
@@ -74,7 +118,7 @@ public class LdapGroupsProvider extends GroupsProvider {
             }
         }
         checkResults(groups, exceptions);
-        return groups;
+        return cache != null ? Collections.unmodifiableSet(groups) : groups;
     }
 
     private static void checkResults(Set<String> groups, List<LdapException> exceptions) {
@@ -22,10 +22,25 @@ public class LdapRealm extends SecurityRealm {
                      Map<String, LdapContextFactory> contextFactories,
                      Map<String, LdapUserMapping> userMappings,
                      Map<String, LdapGroupMapping> groupMappings) {
+        this(name, contextFactories, userMappings, groupMappings, null);
+    }
+
+    /**
+     * @param name the realm name
+     * @param contextFactories the context factories
+     * @param userMappings the user mappings
+     * @param groupMappings the group mappings
+     * @param groupsCacheBuilder the builder of the group membership cache, or null for no caching
+     */
+    public LdapRealm(String name,
+                     Map<String, LdapContextFactory> contextFactories,
+                     Map<String, LdapUserMapping> userMappings,
+                     Map<String, LdapGroupMapping> groupMappings,
+                     LdapCache.Builder groupsCacheBuilder) {
         this.name = name;
         this.contextFactories = contextFactories;
         this.usersProvider = new LdapUsersProvider(contextFactories, userMappings);
-        this.groupsProvider = new LdapGroupsProvider(contextFactories, userMappings, groupMappings);
+        this.groupsProvider = new LdapGroupsProvider(contextFactories, userMappings, groupMappings, groupsCacheBuilder);
         this.authenticator = new LdapAuthenticator(contextFactories, userMappings);
     }
 
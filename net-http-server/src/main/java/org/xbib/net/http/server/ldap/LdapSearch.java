@@ -1,6 +1,9 @@
 package org.xbib.net.http.server.ldap;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.naming.Context;
@@ -62,15 +65,29 @@ public class LdapSearch {
      */
     public NamingEnumeration<SearchResult> find() throws NamingException {
         logger.log(Level.FINE, "find: " + this);
+        LdapConnectionPool connectionPool = contextFactory.getConnectionPool();
+        if (connectionPool != null) {
+            // the results are read before the connection goes back to the pool
+            return connectionPool.execute(context -> {
+                List<SearchResult> list = new ArrayList<>();
+                NamingEnumeration<SearchResult> enumeration = context.search(baseDn, filter, filterArgs, createSearchControls());
+                try {
+                    while (hasMore(enumeration)) {
+                        list.add(enumeration.next());
+                    }
+                } finally {
+                    enumeration.close();
+                }
+                logger.log(Level.FINE, "result size = " + list.size());
+                return new SearchResults(list);
+            });
+        }
         NamingEnumeration<SearchResult> result;
         InitialDirContext context = null;
         boolean ok = false;
         try {
             context = contextFactory.createBindContext();
-            SearchControls controls = new SearchControls();
-            controls.setSearchScope(scope);
-            controls.setReturningAttributes(returningAttributes);
-            result = context.search(baseDn, filter, filterArgs, controls);
+            result = context.search(baseDn, filter, filterArgs, createSearchControls());
             logger.log(Level.FINE, "result = " + result + " hasMore = " + result.hasMore());
             ok = true;
         } finally {
@@ -99,6 +116,13 @@ public class LdapSearch {
         return null;
     }
 
+    private SearchControls createSearchControls() {
+        SearchControls controls = new SearchControls();
+        controls.setSearchScope(scope);
+        controls.setReturningAttributes(returningAttributes);
+        return controls;
+    }
+
     private static boolean hasMore(NamingEnumeration<SearchResult> result) throws NamingException {
         try {
             return result.hasMore();
@@ -171,4 +195,40 @@ public class LdapSearch {
             }
         }
     }
+
+    /**
+     * Search results that were read completely from a pooled connection.
+     */
+    private static class SearchResults implements NamingEnumeration<SearchResult> {
+
+        private final Iterator<SearchResult> iterator;
+
+        private SearchResults(List<SearchResult> list) {
+            this.iterator = list.iterator();
+        }
+
+        @Override
+        public SearchResult next() {
+            return iterator.next();
+        }
+
+        @Override
+        public boolean hasMore() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean hasMoreElements() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public SearchResult nextElement() {
+            return iterator.next();
+        }
+    }
 }
@@ -0,0 +1,181 @@
+package org.xbib.net.http.server.log;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A reusable byte buffer for one access log line. The buffers are owned by the slots of an {@link AccessLogWriter}
+ * and grow with the longest line they have held, so formatting a line does not allocate.
+ *
+ * Text is written as UTF-8. With {@link #appendEscaped(CharSequence)}, quotes, backslashes and control characters
+ * are escaped, so that request values like the user agent can not break the line format.
+ */
+public final class AccessLogBuffer {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private byte[] bytes;
+
+    private int length;
+
+    AccessLogBuffer() {
+        this.bytes = new byte[512];
+    }
+
+    public AccessLogBuffer append(byte b) {
+        ensureCapacity(1);
+        bytes[length++] = b;
+        return this;
+    }
+
+    public AccessLogBuffer append(byte[] b) {
+        ensureCapacity(b.length);
+        System.arraycopy(b, 0, bytes, length, b.length);
+        length += b.length;
+        return this;
+    }
+
+    public AccessLogBuffer append(char c) {
+        if (c < 0x80) {
+            return append((byte) c);
+        }
+        appendUtf8(c);
+        return this;
+    }
+
+    /**
+     * Append a text, or "-" if the text is null or empty.
+     *
+     * @param s the text
+     * @return this buffer
+     */
+    public AccessLogBuffer append(CharSequence s) {
+        if (s == null || s.length() == 0) {
+            return append((byte) '-');
+        }
+        int n = s.length();
+        ensureCapacity(n);
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                if (length == bytes.length) {
+                    ensureCapacity(n - i);
+                }
+                bytes[length++] = (byte) c;
+            } else {
+                appendUtf8(c);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Append a text with quotes, backslashes and control characters escaped, or "-" if the text is null or empty.
+     *
+     * @param s the text
+     * @return this buffer
+     */
+    public AccessLogBuffer appendEscaped(CharSequence s) {
+        if (s == null || s.length() == 0) {
+            return append((byte) '-');
+        }
+        int n = s.length();
+        ensureCapacity(n);
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                ensureCapacity(2);
+                bytes[length++] = '\\';
+                bytes[length++] = (byte) c;
+            } else if (c < 0x20 || c == 0x7f) {
+                ensureCapacity(4);
+                bytes[length++] = '\\';
+                bytes[length++] = 'x';
+                bytes[length++] = HEX[(c >> 4) & 0x0f];
+                bytes[length++] = HEX[c & 0x0f];
+            } else if (c < 0x80) {
+                ensureCapacity(1);
+                bytes[length++] = (byte) c;
+            } else {
+                appendUtf8(c);
+            }
+        }
+        return this;
+    }
+
+    public AccessLogBuffer append(long value) {
+        if (value == Long.MIN_VALUE) {
+            return append(Long.toString(value));
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            bytes[length++] = '-';
+            value = -value;
+        }
+        int start = length;
+        do {
+            bytes[length++] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            byte b = bytes[i];
+            bytes[i] = bytes[j];
+            bytes[j] = b;
+        }
+        return this;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    void reset() {
+        length = 0;
+        if (bytes.length > MAX_RETAINED_CAPACITY) {
+            bytes = new byte[512];
+        }
+    }
+
+    /**
+     * Copy the content to a byte buffer.
+     *
+     * @param byteBuffer the byte buffer
+     * @param offset the offset in this buffer
+     * @return the number of copied bytes
+     */
+    int copyTo(ByteBuffer byteBuffer, int offset) {
+        int n = Math.min(byteBuffer.remaining(), length - offset);
+        byteBuffer.put(bytes, offset, n);
+        return n;
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void appendUtf8(char c) {
+        ensureCapacity(3);
+        if (c < 0x800) {
+            bytes[length++] = (byte) (0xc0 | (c >> 6));
+            bytes[length++] = (byte) (0x80 | (c & 0x3f));
+        } else if (Character.isSurrogate(c)) {
+            // surrogates are written as '?', pairs are rare in request values
+            bytes[length++] = '?';
+        } else {
+            bytes[length++] = (byte) (0xe0 | (c >> 12));
+            bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+            bytes[length++] = (byte) (0x80 | (c & 0x3f));
+        }
+    }
+
+    private void ensureCapacity(int n) {
+        if (length + n > bytes.length) {
+            byte[] b = new byte[Math.max(length + n, 2 * bytes.length)];
+            System.arraycopy(bytes, 0, b, 0, length);
+            bytes = b;
+        }
+    }
+}
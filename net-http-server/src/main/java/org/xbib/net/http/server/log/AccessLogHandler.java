@@ -0,0 +1,130 @@
+package org.xbib.net.http.server.log;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.function.BiConsumer;
+import org.xbib.net.UserProfile;
+import org.xbib.net.http.HttpHeaderNames;
+import org.xbib.net.http.HttpResponseStatus;
+import org.xbib.net.http.server.HttpHandler;
+import org.xbib.net.http.server.HttpRequest;
+import org.xbib.net.http.server.route.HttpRouterContext;
+
+/**
+ * Writes access log lines in the layout of {@link CommonFormatLogger} or {@link CombinedFormatLogger}
+ * to an {@link AccessLogWriter}.
+ *
+ * Remote addresses are logged as IP addresses, host names are never resolved. The timestamp is formatted once
+ * per second and shared by all lines of that second.
+ */
+public class AccessLogHandler implements HttpHandler {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER =
+            DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss Z", Locale.US);
+
+    private static final byte[] SEPARATOR = " - ".getBytes(StandardCharsets.US_ASCII);
+
+    private final AccessLogWriter writer;
+
+    private final BiConsumer<AccessLogBuffer, HttpRouterContext> formatter;
+
+    private final ZoneId zoneId;
+
+    private volatile Timestamp timestamp;
+
+    public AccessLogHandler(AccessLogWriter writer, Format format) {
+        this(writer, format, ZoneId.systemDefault());
+    }
+
+    public AccessLogHandler(AccessLogWriter writer, Format format, ZoneId zoneId) {
+        this.writer = writer;
+        this.formatter = format == Format.COMBINED ? this::formatCombined : this::formatCommon;
+        this.zoneId = zoneId;
+        this.timestamp = new Timestamp(0L, zoneId);
+    }
+
+    @Override
+    public void handle(HttpRouterContext httpRouterContext) {
+        writer.write(formatter, httpRouterContext);
+    }
+
+    public AccessLogWriter getWriter() {
+        return writer;
+    }
+
+    void formatCommon(AccessLogBuffer buffer, HttpRouterContext httpRouterContext) {
+        HttpRequest request = httpRouterContext.getRequest();
+        appendRemoteAddress(buffer, request.getRemoteAddress());
+        buffer.append(SEPARATOR);
+        UserProfile userProfile = httpRouterContext.getAttributes().get(UserProfile.class, "userprofile");
+        buffer.appendEscaped(userProfile != null ? userProfile.getEffectiveUserId() : null);
+        buffer.append(SEPARATOR);
+        buffer.append((byte) '[').append(getTimestamp()).append((byte) ']').append((byte) ' ');
+        buffer.append((byte) '"').append(request.getMethod().name()).append((byte) ' ')
+                .appendEscaped(request.getRequestURI()).append((byte) ' ')
+                .append(request.getContext().getContextURL().getScheme()).append((byte) '"');
+        HttpResponseStatus httpResponseStatus = httpRouterContext.status();
+        buffer.append((byte) ' ').append(httpResponseStatus != null ? httpResponseStatus.code() : 0);
+        buffer.append((byte) ' ').append(httpRouterContext.lengthInBytes());
+    }
+
+    void formatCombined(AccessLogBuffer buffer, HttpRouterContext httpRouterContext) {
+        formatCommon(buffer, httpRouterContext);
+        HttpRequest request = httpRouterContext.getRequest();
+        buffer.append((byte) ' ').append((byte) '"')
+                .appendEscaped(request.getHeaders().get(HttpHeaderNames.REFERER))
+                .append((byte) '"');
+        buffer.append((byte) ' ').append((byte) '"')
+                .appendEscaped(request.getHeaders().get(HttpHeaderNames.USER_AGENT))
+                .append((byte) '"');
+    }
+
+    /**
+     * The timestamp of the current second.
+     *
+     * @return the formatted timestamp
+     */
+    byte[] getTimestamp() {
+        long second = System.currentTimeMillis() / 1000L;
+        Timestamp t = timestamp;
+        if (t.second != second) {
+            // racing threads format the same second, the last one wins
+            t = new Timestamp(second, zoneId);
+            timestamp = t;
+        }
+        return t.bytes;
+    }
+
+    private static void appendRemoteAddress(AccessLogBuffer buffer, InetSocketAddress remote) {
+        if (remote == null) {
+            buffer.append((byte) '-');
+            return;
+        }
+        // getHostString() and getHostAddress() never do a reverse lookup, unlike getHostName()
+        InetAddress inetAddress = remote.getAddress();
+        buffer.append(inetAddress != null ? inetAddress.getHostAddress() : remote.getHostString());
+        buffer.append((byte) ':').append(remote.getPort());
+    }
+
+    public enum Format {
+        COMMON, COMBINED
+    }
+
+    private static class Timestamp {
+
+        private final long second;
+
+        private final byte[] bytes;
+
+        private Timestamp(long second, ZoneId zoneId) {
+            this.second = second;
+            this.bytes = TIMESTAMP_FORMATTER.format(Instant.ofEpochSecond(second).atZone(zoneId))
+                    .getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+}
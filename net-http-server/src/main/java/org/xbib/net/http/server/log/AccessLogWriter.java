@@ -0,0 +1,370 @@
+package org.xbib.net.http.server.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An asynchronous access log writer.
+ *
+ * Request threads format lines directly into the preallocated buffers of a bounded ring and return at once.
+ * A single writer thread drains the ring in order and writes the lines in large chunks to a file, which is rotated
+ * when it exceeds the maximum file size. If a rotation fails, the writer keeps writing to the current file and tries
+ * again after the file has grown by another maximum file size. If the ring is full, because the disk can not keep up, lines are dropped
+ * and counted instead of blocking request threads, see {@link #getDroppedCount()}.
+ */
+public class AccessLogWriter implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(AccessLogWriter.class.getName());
+
+    private final Path path;
+
+    private final long maxFileSize;
+
+    private final int maxFiles;
+
+    private final Slot[] slots;
+
+    private final int mask;
+
+    private final AtomicLong tail;
+
+    private volatile long head;
+
+    private final ByteBuffer byteBuffer;
+
+    private final Thread thread;
+
+    private final LongAdder written;
+
+    private final LongAdder dropped;
+
+    private final LongAdder rotations;
+
+    private final LongAdder rotationFailures;
+
+    private volatile boolean sleeping;
+
+    private volatile boolean closed;
+
+    private FileChannel channel;
+
+    private long fileSize;
+
+    private long rotateSize;
+
+    private AccessLogWriter(Builder builder) throws IOException {
+        this.path = builder.path;
+        this.maxFileSize = builder.maxFileSize;
+        this.maxFiles = builder.maxFiles;
+        int capacity = Integer.highestOneBit(Math.max(2, builder.capacity - 1)) << 1;
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot(i - capacity);
+        }
+        this.mask = capacity - 1;
+        this.tail = new AtomicLong();
+        this.byteBuffer = ByteBuffer.allocateDirect(builder.writeBufferSize);
+        this.written = new LongAdder();
+        this.dropped = new LongAdder();
+        this.rotations = new LongAdder();
+        this.rotationFailures = new LongAdder();
+        this.rotateSize = maxFileSize;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        open();
+        this.thread = new Thread(this::drain, "org-xbib-net-server-access-log");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Format a line into the ring. The formatter runs on the calling thread and must not keep the buffer.
+     * A line feed is appended to the line.
+     *
+     * @param formatter the formatter
+     * @param t the object to format, e.g. a request context
+     * @param <T> the type of the object
+     * @return true if the line was accepted, false if it was dropped because the ring is full or the writer is closed
+     */
+    public <T> boolean write(BiConsumer<AccessLogBuffer, T> formatter, T t) {
+        if (closed) {
+            dropped.increment();
+            return false;
+        }
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head >= slots.length) {
+                dropped.increment();
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        Slot slot = slots[(int) sequence & mask];
+        AccessLogBuffer buffer = slot.buffer;
+        buffer.reset();
+        try {
+            formatter.accept(buffer, t);
+            buffer.append((byte) '\n');
+        } catch (RuntimeException e) {
+            // the slot must be published in any case, or the writer thread would wait for it forever
+            buffer.reset();
+            logger.log(Level.WARNING, e.getMessage(), e);
+        } finally {
+            slot.published = sequence;
+        }
+        if (sleeping) {
+            LockSupport.unpark(thread);
+        }
+        return true;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getRotationCount() {
+        return rotations.sum();
+    }
+
+    public long getRotationFailureCount() {
+        return rotationFailures.sum();
+    }
+
+    /**
+     * Stop accepting lines, write the pending lines, and close the file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10L));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return "[AccessLogWriter:path=" + path +
+                ",written=" + getWrittenCount() +
+                ",dropped=" + getDroppedCount() +
+                ",rotations=" + getRotationCount() +
+                ",rotationFailures=" + getRotationFailureCount() + "]";
+    }
+
+    private void drain() {
+        while (true) {
+            long sequence = head;
+            Slot slot = slots[(int) sequence & mask];
+            if (slot.published == sequence) {
+                try {
+                    copy(slot.buffer);
+                } catch (IOException e) {
+                    logger.log(Level.WARNING, "unable to write access log " + path + ": " + e.getMessage(), e);
+                }
+                slot.buffer.reset();
+                // frees the slot for producers
+                head = sequence + 1;
+                continue;
+            }
+            try {
+                flush();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "unable to write access log " + path + ": " + e.getMessage(), e);
+            }
+            if (closed && tail.get() == head) {
+                return;
+            }
+            sleeping = true;
+            if (slots[(int) head & mask].published != head && !closed) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100L));
+            }
+            sleeping = false;
+        }
+    }
+
+    private void copy(AccessLogBuffer buffer) throws IOException {
+        int length = buffer.length();
+        if (length == 0) {
+            return;
+        }
+        if (fileSize + byteBuffer.position() + length > rotateSize && fileSize + byteBuffer.position() > 0L) {
+            flush();
+            try {
+                rotate();
+                rotateSize = maxFileSize;
+            } catch (IOException e) {
+                // keep writing to the current file, and do not try again on every line
+                rotationFailures.increment();
+                rotateSize = fileSize + maxFileSize;
+                logger.log(Level.WARNING, "unable to rotate access log " + path + ": " + e.getMessage(), e);
+            }
+        }
+        int offset = 0;
+        while (offset < length) {
+            offset += buffer.copyTo(byteBuffer, offset);
+            if (!byteBuffer.hasRemaining()) {
+                flush();
+            }
+        }
+        written.increment();
+    }
+
+    private void flush() throws IOException {
+        if (byteBuffer.position() == 0) {
+            return;
+        }
+        byteBuffer.flip();
+        try {
+            while (byteBuffer.hasRemaining()) {
+                fileSize += channel.write(byteBuffer);
+            }
+        } finally {
+            byteBuffer.clear();
+        }
+    }
+
+    private void rotate() throws IOException {
+        channel.close();
+        try {
+            if (maxFiles > 0) {
+                for (int i = maxFiles - 1; i > 0; i--) {
+                    Path source = rotated(i);
+                    if (Files.exists(source)) {
+                        Files.move(source, rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+                Files.move(path, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.delete(path);
+            }
+            rotations.increment();
+        } finally {
+            // if a move failed, the current file is opened again
+            open();
+        }
+    }
+
+    private Path rotated(int i) {
+        return path.resolveSibling(path.getFileName() + "." + i);
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        fileSize = channel.size();
+    }
+
+    private static class Slot {
+
+        private final AccessLogBuffer buffer;
+
+        private volatile long published;
+
+        private Slot(long published) {
+            this.buffer = new AccessLogBuffer();
+            this.published = published;
+        }
+    }
+
+    public static class Builder {
+
+        private Path path;
+
+        private int capacity;
+
+        private int writeBufferSize;
+
+        private long maxFileSize;
+
+        private int maxFiles;
+
+        private Builder() {
+            this.capacity = 8192;
+            this.writeBufferSize = 64 * 1024;
+            this.maxFileSize = 100L * 1024L * 1024L;
+            this.maxFiles = 10;
+        }
+
+        public Builder setPath(Path path) {
+            this.path = path;
+            return this;
+        }
+
+        /**
+         * Set the number of lines that the ring can hold. Lines are dropped when the ring is full.
+         *
+         * @param capacity the capacity, rounded up to a power of two
+         * @return this builder
+         */
+        public Builder setCapacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
+        public Builder setWriteBufferSize(int writeBufferSize) {
+            this.writeBufferSize = writeBufferSize;
+            return this;
+        }
+
+        /**
+         * Set the file size after which the file is rotated.
+         *
+         * @param maxFileSize the maximum file size in bytes
+         * @return this builder
+         */
+        public Builder setMaxFileSize(long maxFileSize) {
+            this.maxFileSize = maxFileSize;
+            return this;
+        }
+
+        /**
+         * Set the number of rotated files to keep, named like the file with a suffix ".1", ".2", and so on.
+         * With zero, the file is truncated on rotation.
+         *
+         * @param maxFiles the number of rotated files
+         * @return this builder
+         */
+        public Builder setMaxFiles(int maxFiles) {
+            this.maxFiles = maxFiles;
+            return this;
+        }
+
+        public AccessLogWriter build() throws IOException {
+            if (path == null) {
+                throw new IllegalArgumentException("no path");
+            }
+            return new AccessLogWriter(this);
+        }
+    }
+}
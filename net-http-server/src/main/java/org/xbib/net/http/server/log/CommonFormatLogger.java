@@ -23,7 +23,7 @@ public class CommonFormatLogger implements HttpHandler {
     public void handle(HttpRouterContext httpRouterContext) throws IOException {
         HttpRequest request = httpRouterContext.getRequest();
         InetSocketAddress remote = httpRouterContext.getRequest().getRemoteAddress();
-        String inetAddressString = remote.getHostName() + ":" + remote.getPort();
+        String inetAddressString = remote.getHostString() + ":" + remote.getPort();
         HttpResponseStatus httpResponseStatus = httpRouterContext.status();
         int statusInteger = httpResponseStatus != null ? httpResponseStatus.code() : 0;
         Long contentLength = httpRouterContext.lengthInBytes();
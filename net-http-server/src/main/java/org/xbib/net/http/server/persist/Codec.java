@@ -1,6 +1,7 @@
 package org.xbib.net.http.server.persist;
 
 import java.io.IOException;
+import java.util.Map;
 
 public interface Codec<D> {
 
@@ -10,6 +11,18 @@ public interface Codec<D> {
 
     void write(String key, D data) throws IOException;
 
+    /**
+     * Write many entries at once. Codecs that can write in batches should override this method.
+     *
+     * @param map the entries to write
+     * @throws IOException if writing fails
+     */
+    default void writeAll(Map<String, D> map) throws IOException {
+        for (Map.Entry<String, D> entry : map.entrySet()) {
+            write(entry.getKey(), entry.getValue());
+        }
+    }
+
     void remove(String key) throws IOException;
 
     void purge(long expiredAfterSeconds) throws IOException;
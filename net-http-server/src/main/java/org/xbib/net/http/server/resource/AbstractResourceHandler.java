@@ -1,13 +1,15 @@
 package org.xbib.net.http.server.resource;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URISyntaxException;
-import java.nio.CharBuffer;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -23,15 +25,17 @@ import org.xbib.net.URL;
 import org.xbib.net.buffer.DataBuffer;
 import org.xbib.net.buffer.DataBufferFactory;
 import org.xbib.net.buffer.DataBufferUtil;
+import org.xbib.net.http.HttpDate;
 import org.xbib.net.http.HttpHeaderNames;
 import org.xbib.net.http.HttpHeaders;
 import org.xbib.net.http.HttpMethod;
 import org.xbib.net.http.HttpResponseStatus;
+import org.xbib.net.http.server.FileRegion;
 import org.xbib.net.http.server.HttpException;
 import org.xbib.net.http.server.HttpHandler;
+import org.xbib.net.http.server.MultipartFileRegion;
 import org.xbib.net.http.server.route.HttpRouterContext;
 import org.xbib.net.mime.MimeTypeService;
-import org.xbib.net.util.DateTimeUtil;
 
 import static org.xbib.net.http.HttpHeaderNames.CONTENT_TYPE;
 
@@ -41,7 +45,31 @@ public abstract class AbstractResourceHandler implements HttpHandler {
 
     private static final Logger logger = Logger.getLogger(AbstractResourceHandler.class.getName());
 
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final String MULTIPART_BOUNDARY = "MULTIPART_BOUNDARY";
+
+    private final String cacheKeyPrefix;
+
+    private ResourceCache resourceCache;
+
     public AbstractResourceHandler() {
+        this.cacheKeyPrefix = getClass().getName() + '@' + Integer.toHexString(System.identityHashCode(this)) + ':';
+    }
+
+    /**
+     * Set a cache for the resources of this handler. Only handlers that provide a cache key cache resources.
+     *
+     * @param resourceCache the resource cache
+     * @return this handler
+     */
+    public AbstractResourceHandler setResourceCache(ResourceCache resourceCache) {
+        this.resourceCache = resourceCache;
+        return this;
+    }
+
+    public ResourceCache getResourceCache() {
+        return resourceCache;
     }
 
     protected abstract Resource createResource(HttpRouterContext httpRouterContext) throws IOException;
@@ -54,10 +82,31 @@ public abstract class AbstractResourceHandler implements HttpHandler {
 
     protected abstract int getMaxAgeSeconds();
 
+    /**
+     * Whether file resources are handed to the response builder as a file region instead of being read
+     * into a buffer. The server may then transfer the file content without copying, e.g. by sendfile.
+     *
+     * @return true if file regions should be used for file resources
+     */
+    protected boolean isZeroCopyEnabled() {
+        return false;
+    }
+
+    /**
+     * The key of the requested resource in the resource cache. The key must identify the resource
+     * without creating it. Handlers that can not provide such a key return null and are not cached.
+     *
+     * @param httpRouterContext the router context
+     * @return the cache key or null
+     */
+    protected String getCacheKey(HttpRouterContext httpRouterContext) {
+        return null;
+    }
+
     @Override
     public void handle(HttpRouterContext context) throws IOException {
         logger.log(Level.FINEST, () -> "handle: before creating resource " + this.getClass().getName());
-        Resource resource = createResource(context);
+        Resource resource = lookupResource(context);
         logger.log(Level.FINEST, () -> "handle: resource = " + (resource != null ? resource.getClass().getName() + " " + resource : null));
         if (resource instanceof HtmlTemplateResource) {
             generateCacheableResource(context, resource);
@@ -93,6 +142,23 @@ public abstract class AbstractResourceHandler implements HttpHandler {
         }
     }
 
+    private Resource lookupResource(HttpRouterContext context) throws IOException {
+        String cacheKey = resourceCache != null ? getCacheKey(context) : null;
+        if (cacheKey == null) {
+            return createResource(context);
+        }
+        Resource resource = resourceCache.get(cacheKeyPrefix + cacheKey);
+        if (resource != null) {
+            return resource;
+        }
+        resource = createResource(context);
+        if (resource != null && resource.isExists() && !resource.isDirectory() &&
+                !(resource instanceof HtmlTemplateResource) && !(resource instanceof HttpServerResource)) {
+            resource = resourceCache.load(cacheKeyPrefix + cacheKey, resource);
+        }
+        return resource;
+    }
+
     private void generateCacheableResource(HttpRouterContext context,
                                            Resource resource) throws IOException {
         // if resource is length of 0, there is nothing to send. Do not send any content
@@ -118,7 +184,7 @@ public abstract class AbstractResourceHandler implements HttpHandler {
             context.header(HttpHeaderNames.CONTENT_DISPOSITION, contentDisposition);
         }
         long expirationMillis = System.currentTimeMillis() + 1000L * getMaxAgeSeconds();
-        String expires = DateTimeUtil.formatRfc1123(expirationMillis);
+        String expires = HttpDate.format(expirationMillis);
         if (isCacheResponseEnabled()) {
             String cacheControl = "public, max-age=" + getMaxAgeSeconds();
             logger.log(Level.FINEST, () -> "cache response, expires = " + expires + " cache control = " + cacheControl);
@@ -129,15 +195,24 @@ public abstract class AbstractResourceHandler implements HttpHandler {
             context.header(HttpHeaderNames.EXPIRES, "0")
                     .header(HttpHeaderNames.CACHE_CONTROL, "no-cache, no-store, must-revalidate");
         }
+        CachedResource cachedResource = resource instanceof CachedResource ? (CachedResource) resource : null;
+        if (cachedResource != null && cachedResource.hasEncodedContents()) {
+            context.header(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING);
+        }
+        String encoding = cachedResource != null ?
+                cachedResource.selectEncoding(headers.get(HttpHeaderNames.ACCEPT_ENCODING)) : null;
         boolean sent = false;
         if (isETagResponseEnabled()) {
             Instant lastModifiedInstant = resource.getLastModified();
-            String eTag = Long.toHexString(resource.getResourcePath().hashCode() + lastModifiedInstant.toEpochMilli() + resource.getLength());
+            String identityETag = cachedResource != null ? cachedResource.getETag() : createETag(resource);
+            // byte ranges are served from the identity representation, everything else from the encoded variant
+            boolean rangeRequest = isRangeResponseEnabled() && headers.get(HttpHeaderNames.RANGE) != null;
+            String eTag = encoding != null && !rangeRequest ? cachedResource.getETag(encoding) : identityETag;
             logger.log(Level.FINEST, () -> "eTag = " + eTag);
-            Instant ifUnmodifiedSinceInstant = DateTimeUtil.parseDate(headers.get(HttpHeaderNames.IF_UNMODIFIED_SINCE));
-            if (ifUnmodifiedSinceInstant != null &&
-                    ifUnmodifiedSinceInstant.plusMillis(1000L).isAfter(lastModifiedInstant)) {
-                logger.log(Level.FINEST, () -> "precondition failed, lastModified = " + lastModifiedInstant + " ifUnmodifiedSince = " + ifUnmodifiedSinceInstant);
+            long ifUnmodifiedSince = HttpDate.parse(headers.get(HttpHeaderNames.IF_UNMODIFIED_SINCE));
+            if (ifUnmodifiedSince != HttpDate.INVALID &&
+                    ifUnmodifiedSince + 1000L > lastModifiedInstant.toEpochMilli()) {
+                logger.log(Level.FINEST, () -> "precondition failed, lastModified = " + lastModifiedInstant + " ifUnmodifiedSince = " + Instant.ofEpochMilli(ifUnmodifiedSince));
                 context.status(HttpResponseStatus.PRECONDITION_FAILED);
                 return;
             }
@@ -154,26 +229,27 @@ public abstract class AbstractResourceHandler implements HttpHandler {
                         .status(HttpResponseStatus.NOT_MODIFIED);
                 return;
             }
-            Instant ifModifiedSinceInstant = DateTimeUtil.parseDate(headers.get(HttpHeaderNames.IF_MODIFIED_SINCE));
-            if (ifModifiedSinceInstant != null &&
-                    ifModifiedSinceInstant.plusMillis(1000L).isAfter(lastModifiedInstant)) {
+            long ifModifiedSince = HttpDate.parse(headers.get(HttpHeaderNames.IF_MODIFIED_SINCE));
+            if (ifModifiedSince != HttpDate.INVALID &&
+                    ifModifiedSince + 1000L > lastModifiedInstant.toEpochMilli()) {
                 logger.log(Level.FINEST, () -> "not modified (after if-modified-since), eTag = " + eTag);
                 context.header(HttpHeaderNames.ETAG, eTag)
                         .status(HttpResponseStatus.NOT_MODIFIED);
                 return;
             }
-            String lastModified = DateTimeUtil.formatRfc1123(lastModifiedInstant);
+            String lastModified = resource instanceof CachedResource ?
+                    ((CachedResource) resource).getLastModifiedHeader() : HttpDate.format(lastModifiedInstant);
             logger.log(Level.FINEST, () -> "sending resource, lastModified = " + lastModified);
-            context.header(HttpHeaderNames.ETAG, eTag)
-                    .header(HttpHeaderNames.LAST_MODIFIED, lastModified);
+            context.header(HttpHeaderNames.LAST_MODIFIED, lastModified);
             if (isRangeResponseEnabled()) {
-                performRangeResponse(context, resource, contentType, eTag, headers);
+                performRangeResponse(context, resource, contentType, identityETag, encoding, headers);
                 sent = true;
             } else {
                 logger.log(Level.WARNING, "range response not enabled");
+                context.header(HttpHeaderNames.ETAG, eTag);
             }
         }
-        if (!sent) {
+        if (!sent && !sendEncoded(resource, encoding, context)) {
             long length = resource.getLength();
             if (length > 0L) {
                 String string = Long.toString(resource.getLength());
@@ -192,6 +268,7 @@ public abstract class AbstractResourceHandler implements HttpHandler {
                                       Resource resource,
                                       String contentType,
                                       String eTag,
+                                      String encoding,
                                       HttpHeaders headers) throws IOException {
         long length = resource.getLength();
         logger.log(Level.FINEST, "performing range response on resource = " + resource);
@@ -207,12 +284,9 @@ public abstract class AbstractResourceHandler implements HttpHandler {
             }
             String ifRange = headers.get(HttpHeaderNames.IF_RANGE);
             if (ifRange != null && !ifRange.equals(eTag)) {
-                try {
-                    Instant ifRangeTime = DateTimeUtil.parseDate(ifRange);
-                    if (ifRangeTime != null && ifRangeTime.plusMillis(1000).isBefore(resource.getLastModified())) {
-                        ranges.add(full);
-                    }
-                } catch (IllegalArgumentException ignore) {
+                long ifRangeTime = HttpDate.parse(ifRange);
+                if (ifRangeTime == HttpDate.INVALID ||
+                        ifRangeTime + 1000L < resource.getLastModified().toEpochMilli()) {
                     ranges.add(full);
                 }
             }
@@ -235,6 +309,14 @@ public abstract class AbstractResourceHandler implements HttpHandler {
                 }
             }
         }
+        if ((ranges.isEmpty() || ranges.get(0) == full) && encoding != null) {
+            // the encoded variant has an entity tag of its own
+            context.header(HttpHeaderNames.ETAG, ((CachedResource) resource).getETag(encoding));
+            sendEncoded(resource, encoding, context);
+            logger.log(Level.FINEST, "encoded variant sent");
+            return;
+        }
+        context.header(HttpHeaderNames.ETAG, eTag);
         if (ranges.isEmpty() || ranges.get(0) == full) {
             context.header(HttpHeaderNames.CONTENT_RANGE, "bytes " + full.start + '-' + full.end + '/' + full.total)
                     .header(HttpHeaderNames.CONTENT_LENGTH, Long.toString(full.length));
@@ -245,29 +327,96 @@ public abstract class AbstractResourceHandler implements HttpHandler {
                     .header(HttpHeaderNames.CONTENT_LENGTH, Long.toString(r.length));
             send(resource, HttpResponseStatus.PARTIAL_CONTENT, contentType, context, r.start, r.length);
         } else {
-            context.header(CONTENT_TYPE, "multipart/byteranges; boundary=MULTIPART_BOUNDARY");
-            StringBuilder sb = new StringBuilder();
-            for (Range r : ranges) {
-                try {
-                    DataBuffer dataBuffer = readBuffer(context.getDataBufferFactory(), resource.getURL(), r.start, r.length);
-                    sb.append('\n')
-                        .append("--MULTIPART_BOUNDARY").append('\n')
-                        .append("content-type: ").append(contentType).append('\n')
-                        .append("content-range: bytes ").append(r.start).append('-').append(r.end).append('/').append(r.total).append('\n')
-                        .append(StandardCharsets.ISO_8859_1.decode(dataBuffer.asByteBuffer()))
-                        .append('\n')
-                        .append("--MULTIPART_BOUNDARY--").append('\n');
-                    dataBuffer.release();
-                } catch (URISyntaxException | IOException e) {
-                    logger.log(Level.FINEST, e.getMessage(), e);
+            sendMultipart(resource, contentType, context, ranges);
+        }
+    }
+
+    /**
+     * Send a multipart/byteranges response. The part headers are encoded in advance, so the content length
+     * is known before any content is written. For file resources, the ranges are passed as file regions and
+     * are never copied into a buffer.
+     */
+    private void sendMultipart(Resource resource,
+                               String contentType,
+                               HttpRouterContext context,
+                               List<Range> ranges) throws IOException {
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long length = 0L;
+        for (Range r : ranges) {
+            byte[] partHeader = ((partHeaders.isEmpty() ? "" : "\r\n") +
+                    "--" + MULTIPART_BOUNDARY + "\r\n" +
+                    "content-type: " + contentType + "\r\n" +
+                    "content-range: bytes " + r.start + '-' + r.end + '/' + r.total + "\r\n" +
+                    "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+            partHeaders.add(partHeader);
+            length += partHeader.length + r.length;
+        }
+        byte[] end = ("\r\n--" + MULTIPART_BOUNDARY + "--\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        length += end.length;
+        // the content type of the resource is moved into the parts
+        context.setHeader(CONTENT_TYPE, "multipart/byteranges; boundary=" + MULTIPART_BOUNDARY)
+                .status(HttpResponseStatus.PARTIAL_CONTENT)
+                .header(HttpHeaderNames.CONTENT_LENGTH, Long.toString(length));
+        URL url = resource.getURL();
+        if (context.getRequestBuilder().getMethod() == HttpMethod.HEAD) {
+            logger.log(Level.FINEST, "HEAD request, do not send body");
+        } else if ("file".equals(url.getScheme()) && isZeroCopyEnabled()) {
+            MultipartFileRegion.Builder builder = MultipartFileRegion.builder();
+            for (int i = 0; i < ranges.size(); i++) {
+                Range r = ranges.get(i);
+                builder.addPart(partHeaders.get(i), new FileRegion(resource.getPath(), r.start, r.length));
+            }
+            MultipartFileRegion multipartFileRegion = builder.setEnd(end).build();
+            logger.log(Level.FINEST, "sending multipart file region = " + multipartFileRegion);
+            context.body(multipartFileRegion, DEFAULT_BUFFER_SIZE);
+        } else {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream((int) Math.min(length, Integer.MAX_VALUE));
+            try (WritableByteChannel channel = Channels.newChannel(outputStream)) {
+                for (int i = 0; i < ranges.size(); i++) {
+                    Range r = ranges.get(i);
+                    outputStream.write(partHeaders.get(i));
+                    DataBuffer dataBuffer = readBuffer(context.getDataBufferFactory(), url, r.start, r.length);
+                    try {
+                        channel.write(dataBuffer.asByteBuffer());
+                    } finally {
+                        dataBuffer.release();
+                    }
                 }
+                outputStream.write(end);
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
             }
-            context.status(HttpResponseStatus.OK)
-                    .header(CONTENT_TYPE, contentType)
-                    .body(CharBuffer.wrap(sb), StandardCharsets.ISO_8859_1);
+            context.body(outputStream.toByteArray());
         }
     }
 
+    /**
+     * Send the encoded variant of a cached resource that was selected for the client.
+     *
+     * @param encoding the content encoding selected by {@link CachedResource#selectEncoding(String)}, or null
+     * @return true if an encoded variant was sent
+     */
+    private boolean sendEncoded(Resource resource,
+                                String encoding,
+                                HttpRouterContext context) throws IOException {
+        if (encoding == null) {
+            return false;
+        }
+        ByteBuffer byteBuffer = ((CachedResource) resource).getEncodedContent(encoding);
+        logger.log(Level.FINEST, () -> "sending encoded variant, encoding = " + encoding + " length = " + byteBuffer.remaining());
+        context.status(HttpResponseStatus.OK)
+                .header(HttpHeaderNames.CONTENT_ENCODING, encoding)
+                .header(HttpHeaderNames.CONTENT_LENGTH, Integer.toString(byteBuffer.remaining()));
+        if (context.getRequestBuilder().getMethod() != HttpMethod.HEAD) {
+            context.body(context.getDataBufferFactory().wrap(byteBuffer));
+        }
+        return true;
+    }
+
+    static String createETag(Resource resource) {
+        return Long.toHexString(resource.getResourcePath().hashCode() + resource.getLastModified().toEpochMilli() + resource.getLength());
+    }
+
     private static boolean matches(String matchHeader, String toMatch) {
         String[] matchValues = matchHeader.split("\\s*,\\s*");
         Arrays.sort(matchValues);
@@ -299,7 +448,20 @@ public abstract class AbstractResourceHandler implements HttpHandler {
             context.status(HttpResponseStatus.OK)
                     .header(CONTENT_TYPE, contentType);
         } else {
-            if ("file".equals(url.getScheme())) {
+            if (resource instanceof CachedResource) {
+                ByteBuffer byteBuffer = ((CachedResource) resource).getContent(offset, size);
+                logger.log(Level.FINEST, "sending cached content, offset = " + offset + " length = " + byteBuffer.remaining());
+                context.status(httpResponseStatus)
+                        .header(CONTENT_TYPE, contentType)
+                        .body(context.getDataBufferFactory().wrap(byteBuffer));
+            } else if ("file".equals(url.getScheme()) && isZeroCopyEnabled()) {
+                Path path = resource.getPath();
+                long length = size >= 0L ? size : resource.getLength() - offset;
+                logger.log(Level.FINEST, "sending file region, path = " + path + " offset = " + offset + " length = " + length);
+                context.status(httpResponseStatus)
+                        .header(CONTENT_TYPE, contentType)
+                        .body(new FileRegion(path, offset, length), DEFAULT_BUFFER_SIZE);
+            } else if ("file".equals(url.getScheme())) {
                 Path path = resource.getPath();
                 try (FileChannel fileChannel = (FileChannel) Files.newByteChannel(path)) {
                     send(fileChannel, httpResponseStatus, contentType, context, offset, size);
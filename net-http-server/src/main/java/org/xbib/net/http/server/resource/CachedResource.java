@@ -0,0 +1,248 @@
+package org.xbib.net.http.server.resource;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import org.xbib.net.Resource;
+import org.xbib.net.URL;
+
+/**
+ * A resource held in a {@link ResourceCache}. The content, the encoded variants and the derived
+ * header values are computed once when the resource is loaded.
+ */
+class CachedResource implements Resource {
+
+    private final Path path;
+
+    private final String name;
+
+    private final String baseName;
+
+    private final String suffix;
+
+    private final String resourcePath;
+
+    private final URL url;
+
+    private final String mimeType;
+
+    private final Instant lastModified;
+
+    private final long length;
+
+    private final String eTag;
+
+    private final String lastModifiedHeader;
+
+    private final ByteBuffer content;
+
+    private final Map<String, ByteBuffer> encodedContents;
+
+    private final Map<String, String> encodedETags;
+
+    private final long weight;
+
+    private volatile long validatedMillis;
+
+    CachedResource(Resource resource,
+                   String eTag,
+                   String lastModifiedHeader,
+                   ByteBuffer content,
+                   Map<String, ByteBuffer> encodedContents) {
+        this.path = resource.getPath();
+        this.name = resource.getName();
+        this.baseName = resource.getBaseName();
+        this.suffix = resource.getSuffix();
+        this.resourcePath = resource.getResourcePath();
+        this.url = resource.getURL();
+        this.mimeType = resource.getMimeType();
+        this.lastModified = resource.getLastModified();
+        this.length = content.remaining();
+        this.eTag = eTag;
+        this.lastModifiedHeader = lastModifiedHeader;
+        this.content = content;
+        this.encodedContents = Collections.unmodifiableMap(encodedContents);
+        Map<String, String> map = new HashMap<>();
+        for (String encoding : encodedContents.keySet()) {
+            map.put(encoding, eTag + "-" + encoding);
+        }
+        this.encodedETags = map;
+        long w = content.remaining();
+        for (ByteBuffer byteBuffer : encodedContents.values()) {
+            w += byteBuffer.remaining();
+        }
+        this.weight = w;
+        this.validatedMillis = System.currentTimeMillis();
+    }
+
+    @Override
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getBaseName() {
+        return baseName;
+    }
+
+    @Override
+    public String getSuffix() {
+        return suffix;
+    }
+
+    @Override
+    public String getResourcePath() {
+        return resourcePath;
+    }
+
+    @Override
+    public URL getURL() {
+        return url;
+    }
+
+    @Override
+    public boolean isExists() {
+        return true;
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return false;
+    }
+
+    @Override
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    @Override
+    public String getIndexFileName() {
+        return null;
+    }
+
+    @Override
+    public boolean isExistsIndexFile() {
+        return false;
+    }
+
+    @Override
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public long getLength() {
+        return length;
+    }
+
+    String getETag() {
+        return eTag;
+    }
+
+    /**
+     * The entity tag of an encoded variant. A strong entity tag identifies one byte sequence,
+     * so each encoding has its own.
+     *
+     * @param encoding the content encoding
+     * @return the entity tag of the encoded variant
+     */
+    String getETag(String encoding) {
+        return encodedETags.get(encoding);
+    }
+
+    String getLastModifiedHeader() {
+        return lastModifiedHeader;
+    }
+
+    /**
+     * Returns a read-only view of a range of the content, with its own position and limit.
+     *
+     * @param offset the offset
+     * @param size the size, or -1 for the remaining content
+     * @return the content buffer
+     */
+    ByteBuffer getContent(long offset, long size) {
+        int length = size < 0L ? content.remaining() - (int) offset : (int) size;
+        return content.slice((int) offset, length);
+    }
+
+    boolean hasEncodedContents() {
+        return !encodedContents.isEmpty();
+    }
+
+    ByteBuffer getEncodedContent(String encoding) {
+        ByteBuffer byteBuffer = encodedContents.get(encoding);
+        return byteBuffer != null ? byteBuffer.duplicate() : null;
+    }
+
+    /**
+     * Select the first encoded variant, in order of preference, that is acceptable to the client.
+     *
+     * @param acceptEncoding the Accept-Encoding header of the request
+     * @return the content encoding, or null if no encoded variant is acceptable
+     */
+    String selectEncoding(String acceptEncoding) {
+        if (acceptEncoding == null || encodedContents.isEmpty()) {
+            return null;
+        }
+        for (String encoding : encodedContents.keySet()) {
+            if (isAccepted(acceptEncoding, encoding)) {
+                return encoding;
+            }
+        }
+        return null;
+    }
+
+    long getWeight() {
+        return weight;
+    }
+
+    long getValidatedMillis() {
+        return validatedMillis;
+    }
+
+    void setValidatedMillis(long validatedMillis) {
+        this.validatedMillis = validatedMillis;
+    }
+
+    private static boolean isAccepted(String acceptEncoding, String encoding) {
+        for (String part : acceptEncoding.split(",")) {
+            int pos = part.indexOf(';');
+            String token = (pos >= 0 ? part.substring(0, pos) : part).trim();
+            if (token.equalsIgnoreCase(encoding)) {
+                if (pos < 0) {
+                    return true;
+                }
+                String param = part.substring(pos + 1).trim().toLowerCase(Locale.ROOT);
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2).trim()) > 0d;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "[CachedResource:resourcePath=" + resourcePath +
+                ",url=" + url +
+                ",mimeType=" + mimeType +
+                ",lastmodified=" + lastModified +
+                ",length=" + length +
+                ",encodings=" + encodedContents.keySet() + "]";
+    }
+}
@@ -33,6 +33,11 @@ public class ClassLoaderResourceHandler extends AbstractResourceHandler {
         return new ClassLoaderResource(httpRouterContext);
     }
 
+    @Override
+    protected String getCacheKey(HttpRouterContext httpRouterContext) {
+        return httpRouterContext.getContextPath();
+    }
+
     @Override
     protected boolean isETagResponseEnabled() {
         return true;
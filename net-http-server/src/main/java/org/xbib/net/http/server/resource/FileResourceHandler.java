@@ -36,9 +36,7 @@ public class FileResourceHandler extends AbstractResourceHandler {
 
     @Override
     protected Resource createResource(HttpRouterContext httpRouterContext) throws IOException {
-        String pathSpec = httpRouterContext.getAttributes().containsKey("templatePath") ?
-                (String) httpRouterContext.getAttributes().get("templatePath") :
-                pathNameOfResource != null ? pathNameOfResource : httpRouterContext.getContextPath();
+        String pathSpec = getPathSpec(httpRouterContext);
         if (pathSpec == null || pathSpec.isEmpty()) {
             throw new IllegalArgumentException("path must not be null or empty");
         }
@@ -57,6 +55,18 @@ public class FileResourceHandler extends AbstractResourceHandler {
         return resource;
     }
 
+    @Override
+    protected String getCacheKey(HttpRouterContext httpRouterContext) {
+        String pathSpec = getPathSpec(httpRouterContext);
+        return pathSpec == null || pathSpec.isEmpty() ? null : pathSpec;
+    }
+
+    private String getPathSpec(HttpRouterContext httpRouterContext) {
+        return httpRouterContext.getAttributes().containsKey("templatePath") ?
+                (String) httpRouterContext.getAttributes().get("templatePath") :
+                pathNameOfResource != null ? pathNameOfResource : httpRouterContext.getContextPath();
+    }
+
     @Override
     protected boolean isETagResponseEnabled() {
         return true;
@@ -77,6 +87,11 @@ public class FileResourceHandler extends AbstractResourceHandler {
         return 24 * 3600;
     }
 
+    @Override
+    protected boolean isZeroCopyEnabled() {
+        return true;
+    }
+
     protected class FileResource implements Resource {
 
         private Path path;
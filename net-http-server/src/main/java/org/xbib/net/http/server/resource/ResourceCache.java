@@ -0,0 +1,505 @@
+package org.xbib.net.http.server.resource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+import org.xbib.net.Resource;
+import org.xbib.net.URL;
+import org.xbib.net.http.HttpDate;
+
+/**
+ * A bounded cache for small static resources, weighted by size in bytes.
+ *
+ * A cached resource holds its content in a read-only direct buffer, together with the entity tag,
+ * the formatted modification date, and encoded variants of the content. Precompressed sibling files
+ * with suffix {@code .br} or {@code .gz} are picked up as variants; if there is no {@code .gz} sibling,
+ * compressible content is gzipped once when it is loaded.
+ *
+ * File resources are revalidated against the file modification time and size after the check interval,
+ * and optionally invalidated by a {@link WatchService} on the parent directories.
+ * When the total weight exceeds the maximum, the least recently used resources are evicted.
+ */
+public class ResourceCache implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(ResourceCache.class.getName());
+
+    private final long maxWeight;
+
+    private final long maxResourceLength;
+
+    private final long checkIntervalMillis;
+
+    private final boolean compressionEnabled;
+
+    private final ReentrantLock lock;
+
+    private final LinkedHashMap<String, CachedResource> resources;
+
+    private final LongAdder hits;
+
+    private final LongAdder misses;
+
+    private final LongAdder evictions;
+
+    private final WatchService watchService;
+
+    private final Set<Path> watchedDirectories;
+
+    private final Thread watchThread;
+
+    private long weight;
+
+    private ResourceCache(Builder builder) throws IOException {
+        this.maxWeight = builder.maxWeight;
+        this.maxResourceLength = builder.maxResourceLength;
+        this.checkIntervalMillis = builder.checkIntervalMillis;
+        this.compressionEnabled = builder.compressionEnabled;
+        this.lock = new ReentrantLock();
+        this.resources = new LinkedHashMap<>(16, 0.75f, true);
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+        this.watchedDirectories = ConcurrentHashMap.newKeySet();
+        if (builder.watchEnabled) {
+            this.watchService = FileSystems.getDefault().newWatchService();
+            this.watchThread = new Thread(this::watch, "resource-cache-watcher");
+            this.watchThread.setDaemon(true);
+            this.watchThread.start();
+        } else {
+            this.watchService = null;
+            this.watchThread = null;
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Look up a cached resource. A file resource that was modified since it was loaded is invalidated.
+     *
+     * @param key the key
+     * @return the cached resource or null
+     */
+    Resource get(String key) {
+        CachedResource cachedResource;
+        lock.lock();
+        try {
+            cachedResource = resources.get(key);
+        } finally {
+            lock.unlock();
+        }
+        if (cachedResource == null) {
+            misses.increment();
+            return null;
+        }
+        if (!isValid(cachedResource)) {
+            logger.log(Level.FINER, () -> "resource modified, invalidating " + cachedResource);
+            remove(key, cachedResource);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return cachedResource;
+    }
+
+    /**
+     * Load a resource into the cache. If the resource is too large, or can not be read,
+     * the resource is returned unchanged.
+     *
+     * @param key the key
+     * @param resource the resource
+     * @return the cached resource, or the given resource if it was not cached
+     */
+    Resource load(String key, Resource resource) {
+        if (resource.getURL() == null || resource.getLength() > maxResourceLength) {
+            return resource;
+        }
+        CachedResource cachedResource;
+        try {
+            cachedResource = createCachedResource(resource);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "unable to cache resource " + resource + ": " + e.getMessage(), e);
+            return resource;
+        }
+        if (cachedResource.getLength() == 0L || cachedResource.getLength() > maxResourceLength ||
+                cachedResource.getWeight() > maxWeight) {
+            return resource;
+        }
+        lock.lock();
+        try {
+            CachedResource previous = resources.put(key, cachedResource);
+            if (previous != null) {
+                weight -= previous.getWeight();
+            }
+            weight += cachedResource.getWeight();
+            Iterator<Map.Entry<String, CachedResource>> iterator = resources.entrySet().iterator();
+            while (weight > maxWeight && iterator.hasNext()) {
+                Map.Entry<String, CachedResource> eldest = iterator.next();
+                iterator.remove();
+                weight -= eldest.getValue().getWeight();
+                evictions.increment();
+                logger.log(Level.FINER, () -> "evicted " + eldest.getValue());
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (watchService != null && cachedResource.getPath() != null) {
+            watch(cachedResource.getPath().getParent());
+        }
+        return cachedResource;
+    }
+
+    public void invalidate(String key) {
+        lock.lock();
+        try {
+            CachedResource cachedResource = resources.remove(key);
+            if (cachedResource != null) {
+                weight -= cachedResource.getWeight();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            resources.clear();
+            weight = 0L;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public int getSize() {
+        lock.lock();
+        try {
+            return resources.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getWeight() {
+        lock.lock();
+        try {
+            return weight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watchThread.interrupt();
+        }
+        invalidateAll();
+    }
+
+    @Override
+    public String toString() {
+        return "[ResourceCache:size=" + getSize() +
+                ",weight=" + getWeight() +
+                ",hits=" + getHitCount() +
+                ",misses=" + getMissCount() +
+                ",evictions=" + getEvictionCount() + "]";
+    }
+
+    private boolean isValid(CachedResource cachedResource) {
+        Path path = cachedResource.getPath();
+        if (path == null || checkIntervalMillis < 0L) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (now - cachedResource.getValidatedMillis() < checkIntervalMillis) {
+            return true;
+        }
+        try {
+            if (Files.getLastModifiedTime(path).toInstant().equals(cachedResource.getLastModified()) &&
+                    Files.size(path) == cachedResource.getLength()) {
+                cachedResource.setValidatedMillis(now);
+                return true;
+            }
+        } catch (IOException e) {
+            logger.log(Level.FINEST, e.getMessage(), e);
+        }
+        return false;
+    }
+
+    private void remove(String key, CachedResource cachedResource) {
+        lock.lock();
+        try {
+            if (resources.remove(key, cachedResource)) {
+                weight -= cachedResource.getWeight();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private CachedResource createCachedResource(Resource resource) throws IOException {
+        byte[] bytes = read(resource, "");
+        if (bytes == null) {
+            throw new IOException("resource not readable");
+        }
+        Map<String, ByteBuffer> encodedContents = new LinkedHashMap<>();
+        byte[] br = read(resource, ".br");
+        if (br != null) {
+            encodedContents.put("br", toDirectBuffer(br));
+        }
+        byte[] gzip = read(resource, ".gz");
+        if (gzip == null && compressionEnabled && isCompressible(resource.getMimeType())) {
+            gzip = gzip(bytes);
+            if (gzip.length > bytes.length - bytes.length / 10) {
+                // not worth it
+                gzip = null;
+            }
+        }
+        if (gzip != null) {
+            encodedContents.put("gzip", toDirectBuffer(gzip));
+        }
+        return new CachedResource(resource,
+                AbstractResourceHandler.createETag(resource),
+                HttpDate.format(resource.getLastModified()),
+                toDirectBuffer(bytes),
+                encodedContents);
+    }
+
+    /**
+     * Read the resource content, or the content of a sibling resource with the given suffix.
+     * A sibling file that is older than the resource is ignored.
+     */
+    private byte[] read(Resource resource, String suffix) throws IOException {
+        Path path = resource.getPath();
+        if (path != null) {
+            Path p = suffix.isEmpty() ? path : path.resolveSibling(path.getFileName() + suffix);
+            if (!Files.isRegularFile(p)) {
+                return null;
+            }
+            if (!suffix.isEmpty() &&
+                    Files.getLastModifiedTime(p).toInstant().isBefore(resource.getLastModified())) {
+                logger.log(Level.FINE, "ignoring outdated precompressed file " + p);
+                return null;
+            }
+            return Files.readAllBytes(p);
+        }
+        URL url = suffix.isEmpty() ? resource.getURL() : URL.create(resource.getURL().toString() + suffix);
+        try (InputStream inputStream = url.openStream()) {
+            return inputStream != null ? inputStream.readAllBytes() : null;
+        } catch (IOException e) {
+            if (suffix.isEmpty()) {
+                throw e;
+            }
+            return null;
+        }
+    }
+
+    private static ByteBuffer toDirectBuffer(byte[] bytes) {
+        ByteBuffer byteBuffer = ByteBuffer.allocateDirect(bytes.length);
+        byteBuffer.put(bytes).flip();
+        return byteBuffer.asReadOnlyBuffer();
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bytes.length / 2);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(bytes);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static boolean isCompressible(String mimeType) {
+        if (mimeType == null) {
+            return false;
+        }
+        return mimeType.startsWith("text/") ||
+                mimeType.startsWith("application/javascript") ||
+                mimeType.startsWith("application/json") ||
+                mimeType.startsWith("application/xml") ||
+                mimeType.startsWith("image/svg+xml") ||
+                mimeType.contains("+json") ||
+                mimeType.contains("+xml");
+    }
+
+    private void watch(Path directory) {
+        if (directory == null || !watchedDirectories.add(directory)) {
+            return;
+        }
+        try {
+            directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+            logger.log(Level.FINE, "watching " + directory);
+        } catch (IOException | ClosedWatchServiceException e) {
+            logger.log(Level.WARNING, "unable to watch " + directory + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void watch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey watchKey;
+            try {
+                watchKey = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path directory = (Path) watchKey.watchable();
+            for (WatchEvent<?> event : watchKey.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    invalidateDirectory(directory);
+                } else {
+                    invalidatePath(directory.resolve((Path) event.context()));
+                }
+            }
+            if (!watchKey.reset()) {
+                watchedDirectories.remove(directory);
+            }
+        }
+    }
+
+    private void invalidatePath(Path path) {
+        // a change of a precompressed sibling file also invalidates the resource
+        String s = path.toString();
+        lock.lock();
+        try {
+            Iterator<CachedResource> iterator = resources.values().iterator();
+            while (iterator.hasNext()) {
+                CachedResource cachedResource = iterator.next();
+                if (cachedResource.getPath() != null && s.startsWith(cachedResource.getPath().toString())) {
+                    iterator.remove();
+                    weight -= cachedResource.getWeight();
+                    logger.log(Level.FINER, () -> "file changed, invalidated " + cachedResource);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void invalidateDirectory(Path directory) {
+        lock.lock();
+        try {
+            Iterator<CachedResource> iterator = resources.values().iterator();
+            while (iterator.hasNext()) {
+                CachedResource cachedResource = iterator.next();
+                if (cachedResource.getPath() != null && directory.equals(cachedResource.getPath().getParent())) {
+                    iterator.remove();
+                    weight -= cachedResource.getWeight();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public static class Builder {
+
+        private long maxWeight;
+
+        private long maxResourceLength;
+
+        private long checkIntervalMillis;
+
+        private boolean compressionEnabled;
+
+        private boolean watchEnabled;
+
+        private Builder() {
+            this.maxWeight = 64L * 1024L * 1024L;
+            this.maxResourceLength = 1024L * 1024L;
+            this.checkIntervalMillis = 1000L;
+            this.compressionEnabled = true;
+            this.watchEnabled = false;
+        }
+
+        /**
+         * Set the maximum total size of the cached content in bytes, including encoded variants.
+         *
+         * @param maxWeight the maximum weight
+         * @return this builder
+         */
+        public Builder setMaxWeight(long maxWeight) {
+            this.maxWeight = maxWeight;
+            return this;
+        }
+
+        /**
+         * Set the maximum length of a resource to be cached. Larger resources are never cached.
+         *
+         * @param maxResourceLength the maximum resource length
+         * @return this builder
+         */
+        public Builder setMaxResourceLength(long maxResourceLength) {
+            this.maxResourceLength = maxResourceLength;
+            return this;
+        }
+
+        /**
+         * Set the interval for checking the modification time of cached files.
+         * With 0, files are checked on every access; with a negative value, never.
+         *
+         * @param checkIntervalMillis the check interval in milliseconds
+         * @return this builder
+         */
+        public Builder setCheckIntervalMillis(long checkIntervalMillis) {
+            this.checkIntervalMillis = checkIntervalMillis;
+            return this;
+        }
+
+        public Builder setCompressionEnabled(boolean compressionEnabled) {
+            this.compressionEnabled = compressionEnabled;
+            return this;
+        }
+
+        /**
+         * Invalidate cached files by watching their directories with a watch service.
+         *
+         * @param watchEnabled true if directories should be watched
+         * @return this builder
+         */
+        public Builder setWatchEnabled(boolean watchEnabled) {
+            this.watchEnabled = watchEnabled;
+            return this;
+        }
+
+        public ResourceCache build() throws IOException {
+            return new ResourceCache(this);
+        }
+    }
+}
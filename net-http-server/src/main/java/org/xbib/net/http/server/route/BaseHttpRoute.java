@@ -69,11 +69,7 @@ public class BaseHttpRoute implements HttpRoute {
     }
 
     public String getEffectivePath() {
-        String path = getPath();
-        if (getPrefix() != null && !getPrefix().isEmpty()) {
-            path = path.replaceFirst(getPrefix(), "");
-        }
-        return path;
+        return effectivePath(getPath(), getPrefix());
     }
 
     public List<RouteSegment> getSegments() {
@@ -82,17 +78,21 @@ public class BaseHttpRoute implements HttpRoute {
 
     @Override
     public boolean matches(ParameterBuilder parameterBuilder, HttpRoute requestedRoute) {
-        if (!(requestedRoute instanceof BaseHttpRoute baseHttpRoute)) {
+        List<RouteSegment> requestedSegments;
+        if (requestedRoute instanceof BaseHttpRoute baseHttpRoute) {
+            requestedSegments = baseHttpRoute.getSegments();
+        } else if (requestedRoute instanceof RequestHttpRoute requestHttpRoute) {
+            requestedSegments = requestHttpRoute.getSegments();
+        } else {
             return false;
         }
-        if (!httpAddress.equals(baseHttpRoute.getHttpAddress())) {
+        if (!httpAddress.equals(requestedRoute.getHttpAddress())) {
             return false;
         }
         HttpMethod requestedMethod = requestedRoute.getHttpMethods().iterator().next();
-        if (!baseHttpRoute.getHttpMethods().contains(requestedMethod)) {
+        if (!requestedRoute.getHttpMethods().contains(requestedMethod)) {
             return false;
         }
-        List<RouteSegment> requestedSegments = baseHttpRoute.getSegments();
         // special case: empty segments match
         if (requestedSegments.isEmpty() && segments.isEmpty()) {
             return true;
@@ -184,13 +184,44 @@ public class BaseHttpRoute implements HttpRoute {
 
     private static List<RouteSegment> createStringSegments(String path) {
         List<RouteSegment> list = new ArrayList<>();
-        for (String s : path.split("/")) {
-            if (s.isEmpty()) {
-                continue;
+        addStringSegments(path, list);
+        return list;
+    }
+
+    /**
+     * Remove the first occurrence of the prefix from the path. The prefix is taken literally, not as a regular
+     * expression. Shared with {@link RequestHttpRoute}, so both route types have the same effective path.
+     *
+     * @param path the path
+     * @param prefix the prefix, or null
+     * @return the effective path
+     */
+    static String effectivePath(String path, String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            return path;
+        }
+        int pos = path.indexOf(prefix);
+        return pos >= 0 ? path.substring(0, pos) + path.substring(pos + prefix.length()) : path;
+    }
+
+    /**
+     * Split a path at "/" into string segments, without a regular expression.
+     *
+     * @param path the path
+     * @param list the list to add the segments to
+     */
+    static void addStringSegments(String path, List<RouteSegment> list) {
+        int start = 0;
+        while (start <= path.length()) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            if (end > start) {
+                list.add(new StringSegment(path.substring(start, end)));
             }
-            list.add(new StringSegment(s));
+            start = end + 1;
         }
-        return list;
     }
 
     private String createSortKey() {
@@ -2,6 +2,7 @@ package org.xbib.net.http.server.route;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
@@ -31,14 +32,17 @@ public class BaseHttpRouteResolver<T> implements HttpRouteResolver<T> {
      */
     @Override
     public void resolve(HttpRoute httpRoute, ResultListener<T> listener) {
+        List<String> context = null;
         for (Map.Entry<HttpRoute, T> entry : builder.routes) {
             ParameterBuilder parameterBuilder = Parameter.builder().domain(PATH);
             boolean match = entry.getKey().matches(parameterBuilder, httpRoute);
             if (match && listener != null) {
-                String path = httpRoute.getEffectivePath();
-                List<String> list = Arrays.stream(path.split("/"))
-                                .filter(s -> !s.isEmpty()).collect(Collectors.toList());
-                listener.onResult(new Result<>(entry.getValue(), list, parameterBuilder.build()));
+                if (context == null) {
+                    // the context is the same for all results, split it once
+                    context = Collections.unmodifiableList(Arrays.stream(httpRoute.getEffectivePath().split("/"))
+                            .filter(s -> !s.isEmpty()).collect(Collectors.toList()));
+                }
+                listener.onResult(new Result<>(entry.getValue(), context, parameterBuilder.build()));
             }
         }
     }
@@ -9,6 +9,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.charset.UnsupportedCharsetException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableSet;
@@ -17,14 +18,11 @@ import java.util.Set;
 import java.util.TreeSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import org.xbib.datastructures.common.LinkedHashSetMultiMap;
-import org.xbib.datastructures.common.MultiMap;
 import org.xbib.datastructures.json.tiny.Json;
 import org.xbib.net.Parameter;
 import org.xbib.net.ParameterBuilder;
 import org.xbib.net.URL;
 import org.xbib.net.http.HttpAddress;
-import org.xbib.net.http.HttpHeaderNames;
 import org.xbib.net.http.HttpHeaderValues;
 import org.xbib.net.http.HttpHeaders;
 import org.xbib.net.http.HttpMethod;
@@ -50,16 +48,24 @@ public class BaseHttpRouter implements HttpRouter {
 
     private final Logger logger = Logger.getLogger(BaseHttpRouter.class.getName());
 
+    private static final ThreadLocal<RouteScratch> routeScratches = ThreadLocal.withInitial(RouteScratch::new);
+
     private final BaseHttpRouterBuilder builder;
 
-    private final MultiMap<String, HttpDomain> domains;
+    private final DomainTable domainTable;
+
+    private final HttpDomain defaultDomain;
 
     private final DomainsByAddress domainsByAddress;
 
+    private final boolean hasNonBlockingServices;
+
     protected BaseHttpRouter(BaseHttpRouterBuilder builder) {
         this.builder = builder;
-        this.domains = createDomains(builder.domains);
+        this.domainTable = new DomainTable(builder.domains);
+        this.defaultDomain = builder.domains.iterator().next();
         this.domainsByAddress = createAddresses(builder.domains);
+        this.hasNonBlockingServices = hasNonBlockingServices(builder.domains);
     }
 
     public static BaseHttpRouterBuilder builder() {
@@ -85,49 +91,139 @@ public class BaseHttpRouter implements HttpRouter {
         Objects.requireNonNull(requestBuilder.getBaseURL());
         HttpDomain httpDomain = findDomain(requestBuilder.getBaseURL());
         if (httpDomain == null) {
-            httpDomain = builder.domains.iterator().next();
+            httpDomain = defaultDomain;
         }
-        List<HttpRouteResolver.Result<HttpService>> httpRouteResolverResults = new ArrayList<>();
         requestBuilder.setRequestPath(extractPath(requestBuilder.getRequestURI()));
-        HttpRoute httpRoute = new BaseHttpRoute(httpDomain.getAddress(),
-                Set.of(requestBuilder.getMethod()),
-                builder.prefix,
-                requestBuilder.getRequestPath(),
-                true);
-        builder.httpRouteResolver.resolve(httpRoute, httpRouteResolverResults::add);
-        HttpRouterContext httpRouterContext = application.createContext(httpDomain,
-                requestBuilder, responseBuilder);
-        // before open: invoke security, incoming cookie/session
-        httpRouterContext.getOpenHandlers().forEach(h -> {
-            try {
-                h.handle(httpRouterContext);
-            } catch (Exception e) {
-                routeToErrorHandler(httpRouterContext, e);
-            }
-        });
-        application.onOpen(httpRouterContext);
+        RouteScratch routeScratch = routeScratches.get();
+        List<HttpRouteResolver.Result<HttpService>> httpRouteResolverResults;
+        if (!routeScratch.inUse && routeScratch.resolved == requestBuilder) {
+            // resolved by isNonBlocking() on this thread just before
+            routeScratch.resolved = null;
+            routeScratch.inUse = true;
+            httpRouteResolverResults = routeScratch.results;
+        } else {
+            routeScratch = acquireScratch();
+            httpRouteResolverResults =
+                    resolve(httpDomain, requestBuilder.getMethod(), requestBuilder.getRequestPath(), routeScratch);
+        }
         try {
-            route(application, httpRouterContext, httpRouteResolverResults);
-        } finally {
-            httpRouterContext.getCloseHandlers().forEach(h -> {
+            HttpRouterContext httpRouterContext = application.createContext(httpDomain,
+                    requestBuilder, responseBuilder);
+            // before open: invoke security, incoming cookie/session
+            httpRouterContext.getOpenHandlers().forEach(h -> {
                 try {
                     h.handle(httpRouterContext);
                 } catch (Exception e) {
                     routeToErrorHandler(httpRouterContext, e);
                 }
             });
-            application.onClose(httpRouterContext);
-            httpRouterContext.getReleaseHandlers().forEach(h -> {
-                try {
-                    h.handle(httpRouterContext);
-                } catch (Exception e) {
-                    routeToErrorHandler(httpRouterContext, e);
-                }
-            });
-            application.releaseContext(httpRouterContext);
+            application.onOpen(httpRouterContext);
+            try {
+                route(application, httpRouterContext, httpRouteResolverResults);
+            } finally {
+                httpRouterContext.getCloseHandlers().forEach(h -> {
+                    try {
+                        h.handle(httpRouterContext);
+                    } catch (Exception e) {
+                        routeToErrorHandler(httpRouterContext, e);
+                    }
+                });
+                application.onClose(httpRouterContext);
+                httpRouterContext.getReleaseHandlers().forEach(h -> {
+                    try {
+                        h.handle(httpRouterContext);
+                    } catch (Exception e) {
+                        routeToErrorHandler(httpRouterContext, e);
+                    }
+                });
+                application.releaseContext(httpRouterContext);
+            }
+        } finally {
+            releaseScratch(routeScratch);
         }
     }
 
+    /**
+     * Whether all services that a request is routed to are non-blocking. If they are, the route results
+     * are kept in the per-thread scratch object, and a following {@link #route(Application, HttpRequestBuilder,
+     * HttpResponseBuilder)} of the same request on the same thread does not resolve the route again.
+     *
+     * @param requestBuilder the request builder
+     * @return true if the request is routed to non-blocking services only
+     */
+    @Override
+    public boolean isNonBlocking(HttpRequestBuilder requestBuilder) {
+        if (!hasNonBlockingServices ||
+                requestBuilder.getRequestURI() == null || requestBuilder.getBaseURL() == null) {
+            return false;
+        }
+        HttpDomain httpDomain = findDomain(requestBuilder.getBaseURL());
+        if (httpDomain == null) {
+            httpDomain = defaultDomain;
+        }
+        RouteScratch routeScratch = acquireScratch();
+        List<HttpRouteResolver.Result<HttpService>> httpRouteResolverResults =
+                resolve(httpDomain, requestBuilder.getMethod(), extractPath(requestBuilder.getRequestURI()), routeScratch);
+        // unrouted requests go to the status handlers, which may block
+        boolean nonBlocking = !httpRouteResolverResults.isEmpty();
+        for (HttpRouteResolver.Result<HttpService> httpRouteResolverResult : httpRouteResolverResults) {
+            if (!httpRouteResolverResult.getValue().isNonBlocking()) {
+                nonBlocking = false;
+                break;
+            }
+        }
+        if (nonBlocking && routeScratch == routeScratches.get()) {
+            routeScratch.inUse = false;
+            routeScratch.resolved = requestBuilder;
+        } else {
+            releaseScratch(routeScratch);
+        }
+        return nonBlocking;
+    }
+
+    /**
+     * Resolve the routes for a request path. The built-in route resolvers accept the requested route
+     * from the per-thread scratch object, so nothing is allocated for it. Other resolvers get a
+     * {@link BaseHttpRoute}.
+     *
+     * @param httpDomain the domain
+     * @param httpMethod the request method
+     * @param path the request path
+     * @param routeScratch the scratch object
+     * @return the list of resolver results, only valid until the scratch object is released
+     */
+    List<HttpRouteResolver.Result<HttpService>> resolve(HttpDomain httpDomain,
+                                                        HttpMethod httpMethod,
+                                                        String path,
+                                                        RouteScratch routeScratch) {
+        HttpRoute httpRoute = builder.httpRouteResolver instanceof CompiledHttpRouteResolver
+                || builder.httpRouteResolver instanceof BaseHttpRouteResolver ?
+                routeScratch.httpRoute.set(httpDomain.getAddress(), httpMethod, builder.prefix, path) :
+                new BaseHttpRoute(httpDomain.getAddress(), Set.of(httpMethod), builder.prefix, path, true);
+        builder.httpRouteResolver.resolve(httpRoute, routeScratch.listener);
+        return routeScratch.results;
+    }
+
+    RouteScratch acquireScratch() {
+        RouteScratch routeScratch = routeScratches.get();
+        if (routeScratch.inUse) {
+            // nested routing on the same thread
+            routeScratch = new RouteScratch();
+        } else if (routeScratch.resolved != null) {
+            // resolved by isNonBlocking(), but not routed on this thread
+            releaseScratch(routeScratch);
+        }
+        routeScratch.inUse = true;
+        return routeScratch;
+    }
+
+    void releaseScratch(RouteScratch routeScratch) {
+        routeScratch.results.clear();
+        routeScratch.httpRoute.clear();
+        routeScratch.resolved = null;
+        routeScratch.inUse = false;
+    }
+
     protected void route(Application application,
                          HttpRouterContext httpRouterContext,
                          List<HttpRouteResolver.Result<HttpService>> httpRouteResolverResults) {
@@ -221,6 +317,17 @@ public class BaseHttpRouter implements HttpRouter {
     protected HttpRequest createRequest(HttpRouterContext httpRouterContext,
                                         HttpRouteResolver.Result<HttpService> pathResolverResult) {
         HttpRequestBuilder httpRequestBuilder = httpRouterContext.getRequestBuilder();
+        CookieBox cookieBox = httpRouterContext.getAttributes().get(CookieBox.class, "incomingcookies");
+        Parameter pathParameter = pathResolverResult != null ? pathResolverResult.getParameter() : null;
+        // many handlers never look at the parameters, so the body is only decoded if they do
+        httpRequestBuilder.setParameter(() -> createParameter(httpRequestBuilder, cookieBox, pathParameter));
+        httpRequestBuilder.setContext(httpRouterContext);
+        return httpRequestBuilder.build();
+    }
+
+    protected Parameter createParameter(HttpRequestBuilder httpRequestBuilder,
+                                        CookieBox cookieBox,
+                                        Parameter pathParameter) {
         HttpHeaders headers = httpRequestBuilder.getHeaders();
         String mimeType = headers.get(CONTENT_TYPE);
         Charset charset = StandardCharsets.UTF_8;
@@ -247,23 +354,23 @@ public class BaseHttpRouter implements HttpRouter {
                 formParameterBuilder.addPercentEncodedBody(charBuffer.toString());
             }
         }
-        String contentType = httpRequestBuilder.getHeaders().get(HttpHeaderNames.CONTENT_TYPE);
-        if (contentType != null && contentType.contains(HttpHeaderValues.APPLICATION_JSON)) {
-            String content = httpRequestBuilder.getBodyAsChars(StandardCharsets.UTF_8).toString();
-            try {
-                Map<String, Object> map = Json.toMap(content);
-                for (Map.Entry<String, Object> entry : map.entrySet()) {
-                    if (entry.getValue() instanceof Iterable<?> iterable) {
-                        iterable.forEach(it -> formParameterBuilder.add(entry.getKey(), it));
-                    } else {
-                        formParameterBuilder.add(entry.getKey(), entry.getValue());
+        if (mimeType != null && mimeType.contains(HttpHeaderValues.APPLICATION_JSON)) {
+            CharBuffer charBuffer = httpRequestBuilder.getBodyAsChars(StandardCharsets.UTF_8);
+            if (charBuffer != null) {
+                try {
+                    Map<String, Object> map = Json.toMap(charBuffer.toString());
+                    for (Map.Entry<String, Object> entry : map.entrySet()) {
+                        if (entry.getValue() instanceof Iterable<?> iterable) {
+                            iterable.forEach(it -> formParameterBuilder.add(entry.getKey(), it));
+                        } else {
+                            formParameterBuilder.add(entry.getKey(), entry.getValue());
+                        }
                     }
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "unable to decode json body: " + e.getMessage(), e);
                 }
-            } catch (Exception e) {
-                logger.log(Level.WARNING, "unable to decode json body: " + e.getMessage(), e);
             }
         }
-        CookieBox cookieBox = httpRouterContext.getAttributes().get(CookieBox.class, "incomingcookies");
         ParameterBuilder cookieParameterBuilder = Parameter.builder()
                 .domain(Parameter.Domain.COOKIE);
         if (cookieBox != null) {
@@ -275,13 +382,10 @@ public class BaseHttpRouter implements HttpRouter {
         parameterBuilder.add(formParameter);
         Parameter cookieParameter = cookieParameterBuilder.build();
         parameterBuilder.add(cookieParameter);
-        if (pathResolverResult != null) {
-            Parameter pathParameter = pathResolverResult.getParameter();
+        if (pathParameter != null) {
             parameterBuilder.add(pathParameter);
         }
-        httpRequestBuilder.setParameter(parameterBuilder.build());
-        httpRequestBuilder.setContext(httpRouterContext);
-        return httpRequestBuilder.build();
+        return parameterBuilder.build();
     }
 
     private static Charset getCharset(String contentTypeValue, Charset defaultCharset) {
@@ -352,23 +456,8 @@ public class BaseHttpRouter implements HttpRouter {
         routeStatus(HttpResponseStatus.INTERNAL_SERVER_ERROR, httpRouterContext);
     }
 
-    private HttpDomain findDomain(URL url) {
-        NavigableSet<HttpDomain> httpDomains = new TreeSet<>();
-        String hostAndPort = getHostAndPost(url);
-        if (domains.containsKey(hostAndPort)) {
-            httpDomains.addAll(domains.get(hostAndPort));
-        }
-        // check if ANY address was used for bind
-        hostAndPort = "0.0.0.0:" + url.getPort();
-        if (domains.containsKey(hostAndPort)) {
-            httpDomains.addAll(domains.get(hostAndPort));
-        }
-        // check if IPv6 ANY address was used for bind
-        hostAndPort = ":::" + url.getPort();
-        if (domains.containsKey(hostAndPort)) {
-            httpDomains.addAll(domains.get(hostAndPort));
-        }
-        return httpDomains.isEmpty() ? null: httpDomains.first();
+    HttpDomain findDomain(URL url) {
+        return domainTable.find(url);
     }
 
     private HttpHandler getHandler(HttpResponseStatus httpResponseStatus) {
@@ -376,28 +465,23 @@ public class BaseHttpRouter implements HttpRouter {
                 builder.handlers.get(httpResponseStatus.code()) : builder.handlers.get(500);
     }
 
-    private static MultiMap<String, HttpDomain> createDomains(Collection<HttpDomain> domains) {
-        MultiMap<String, HttpDomain> map = new LinkedHashSetMultiMap<>();
+    private static DomainsByAddress createAddresses(Collection<HttpDomain> domains) {
+        DomainsByAddress map = new BaseDomainsByAddress();
         for (HttpDomain domain : domains) {
-            HttpAddress httpAddress = domain.getAddress();
-            if (httpAddress.getHostNames() != null) {
-                for (String name : httpAddress.getHostNames()) {
-                    map.put(name + ":" + httpAddress.getPort(), domain);
-                }
-            }
-            for (String name : domain.getNames()) {
-                map.put(name, domain);
-            }
+            map.put(domain.getAddress(), domain);
         }
         return map;
     }
 
-    private static DomainsByAddress createAddresses(Collection<HttpDomain> domains) {
-        DomainsByAddress map = new BaseDomainsByAddress();
+    private static boolean hasNonBlockingServices(Collection<HttpDomain> domains) {
         for (HttpDomain domain : domains) {
-            map.put(domain.getAddress(), domain);
+            for (HttpService httpService : domain.getServices()) {
+                if (httpService.isNonBlocking()) {
+                    return true;
+                }
+            }
         }
-        return map;
+        return false;
     }
 
     private static String extractPath(String uri) {
@@ -409,13 +493,110 @@ public class BaseHttpRouter implements HttpRouter {
         return path;
     }
 
+    static class RouteScratch {
+
+        private final RequestHttpRoute httpRoute;
+
+        private final List<HttpRouteResolver.Result<HttpService>> results;
+
+        private final HttpRouteResolver.ResultListener<HttpService> listener;
+
+        private boolean inUse;
+
+        private HttpRequestBuilder resolved;
+
+        RouteScratch() {
+            this.httpRoute = new RequestHttpRoute();
+            this.results = new ArrayList<>();
+            this.listener = results::add;
+        }
+    }
+
     /**
-     * Returns the host and port in notation "host:port" of the given URL.
-     *
-     * @param url the URL
-     * @return the host and port
+     * The domains by "host:port" and by port, computed once when the router is built.
+     * Domains bound to an ANY address ({@code 0.0.0.0} or {@code ::}) match every host on their port.
      */
-    private static String getHostAndPost(URL url) {
-        return url == null ? null : url.getPort() != null && url.getPort() != -1 ? url.getHost() + ":" + url.getPort() : url.getHost();
+    private static class DomainTable {
+
+        private final Map<String, HttpDomain> byName;
+
+        private final Map<Integer, PortTable> byPort;
+
+        DomainTable(Collection<HttpDomain> domains) {
+            Map<String, NavigableSet<HttpDomain>> map = new HashMap<>();
+            for (HttpDomain domain : domains) {
+                HttpAddress httpAddress = domain.getAddress();
+                if (httpAddress.getHostNames() != null) {
+                    for (String name : httpAddress.getHostNames()) {
+                        map.computeIfAbsent(name + ":" + httpAddress.getPort(), k -> new TreeSet<>()).add(domain);
+                    }
+                }
+                for (String name : domain.getNames()) {
+                    map.computeIfAbsent(name, k -> new TreeSet<>()).add(domain);
+                }
+            }
+            this.byName = new HashMap<>();
+            this.byPort = new HashMap<>();
+            for (Map.Entry<String, NavigableSet<HttpDomain>> entry : map.entrySet()) {
+                String name = entry.getKey();
+                HttpDomain httpDomain = entry.getValue().first();
+                byName.put(name, httpDomain);
+                int pos = name.lastIndexOf(':');
+                if (pos > 0 && isPort(name, pos + 1)) {
+                    String host = name.substring(0, pos);
+                    PortTable portTable = byPort.computeIfAbsent(Integer.parseInt(name.substring(pos + 1)),
+                            k -> new PortTable());
+                    portTable.byHost.put(host, httpDomain);
+                    if ("0.0.0.0".equals(host) || "::".equals(host)) {
+                        portTable.any = min(portTable.any, httpDomain);
+                    }
+                }
+            }
+        }
+
+        HttpDomain find(URL url) {
+            if (url == null) {
+                return null;
+            }
+            Integer port = url.getPort();
+            if (port != null && port != -1) {
+                PortTable portTable = byPort.get(port);
+                return portTable != null ? min(portTable.byHost.get(url.getHost()), portTable.any) : null;
+            }
+            return byName.get(url.getHost());
+        }
+
+        private static boolean isPort(String s, int start) {
+            if (start >= s.length() || s.length() - start > 5) {
+                return false;
+            }
+            for (int i = start; i < s.length(); i++) {
+                if (!Character.isDigit(s.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static HttpDomain min(HttpDomain d1, HttpDomain d2) {
+            if (d1 == null) {
+                return d2;
+            }
+            if (d2 == null) {
+                return d1;
+            }
+            return d1.compareTo(d2) <= 0 ? d1 : d2;
+        }
+    }
+
+    private static class PortTable {
+
+        private final Map<String, HttpDomain> byHost;
+
+        private HttpDomain any;
+
+        PortTable() {
+            this.byHost = new HashMap<>();
+        }
     }
 }
@@ -30,6 +30,8 @@ public class BaseHttpRouterBuilder implements HttpRouterBuilder {
 
     protected HttpRouteResolver<HttpService> httpRouteResolver;
 
+    protected HttpRouteResolver.Builder<HttpService> httpRouteResolverBuilder;
+
     protected BaseHttpRouterBuilder() {
         prefix = "";
         domains = new ArrayList<>();
@@ -71,13 +73,28 @@ public class BaseHttpRouterBuilder implements HttpRouterBuilder {
         return this;
     }
 
+    /**
+     * Set the builder for the route resolver that is used if no route resolver is given.
+     * The default is the {@link BaseHttpRouteResolver}, which walks through all routes. For many routes,
+     * the {@link CompiledHttpRouteResolver} is faster.
+     *
+     * @param httpRouteResolverBuilder the route resolver builder
+     * @return this builder
+     */
+    public BaseHttpRouterBuilder setRouteResolverBuilder(HttpRouteResolver.Builder<HttpService> httpRouteResolverBuilder) {
+        this.httpRouteResolverBuilder = httpRouteResolverBuilder;
+        return this;
+    }
+
     @Override
     public BaseHttpRouter build() {
         if (domains.isEmpty()) {
             throw new IllegalArgumentException("no domain configured, unable to continue");
         }
         if (httpRouteResolver == null) {
-            HttpRouteResolver.Builder<HttpService> httpRouteResolverBuilder = BaseHttpRouteResolver.builder();
+            if (httpRouteResolverBuilder == null) {
+                httpRouteResolverBuilder = BaseHttpRouteResolver.builder();
+            }
             for (HttpDomain domain : domains) {
                 for (HttpService httpService : domain.getServices()) {
                     logger.log(Level.FINER, "adding " + domain.getAddress() + " " + httpService.getMethods() +
@@ -19,10 +19,13 @@ import org.xbib.net.buffer.DataBuffer;
 import org.xbib.net.buffer.DataBufferFactory;
 import org.xbib.net.http.HttpResponseStatus;
 import org.xbib.net.http.cookie.Cookie;
+import org.xbib.net.http.server.BodyWriter;
+import org.xbib.net.http.server.FileRegion;
 import org.xbib.net.http.server.HttpHandler;
 import org.xbib.net.http.server.HttpRequest;
 import org.xbib.net.http.server.HttpRequestBuilder;
 import org.xbib.net.http.server.HttpResponseBuilder;
+import org.xbib.net.http.server.MultipartFileRegion;
 import org.xbib.net.http.server.application.Application;
 import org.xbib.net.http.server.auth.BaseAttributes;
 import org.xbib.net.http.server.domain.HttpDomain;
@@ -57,6 +60,8 @@ public class BaseHttpRouterContext implements HttpRouterContext {
 
     private boolean next;
 
+    private boolean flushed;
+
     public BaseHttpRouterContext(Application application,
                                  HttpDomain domain,
                                  HttpRequestBuilder httpRequestBuilder,
@@ -233,6 +238,12 @@ public class BaseHttpRouterContext implements HttpRouterContext {
         return this;
     }
 
+    @Override
+    public BaseHttpRouterContext setHeader(String name, String value) {
+        httpResponseBuilder.setHeader(name, value);
+        return this;
+    }
+
     @Override
     public HttpRouterContext cookie(Cookie cookie) {
         httpResponseBuilder.addCookie(cookie);
@@ -275,14 +286,39 @@ public class BaseHttpRouterContext implements HttpRouterContext {
         return this;
     }
 
+    @Override
+    public BaseHttpRouterContext body(FileRegion fileRegion, int bufferSize) throws IOException {
+        httpResponseBuilder.write(fileRegion, bufferSize);
+        return this;
+    }
+
+    @Override
+    public BaseHttpRouterContext body(MultipartFileRegion multipartFileRegion, int bufferSize) throws IOException {
+        httpResponseBuilder.write(multipartFileRegion, bufferSize);
+        return this;
+    }
+
+    @Override
+    public BaseHttpRouterContext body(BodyWriter bodyWriter, int bufferSize) throws IOException {
+        httpResponseBuilder.write(bodyWriter, bufferSize);
+        return this;
+    }
+
     @Override
     public long lengthInBytes() {
-        return httpResponseBuilder.getLength();
+        // unknown until a streamed body is written
+        Long length = httpResponseBuilder.getLength();
+        return length != null ? length : 0L;
     }
 
     @Override
     public void flush() throws IOException {
+        // a response that is rendered while the handlers run is not sent again when the context is closed
+        if (flushed) {
+            return;
+        }
         httpResponseBuilder.build().flush();
+        flushed = true;
     }
 
     @Override
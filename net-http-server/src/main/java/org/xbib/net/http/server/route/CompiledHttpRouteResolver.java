@@ -0,0 +1,311 @@
+package org.xbib.net.http.server.route;
+
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.xbib.net.Parameter;
+import org.xbib.net.ParameterBuilder;
+import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpMethod;
+import static org.xbib.net.Parameter.Domain.PATH;
+
+/**
+ * A route resolver that compiles the configured routes into a segment trie, keyed by address and method.
+ * The lookup cost is proportional to the depth of the requested path, not to the number of routes.
+ * Results are delivered in the same order as by {@link BaseHttpRouteResolver}, i.e. in the order
+ * the routes were added, or in sort key order if sorting is enabled.
+ * Unlike the naive resolver, a route only matches if it was configured for the requested method.
+ *
+ * @param <T> the route value type
+ */
+public class CompiledHttpRouteResolver<T> implements HttpRouteResolver<T> {
+
+    private static final Comparator<Entry<?>> ORDINAL = Comparator.comparingInt(e -> e.ordinal);
+
+    private final Map<HttpAddress, Map<HttpMethod, Node<T>>> roots;
+
+    private final ThreadLocal<List<Entry<T>>> matchesScratch;
+
+    private CompiledHttpRouteResolver(Map<HttpAddress, Map<HttpMethod, Node<T>>> roots) {
+        this.roots = roots;
+        this.matchesScratch = ThreadLocal.withInitial(ArrayList::new);
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    @Override
+    public void resolve(HttpRoute httpRoute, ResultListener<T> listener) {
+        if (listener == null) {
+            return;
+        }
+        Map<HttpMethod, Node<T>> nodesByMethod = roots.get(httpRoute.getHttpAddress());
+        if (nodesByMethod == null) {
+            return;
+        }
+        Node<T> root = nodesByMethod.get(httpRoute.getHttpMethods().iterator().next());
+        if (root == null) {
+            return;
+        }
+        List<String> segments = split(httpRoute.getEffectivePath());
+        List<Entry<T>> matches = matchesScratch.get();
+        if (!matches.isEmpty()) {
+            // resolve was called from a listener
+            matches = new ArrayList<>();
+        }
+        try {
+            root.collectPatterns(httpRoute.getPath(), segments, matches);
+            root.collect(segments, 0, matches);
+            if (matches.size() > 1) {
+                matches.sort(ORDINAL);
+            }
+            List<String> context = Collections.unmodifiableList(segments);
+            for (Entry<T> entry : matches) {
+                listener.onResult(new BaseHttpRouteResolver.Result<>(entry.value, context, entry.createParameter(segments)));
+            }
+        } finally {
+            matches.clear();
+        }
+    }
+
+    private static List<String> split(String path) {
+        List<String> list = new ArrayList<>();
+        int start = 0;
+        int length = path.length();
+        while (start < length) {
+            int pos = path.indexOf('/', start);
+            if (pos == -1) {
+                pos = length;
+            }
+            if (pos > start) {
+                list.add(path.substring(start, pos));
+            }
+            start = pos + 1;
+        }
+        return list;
+    }
+
+    private static boolean isCatchAll(String s) {
+        return "**".equals(s);
+    }
+
+    private static boolean isParameter(String s) {
+        return s.startsWith("{") && s.endsWith("}");
+    }
+
+    private static boolean isPattern(String s) {
+        return s.startsWith("glob:");
+    }
+
+    public static class Builder<T> implements HttpRouteResolver.Builder<T> {
+
+        private final List<Map.Entry<HttpRoute, T>> routes;
+
+        private boolean sort;
+
+        private Builder() {
+            this.routes = new ArrayList<>();
+            this.sort = false;
+        }
+
+        @Override
+        public HttpRouteResolver.Builder<T> add(HttpAddress httpAddress, HttpMethod httpMethod, String prefix, String path, T value) {
+            add(new BaseHttpRoute(httpAddress, Set.of(httpMethod), prefix, path, false), value);
+            return this;
+        }
+
+        @Override
+        public HttpRouteResolver.Builder<T> add(HttpAddress httpAddress, Set<HttpMethod> httpMethods, String prefix, String path, T value) {
+            add(new BaseHttpRoute(httpAddress, httpMethods, prefix, path, false), value);
+            return this;
+        }
+
+        @Override
+        public HttpRouteResolver.Builder<T> add(HttpRoute httpRoute, T value) {
+            routes.add(Map.entry(httpRoute, value));
+            return this;
+        }
+
+        @Override
+        public HttpRouteResolver.Builder<T> sort(boolean sort) {
+            this.sort = sort;
+            return this;
+        }
+
+        @Override
+        public CompiledHttpRouteResolver<T> build() {
+            List<Map.Entry<HttpRoute, T>> list = new ArrayList<>(routes);
+            if (sort) {
+                list.sort((o1, o2) -> o2.getKey().getSortKey().compareTo(o1.getKey().getSortKey()));
+            }
+            Map<HttpAddress, Map<HttpMethod, Node<T>>> roots = new HashMap<>();
+            int ordinal = 0;
+            for (Map.Entry<HttpRoute, T> route : list) {
+                HttpRoute httpRoute = route.getKey();
+                Map<HttpMethod, Node<T>> nodesByMethod =
+                        roots.computeIfAbsent(httpRoute.getHttpAddress(), k -> new EnumMap<>(HttpMethod.class));
+                for (HttpMethod httpMethod : httpRoute.getHttpMethods()) {
+                    Node<T> root = nodesByMethod.computeIfAbsent(httpMethod, k -> new Node<>());
+                    insert(root, httpRoute.getEffectivePath(), route.getValue(), ordinal);
+                }
+                ordinal++;
+            }
+            return new CompiledHttpRouteResolver<>(roots);
+        }
+
+        private static <T> void insert(Node<T> root, String path, T value, int ordinal) {
+            if (isPattern(path)) {
+                root.patterns.add(new PatternEntry<>(FileSystems.getDefault().getPathMatcher(path),
+                        new Entry<>(value, ordinal, List.of(), List.of())));
+                return;
+            }
+            List<String> segments = split(path);
+            if (segments.size() == 1 && isPattern(segments.get(0))) {
+                root.patterns.add(new PatternEntry<>(FileSystems.getDefault().getPathMatcher(segments.get(0)),
+                        new Entry<>(value, ordinal, List.of(), List.of())));
+                return;
+            }
+            List<String> names = new ArrayList<>();
+            List<Integer> positions = new ArrayList<>();
+            Node<T> node = root;
+            for (int i = 0; i < segments.size(); i++) {
+                String s = segments.get(i);
+                if (isCatchAll(s)) {
+                    // everything after a catch-all segment is ignored
+                    node.catchAll.add(new Entry<>(value, ordinal, names, positions));
+                    return;
+                } else if (isParameter(s)) {
+                    names.add(s.substring(1, s.length() - 1));
+                    positions.add(i);
+                    if (node.parameter == null) {
+                        node.parameter = new Node<>();
+                    }
+                    node = node.parameter;
+                } else if (isPattern(s)) {
+                    node = node.globs.computeIfAbsent(s, GlobNode::new).node;
+                } else {
+                    node = node.statics.computeIfAbsent(s, k -> new Node<>());
+                }
+            }
+            node.terminal.add(new Entry<>(value, ordinal, names, positions));
+        }
+    }
+
+    private static class Node<T> {
+
+        private final Map<String, Node<T>> statics;
+
+        private final Map<String, GlobNode<T>> globs;
+
+        private final List<Entry<T>> terminal;
+
+        private final List<Entry<T>> catchAll;
+
+        private final List<PatternEntry<T>> patterns;
+
+        private Node<T> parameter;
+
+        Node() {
+            this.statics = new HashMap<>();
+            this.globs = new LinkedHashMap<>();
+            this.terminal = new ArrayList<>();
+            this.catchAll = new ArrayList<>();
+            this.patterns = new ArrayList<>();
+        }
+
+        void collect(List<String> segments, int depth, List<Entry<T>> matches) {
+            // a catch-all matches zero or more remaining segments
+            matches.addAll(catchAll);
+            if (depth == segments.size()) {
+                matches.addAll(terminal);
+                return;
+            }
+            String segment = segments.get(depth);
+            Node<T> node = statics.get(segment);
+            if (node != null) {
+                node.collect(segments, depth + 1, matches);
+            }
+            if (parameter != null) {
+                parameter.collect(segments, depth + 1, matches);
+            }
+            for (GlobNode<T> globNode : globs.values()) {
+                if (globNode.pathMatcher.matches(Paths.get(segment))) {
+                    globNode.node.collect(segments, depth + 1, matches);
+                }
+            }
+        }
+
+        /**
+         * Routes consisting of a single pattern are matched against the full path first,
+         * then against a single requested segment.
+         */
+        void collectPatterns(String path, List<String> segments, List<Entry<T>> matches) {
+            for (PatternEntry<T> patternEntry : patterns) {
+                if (patternEntry.pathMatcher.matches(Paths.get(path)) ||
+                        (segments.size() == 1 && patternEntry.pathMatcher.matches(Paths.get(segments.get(0))))) {
+                    matches.add(patternEntry.entry);
+                }
+            }
+        }
+    }
+
+    private static class GlobNode<T> {
+
+        private final PathMatcher pathMatcher;
+
+        private final Node<T> node;
+
+        GlobNode(String glob) {
+            this.pathMatcher = FileSystems.getDefault().getPathMatcher(glob);
+            this.node = new Node<>();
+        }
+    }
+
+    private static class PatternEntry<T> {
+
+        private final PathMatcher pathMatcher;
+
+        private final Entry<T> entry;
+
+        PatternEntry(PathMatcher pathMatcher, Entry<T> entry) {
+            this.pathMatcher = pathMatcher;
+            this.entry = entry;
+        }
+    }
+
+    private static class Entry<T> {
+
+        private final T value;
+
+        private final int ordinal;
+
+        private final String[] names;
+
+        private final int[] positions;
+
+        Entry(T value, int ordinal, List<String> names, List<Integer> positions) {
+            this.value = value;
+            this.ordinal = ordinal;
+            this.names = names.toArray(new String[0]);
+            this.positions = positions.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        Parameter createParameter(List<String> segments) {
+            ParameterBuilder parameterBuilder = Parameter.builder().domain(PATH);
+            for (int i = 0; i < names.length; i++) {
+                parameterBuilder.add(names[i], segments.get(positions[i]));
+            }
+            return parameterBuilder.build();
+        }
+    }
+}
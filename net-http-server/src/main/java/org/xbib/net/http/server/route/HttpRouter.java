@@ -16,6 +16,18 @@ public interface HttpRouter {
 
     void route(Application application, HttpRequestBuilder requestBuilder, HttpResponseBuilder responseBuilder);
 
+    /**
+     * Whether all services that a request is routed to are non-blocking, so the request can be routed
+     * on the thread that received it. Routers that do not know about non-blocking services route
+     * every request on the executor.
+     *
+     * @param requestBuilder the request builder
+     * @return true if the request is routed to non-blocking services only
+     */
+    default boolean isNonBlocking(HttpRequestBuilder requestBuilder) {
+        return false;
+    }
+
     void routeStatus(HttpResponseStatus httpResponseStatus, HttpRouterContext httpRouterContext);
 
     void routeToErrorHandler(HttpRouterContext httpRouterContext, Throwable t);
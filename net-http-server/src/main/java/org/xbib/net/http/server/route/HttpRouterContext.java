@@ -14,9 +14,12 @@ import org.xbib.net.buffer.DataBuffer;
 import org.xbib.net.buffer.DataBufferFactory;
 import org.xbib.net.http.HttpResponseStatus;
 import org.xbib.net.http.cookie.Cookie;
+import org.xbib.net.http.server.BodyWriter;
+import org.xbib.net.http.server.FileRegion;
 import org.xbib.net.http.server.HttpHandler;
 import org.xbib.net.http.server.HttpRequest;
 import org.xbib.net.http.server.HttpRequestBuilder;
+import org.xbib.net.http.server.MultipartFileRegion;
 import org.xbib.net.http.server.application.Application;
 
 public interface HttpRouterContext {
@@ -81,6 +84,15 @@ public interface HttpRouterContext {
 
     HttpRouterContext header(String name, String value);
 
+    /**
+     * Set a response header, replacing the values of a header with the same name.
+     *
+     * @param name the header name
+     * @param value the header value
+     * @return this context
+     */
+    HttpRouterContext setHeader(String name, String value);
+
     HttpRouterContext cookie(Cookie cookie);
 
     HttpRouterContext body(byte[] bytes) throws IOException;
@@ -95,6 +107,12 @@ public interface HttpRouterContext {
 
     HttpRouterContext body(FileChannel fileChannel, int bufferSize) throws IOException;
 
+    HttpRouterContext body(FileRegion fileRegion, int bufferSize) throws IOException;
+
+    HttpRouterContext body(MultipartFileRegion multipartFileRegion, int bufferSize) throws IOException;
+
+    HttpRouterContext body(BodyWriter bodyWriter, int bufferSize) throws IOException;
+
     long lengthInBytes();
 
     void flush() throws IOException;
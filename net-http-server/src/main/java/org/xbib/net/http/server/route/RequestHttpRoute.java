@@ -0,0 +1,119 @@
+package org.xbib.net.http.server.route;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.xbib.net.ParameterBuilder;
+import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpMethod;
+
+/**
+ * A mutable route for incoming requests, to be reused by the router. Unlike {@link BaseHttpRoute},
+ * the path is split into segments only when a {@link BaseHttpRoute} asks for them, and the segment list
+ * is reused, so the {@link CompiledHttpRouteResolver}, which splits the effective path by itself,
+ * never pays for it.
+ */
+class RequestHttpRoute implements HttpRoute {
+
+    private static final Map<HttpMethod, Set<HttpMethod>> METHODS = createMethods();
+
+    private HttpAddress httpAddress;
+
+    private HttpMethod httpMethod;
+
+    private String prefix;
+
+    private String path;
+
+    private String effectivePath;
+
+    private final List<BaseHttpRoute.RouteSegment> segments;
+
+    private boolean segmented;
+
+    RequestHttpRoute() {
+        this.segments = new ArrayList<>();
+    }
+
+    RequestHttpRoute set(HttpAddress httpAddress, HttpMethod httpMethod, String prefix, String path) {
+        this.httpAddress = httpAddress;
+        this.httpMethod = httpMethod;
+        this.prefix = prefix;
+        this.path = path;
+        this.effectivePath = null;
+        this.segments.clear();
+        this.segmented = false;
+        return this;
+    }
+
+    void clear() {
+        set(null, null, null, null);
+    }
+
+    @Override
+    public HttpAddress getHttpAddress() {
+        return httpAddress;
+    }
+
+    @Override
+    public Collection<HttpMethod> getHttpMethods() {
+        return METHODS.get(httpMethod);
+    }
+
+    @Override
+    public String getPrefix() {
+        return prefix;
+    }
+
+    @Override
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public String getEffectivePath() {
+        if (effectivePath == null) {
+            effectivePath = BaseHttpRoute.effectivePath(path, prefix);
+        }
+        return effectivePath;
+    }
+
+    /**
+     * The string segments of the effective path, split on first use.
+     *
+     * @return the segments
+     */
+    List<BaseHttpRoute.RouteSegment> getSegments() {
+        if (!segmented) {
+            BaseHttpRoute.addStringSegments(getEffectivePath(), segments);
+            segmented = true;
+        }
+        return segments;
+    }
+
+    @Override
+    public boolean matches(ParameterBuilder parameterBuilder, HttpRoute requestedRoute) {
+        return false;
+    }
+
+    @Override
+    public String getSortKey() {
+        return "";
+    }
+
+    @Override
+    public String toString() {
+        return httpAddress + "/" + httpMethod + "/" + path;
+    }
+
+    private static Map<HttpMethod, Set<HttpMethod>> createMethods() {
+        Map<HttpMethod, Set<HttpMethod>> map = new EnumMap<>(HttpMethod.class);
+        for (HttpMethod httpMethod : HttpMethod.values()) {
+            map.put(httpMethod, Set.of(httpMethod));
+        }
+        return map;
+    }
+}
@@ -56,6 +56,11 @@ public class BaseHttpService implements HttpService {
         return builder.securityDomain;
     }
 
+    @Override
+    public boolean isNonBlocking() {
+        return builder.nonBlocking;
+    }
+
     @Override
     public void handle(HttpRouterContext context) throws IOException {
         if (builder.handlers != null) {
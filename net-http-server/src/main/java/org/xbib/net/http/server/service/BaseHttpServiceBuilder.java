@@ -25,12 +25,15 @@ public class BaseHttpServiceBuilder implements HttpServiceBuilder {
 
     protected HttpSecurityDomain securityDomain;
 
+    protected boolean nonBlocking;
+
     protected BaseHttpServiceBuilder() {
         this.prefix = "";
         this.pathSpec = "/**";
         this.methods = Set.of(HttpMethod.GET);
         this.handlers = null;
         this.securityDomain = null;
+        this.nonBlocking = false;
     }
 
     @Override
@@ -71,6 +74,18 @@ public class BaseHttpServiceBuilder implements HttpServiceBuilder {
         return this;
     }
 
+    /**
+     * Mark the service as non-blocking. Servers with an event loop run the service on the event loop.
+     * Only use this for handlers that never block, e.g. status pages, health checks or cached resources.
+     *
+     * @param nonBlocking true if the service is non-blocking
+     * @return this builder
+     */
+    public BaseHttpServiceBuilder setNonBlocking(boolean nonBlocking) {
+        this.nonBlocking = nonBlocking;
+        return this;
+    }
+
     public BaseHttpService build() {
         Objects.requireNonNull(handlers);
         return new BaseHttpService(this);
@@ -19,4 +19,15 @@ public interface HttpService extends HttpHandler {
     Collection<ParameterDefinition> getParameterDefinitions();
 
     HttpSecurityDomain getSecurityDomain();
+
+    /**
+     * Whether this service never blocks, i.e. its handlers and security handlers neither wait for I/O nor for locks.
+     * Servers with an event loop run non-blocking services directly on the event loop, without handing
+     * the request over to the executor. Services are blocking unless they say otherwise.
+     *
+     * @return true if the service is non-blocking
+     */
+    default boolean isNonBlocking() {
+        return false;
+    }
 }
@@ -5,6 +5,7 @@ import java.time.Instant;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import org.xbib.datastructures.common.LRUCache;
 
@@ -14,6 +15,8 @@ public class BaseSession implements Session {
 
     static String LAST_MODIFIED_FIELD = "_lastmodified_";
 
+    static String PERSISTED_FIELD = "_persisted_";
+
     static String CACHE_PREFIX = "_cache_";
 
     private final SessionListener sessionListener;
@@ -30,6 +33,8 @@ public class BaseSession implements Session {
 
     private boolean valid;
 
+    private volatile boolean modified;
+
     public BaseSession(SessionListener sessionListener,
                        int cacheSize,
                        String name,
@@ -50,6 +55,7 @@ public class BaseSession implements Session {
                 sessionListener.onCreated(this);
             }
         }
+        this.modified = create;
     }
 
     @Override
@@ -92,9 +98,10 @@ public class BaseSession implements Session {
 
     @Override
     public boolean hasPayload() {
-        return !isEmpty() &&
-                !(size() == 1 && containsKey(CREATED_FIELD)) &&
-                !(size() == 2 && containsKey(CREATED_FIELD) && containsKey(LAST_MODIFIED_FIELD));
+        int fields = (containsKey(CREATED_FIELD) ? 1 : 0) +
+                (containsKey(LAST_MODIFIED_FIELD) ? 1 : 0) +
+                (containsKey(PERSISTED_FIELD) ? 1 : 0);
+        return size() > fields;
     }
 
     @Override
@@ -141,7 +148,11 @@ public class BaseSession implements Session {
                 throw new IllegalArgumentException("only a map allowed for session cache: key = " + key + " value class = " + value.getClass().getName());
             }
         }
-        return map.put(key, v);
+        Object old = map.put(key, v);
+        if (!Objects.equals(old, v)) {
+            modified = true;
+        }
+        return old;
     }
 
     @SuppressWarnings({"unchecked", "rawtypes"})
@@ -150,16 +161,29 @@ public class BaseSession implements Session {
         if (map == null) {
             throw new NullPointerException("unexpected null map for putAll");
         }
-        this.map.putAll(map);
+        for (Object object : map.entrySet()) {
+            Map.Entry entry = (Map.Entry) object;
+            Object old = this.map.put((String) entry.getKey(), entry.getValue());
+            if (!Objects.equals(old, entry.getValue())) {
+                modified = true;
+            }
+        }
     }
 
     @Override
     public Object remove(Object key) {
-        return map.remove(key);
+        Object old = map.remove(key);
+        if (old != null) {
+            modified = true;
+        }
+        return old;
     }
 
     @Override
     public void clear() {
+        if (!map.isEmpty()) {
+            modified = true;
+        }
         map.clear();
     }
 
@@ -183,16 +207,65 @@ public class BaseSession implements Session {
         return map.toString();
     }
 
+    /**
+     * Changes through the collection views, or through maps returned by {@link #getCache(String)}, are not tracked.
+     * Code that modifies the session this way must mark the session as modified.
+     */
+    @Override
+    public boolean isModified() {
+        return modified;
+    }
+
+    @Override
+    public void setModified(boolean modified) {
+        this.modified = modified;
+    }
+
+    /**
+     * The persist time is kept apart from the last modified time, so persisting a session does not extend
+     * its lifetime, see {@link #isExpired()}.
+     */
+    @Override
+    public Instant getLastPersisted() {
+        Object object = get(PERSISTED_FIELD);
+        if (object == null) {
+            object = get(CREATED_FIELD);
+        }
+        return object != null ? Instant.parse(object.toString()) : null;
+    }
+
+    @Override
+    public void setLastPersisted() {
+        put(PERSISTED_FIELD, Instant.now().toString());
+    }
+
     public void setLastModified() {
         put(LAST_MODIFIED_FIELD, Instant.now().toString());
     }
 
+    /**
+     * A copy of this session, so it can be handed to another request. Maps in the session, e.g. session caches,
+     * are copied as well, other values are shared. The copy is not modified.
+     *
+     * @return the copy
+     */
+    public BaseSession copy() {
+        BaseSession copy = new BaseSession(sessionListener, cacheSize, name, id, false, lifetime);
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            copy.put(entry.getKey(), copyValue(entry.getValue()));
+        }
+        copy.valid = valid;
+        copy.modified = false;
+        return copy;
+    }
+
     public int getCacheSize() {
         return cacheSize;
     }
 
     public void putCache(String cacheName, String token, Map<String, Object> map) {
         getCache(cacheName).put(token, map);
+        modified = true;
     }
 
     @SuppressWarnings("unchecked")
@@ -200,6 +273,7 @@ public class BaseSession implements Session {
         Map<String, Object> cache = (Map<String, Object>) getCache(cacheName).get(token);
         if (cache != null) {
             cache.put(key, value);
+            modified = true;
         }
     }
 
@@ -220,6 +294,15 @@ public class BaseSession implements Session {
         return (Map<String, Object>) map.get(CACHE_PREFIX + cacheName);
     }
 
+    private static Object copyValue(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            map.forEach((k, v) -> copy.put(k, copyValue(v)));
+            return copy;
+        }
+        return value;
+    }
+
     private Map<String, Object> newCache(Map<String, Object> map) {
         Map<String, Object> cache = newCache();
         cache.putAll(map);
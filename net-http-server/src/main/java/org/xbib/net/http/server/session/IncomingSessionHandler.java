@@ -3,8 +3,6 @@ package org.xbib.net.http.server.session;
 import java.io.IOException;
 import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
 import java.text.MessageFormat;
 import java.util.Map;
 import java.util.Set;
@@ -22,15 +20,14 @@ import org.xbib.net.http.server.route.HttpRouterContext;
 import org.xbib.net.http.server.auth.BaseUserProfile;
 import org.xbib.net.http.server.cookie.CookieSignatureException;
 import org.xbib.net.http.server.cookie.CookieSignatureUtil;
+import org.xbib.net.http.server.cookie.CookieSigner;
 import org.xbib.net.http.server.persist.Codec;
 
 public class IncomingSessionHandler implements HttpHandler {
 
     private static final Logger logger = Logger.getLogger(IncomingSessionHandler.class.getName());
 
-    private final String sessionSecret;
-
-    private final String sessionCookieAlgorithm;
+    private final CookieSigner cookieSigner;
 
     private final String sessionCookieName;
 
@@ -55,8 +52,18 @@ public class IncomingSessionHandler implements HttpHandler {
                                   String sessionUserName,
                                   String sessionEffectiveUserName,
                                   Supplier<String> sessionIdGenerator) {
-        this.sessionSecret = sessionSecret;
-        this.sessionCookieAlgorithm = sessionCookieAlgorithm;
+        this(CookieSigner.of(sessionSecret, sessionCookieAlgorithm), sessionCookieName, sessionCodec, suffixes,
+                sessionUserName, sessionEffectiveUserName, sessionIdGenerator);
+    }
+
+    public IncomingSessionHandler(CookieSigner cookieSigner,
+                                  String sessionCookieName,
+                                  Codec<Session> sessionCodec,
+                                  Set<String> suffixes,
+                                  String sessionUserName,
+                                  String sessionEffectiveUserName,
+                                  Supplier<String> sessionIdGenerator) {
+        this.cookieSigner = cookieSigner;
         this.sessionCookieName = sessionCookieName;
         this.sessionCodec = sessionCodec;
         this.suffixes = suffixes;
@@ -112,8 +119,7 @@ public class IncomingSessionHandler implements HttpHandler {
         context.getAttributes().put("session", session);
     }
 
-    private Map<String, Object> decodeCookie(Cookie cookie) throws IOException,
-            NoSuchAlgorithmException, InvalidKeyException, CookieSignatureException {
+    private Map<String, Object> decodeCookie(Cookie cookie) throws IOException, CookieSignatureException {
         PercentDecoder percentDecoder = new PercentDecoder(StandardCharsets.ISO_8859_1.newDecoder()
                 .onMalformedInput(CodingErrorAction.IGNORE)
                 .onUnmappableCharacter(CodingErrorAction.IGNORE));
@@ -125,10 +131,12 @@ public class IncomingSessionHandler implements HttpHandler {
         String id = s[0];
         String payload = s[1];
         String sig = s[2];
-        String mysig = CookieSignatureUtil.hmac(payload, sessionSecret, sessionCookieAlgorithm);
-        if (!sig.equals(mysig)) {
-            logger.log(Level.SEVERE, MessageFormat.format("signature in cookie does not match. algo={1} secret={2} payload={3} sig={4} mysig={5}",
-                    sessionCookieAlgorithm, sessionSecret, payload, sig, mysig));
+        if (cookieSigner == null) {
+            throw new CookieSignatureException("no secret, unable to verify cookie");
+        }
+        if (!cookieSigner.verify(payload, sig)) {
+            logger.log(Level.SEVERE, MessageFormat.format("signature in cookie does not match. algo={0} payload={1} sig={2}",
+                    cookieSigner.getAlgorithm(), payload, sig));
             throw new CookieSignatureException("cookie security problem");
         }
         Map<String, Object> map = CookieSignatureUtil.toMap(payload);
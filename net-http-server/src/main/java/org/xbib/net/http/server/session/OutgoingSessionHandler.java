@@ -2,8 +2,6 @@ package org.xbib.net.http.server.session;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
@@ -24,14 +22,13 @@ import org.xbib.net.http.server.route.HttpRouterContext;
 import org.xbib.net.http.server.application.Application;
 import org.xbib.net.http.server.cookie.CookieSignatureException;
 import org.xbib.net.http.server.cookie.CookieSignatureUtil;
+import org.xbib.net.http.server.cookie.CookieSigner;
 
 public class OutgoingSessionHandler implements HttpHandler {
 
     private static final Logger logger = Logger.getLogger(OutgoingSessionHandler.class.getName());
 
-    private final String sessionSecret;
-
-    private final String sessionCookieAlgorithm;
+    private final CookieSigner cookieSigner;
 
     private final String sessionCookieName;
 
@@ -59,8 +56,20 @@ public class OutgoingSessionHandler implements HttpHandler {
                                   boolean httpOnly,
                                   boolean secure,
                                   SameSite sameSite) {
-        this.sessionSecret = sessionSecret;
-        this.sessionCookieAlgorithm = sessionCookieAlgorithm;
+        this(CookieSigner.of(sessionSecret, sessionCookieAlgorithm), sessionCookieName, suffixes,
+                sessionUserName, sessionEffectiveUserName, sessionDuration, httpOnly, secure, sameSite);
+    }
+
+    public OutgoingSessionHandler(CookieSigner cookieSigner,
+                                  String sessionCookieName,
+                                  Set<String> suffixes,
+                                  String sessionUserName,
+                                  String sessionEffectiveUserName,
+                                  Duration sessionDuration,
+                                  boolean httpOnly,
+                                  boolean secure,
+                                  SameSite sameSite) {
+        this.cookieSigner = cookieSigner;
         this.sessionCookieName = sessionCookieName;
         this.suffixes = suffixes;
         this.sessionUserName = sessionUserName;
@@ -121,9 +130,8 @@ public class OutgoingSessionHandler implements HttpHandler {
         context.getAttributes().put("outgoingcookies", cookieBox);
     }
 
-    private Cookie encodeCookie(Session session, String host, String path) throws IOException,
-            NoSuchAlgorithmException, InvalidKeyException {
-        if (sessionSecret == null) {
+    private Cookie encodeCookie(Session session, String host, String path) throws IOException {
+        if (cookieSigner == null) {
             logger.log(Level.WARNING, "no secret, no cookie");
             return null;
         }
@@ -145,7 +153,7 @@ public class OutgoingSessionHandler implements HttpHandler {
             map.put(sessionEffectiveUserName, session.get(sessionEffectiveUserName));
         }
         String payload = CookieSignatureUtil.toString(map);
-        String sig = CookieSignatureUtil.hmac(payload, sessionSecret, sessionCookieAlgorithm);
+        String sig = cookieSigner.sign(payload);
         String cookieValue = String.join(":", id, payload, sig);
         PercentEncoder percentEncoder = PercentEncoders.getCookieEncoder(StandardCharsets.ISO_8859_1);
         DefaultCookie cookie = new DefaultCookie(sessionCookieName, percentEncoder.encode(cookieValue));
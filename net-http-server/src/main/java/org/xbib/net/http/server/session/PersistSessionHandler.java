@@ -1,6 +1,8 @@
 package org.xbib.net.http.server.session;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.xbib.net.http.HttpResponseStatus;
@@ -9,27 +11,64 @@ import org.xbib.net.http.server.HttpHandler;
 import org.xbib.net.http.server.persist.Codec;
 import org.xbib.net.http.server.route.HttpRouterContext;
 
+/**
+ * Writes the session of a request through the session codec, if the session was modified. Unmodified sessions
+ * are written only if they were not persisted for the refresh interval, so codecs that expire sessions by their
+ * write time keep sessions alive that are only read. The write time is kept in its own session field,
+ * so writes do not change when a session expires.
+ */
 public class PersistSessionHandler implements HttpHandler {
 
     private static final Logger logger = Logger.getLogger(PersistSessionHandler.class.getName());
 
     private final Codec<Session> sessionCodec;
 
+    private final Duration refreshInterval;
+
+    private final SessionWriteMetrics sessionWriteMetrics;
+
     public PersistSessionHandler(Codec<Session> sessionCodec) {
+        this(sessionCodec, Duration.ofMinutes(5), new SessionWriteMetrics());
+    }
+
+    public PersistSessionHandler(Codec<Session> sessionCodec,
+                                 Duration refreshInterval,
+                                 SessionWriteMetrics sessionWriteMetrics) {
         this.sessionCodec = sessionCodec;
+        this.refreshInterval = refreshInterval;
+        this.sessionWriteMetrics = sessionWriteMetrics;
     }
 
     @Override
     public void handle(HttpRouterContext context) throws IOException {
         Session session = context.getAttributes().get(Session.class, "session");
         if (session != null) {
+            if (!session.isModified() && !needsRefresh(session)) {
+                logger.log(Level.FINEST, "session id " + session.id() + " not modified, skipping write");
+                sessionWriteMetrics.skipped();
+                return;
+            }
             try {
                 logger.log(Level.FINEST, "writing session id " + session.id() + " keys = " + session.keySet());
+                session.setLastPersisted();
+                // clear before writing, so modifications of concurrent requests during the write are not lost
+                session.setModified(false);
                 sessionCodec.write(session.id(), session);
+                sessionWriteMetrics.written();
             } catch (Exception e) {
+                session.setModified(true);
                 logger.log(Level.SEVERE, e.getMessage(), e);
                 throw new HttpException("unable to create session data for cookie", context, HttpResponseStatus.INTERNAL_SERVER_ERROR);
             }
         }
     }
+
+    public SessionWriteMetrics getSessionWriteMetrics() {
+        return sessionWriteMetrics;
+    }
+
+    private boolean needsRefresh(Session session) {
+        Instant lastPersisted = session.getLastPersisted();
+        return lastPersisted == null || Duration.between(lastPersisted, Instant.now()).compareTo(refreshInterval) > 0;
+    }
 }
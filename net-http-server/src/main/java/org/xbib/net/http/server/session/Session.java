@@ -1,6 +1,7 @@
 package org.xbib.net.http.server.session;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.util.Map;
 
 public interface Session extends Map<String, Object> {
@@ -18,4 +19,22 @@ public interface Session extends Map<String, Object> {
     boolean hasPayload();
 
     Duration getAge();
+
+    /**
+     * Whether the session content has changed since the session was created, read, or last persisted.
+     *
+     * @return true if the session needs to be written
+     */
+    boolean isModified();
+
+    void setModified(boolean modified);
+
+    /**
+     * The time when the session was last persisted, or created if it was never persisted.
+     *
+     * @return the instant, or null if unknown
+     */
+    Instant getLastPersisted();
+
+    void setLastPersisted();
 }
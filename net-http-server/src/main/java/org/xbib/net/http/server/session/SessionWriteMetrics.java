@@ -0,0 +1,65 @@
+package org.xbib.net.http.server.session;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Session persistence metrics: writes skipped because the session was not modified, writes passed to the codec,
+ * writes coalesced with a pending write of the same session, and writes flushed to the backing codec.
+ */
+public class SessionWriteMetrics {
+
+    private final LongAdder skipped;
+
+    private final LongAdder written;
+
+    private final LongAdder coalesced;
+
+    private final LongAdder flushed;
+
+    public SessionWriteMetrics() {
+        this.skipped = new LongAdder();
+        this.written = new LongAdder();
+        this.coalesced = new LongAdder();
+        this.flushed = new LongAdder();
+    }
+
+    public void skipped() {
+        skipped.increment();
+    }
+
+    public void written() {
+        written.increment();
+    }
+
+    public void coalesced() {
+        coalesced.increment();
+    }
+
+    public void flushed(int count) {
+        flushed.add(count);
+    }
+
+    public long getSkippedCount() {
+        return skipped.sum();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getFlushedCount() {
+        return flushed.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "[SessionWriteMetrics:skipped=" + getSkippedCount() +
+                ",written=" + getWrittenCount() +
+                ",coalesced=" + getCoalescedCount() +
+                ",flushed=" + getFlushedCount() + "]";
+    }
+}
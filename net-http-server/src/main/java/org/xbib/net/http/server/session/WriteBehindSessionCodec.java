@@ -0,0 +1,137 @@
+package org.xbib.net.http.server.session;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.xbib.net.http.server.persist.Codec;
+
+/**
+ * A session codec that delays writes to a backing codec. Writes are kept as pending and flushed once per window,
+ * so repeated updates of a session within the window are coalesced into a single write. Reads see pending writes.
+ * A pending session is a copy of the written session, and reads of it return a new copy, so requests never share
+ * a session instance with each other or with the flush.
+ * Pending writes are flushed when the codec is closed. Sessions written in the last window are lost if the process
+ * terminates without closing the codec. Removals wait for a running flush, so a flush never writes a session
+ * again after it was removed.
+ */
+public class WriteBehindSessionCodec implements Codec<Session>, Closeable {
+
+    private static final Logger logger = Logger.getLogger(WriteBehindSessionCodec.class.getName());
+
+    private final Codec<Session> codec;
+
+    private final SessionWriteMetrics sessionWriteMetrics;
+
+    private final Map<String, Session> pending;
+
+    private final ScheduledExecutorService flusher;
+
+    private final ReentrantLock flushLock;
+
+    public WriteBehindSessionCodec(Codec<Session> codec,
+                                   Duration window,
+                                   SessionWriteMetrics sessionWriteMetrics) {
+        this.codec = codec;
+        this.sessionWriteMetrics = sessionWriteMetrics;
+        this.pending = new ConcurrentHashMap<>();
+        this.flushLock = new ReentrantLock();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "org-xbib-net-server-session-writebehind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = Math.max(1L, window.toMillis());
+        flusher.scheduleWithFixedDelay(this::flush, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Session create(String key) throws IOException {
+        return codec.create(key);
+    }
+
+    @Override
+    public Session read(String key) throws IOException {
+        Session session = pending.get(key);
+        return session != null ? copy(session) : codec.read(key);
+    }
+
+    @Override
+    public void write(String key, Session session) throws IOException {
+        if (pending.put(key, copy(session)) != null) {
+            sessionWriteMetrics.coalesced();
+        }
+    }
+
+    @Override
+    public void remove(String key) throws IOException {
+        flushLock.lock();
+        try {
+            pending.remove(key);
+            codec.remove(key);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void purge(long expiredAfterSeconds) throws IOException {
+        codec.purge(expiredAfterSeconds);
+    }
+
+    /**
+     * Write all pending sessions to the backing codec, in one batch.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<String, Session> batch = new LinkedHashMap<>();
+            for (Map.Entry<String, Session> entry : pending.entrySet()) {
+                // a session written again in the meantime stays pending for the next flush
+                if (pending.remove(entry.getKey(), entry.getValue())) {
+                    batch.put(entry.getKey(), entry.getValue());
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                codec.writeAll(batch);
+                sessionWriteMetrics.flushed(batch.size());
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "unable to flush " + batch.size() + " sessions: " + e.getMessage(), e);
+                batch.forEach(pending::putIfAbsent);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(10L, TimeUnit.SECONDS)) {
+                flusher.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        if (codec instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    private static Session copy(Session session) {
+        return session instanceof BaseSession baseSession ? baseSession.copy() : session;
+    }
+}
@@ -72,6 +72,7 @@ public class FileJsonSessionCodec implements Codec<Session> {
             session = new BaseSession(sessionListener, sessionCacheSize, name, key, false, sessionDuration);
             Map<String, Object> map = JsonUtil.toMap(Files.readString(path.resolve(percentEncoder.encode(key))));
             session.putAll(map);
+            session.setModified(false);
             return session;
         } finally {
             readLock.unlock();
@@ -1,16 +1,14 @@
 package org.xbib.net.http.server.session.jdbc;
 
 import java.io.IOException;
-import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.time.Instant;
 import java.util.Map;
 import javax.sql.DataSource;
 import org.xbib.net.http.server.persist.Codec;
@@ -19,6 +17,22 @@ import org.xbib.net.http.server.session.Session;
 import org.xbib.net.http.server.session.SessionListener;
 import org.xbib.net.util.JsonUtil;
 
+/**
+ * A session codec for a JDBC data source. Each operation borrows a connection from the data source and returns it
+ * when the operation completes, so the codec works with connection pools. Session payloads are stored as UTF-8
+ * encoded JSON in a binary column, together with the expiry time of the session.
+ *
+ * The statements are given by the application, because upserts are not portable between databases.
+ * The parameters are:
+ * <ul>
+ *     <li>read: the session ID and the current time, e.g.
+ *     {@code SELECT payload FROM sessions WHERE id = ? AND expires >= ?}</li>
+ *     <li>write: the session ID, the payload, and the expiry time, e.g.
+ *     {@code MERGE INTO sessions (id, payload, expires) KEY (id) VALUES (?, ?, ?)}</li>
+ *     <li>delete: the session ID, e.g. {@code DELETE FROM sessions WHERE id = ?}</li>
+ *     <li>purge: the expiry limit, e.g. {@code DELETE FROM sessions WHERE expires < ?}</li>
+ * </ul>
+ */
 public class JdbcSessionCodec implements Codec<Session> {
 
     private final String name;
@@ -66,101 +80,114 @@ public class JdbcSessionCodec implements Codec<Session> {
 
     @Override
     public Session read(String key) throws IOException {
-        Session session;
-        try {
-            Map<String, Object> map = JsonUtil.toMap(readString(key));
-            if (map != null) {
-                session = new BaseSession(sessionListener, sessionCacheSize, name, key, false, sessionDuration);
-                session.putAll(map);
-                return session;
+        byte[] payload;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(readSessionStringStatement)) {
+            preparedStatement.setString(1, key);
+            preparedStatement.setTimestamp(2, Timestamp.from(Instant.now()));
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                payload = resultSet.next() ? resultSet.getBytes(1) : null;
             }
         } catch (SQLException e) {
             throw new IOException(e);
         }
-        return null;
+        if (payload == null) {
+            return null;
+        }
+        Map<String, Object> map = JsonUtil.toMap(new String(payload, StandardCharsets.UTF_8));
+        Session session = new BaseSession(sessionListener, sessionCacheSize, name, key, false, sessionDuration);
+        session.putAll(map);
+        session.setModified(false);
+        return session;
     }
 
     @Override
     public void write(String key, Session session) throws IOException {
         if (session != null) {
-            try {
-                writeString(key, JsonUtil.toString(session));
+            writeAll(Map.of(key, session));
+        }
+    }
+
+    /**
+     * Write sessions in one batch and one transaction.
+     *
+     * @param map the sessions
+     * @throws IOException if the sessions could not be written
+     */
+    @Override
+    public void writeAll(Map<String, Session> map) throws IOException {
+        if (map.isEmpty()) {
+            return;
+        }
+        Timestamp expires = Timestamp.from(Instant.now().plus(sessionDuration));
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            if (map.size() > 1 && autoCommit) {
+                connection.setAutoCommit(false);
+            }
+            try (PreparedStatement preparedStatement = connection.prepareStatement(writeSessionStringStatement)) {
+                for (Map.Entry<String, Session> entry : map.entrySet()) {
+                    preparedStatement.setString(1, entry.getKey());
+                    preparedStatement.setBytes(2, JsonUtil.toString(entry.getValue()).getBytes(StandardCharsets.UTF_8));
+                    preparedStatement.setTimestamp(3, expires);
+                    if (map.size() > 1) {
+                        preparedStatement.addBatch();
+                    }
+                }
+                if (map.size() > 1) {
+                    preparedStatement.executeBatch();
+                } else {
+                    preparedStatement.executeUpdate();
+                }
+                if (!connection.getAutoCommit()) {
+                    connection.commit();
+                }
             } catch (SQLException e) {
-                throw new IOException(e);
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                }
+                throw e;
+            } finally {
+                if (connection.getAutoCommit() != autoCommit) {
+                    connection.setAutoCommit(autoCommit);
+                }
             }
+        } catch (SQLException e) {
+            throw new IOException(e);
         }
     }
 
     @Override
     public void remove(String key) throws IOException {
         if (key != null) {
-            try {
-                deleteString(key);
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement preparedStatement = connection.prepareStatement(deleteSessionStringStatement)) {
+                preparedStatement.setString(1, key);
+                preparedStatement.executeUpdate();
             } catch (SQLException e) {
                 throw new IOException(e);
             }
         }
     }
 
+    /**
+     * Delete all sessions that were not written for the given time, in one statement.
+     *
+     * @param expiredAfterSeconds the time in seconds
+     * @throws IOException if the sessions could not be deleted
+     */
     @Override
-    public void purge(long expiredAfterSeconds) {
+    public void purge(long expiredAfterSeconds) throws IOException {
         if (expiredAfterSeconds > 0L) {
-            LocalDateTime now = LocalDateTime.now();
-            LocalDateTime expiredBefore = now.minusSeconds(expiredAfterSeconds);
-            List<String> list = new ArrayList<>();
-            try {
-                Connection connection = dataSource.getConnection();
-                try (PreparedStatement preparedStatement = connection.prepareStatement(purgeSessionStringStatement)) {
-                    preparedStatement.setTimestamp(1, Timestamp.valueOf(expiredBefore)); // created
-                    ResultSet resultSet = preparedStatement.executeQuery();
-                    while (resultSet.next()) {
-                        list.add(resultSet.getString(1));
-                    }
-                    resultSet.close();
-                }
-                try (PreparedStatement preparedStatement = connection.prepareStatement(deleteSessionStringStatement)) {
-                    for (String key : list) {
-                        if (key != null) {
-                            preparedStatement.setString(1, key);
-                            preparedStatement.execute();
-                        }
-                    }
-                }
+            // the expiry column holds the write time plus the session duration
+            Instant limit = Instant.now().plus(sessionDuration).minusSeconds(expiredAfterSeconds);
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement preparedStatement = connection.prepareStatement(purgeSessionStringStatement)) {
+                preparedStatement.setTimestamp(1, Timestamp.from(limit));
+                preparedStatement.executeUpdate();
             } catch (SQLException e) {
-                throw new UncheckedIOException(new IOException(e));
-            }
-        }
-    }
-
-    private String readString(String key) throws SQLException {
-        List<String> list = new ArrayList<>();
-        Connection connection = dataSource.getConnection();
-        try (PreparedStatement preparedStatement = connection.prepareStatement(readSessionStringStatement)) {
-            preparedStatement.setString(1, key);
-            ResultSet resultSet = preparedStatement.executeQuery();
-            while (resultSet.next()) {
-                list.add(resultSet.getString(1));
+                throw new IOException(e);
             }
-            resultSet.close();
-        }
-        return list.size() > 1 ? list.get(0) : null;
-    }
-
-    private void writeString(String key, String value) throws SQLException {
-        Connection connection = dataSource.getConnection();
-        try (PreparedStatement preparedStatement = connection.prepareStatement(writeSessionStringStatement)) {
-            preparedStatement.setString(1, key); // key
-            preparedStatement.setString(2, value); // value
-            preparedStatement.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now())); // created
-            preparedStatement.execute();
-        }
-    }
-
-    private void deleteString(String key) throws SQLException {
-        Connection connection = dataSource.getConnection();
-        try (PreparedStatement preparedStatement = connection.prepareStatement(deleteSessionStringStatement)) {
-            preparedStatement.setString(1, key);
-            preparedStatement.execute();
         }
     }
 }
@@ -11,6 +11,13 @@ import org.xbib.net.http.server.session.BaseSession;
 import org.xbib.net.http.server.session.Session;
 import org.xbib.net.http.server.session.SessionListener;
 
+/**
+ * A memory session codec that copies sessions into a global store.
+ *
+ * @deprecated use {@link MemorySessionCodec}, which is scoped to an application, does not copy sessions,
+ * and expires sessions without scanning the whole store
+ */
+@Deprecated
 public class MemoryPropertiesSessionCodec implements Codec<Session> {
 
     private static final Map<String, Object> store = new HashMap<>();
@@ -71,6 +78,7 @@ public class MemoryPropertiesSessionCodec implements Codec<Session> {
     private Session toSession(String key, Properties properties) {
         Session session = new BaseSession(sessionListener, sessionCacheSize, name, key, false, sessionDuration);
         properties.forEach((k, v) -> session.put(k.toString(), v));
+        session.setModified(false);
         return session;
     }
 
@@ -0,0 +1,304 @@
+package org.xbib.net.http.server.session.memory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.xbib.net.http.server.persist.Codec;
+import org.xbib.net.http.server.session.BaseSession;
+import org.xbib.net.http.server.session.Session;
+import org.xbib.net.http.server.session.SessionListener;
+
+/**
+ * An in-memory session codec for one application. The store is split into shards, each an access-ordered map
+ * behind its own lock, so requests of different sessions rarely contend. The store keeps an immutable snapshot
+ * of the session data: a write takes a snapshot of the written session, and each read returns a new session
+ * with a copy of the snapshot, so concurrent requests of the same session never share a session instance,
+ * and changes become visible to other requests when the session is written. Maps in a session, e.g. session caches,
+ * are copied as well, other values are shared. The copies cost time proportional to the size of the session
+ * on each read and write, which keeps session instances confined to one request, so they need no locking.
+ *
+ * Sessions expire when they were not accessed for the session lifetime. Because the shards are ordered by access,
+ * expired sessions are always at the head of a shard. Each write removes a few of them, and {@link #purge(long)}
+ * removes all of them, without scanning live sessions. A sweeper thread can be started to purge periodically,
+ * so sessions of shards that see no writes are released as well.
+ */
+public class MemorySessionCodec implements Codec<Session>, Closeable {
+
+    private static final int DEFAULT_SHARDS = 16;
+
+    private static final int SWEEP_PER_WRITE = 4;
+
+    private final String name;
+
+    private final SessionListener sessionListener;
+
+    private final int sessionCacheSize;
+
+    private final Duration sessionDuration;
+
+    private final long ttlNanos;
+
+    private final Shard[] shards;
+
+    private final int mask;
+
+    private ScheduledExecutorService sweeper;
+
+    public MemorySessionCodec(String name,
+                              SessionListener sessionListener,
+                              int sessionCacheSize,
+                              Duration sessionDuration) {
+        this(name, sessionListener, sessionCacheSize, sessionDuration, DEFAULT_SHARDS, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param name the session name
+     * @param sessionListener the session listener
+     * @param sessionCacheSize the size of the caches in a session
+     * @param sessionDuration the session lifetime, counted from the last access
+     * @param shardCount the number of shards, rounded up to a power of two
+     * @param maxSessions the maximum number of sessions, the least recently accessed sessions are dropped first
+     */
+    public MemorySessionCodec(String name,
+                              SessionListener sessionListener,
+                              int sessionCacheSize,
+                              Duration sessionDuration,
+                              int shardCount,
+                              int maxSessions) {
+        this.name = name;
+        this.sessionListener = sessionListener;
+        this.sessionCacheSize = sessionCacheSize;
+        this.sessionDuration = sessionDuration;
+        this.ttlNanos = sessionDuration.toNanos();
+        int n = Integer.highestOneBit(Math.max(1, shardCount - 1)) << 1;
+        if (shardCount <= 1) {
+            n = 1;
+        }
+        this.shards = new Shard[n];
+        this.mask = n - 1;
+        int maxSessionsPerShard = Math.max(1, maxSessions / n);
+        for (int i = 0; i < n; i++) {
+            shards[i] = new Shard(maxSessionsPerShard);
+        }
+    }
+
+    @Override
+    public Session create(String key) throws IOException {
+        return new BaseSession(sessionListener, sessionCacheSize, name, key, true, sessionDuration);
+    }
+
+    /**
+     * Read a session.
+     *
+     * @param key the session ID
+     * @return the session, or null if there is no session for this ID or if it has expired
+     */
+    @Override
+    public Session read(String key) throws IOException {
+        Shard shard = shardFor(key);
+        long now = System.nanoTime();
+        shard.lock.lock();
+        try {
+            Entry entry = shard.map.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (now - entry.accessNanos > ttlNanos) {
+                shard.map.remove(key);
+                return null;
+            }
+            entry.accessNanos = now;
+            return toSession(key, entry.data);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    @Override
+    public void write(String key, Session session) throws IOException {
+        Shard shard = shardFor(key);
+        Map<String, Object> data = snapshot(session);
+        long now = System.nanoTime();
+        shard.lock.lock();
+        try {
+            shard.map.put(key, new Entry(data, now));
+            shard.sweep(now, ttlNanos, SWEEP_PER_WRITE);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(String key) throws IOException {
+        Shard shard = shardFor(key);
+        shard.lock.lock();
+        try {
+            shard.map.remove(key);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Remove all sessions that were not accessed for the given time.
+     *
+     * @param expiredAfterSeconds the time in seconds
+     */
+    @Override
+    public void purge(long expiredAfterSeconds) throws IOException {
+        if (expiredAfterSeconds > 0L) {
+            sweep(TimeUnit.SECONDS.toNanos(expiredAfterSeconds));
+        }
+    }
+
+    /**
+     * Start a daemon thread that removes expired sessions periodically.
+     *
+     * @param interval the sweep interval
+     * @return this codec
+     */
+    public synchronized MemorySessionCodec startSweeper(Duration interval) {
+        if (sweeper == null) {
+            sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "org-xbib-net-server-session-sweeper-" + name);
+                thread.setDaemon(true);
+                return thread;
+            });
+            long millis = Math.max(1L, interval.toMillis());
+            sweeper.scheduleWithFixedDelay(() -> sweep(ttlNanos), millis, millis, TimeUnit.MILLISECONDS);
+        }
+        return this;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+    }
+
+    /**
+     * The number of sessions in the store, including expired sessions that are not yet removed.
+     *
+     * @return the number of sessions
+     */
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                size += shard.map.size();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    private void sweep(long expiredAfterNanos) {
+        long now = System.nanoTime();
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                shard.sweep(now, expiredAfterNanos, Integer.MAX_VALUE);
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    private static Map<String, Object> snapshot(Session session) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : session.entrySet()) {
+            data.put(entry.getKey(), snapshotValue(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(data);
+    }
+
+    private static Object snapshotValue(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            map.forEach((k, v) -> copy.put(k, snapshotValue(v)));
+            return Collections.unmodifiableMap(copy);
+        }
+        return value;
+    }
+
+    private Session toSession(String key, Map<String, Object> data) {
+        Session session = new BaseSession(sessionListener, sessionCacheSize, name, key, false, sessionDuration);
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            session.put(entry.getKey(), copyValue(entry.getValue()));
+        }
+        session.setModified(false);
+        return session;
+    }
+
+    private static Object copyValue(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            map.forEach((k, v) -> copy.put(k, copyValue(v)));
+            return copy;
+        }
+        return value;
+    }
+
+    private Shard shardFor(String key) {
+        int h = key.hashCode();
+        return shards[(h ^ (h >>> 16)) & mask];
+    }
+
+    private static class Shard {
+
+        private final ReentrantLock lock;
+
+        private final LinkedHashMap<String, Entry> map;
+
+        private Shard(int maxSessions) {
+            this.lock = new ReentrantLock();
+            this.map = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > maxSessions;
+                }
+            };
+        }
+
+        /**
+         * Remove expired sessions from the head of the access order, which holds the least recently accessed
+         * sessions. Must be called with the lock held.
+         */
+        private void sweep(long now, long ttlNanos, int max) {
+            Iterator<Entry> iterator = map.values().iterator();
+            int n = 0;
+            while (n < max && iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (now - entry.accessNanos <= ttlNanos) {
+                    break;
+                }
+                iterator.remove();
+                n++;
+            }
+        }
+    }
+
+    private static class Entry {
+
+        private final Map<String, Object> data;
+
+        private long accessNanos;
+
+        private Entry(Map<String, Object> data, long accessNanos) {
+            this.data = data;
+            this.accessNanos = accessNanos;
+        }
+    }
+}
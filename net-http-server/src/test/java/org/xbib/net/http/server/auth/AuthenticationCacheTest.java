@@ -0,0 +1,68 @@
+package org.xbib.net.http.server.auth;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.Test;
+import org.xbib.net.UserProfile;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AuthenticationCacheTest {
+
+    @Test
+    void testKey() {
+        AuthenticationCache cache = AuthenticationCache.builder().build();
+        assertEquals(cache.key("user", "pass"), cache.key("user", "pass"));
+        assertNotEquals(cache.key("user", "pass"), cache.key("user", "pass2"));
+        assertNotEquals(cache.key("ab", "c"), cache.key("a", "bc"));
+        // salted per cache instance
+        assertNotEquals(cache.key("user", "pass"), AuthenticationCache.builder().build().key("user", "pass"));
+    }
+
+    @Test
+    void testSuccessAndInvalidate() {
+        AuthenticationCache cache = AuthenticationCache.builder().build();
+        String key = cache.key("user", "pass");
+        assertNull(cache.get(key, new BaseUserProfile()));
+        UserProfile userProfile = new BaseUserProfile();
+        userProfile.setUserId("user");
+        userProfile.setName("User");
+        userProfile.addRole("admin");
+        cache.putSuccess(key, "user", userProfile);
+        UserProfile cached = new BaseUserProfile();
+        assertEquals(AuthenticationCache.Result.SUCCESS, cache.get(key, cached));
+        assertEquals("user", cached.getUserId());
+        assertEquals("User", cached.getName());
+        assertTrue(cached.hasRole("admin"));
+        cache.invalidate("user");
+        assertNull(cache.get(key, new BaseUserProfile()));
+        assertEquals(1L, cache.getHitCount());
+        assertEquals(2L, cache.getMissCount());
+    }
+
+    @Test
+    void testNegativeTimeToLive() {
+        AuthenticationCache cache = AuthenticationCache.builder()
+                .setNegativeTimeToLive(Duration.ofMillis(50))
+                .build();
+        String key = cache.key("user", "wrong");
+        cache.putFailure(key, "user");
+        UserProfile userProfile = new BaseUserProfile();
+        assertEquals(AuthenticationCache.Result.FAILURE, cache.get(key, userProfile));
+        assertNull(userProfile.getUserId());
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100L));
+        assertNull(cache.get(key, userProfile));
+    }
+
+    @Test
+    void testMaxSize() {
+        AuthenticationCache cache = AuthenticationCache.builder().setMaxSize(10).build();
+        for (int i = 0; i < 20; i++) {
+            cache.putFailure(cache.key("user" + i, "pass"), "user" + i);
+        }
+        assertEquals(10, cache.size());
+    }
+}
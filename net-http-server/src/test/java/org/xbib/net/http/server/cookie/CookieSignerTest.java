@@ -0,0 +1,62 @@
+package org.xbib.net.http.server.cookie;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CookieSignerTest {
+
+    private static final String PAYLOAD = "eyJpZCI6IjdmM2U5YzFhMmI0ZCIsInVzZXIiOiJqb2VyZyJ9";
+
+    @Test
+    void testSameAsCookieSignatureUtil() throws Exception {
+        for (String algorithm : List.of(CookieSigner.HMAC_SHA1, CookieSigner.HMAC_SHA256)) {
+            CookieSigner cookieSigner = new CookieSigner("secret", algorithm);
+            assertEquals(CookieSignatureUtil.hmac(PAYLOAD, "secret", algorithm), cookieSigner.sign(PAYLOAD));
+            // non-ASCII input
+            assertEquals(CookieSignatureUtil.hmac("J\u00f6rg", "secret", algorithm), cookieSigner.sign("J\u00f6rg"));
+        }
+    }
+
+    @Test
+    void testVerify() throws Exception {
+        CookieSigner cookieSigner = new CookieSigner("secret", CookieSigner.HMAC_SHA256);
+        String sig = cookieSigner.sign(PAYLOAD);
+        assertTrue(cookieSigner.verify(PAYLOAD, sig));
+        assertFalse(cookieSigner.verify(PAYLOAD + "x", sig));
+        assertFalse(cookieSigner.verify(PAYLOAD, sig.substring(1)));
+        assertFalse(cookieSigner.verify(PAYLOAD, null));
+    }
+
+    @Test
+    void testConcurrentSigning() throws Exception {
+        CookieSigner cookieSigner = new CookieSigner("secret", CookieSigner.HMAC_SHA1);
+        String expected = CookieSignatureUtil.hmac(PAYLOAD, "secret", CookieSigner.HMAC_SHA1);
+        ExecutorService executorService = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < 16; t++) {
+                futures.add(executorService.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        if (!expected.equals(cookieSigner.sign(PAYLOAD))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get(30L, TimeUnit.SECONDS));
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.xbib.net.http.server.executor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BaseExecutorTest {
+
+    @Test
+    public void testRejectWhenSaturated() throws Exception {
+        Executor executor = BaseExecutor.builder()
+                .setThreadCount(1)
+                .setQueueCount(1)
+                .setOverloadPolicy(OverloadPolicy.REJECT)
+                .setRetryAfterSeconds(5)
+                .build();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.execute(() -> {
+                started.countDown();
+                return release.await(5L, TimeUnit.SECONDS);
+            });
+            assertTrue(started.await(5L, TimeUnit.SECONDS));
+            executor.execute(() -> true);
+            assertEquals(1, executor.getMetrics().getQueueDepth());
+            assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> true));
+            assertEquals(2L, executor.getMetrics().getSubmittedCount());
+            assertEquals(1L, executor.getMetrics().getRejectedCount());
+            assertEquals(5, executor.getRetryAfterSeconds());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        assertTrue(executor.getMetrics().getMaxWaitNanos() > 0L);
+    }
+
+    @Test
+    public void testCallerRunsWhenSaturated() throws Exception {
+        Executor executor = BaseExecutor.builder()
+                .setThreadCount(1)
+                .setQueueCount(1)
+                .setOverloadPolicy(OverloadPolicy.CALLER_RUNS)
+                .build();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        try {
+            executor.execute(() -> {
+                started.countDown();
+                return release.await(5L, TimeUnit.SECONDS);
+            });
+            assertTrue(started.await(5L, TimeUnit.SECONDS));
+            executor.execute(() -> true);
+            executor.execute(() -> {
+                thread.set(Thread.currentThread());
+                return true;
+            });
+            assertSame(Thread.currentThread(), thread.get());
+            assertEquals(1L, executor.getMetrics().getRejectedCount());
+            assertEquals(1L, executor.getMetrics().getCallerRunsCount());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.xbib.net.http.server.executor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BlockingDetectorTest {
+
+    @Test
+    public void testNonBlockingWork() {
+        try (BlockingDetector blockingDetector = new BlockingDetector(50L)) {
+            for (int i = 0; i < 100; i++) {
+                blockingDetector.run("fast", () -> { });
+            }
+            assertEquals(0L, blockingDetector.getBlockedCount());
+        }
+    }
+
+    @Test
+    public void testBlockingWorkIsReportedOnce() {
+        try (BlockingDetector blockingDetector = new BlockingDetector(20L)) {
+            blockingDetector.run("slow", () -> LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(200L)));
+            assertEquals(1L, blockingDetector.getBlockedCount());
+            blockingDetector.run("nested", () -> blockingDetector.run("inner",
+                    () -> LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100L))));
+            assertEquals(2L, blockingDetector.getBlockedCount());
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.xbib.net.http.server.executor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VirtualThreadExecutorTest {
+
+    @Test
+    public void testConcurrencyLimit() throws Exception {
+        VirtualThreadExecutor executor = VirtualThreadExecutor.builder()
+                .setMaxConcurrency(2)
+                .setQueueCount(8)
+                .build();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(6);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        try {
+            for (int i = 0; i < 6; i++) {
+                executor.execute(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        return release.await(5L, TimeUnit.SECONDS);
+                    } finally {
+                        running.decrementAndGet();
+                        done.countDown();
+                    }
+                });
+            }
+            // requests beyond the limit wait as parked virtual threads
+            awaitQueueDepth(executor, 4);
+            assertEquals(2, running.get());
+            assertEquals(6L, executor.getMetrics().getSubmittedCount());
+            assertEquals(0L, executor.getMetrics().getRejectedCount());
+        } finally {
+            release.countDown();
+        }
+        assertTrue(done.await(5L, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(2, maxRunning.get());
+        assertEquals(0, executor.getMetrics().getQueueDepth());
+        assertTrue(executor.getMetrics().getMaxWaitNanos() > 0L);
+    }
+
+    @Test
+    public void testRejectWhenSaturated() throws Exception {
+        VirtualThreadExecutor executor = VirtualThreadExecutor.builder()
+                .setMaxConcurrency(1)
+                .setQueueCount(1)
+                .setOverloadPolicy(OverloadPolicy.REJECT)
+                .setRetryAfterSeconds(5)
+                .build();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.execute(() -> {
+                started.countDown();
+                return release.await(5L, TimeUnit.SECONDS);
+            });
+            assertTrue(started.await(5L, TimeUnit.SECONDS));
+            executor.execute(() -> true);
+            awaitQueueDepth(executor, 1);
+            // maxConcurrency + queueCount are pending
+            assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> true));
+            assertEquals(2L, executor.getMetrics().getSubmittedCount());
+            assertEquals(1L, executor.getMetrics().getRejectedCount());
+            assertEquals(0L, executor.getMetrics().getCallerRunsCount());
+            assertEquals(OverloadPolicy.REJECT, executor.getOverloadPolicy());
+            assertEquals(5, executor.getRetryAfterSeconds());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        assertTrue(executor.getMetrics().getMaxWaitNanos() > 0L);
+    }
+
+    @Test
+    public void testCallerRunsWhenSaturated() throws Exception {
+        VirtualThreadExecutor executor = VirtualThreadExecutor.builder()
+                .setMaxConcurrency(1)
+                .setQueueCount(1)
+                .setOverloadPolicy(OverloadPolicy.CALLER_RUNS)
+                .build();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Thread> first = new AtomicReference<>();
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        try {
+            executor.execute(() -> {
+                first.set(Thread.currentThread());
+                started.countDown();
+                return release.await(5L, TimeUnit.SECONDS);
+            });
+            assertTrue(started.await(5L, TimeUnit.SECONDS));
+            assertTrue(first.get().isVirtual());
+            executor.execute(() -> true);
+            executor.execute(() -> {
+                thread.set(Thread.currentThread());
+                return true;
+            });
+            assertSame(Thread.currentThread(), thread.get());
+            assertNotSame(first.get(), thread.get());
+            assertEquals(2L, executor.getMetrics().getSubmittedCount());
+            assertEquals(1L, executor.getMetrics().getRejectedCount());
+            assertEquals(1L, executor.getMetrics().getCallerRunsCount());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private static void awaitQueueDepth(Executor executor, int queueDepth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+        while (executor.getMetrics().getQueueDepth() < queueDepth && System.nanoTime() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertEquals(queueDepth, executor.getMetrics().getQueueDepth());
+    }
+}
@@ -0,0 +1,146 @@
+package org.xbib.net.http.server.ldap;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.InMemoryListenerConfig;
+import com.unboundid.ldap.sdk.LDAPException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import javax.naming.NamingException;
+import javax.naming.ServiceUnavailableException;
+import javax.naming.directory.SearchResult;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LdapConnectionPoolTest {
+
+    private static InMemoryDirectoryServer server;
+
+    private static LdapUserMapping userMapping;
+
+    @BeforeAll
+    static void startServer() throws LDAPException {
+        InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig("dc=example,dc=org");
+        config.addAdditionalBindCredentials("cn=admin,dc=example,dc=org", "secret");
+        config.setListenerConfigs(InMemoryListenerConfig.createLDAPConfig("default", 0));
+        config.setSchema(null);
+        server = new InMemoryDirectoryServer(config);
+        server.startListening();
+        server.add("dn: dc=example,dc=org", "objectClass: domain", "dc: example");
+        server.add("dn: ou=People,dc=example,dc=org", "objectClass: organizationalUnit", "ou: People");
+        server.add("dn: uid=test,ou=People,dc=example,dc=org", "objectClass: posixAccount", "uid: test",
+                "cn: Test", "userPassword: password");
+        userMapping = new LdapUserMapping("ou=People,dc=example,dc=org",
+                "(&(objectClass=posixAccount)(uid={0}))",
+                "uid",
+                "cn");
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.shutDown(true);
+    }
+
+    @Test
+    void testConnectionReuse() throws NamingException {
+        try (LdapContextFactory contextFactory = newContextFactory(LdapConnectionPool.builder())) {
+            for (int i = 0; i < 10; i++) {
+                SearchResult searchResult = userMapping.createSearch(contextFactory, "test").findUnique();
+                assertNotNull(searchResult);
+                assertEquals("uid=test,ou=People,dc=example,dc=org", searchResult.getNameInNamespace());
+            }
+            LdapConnectionPool connectionPool = contextFactory.getConnectionPool();
+            assertEquals(1L, connectionPool.getCreatedCount());
+            assertEquals(10L, connectionPool.getBorrowCount());
+            assertEquals(1, connectionPool.getIdleCount());
+            assertEquals(0, connectionPool.getActiveCount());
+        }
+    }
+
+    @Test
+    void testBind() throws NamingException {
+        try (LdapContextFactory contextFactory = newContextFactory(LdapConnectionPool.builder())) {
+            LdapConnectionPool connectionPool = contextFactory.getConnectionPool();
+            assertTrue(connectionPool.bind("uid=test,ou=People,dc=example,dc=org", "password"));
+            assertFalse(connectionPool.bind("uid=test,ou=People,dc=example,dc=org", "wrong"));
+            // the connection is bound with the bind DN again
+            assertNotNull(userMapping.createSearch(contextFactory, "test").findUnique());
+            assertEquals(1L, connectionPool.getCreatedCount());
+            Map<String, LdapContextFactory> contextFactories = new HashMap<>();
+            contextFactories.put("default", contextFactory);
+            Map<String, LdapUserMapping> userMappings = new HashMap<>();
+            userMappings.put("default", userMapping);
+            LdapAuthenticator authenticator = new LdapAuthenticator(contextFactories, userMappings);
+            assertTrue(authenticator.authenticate("test", "password"));
+            assertFalse(authenticator.authenticate("test", "wrong"));
+            assertEquals(1L, connectionPool.getCreatedCount());
+        }
+    }
+
+    @Test
+    void testValidateOnBorrow() throws NamingException {
+        try (LdapContextFactory contextFactory = newContextFactory(LdapConnectionPool.builder())) {
+            LdapConnectionPool connectionPool = contextFactory.getConnectionPool();
+            assertNotNull(userMapping.createSearch(contextFactory, "test").findUnique());
+            server.closeAllClientConnections(false);
+            assertNotNull(userMapping.createSearch(contextFactory, "test").findUnique());
+            assertEquals(1L, connectionPool.getValidationFailureCount());
+            assertEquals(2L, connectionPool.getCreatedCount());
+        }
+    }
+
+    @Test
+    void testBorrowTimeout() throws NamingException {
+        try (LdapContextFactory contextFactory = newContextFactory(LdapConnectionPool.builder()
+                .setMaxSize(1)
+                .setBorrowTimeout(Duration.ofMillis(100)))) {
+            LdapConnectionPool connectionPool = contextFactory.getConnectionPool();
+            connectionPool.execute(context -> {
+                assertThrows(ServiceUnavailableException.class, () -> connectionPool.execute(c -> null));
+                return null;
+            });
+            assertEquals(1L, connectionPool.getTimeoutCount());
+            assertTrue(connectionPool.getMaxBorrowWaitNanos() >= Duration.ofMillis(100).toNanos());
+            assertEquals(0, connectionPool.getActiveCount());
+        }
+    }
+
+    @Test
+    void testAuthenticateWithoutConnection() throws NamingException {
+        try (LdapContextFactory contextFactory = newContextFactory(LdapConnectionPool.builder()
+                .setMaxSize(1)
+                .setBorrowTimeout(Duration.ofMillis(100)))) {
+            LdapConnectionPool connectionPool = contextFactory.getConnectionPool();
+            Map<String, LdapContextFactory> contextFactories = new HashMap<>();
+            contextFactories.put("default", contextFactory);
+            Map<String, LdapUserMapping> userMappings = new HashMap<>();
+            userMappings.put("default", userMapping);
+            LdapAuthenticator authenticator = new LdapAuthenticator(contextFactories, userMappings);
+            // an unavailable directory is an error, not a rejection of the credentials
+            connectionPool.execute(context -> {
+                assertThrows(LdapException.class, () -> authenticator.authenticate("test", "password"));
+                return null;
+            });
+            assertTrue(authenticator.authenticate("test", "password"));
+        }
+    }
+
+    private static LdapContextFactory newContextFactory(LdapConnectionPool.Builder connectionPoolBuilder) {
+        return new LdapContextFactory("simple",
+                LdapContextFactory.DEFAULT_FACTORY,
+                null,
+                "ldap://localhost:" + server.getListenPort(),
+                false,
+                "cn=admin,dc=example,dc=org",
+                "secret",
+                LdapContextFactory.REFERRALS_FOLLOW_MODE,
+                connectionPoolBuilder);
+    }
+}
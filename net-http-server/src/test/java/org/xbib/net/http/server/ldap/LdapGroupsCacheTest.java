@@ -0,0 +1,178 @@
+package org.xbib.net.http.server.ldap;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.InMemoryListenerConfig;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.Modification;
+import com.unboundid.ldap.sdk.ModificationType;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Group membership caching against an in-memory directory server.
+ */
+public class LdapGroupsCacheTest {
+
+    private static InMemoryDirectoryServer server;
+
+    private static Map<String, LdapContextFactory> contextFactories;
+
+    private static Map<String, LdapUserMapping> userMappings;
+
+    private static Map<String, LdapGroupMapping> groupMappings;
+
+    @BeforeAll
+    static void startServer() throws LDAPException {
+        InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig("dc=example,dc=org");
+        config.addAdditionalBindCredentials("cn=admin,dc=example,dc=org", "secret");
+        config.setListenerConfigs(InMemoryListenerConfig.createLDAPConfig("default", 0));
+        config.setSchema(null);
+        server = new InMemoryDirectoryServer(config);
+        server.startListening();
+        server.add("dn: dc=example,dc=org", "objectClass: domain", "dc: example");
+        server.add("dn: ou=People,dc=example,dc=org", "objectClass: organizationalUnit", "ou: People");
+        server.add("dn: ou=group,dc=example,dc=org", "objectClass: organizationalUnit", "ou: group");
+        server.add("dn: uid=test,ou=People,dc=example,dc=org", "objectClass: posixAccount", "uid: test", "cn: Test");
+        server.add("dn: uid=test2,ou=People,dc=example,dc=org", "objectClass: posixAccount", "uid: test2", "cn: Test 2");
+        server.add("dn: cn=users,ou=group,dc=example,dc=org", "objectClass: posixGroup", "cn: users",
+                "memberUid: test", "memberUid: test2");
+        server.add("dn: cn=admins,ou=group,dc=example,dc=org", "objectClass: posixGroup", "cn: admins",
+                "memberUid: test");
+        contextFactories = new HashMap<>();
+        contextFactories.put("default", new LdapContextFactory("simple",
+                LdapContextFactory.DEFAULT_FACTORY,
+                null,
+                "ldap://localhost:" + server.getListenPort(),
+                false,
+                "cn=admin,dc=example,dc=org",
+                "secret",
+                LdapContextFactory.REFERRALS_FOLLOW_MODE));
+        userMappings = new HashMap<>();
+        userMappings.put("default", new LdapUserMapping("ou=People,dc=example,dc=org",
+                "(&(objectClass=posixAccount)(uid={0}))",
+                "uid",
+                "cn"));
+        groupMappings = new HashMap<>();
+        groupMappings.put("default", new LdapGroupMapping("ou=group,dc=example,dc=org",
+                "cn",
+                "(&(objectClass=posixGroup)(memberUid={0}))",
+                new String[] { "uid" }));
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.shutDown(true);
+    }
+
+    @Test
+    void testCachedGroups() {
+        try (LdapGroupsProvider groupsProvider = newGroupsProvider(LdapCache.builder())) {
+            Collection<String> groups = groupsProvider.getGroups("test");
+            assertEquals(2, groups.size());
+            assertTrue(groups.contains("users"));
+            assertTrue(groups.contains("admins"));
+            assertEquals(groups, groupsProvider.getGroups("test"));
+            assertEquals(1L, groupsProvider.getCache().getLoadCount());
+            assertEquals(1L, groupsProvider.getCache().getHitCount());
+        }
+    }
+
+    @Test
+    void testSingleFlight() throws Exception {
+        try (LdapGroupsProvider groupsProvider = newGroupsProvider(LdapCache.builder())) {
+            int threads = 16;
+            ExecutorService executorService = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            try {
+                List<Future<Collection<String>>> futures = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    futures.add(executorService.submit(() -> {
+                        start.await();
+                        return groupsProvider.getGroups("test");
+                    }));
+                }
+                start.countDown();
+                for (Future<Collection<String>> future : futures) {
+                    assertEquals(2, future.get(30L, TimeUnit.SECONDS).size());
+                }
+            } finally {
+                executorService.shutdownNow();
+            }
+            assertEquals(1L, groupsProvider.getCache().getLoadCount());
+        }
+    }
+
+    @Test
+    void testTimeToLive() {
+        try (LdapGroupsProvider groupsProvider = newGroupsProvider(LdapCache.builder()
+                .setTimeToLive(Duration.ofMillis(100))
+                .setRefreshAfter(null))) {
+            groupsProvider.getGroups("test");
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(150L));
+            groupsProvider.getGroups("test");
+            assertEquals(2L, groupsProvider.getCache().getLoadCount());
+        }
+    }
+
+    @Test
+    void testBackgroundRefresh() throws LDAPException {
+        try (LdapGroupsProvider groupsProvider = newGroupsProvider(LdapCache.builder()
+                .setTimeToLive(Duration.ofMinutes(1))
+                .setRefreshAfter(Duration.ofMillis(50)))) {
+            assertEquals(1, groupsProvider.getGroups("test2").size());
+            server.modify("cn=admins,ou=group,dc=example,dc=org",
+                    new Modification(ModificationType.ADD, "memberUid", "test2"));
+            try {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100L));
+                // the current value is returned, the refresh runs in the background
+                assertEquals(1, groupsProvider.getGroups("test2").size());
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+                while (groupsProvider.getCache().getLoadCount() < 2L && System.nanoTime() < deadline) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10L));
+                }
+                assertEquals(2, groupsProvider.getGroups("test2").size());
+            } finally {
+                server.modify("cn=admins,ou=group,dc=example,dc=org",
+                        new Modification(ModificationType.DELETE, "memberUid", "test2"));
+            }
+        }
+    }
+
+    @Test
+    void testMaxSizeAndInvalidate() {
+        try (LdapGroupsProvider groupsProvider = newGroupsProvider(LdapCache.builder().setMaxSize(1))) {
+            groupsProvider.getGroups("test");
+            groupsProvider.getGroups("test2");
+            assertEquals(1, groupsProvider.getCache().size());
+            groupsProvider.getCache().invalidate("test2");
+            assertEquals(0, groupsProvider.getCache().size());
+        }
+    }
+
+    @Test
+    void testNestedGroupMapping() {
+        LdapGroupMapping groupMapping = LdapGroupMapping.nested("ou=group,dc=example,dc=org", "cn", "group", "member");
+        assertEquals("(&(objectClass=group)(member:1.2.840.113556.1.4.1941:={0}))", groupMapping.getFilter());
+        assertEquals("dn", groupMapping.getFilterArgNames()[0]);
+    }
+
+    private static LdapGroupsProvider newGroupsProvider(LdapCache.Builder cacheBuilder) {
+        return new LdapGroupsProvider(contextFactories, userMappings, groupMappings, cacheBuilder);
+    }
+}
@@ -0,0 +1,147 @@
+package org.xbib.net.http.server.log;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AccessLogWriterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testBuffer() {
+        AccessLogBuffer buffer = new AccessLogBuffer();
+        buffer.append("GET").append((byte) ' ').append(0L).append((byte) ' ').append(-1234567890123L)
+                .append((byte) ' ').append((String) null)
+                .append((byte) ' ').appendEscaped("a \"b\" \\ \n \u00f6");
+        assertEquals("GET 0 -1234567890123 - a \\\"b\\\" \\\\ \\x0a \u00f6", buffer.toString());
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append("0123456789");
+        }
+        buffer.reset();
+        buffer.append(sb);
+        assertEquals(sb.toString(), buffer.toString());
+    }
+
+    @Test
+    void testWriteConcurrently() throws Exception {
+        Path path = dir.resolve("access.log");
+        int threads = 8;
+        int lines = 10000;
+        AccessLogWriter writer = AccessLogWriter.builder().setPath(path).setCapacity(threads * lines).build();
+        List<Thread> list = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int n = i;
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < lines; j++) {
+                    writer.write((buffer, k) -> buffer.append("thread ").append(n).append(" line ").append(k), j);
+                }
+            });
+            list.add(thread);
+            thread.start();
+        }
+        for (Thread thread : list) {
+            thread.join();
+        }
+        writer.close();
+        assertEquals((long) threads * lines, writer.getWrittenCount() + writer.getDroppedCount());
+        List<String> content = Files.readAllLines(path, StandardCharsets.UTF_8);
+        assertEquals(writer.getWrittenCount(), content.size());
+        Pattern pattern = Pattern.compile("thread \\d line \\d+");
+        for (String line : content) {
+            assertTrue(pattern.matcher(line).matches(), line);
+        }
+    }
+
+    @Test
+    void testDropWhenFull() throws Exception {
+        Path path = dir.resolve("access.log");
+        AccessLogWriter writer = AccessLogWriter.builder().setPath(path).setCapacity(4).build();
+        CountDownLatch formatting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // a producer that holds the first slot stops the writer thread
+        Thread thread = new Thread(() -> writer.write((buffer, s) -> {
+            formatting.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            buffer.append(s);
+        }, "first"));
+        thread.start();
+        formatting.await();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(writer.write(AccessLogBuffer::append, "line"));
+        }
+        assertFalse(writer.write(AccessLogBuffer::append, "dropped"));
+        assertEquals(1L, writer.getDroppedCount());
+        release.countDown();
+        thread.join();
+        writer.close();
+        List<String> content = Files.readAllLines(path, StandardCharsets.UTF_8);
+        assertEquals(List.of("first", "line", "line", "line"), content);
+    }
+
+    @Test
+    void testRotation() throws IOException {
+        Path path = dir.resolve("access.log");
+        AccessLogWriter writer = AccessLogWriter.builder()
+                .setPath(path)
+                .setMaxFileSize(100L)
+                .setMaxFiles(2)
+                .build();
+        for (int i = 0; i < 100; i++) {
+            writer.write(AccessLogBuffer::append, "0123456789012345678");
+        }
+        writer.close();
+        assertTrue(writer.getRotationCount() > 2L);
+        assertTrue(Files.exists(dir.resolve("access.log.1")));
+        assertTrue(Files.exists(dir.resolve("access.log.2")));
+        assertFalse(Files.exists(dir.resolve("access.log.3")));
+        assertTrue(Files.size(path) <= 100L);
+        assertEquals(100L, Files.size(dir.resolve("access.log.1")));
+    }
+
+    @Test
+    void testRotationFailure() throws IOException {
+        Path path = dir.resolve("access.log");
+        // a non-empty directory can not be replaced by the rotated file
+        Files.createDirectories(dir.resolve("access.log.1"));
+        Files.createFile(dir.resolve("access.log.1").resolve("blocker"));
+        AccessLogWriter writer = AccessLogWriter.builder()
+                .setPath(path)
+                .setMaxFileSize(100L)
+                .setMaxFiles(1)
+                .build();
+        for (int i = 0; i < 20; i++) {
+            writer.write(AccessLogBuffer::append, "0123456789012345678");
+        }
+        writer.close();
+        assertEquals(0L, writer.getRotationCount());
+        // tried again after each 100 bytes of growth, not on every line
+        assertEquals(3L, writer.getRotationFailureCount());
+        assertEquals(20L, writer.getWrittenCount());
+        assertEquals(20, Files.readAllLines(path, StandardCharsets.UTF_8).size());
+    }
+
+    @Test
+    void testTimestamp() {
+        AccessLogHandler handler = new AccessLogHandler(null, AccessLogHandler.Format.COMMON, ZoneOffset.UTC);
+        String timestamp = new String(handler.getTimestamp(), StandardCharsets.US_ASCII);
+        assertTrue(Pattern.matches("\\d{2}/[A-Z][a-z]{2}/\\d{4}:\\d{2}:\\d{2}:\\d{2} \\+0000", timestamp), timestamp);
+    }
+}
@@ -0,0 +1,227 @@
+package org.xbib.net.http.server.resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xbib.net.Resource;
+import org.xbib.net.URL;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResourceCacheTest {
+
+    private Path home;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        home = Files.createTempDirectory("resourcecache");
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        try (Stream<Path> stream = Files.walk(home)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testHitAndMiss() throws IOException {
+        Path path = write("app.css", "body { color: black; }\n".repeat(100));
+        try (ResourceCache resourceCache = ResourceCache.builder().build()) {
+            assertNull(resourceCache.get("app.css"));
+            Resource resource = resourceCache.load("app.css", new TestResource(path, "text/css"));
+            assertInstanceOf(CachedResource.class, resource);
+            assertSame(resource, resourceCache.get("app.css"));
+            assertEquals(1L, resourceCache.getHitCount());
+            assertEquals(1L, resourceCache.getMissCount());
+            CachedResource cachedResource = (CachedResource) resource;
+            assertEquals(Files.size(path), cachedResource.getLength());
+            assertEquals(AbstractResourceHandler.createETag(new TestResource(path, "text/css")), cachedResource.getETag());
+            assertArrayEquals(Files.readAllBytes(path), toBytes(cachedResource.getContent(0L, -1L)));
+            assertArrayEquals("body".getBytes(StandardCharsets.US_ASCII), toBytes(cachedResource.getContent(0L, 4L)));
+        }
+    }
+
+    @Test
+    public void testCompressedVariant() throws IOException {
+        Path path = write("app.js", "console.log('hello world');\n".repeat(100));
+        try (ResourceCache resourceCache = ResourceCache.builder().build()) {
+            CachedResource cachedResource = (CachedResource) resourceCache.load("app.js", new TestResource(path, "application/javascript"));
+            assertTrue(cachedResource.hasEncodedContents());
+            assertNull(cachedResource.selectEncoding(null));
+            assertNull(cachedResource.selectEncoding("br, gzip;q=0"));
+            assertEquals("gzip", cachedResource.selectEncoding("deflate, gzip;q=0.8"));
+            ByteBuffer gzip = cachedResource.getEncodedContent("gzip");
+            try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(toBytes(gzip)))) {
+                assertArrayEquals(Files.readAllBytes(path), inputStream.readAllBytes());
+            }
+            assertEquals(cachedResource.getETag() + "-gzip", cachedResource.getETag("gzip"));
+            assertNotEquals(cachedResource.getETag(), cachedResource.getETag("gzip"));
+        }
+    }
+
+    @Test
+    public void testPrecompressedVariant() throws IOException {
+        Path path = write("app.svg", "<svg></svg>");
+        write("app.svg.br", "brotli");
+        try (ResourceCache resourceCache = ResourceCache.builder().setCompressionEnabled(false).build()) {
+            CachedResource cachedResource = (CachedResource) resourceCache.load("app.svg", new TestResource(path, "image/svg+xml"));
+            assertEquals("br", cachedResource.selectEncoding("gzip, deflate, br"));
+            assertArrayEquals("brotli".getBytes(StandardCharsets.US_ASCII), toBytes(cachedResource.getEncodedContent("br")));
+            assertNull(cachedResource.getEncodedContent("gzip"));
+        }
+    }
+
+    @Test
+    public void testModifiedFileIsInvalidated() throws IOException {
+        Path path = write("index.html", "<html></html>");
+        try (ResourceCache resourceCache = ResourceCache.builder().setCheckIntervalMillis(0L).build()) {
+            resourceCache.load("index.html", new TestResource(path, "text/html"));
+            assertNotNull(resourceCache.get("index.html"));
+            write("index.html", "<html><body></body></html>");
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now().plusSeconds(10L)));
+            assertNull(resourceCache.get("index.html"));
+            assertEquals(0, resourceCache.getSize());
+            assertEquals(0L, resourceCache.getWeight());
+        }
+    }
+
+    @Test
+    public void testEviction() throws IOException {
+        Path path1 = write("1.bin", "a".repeat(400));
+        Path path2 = write("2.bin", "b".repeat(400));
+        Path path3 = write("3.bin", "c".repeat(400));
+        try (ResourceCache resourceCache = ResourceCache.builder().setMaxWeight(1000L).build()) {
+            resourceCache.load("1", new TestResource(path1, "application/octet-stream"));
+            resourceCache.load("2", new TestResource(path2, "application/octet-stream"));
+            // touch 1, so 2 is the least recently used
+            assertNotNull(resourceCache.get("1"));
+            resourceCache.load("3", new TestResource(path3, "application/octet-stream"));
+            assertEquals(1L, resourceCache.getEvictionCount());
+            assertEquals(800L, resourceCache.getWeight());
+            assertNotNull(resourceCache.get("1"));
+            assertNull(resourceCache.get("2"));
+            assertNotNull(resourceCache.get("3"));
+        }
+    }
+
+    @Test
+    public void testLargeResourceIsNotCached() throws IOException {
+        Path path = write("large.bin", "x".repeat(2048));
+        try (ResourceCache resourceCache = ResourceCache.builder().setMaxResourceLength(1024L).build()) {
+            Resource resource = new TestResource(path, "application/octet-stream");
+            assertSame(resource, resourceCache.load("large.bin", resource));
+            assertEquals(0, resourceCache.getSize());
+        }
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(home.resolve(name), content);
+    }
+
+    private static byte[] toBytes(ByteBuffer byteBuffer) {
+        byte[] b = new byte[byteBuffer.remaining()];
+        byteBuffer.get(b);
+        return b;
+    }
+
+    private static class TestResource implements Resource {
+
+        private final Path path;
+
+        private final String mimeType;
+
+        private final Instant lastModified;
+
+        private final long length;
+
+        TestResource(Path path, String mimeType) throws IOException {
+            this.path = path;
+            this.mimeType = mimeType;
+            this.lastModified = Files.getLastModifiedTime(path).toInstant();
+            this.length = Files.size(path);
+        }
+
+        @Override
+        public Path getPath() {
+            return path;
+        }
+
+        @Override
+        public String getName() {
+            return path.getFileName().toString();
+        }
+
+        @Override
+        public String getBaseName() {
+            return AbstractResourceHandler.basename(getName());
+        }
+
+        @Override
+        public String getSuffix() {
+            return AbstractResourceHandler.suffix(getName());
+        }
+
+        @Override
+        public String getResourcePath() {
+            return "/" + getName();
+        }
+
+        @Override
+        public URL getURL() {
+            return URL.create(path.toUri().toString());
+        }
+
+        @Override
+        public boolean isExists() {
+            return true;
+        }
+
+        @Override
+        public boolean isDirectory() {
+            return false;
+        }
+
+        @Override
+        public String getMimeType() {
+            return mimeType;
+        }
+
+        @Override
+        public String getIndexFileName() {
+            return null;
+        }
+
+        @Override
+        public boolean isExistsIndexFile() {
+            return false;
+        }
+
+        @Override
+        public Instant getLastModified() {
+            return lastModified;
+        }
+
+        @Override
+        public long getLength() {
+            return length;
+        }
+    }
+}
@@ -263,4 +263,13 @@ public class BaseHttpRouteResolverTest {
         });
         assertEquals(1, atomicInteger.get());
     }
+
+    @Test
+    public void testPrefixIsLiteral() {
+        // the prefix is not a regular expression, so the effective path of routes and requests is the same
+        HttpRoute route = new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.GET, "/v1.0", "/v1.0/path");
+        assertEquals("/path", route.getEffectivePath());
+        route = new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.GET, "/v1.0", "/v1x0/path");
+        assertEquals("/v1x0/path", route.getEffectivePath());
+    }
 }
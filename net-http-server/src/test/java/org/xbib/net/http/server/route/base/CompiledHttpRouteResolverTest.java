@@ -0,0 +1,155 @@
+package org.xbib.net.http.server.route.base;
+
+import org.junit.jupiter.api.Test;
+import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpMethod;
+import org.xbib.net.http.server.route.BaseHttpRoute;
+import org.xbib.net.http.server.route.BaseHttpRouteResolver;
+import org.xbib.net.http.server.route.CompiledHttpRouteResolver;
+import org.xbib.net.http.server.route.HttpRoute;
+import org.xbib.net.http.server.route.HttpRouteResolver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CompiledHttpRouteResolverTest {
+
+    @Test
+    public void testEmptyRouteResolver() {
+        HttpRouteResolver<Integer> resolver = CompiledHttpRouteResolver.<Integer>builder()
+                .add(HttpAddress.http1("host"), HttpMethod.POST, "", "/", 1)
+                .build();
+        HttpRoute route = new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.POST, "", "");
+        AtomicInteger atomicInteger = new AtomicInteger(0);
+        resolver.resolve(route, r -> atomicInteger.incrementAndGet());
+        assertEquals(1, atomicInteger.get());
+    }
+
+    @Test
+    public void testMethodMismatchResolver() {
+        HttpRouteResolver<Integer> resolver = CompiledHttpRouteResolver.<Integer>builder()
+                .add(HttpAddress.http1("host"), HttpMethod.POST, "", "/path", 1)
+                .build();
+        HttpRoute route = new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.GET, "", "/path");
+        AtomicInteger atomicInteger = new AtomicInteger(0);
+        resolver.resolve(route, r -> atomicInteger.incrementAndGet());
+        assertEquals(0, atomicInteger.get());
+    }
+
+    @Test
+    public void testSingleRouteMismatchTooLongResolver() {
+        HttpRouteResolver<Integer> resolver = CompiledHttpRouteResolver.<Integer>builder()
+                .add(HttpAddress.http1("host"), HttpMethod.POST, "/a", "", 1)
+                .build();
+        HttpRoute route = new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.POST, "", "/a/b");
+        AtomicInteger atomicInteger = new AtomicInteger(0);
+        resolver.resolve(route, r -> atomicInteger.incrementAndGet());
+        assertEquals(0, atomicInteger.get());
+    }
+
+    @Test
+    public void testSingleRouteCatchAllLongPathResolver() {
+        HttpRouteResolver<Integer> resolver = CompiledHttpRouteResolver.<Integer>builder()
+                .add(HttpAddress.http1("host"), HttpMethod.POST, "", "/**", 1)
+                .build();
+        HttpRoute route = new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.POST, "", "/a/very/long/path");
+        AtomicInteger atomicInteger = new AtomicInteger(0);
+        resolver.resolve(route, r -> {
+            assertEquals(1, r.getValue());
+            atomicInteger.incrementAndGet();
+        });
+        assertEquals(1, atomicInteger.get());
+    }
+
+    @Test
+    public void testSingleRouteGlobJpegResolver() {
+        HttpRouteResolver<Integer> resolver = CompiledHttpRouteResolver.<Integer>builder()
+                .add(HttpAddress.http1("host"), HttpMethod.POST, "", "glob:**.jpg", 1)
+                .build();
+        HttpRoute route = new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.POST, "", "/a/picture/abc.jpg");
+        AtomicInteger atomicInteger = new AtomicInteger(0);
+        resolver.resolve(route, r -> {
+            assertEquals(1, r.getValue());
+            atomicInteger.incrementAndGet();
+        });
+        assertEquals(1, atomicInteger.get());
+    }
+
+    @Test
+    public void testTwoRouteParameterResolver() {
+        HttpRouteResolver<Integer> resolver = CompiledHttpRouteResolver.<Integer>builder()
+                .add(HttpAddress.http1("host"), HttpMethod.POST, "", "/{token}/{key}", 1)
+                .add(HttpAddress.http1("host"), HttpMethod.POST, "", "/{id}/glob:*.jpg", 2)
+                .build();
+        HttpRoute route = new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.POST, "", "/abcdef/123456");
+        AtomicInteger atomicInteger = new AtomicInteger(0);
+        resolver.resolve(route, r -> {
+            assertEquals(1, r.getValue());
+            assertEquals("[token=abcdef, key=123456]", r.getParameter().toString());
+            atomicInteger.incrementAndGet();
+        });
+        assertEquals(1, atomicInteger.get());
+    }
+
+    @Test
+    public void testMultiRouteLongestFirstWithGlobFirstResolver() {
+        HttpRouteResolver<Integer> resolver = CompiledHttpRouteResolver.<Integer>builder()
+                .add(HttpAddress.http1("host"), HttpMethod.POST, "", "/a/**", 4)
+                .add(HttpAddress.http1("host"), HttpMethod.POST, "", "/a/b/c/**", 3)
+                .add(HttpAddress.http1("host"), HttpMethod.POST, "", "/a/b/c/d/e/f/g", 2)
+                .add(HttpAddress.http1("host"), HttpMethod.POST, "", "glob:**", 1)
+                .sort(true)
+                .build();
+        HttpRoute route = new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.POST, "", "/a");
+        AtomicInteger atomicInteger = new AtomicInteger(0);
+        resolver.resolve(route, r -> {
+            switch (atomicInteger.get()) {
+                case 0 -> assertEquals(1, (int) r.getValue());
+                case 1 -> assertEquals(4, (int) r.getValue());
+            }
+            atomicInteger.incrementAndGet();
+        });
+        assertEquals(2, atomicInteger.get());
+    }
+
+    @Test
+    public void testContextRouteResolver() {
+        HttpRouteResolver<Integer> resolver = CompiledHttpRouteResolver.<Integer>builder()
+                .add(HttpAddress.http1("host"), HttpMethod.POST, "/app", "/path", 1)
+                .build();
+        HttpRoute route = new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.POST, "/app", "/app/path");
+        AtomicInteger atomicInteger = new AtomicInteger(0);
+        resolver.resolve(route, r -> {
+            assertEquals(1, r.getValue());
+            assertEquals("[path]", r.getContext().toString());
+            atomicInteger.incrementAndGet();
+        });
+        assertEquals(1, atomicInteger.get());
+    }
+
+    @Test
+    public void testSameResultsAsBaseResolver() {
+        List<String> paths = List.of("/", "/**", "/a", "/a/**", "/a/{id}", "/a/{id}/b", "/{x}/glob:*.jpg",
+                "/a/b/c", "glob:**.jpg", "/glob:*.css", "/b/**/c");
+        HttpRouteResolver.Builder<Integer> baseBuilder = BaseHttpRouteResolver.builder();
+        HttpRouteResolver.Builder<Integer> compiledBuilder = CompiledHttpRouteResolver.builder();
+        for (int i = 0; i < paths.size(); i++) {
+            baseBuilder.add(HttpAddress.http1("host"), HttpMethod.GET, "", paths.get(i), i);
+            compiledBuilder.add(HttpAddress.http1("host"), HttpMethod.GET, "", paths.get(i), i);
+        }
+        HttpRouteResolver<Integer> baseResolver = baseBuilder.sort(true).build();
+        HttpRouteResolver<Integer> compiledResolver = compiledBuilder.sort(true).build();
+        for (String path : List.of("", "/", "/a", "/a/b", "/a/b/c", "/a/x/b", "/b/x.jpg", "/x.css", "/b/c/d")) {
+            HttpRoute route = new BaseHttpRoute(HttpAddress.http1("host"), Set.of(HttpMethod.GET), "", path, true);
+            List<String> expected = new ArrayList<>();
+            baseResolver.resolve(route, r -> expected.add(r.getValue() + " " + r.getParameter() + " " + r.getContext()));
+            List<String> actual = new ArrayList<>();
+            compiledResolver.resolve(route, r -> actual.add(r.getValue() + " " + r.getParameter() + " " + r.getContext()));
+            assertEquals(expected, actual, path);
+        }
+    }
+}
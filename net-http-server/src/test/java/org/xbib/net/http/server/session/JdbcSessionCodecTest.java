@@ -0,0 +1,123 @@
+package org.xbib.net.http.server.session;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xbib.net.http.server.session.jdbc.JdbcSessionCodec;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class JdbcSessionCodecTest {
+
+    private static final Logger logger = Logger.getLogger(JdbcSessionCodecTest.class.getName());
+
+    private static final int OPERATIONS = 10000;
+
+    private JdbcConnectionPool dataSource;
+
+    @BeforeEach
+    void setup() throws SQLException {
+        dataSource = JdbcConnectionPool.create("jdbc:h2:mem:sessions;DB_CLOSE_DELAY=-1", "sa", "");
+        // a codec that does not return connections fails fast
+        dataSource.setMaxConnections(2);
+        dataSource.setLoginTimeout(5);
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE sessions (id VARCHAR(64) PRIMARY KEY, payload VARBINARY, expires TIMESTAMP)");
+            statement.execute("CREATE INDEX sessions_expires ON sessions (expires)");
+        }
+    }
+
+    @AfterEach
+    void teardown() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        dataSource.dispose();
+    }
+
+    @Test
+    void testReadWriteRemove() throws IOException {
+        JdbcSessionCodec codec = newSessionCodec(Duration.ofDays(1));
+        Session session = codec.create("s1");
+        session.put("a", "b");
+        codec.write(session.id(), session);
+        Session session1 = codec.read("s1");
+        assertNotNull(session1);
+        assertEquals("b", session1.get("a"));
+        codec.remove("s1");
+        assertNull(codec.read("s1"));
+    }
+
+    @Test
+    void testPurge() throws IOException {
+        JdbcSessionCodec codec = newSessionCodec(Duration.ofSeconds(10));
+        for (int i = 0; i < 10; i++) {
+            codec.write("s" + i, codec.create("s" + i));
+        }
+        codec.purge(3600L);
+        assertNotNull(codec.read("s0"));
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1100L));
+        codec.write("s10", codec.create("s10"));
+        codec.purge(1L);
+        assertNull(codec.read("s0"));
+        assertNull(codec.read("s9"));
+        assertNotNull(codec.read("s10"));
+    }
+
+    @Test
+    void testOperationsPerSecond() throws IOException {
+        JdbcSessionCodec codec = newSessionCodec(Duration.ofDays(1));
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            String id = "s" + (i % 1000);
+            Session session = codec.read(id);
+            if (session == null) {
+                session = codec.create(id);
+            }
+            session.put("counter", i);
+            codec.write(id, session);
+        }
+        long elapsed = System.nanoTime() - start;
+        logger.log(Level.INFO, String.format(Locale.ROOT, "single: %.0f read/write operations per second",
+                2.0 * OPERATIONS * 1.0e9 / elapsed));
+        Map<String, Session> batch = new LinkedHashMap<>();
+        start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            String id = "b" + i;
+            batch.put(id, codec.create(id));
+            if (batch.size() == 100) {
+                codec.writeAll(batch);
+                batch.clear();
+            }
+        }
+        elapsed = System.nanoTime() - start;
+        logger.log(Level.INFO, String.format(Locale.ROOT, "batched: %.0f write operations per second",
+                OPERATIONS * 1.0e9 / elapsed));
+        assertNotNull(codec.read("b" + (OPERATIONS - 1)));
+        assertEquals(0, dataSource.getActiveConnections());
+    }
+
+    private JdbcSessionCodec newSessionCodec(Duration duration) {
+        return new JdbcSessionCodec("SESSION-TEST", null, 16, duration, dataSource,
+                "SELECT payload FROM sessions WHERE id = ? AND expires >= ?",
+                "MERGE INTO sessions (id, payload, expires) KEY (id) VALUES (?, ?, ?)",
+                "DELETE FROM sessions WHERE id = ?",
+                "DELETE FROM sessions WHERE expires < ?");
+    }
+}
@@ -0,0 +1,121 @@
+package org.xbib.net.http.server.session;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.Test;
+import org.xbib.net.http.server.session.memory.MemorySessionCodec;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class MemorySessionCodecTest {
+
+    @Test
+    void testReadReturnsCopy() throws IOException {
+        try (MemorySessionCodec codec = new MemorySessionCodec("SESSION-TEST", null, 16, Duration.ofDays(1))) {
+            Session session = codec.create("s1");
+            session.put("a", "b");
+            session.put("_cache_test", Map.of("token", Map.of("k", "v")));
+            codec.write(session.id(), session);
+            Session read1 = codec.read("s1");
+            Session read2 = codec.read("s1");
+            assertNotSame(session, read1);
+            assertNotSame(read1, read2);
+            assertEquals("b", read1.get("a"));
+            assertFalse(read1.isModified());
+            // changes are not visible to other requests until written
+            read1.put("a", "c");
+            ((BaseSession) read1).putCache("test", "token", "k", "w");
+            assertEquals("b", read2.get("a"));
+            assertEquals("v", ((BaseSession) read2).getCache("test", "token", "k"));
+            codec.write(read1.id(), read1);
+            assertEquals("c", codec.read("s1").get("a"));
+            assertEquals("w", ((BaseSession) codec.read("s1")).getCache("test", "token", "k"));
+            assertNull(codec.read("s2"));
+            codec.remove("s1");
+            assertNull(codec.read("s1"));
+        }
+    }
+
+    @Test
+    void testExpiry() throws IOException {
+        try (MemorySessionCodec codec = new MemorySessionCodec("SESSION-TEST", null, 16, Duration.ofMillis(50))) {
+            Session session = codec.create("s1");
+            codec.write(session.id(), session);
+            assertNotNull(codec.read("s1"));
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100L));
+            assertNull(codec.read("s1"));
+            assertEquals(0, codec.size());
+        }
+    }
+
+    @Test
+    void testSweeper() throws IOException {
+        try (MemorySessionCodec codec = new MemorySessionCodec("SESSION-TEST", null, 16, Duration.ofMillis(20))
+                .startSweeper(Duration.ofMillis(10))) {
+            for (int i = 0; i < 100; i++) {
+                Session session = codec.create("s" + i);
+                codec.write(session.id(), session);
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+            while (codec.size() > 0 && System.nanoTime() < deadline) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10L));
+            }
+            assertEquals(0, codec.size());
+        }
+    }
+
+    @Test
+    void testMaxSessions() throws IOException {
+        try (MemorySessionCodec codec = new MemorySessionCodec("SESSION-TEST", null, 16, Duration.ofDays(1), 1, 10)) {
+            for (int i = 0; i < 20; i++) {
+                Session session = codec.create("s" + i);
+                codec.write(session.id(), session);
+            }
+            assertEquals(10, codec.size());
+            assertNull(codec.read("s0"));
+            assertNotNull(codec.read("s19"));
+        }
+    }
+
+    @Test
+    void testConcurrentAccess() throws Exception {
+        try (MemorySessionCodec codec = new MemorySessionCodec("SESSION-TEST", null, 16, Duration.ofDays(1))) {
+            ExecutorService executorService = Executors.newFixedThreadPool(8);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < 8; t++) {
+                    int thread = t;
+                    futures.add(executorService.submit(() -> {
+                        for (int i = 0; i < 1000; i++) {
+                            String id = "s" + (i % 100);
+                            Session session = codec.read(id);
+                            if (session == null) {
+                                session = codec.create(id);
+                            }
+                            session.put("t" + thread, i);
+                            codec.write(id, session);
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get(30L, TimeUnit.SECONDS);
+                }
+            } finally {
+                executorService.shutdownNow();
+            }
+            assertEquals(100, codec.size());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.xbib.net.http.server.session;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.Test;
+import org.xbib.net.http.server.persist.Codec;
+import org.xbib.net.http.server.session.memory.MemorySessionCodec;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SessionWriteTest {
+
+    @Test
+    void testModified() {
+        BaseSession session = new BaseSession(null, 16, "SESSION-TEST", "s1", true, Duration.ofDays(1));
+        assertTrue(session.isModified());
+        session.setModified(false);
+        session.put("a", "b");
+        assertTrue(session.isModified());
+        session.setModified(false);
+        // same value again
+        session.put("a", "b");
+        session.putAll(Map.of("a", "b"));
+        session.get("a");
+        assertFalse(session.isModified());
+        session.remove("x");
+        assertFalse(session.isModified());
+        session.remove("a");
+        assertTrue(session.isModified());
+    }
+
+    @Test
+    void testPersistDoesNotExtendLifetime() {
+        BaseSession session = new BaseSession(null, 16, "SESSION-TEST", "s1", true, Duration.ofMillis(50));
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100L));
+        session.setLastPersisted();
+        assertTrue(session.isExpired());
+        assertFalse(session.hasPayload());
+    }
+
+    @Test
+    void testWriteBehindCoalesces() throws IOException {
+        AtomicInteger writes = new AtomicInteger();
+        SessionWriteMetrics metrics = new SessionWriteMetrics();
+        Codec<Session> codec = new CountingCodec(writes);
+        WriteBehindSessionCodec writeBehind = new WriteBehindSessionCodec(codec, Duration.ofHours(1), metrics);
+        try {
+            Session session = writeBehind.create("s1");
+            for (int i = 0; i < 10; i++) {
+                session.put("i", i);
+                writeBehind.write(session.id(), session);
+            }
+            // a pending session is read as a copy, changes to it are not seen by other requests
+            Session read = writeBehind.read("s1");
+            assertNotSame(session, read);
+            assertEquals(9, read.get("i"));
+            read.put("i", 10);
+            session.put("i", 11);
+            assertEquals(9, writeBehind.read("s1").get("i"));
+            assertEquals(0, writes.get());
+            writeBehind.flush();
+            assertEquals(1, writes.get());
+            assertEquals(9, metrics.getCoalescedCount());
+            assertEquals(1, metrics.getFlushedCount());
+        } finally {
+            writeBehind.close();
+        }
+    }
+
+    private static class CountingCodec implements Codec<Session> {
+
+        private final MemorySessionCodec codec;
+
+        private final AtomicInteger writes;
+
+        CountingCodec(AtomicInteger writes) {
+            this.codec = new MemorySessionCodec("SESSION-TEST", null, 16, Duration.ofDays(1));
+            this.writes = writes;
+        }
+
+        @Override
+        public Session create(String key) throws IOException {
+            return codec.create(key);
+        }
+
+        @Override
+        public Session read(String key) throws IOException {
+            return codec.read(key);
+        }
+
+        @Override
+        public void write(String key, Session session) throws IOException {
+            writes.incrementAndGet();
+            codec.write(key, session);
+        }
+
+        @Override
+        public void remove(String key) throws IOException {
+            codec.remove(key);
+        }
+
+        @Override
+        public void purge(long expiredAfterSeconds) throws IOException {
+            codec.purge(expiredAfterSeconds);
+        }
+    }
+}
@@ -7,23 +7,55 @@ import org.xbib.net.http.server.application.Resolver;
 
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+/**
+ * Resolves included templates for a locale. For a template path "header.tpl" and the locale "de_DE",
+ * "header_de_DE.tpl", "header_de.tpl", and "header.tpl" are tried in this order. Missing localized variants
+ * are skipped quietly, only a missing "header.tpl" is reported by the path resolver. Resolved paths are cached.
+ *
+ * The locale of a resolver is meant to be fixed, so the resolver can be shared by concurrent requests.
+ * {@link GroovyMarkupTemplateHandler} creates one resolver, and one template engine, per compiled template,
+ * so the resolved paths of a template are known when checking it for modifications.
+ */
 public class DefaultTemplateResolver implements TemplateResolver {
 
     private static final Logger logger = Logger.getLogger(DefaultTemplateResolver.class.getName());
 
     private final Resolver<Path> resolver;
 
+    private final Map<String, URL> urls;
+
+    private final Map<String, Path> paths;
+
+    private final Map<Path, FileTime> lastModified;
+
     private TemplateConfiguration templateConfiguration;
 
-    private Locale locale;
+    private volatile Locale locale;
 
     public DefaultTemplateResolver(Resolver<Path> resolver) {
+        this(resolver, null);
+    }
+
+    /**
+     * @param resolver the path resolver
+     * @param locale the locale of the resolved templates, or null for the locale of the template configuration
+     */
+    public DefaultTemplateResolver(Resolver<Path> resolver, Locale locale) {
         this.resolver = resolver;
+        this.locale = locale;
+        this.urls = new ConcurrentHashMap<>();
+        this.paths = new ConcurrentHashMap<>();
+        this.lastModified = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -33,21 +65,79 @@ public class DefaultTemplateResolver implements TemplateResolver {
 
     @Override
     public URL resolveTemplate(String templatePath) throws IOException {
-        TemplateResource templateResource = TemplateResource.parse(templatePath);
-        String languageTag = locale != null ?
-                locale.toLanguageTag().replace("-", "_") :
-                templateConfiguration.getLocale() != null ? templateConfiguration.getLocale().toLanguageTag().replace("-", "_") :
-                null;
-        String templateResourceString = languageTag != null ?
-                templateResource.withLocale(languageTag).toString() :
-                templateResource.toString();
-        logger.log(Level.FINEST, "template resource string = " + templateResourceString + " locale = " + locale
-           + " templateConfiguration.getLocale() = " + templateConfiguration.getLocale() + " languageTag = " + languageTag);
-        Path path = resolver.resolve(templateResourceString);
-        return path.toUri().toURL();
+        URL url = urls.get(templatePath);
+        if (url == null) {
+            Path path = resolveLocalized(templatePath);
+            // taken before the template engine reads the template, so a modification after that is not missed
+            lastModified.put(path, getLastModifiedTime(path));
+            url = path.toUri().toURL();
+            paths.put(templatePath, path);
+            urls.put(templatePath, url);
+        }
+        return url;
+    }
+
+    public Locale getLocale() {
+        Locale locale = this.locale;
+        return locale != null ? locale : templateConfiguration != null ? templateConfiguration.getLocale() : null;
     }
 
+    /**
+     * Set the locale.
+     *
+     * @param locale the locale
+     * @deprecated the locale of a resolver that is shared by concurrent requests must not change, use one
+     * resolver per locale, see {@link GroovyMarkupTemplateHandler#getTemplateEngine(Locale)}
+     */
+    @Deprecated
     public void setLocale(Locale locale) {
         this.locale = locale;
+        clear();
+    }
+
+    /**
+     * Forget the resolved paths, for example after templates were added or removed.
+     */
+    public void clear() {
+        urls.clear();
+        paths.clear();
+        lastModified.clear();
+    }
+
+    /**
+     * The paths of the templates that were resolved so far, with their modification times when they were resolved.
+     *
+     * @return the modification times by resolved path
+     */
+    Map<Path, FileTime> getResolvedPaths() {
+        return new HashMap<>(lastModified);
+    }
+
+    private static FileTime getLastModifiedTime(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            // unknown, the template is taken as modified at the next check
+            return FileTime.fromMillis(0L);
+        }
+    }
+
+    private Path resolveLocalized(String templatePath) {
+        TemplateResource templateResource = TemplateResource.parse(templatePath);
+        Locale locale = getLocale();
+        if (locale != null && !templateResource.hasLocale()) {
+            String languageTag = locale.toLanguageTag().replace("-", "_");
+            Path localizedPath = resolver.tryResolve(templateResource.withLocale(languageTag).toString());
+            if (localizedPath == null && !locale.getCountry().isEmpty()) {
+                localizedPath = resolver.tryResolve(templateResource.withLocale(locale.getLanguage()).toString());
+            }
+            if (localizedPath != null) {
+                logger.log(Level.FINEST, "template resource " + templatePath + " locale = " + locale + " resolved to " + localizedPath);
+                return localizedPath;
+            }
+        }
+        Path path = resolver.resolve(templateResource.toString());
+        logger.log(Level.FINEST, "template resource " + templatePath + " locale = " + locale + " resolved to " + path);
+        return path;
     }
 }
@@ -35,8 +35,13 @@ class GroovyHttpResonseStatusTemplateResource extends GroovyTemplateResource {
         httpRouterContext.getAttributes().put("_status", httpResponseStatus);
         httpRouterContext.getAttributes().put("_message", message);
         httpRouterContext.getAttributes().put("_resource", this);
-        Application application = httpRouterContext.getAttributes().get(Application.class, "application");
-        GroovyMarkupTemplateHandler groovyMarkupTemplateHandler = new GroovyMarkupTemplateHandler(application);
+        // reuse the handler of the application module, so status templates are compiled once
+        GroovyMarkupTemplateHandler groovyMarkupTemplateHandler =
+                httpRouterContext.getAttributes().get(GroovyMarkupTemplateHandler.class, "templatehandler");
+        if (groovyMarkupTemplateHandler == null) {
+            Application application = httpRouterContext.getAttributes().get(Application.class, "application");
+            groovyMarkupTemplateHandler = new GroovyMarkupTemplateHandler(application);
+        }
         logger.log(Level.FINEST, "handle groovyMarkupTemplateHandler");
         groovyMarkupTemplateHandler.handle(httpRouterContext);
         super.render(httpRouterContext);
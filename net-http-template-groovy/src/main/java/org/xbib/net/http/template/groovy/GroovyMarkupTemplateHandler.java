@@ -1,5 +1,6 @@
 package org.xbib.net.http.template.groovy;
 
+import groovy.text.Template;
 import groovy.text.TemplateEngine;
 import groovy.text.markup.BaseTemplate;
 import groovy.text.markup.MarkupTemplateEngine;
@@ -12,9 +13,23 @@ import org.xbib.net.http.server.route.HttpRouterContext;
 import org.xbib.net.http.server.application.Resolver;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Provides the markup template engine to the request attributes.
+ *
+ * Included templates are resolved with the locale of the template engine that compiled the including template.
+ * To render templates for many locales concurrently, templates are compiled per path and locale, see
+ * {@link #getTemplate(Path, Locale)}. Each template is compiled by a template engine of its own, so the classes
+ * of the template and its included templates can be unloaded after it was evicted from the
+ * {@link GroovyTemplateCache} or recompiled. The template engines of locales are kept for the most recently used
+ * locales only, so locales of rare clients do not take the place of the locales in use for good.
+ */
 public class GroovyMarkupTemplateHandler implements HttpHandler {
 
     private static final Logger logger = Logger.getLogger(GroovyMarkupTemplateHandler.class.getName());
@@ -29,6 +44,16 @@ public class GroovyMarkupTemplateHandler implements HttpHandler {
 
     private final TemplateEngine templateEngine;
 
+    private final LocalizedEngine defaultEngine;
+
+    private final ReentrantLock lock;
+
+    private final LinkedHashMap<Locale, LocalizedEngine> localizedEngines;
+
+    private final GroovyTemplateCache templateCache;
+
+    private int maxLocales;
+
     public GroovyMarkupTemplateHandler(Application application) {
         this(application, GroovyMarkupTemplateHandler.class.getClassLoader(),
                 DefaultMarkupTemplate.class, application.getLocale(), false, false,
@@ -49,6 +74,25 @@ public class GroovyMarkupTemplateHandler implements HttpHandler {
                                        boolean expandEmptyElements,
                                        String newLineString,
                                        boolean useDoubleQuotes) {
+        this(resolver, classLoader, templateClass, locale, autoEscape, autoIndent, autoIndentString, autoNewLine,
+                cacheTemplates, declarationEncoding, expandEmptyElements, newLineString, useDoubleQuotes,
+                GroovyTemplateCache.builder());
+    }
+
+    public GroovyMarkupTemplateHandler(Resolver<Path> resolver,
+                                       ClassLoader classLoader,
+                                       Class<? extends BaseTemplate> templateClass,
+                                       Locale locale,
+                                       boolean autoEscape,
+                                       boolean autoIndent,
+                                       String autoIndentString,
+                                       boolean autoNewLine,
+                                       boolean cacheTemplates,
+                                       String declarationEncoding,
+                                       boolean expandEmptyElements,
+                                       String newLineString,
+                                       boolean useDoubleQuotes,
+                                       GroovyTemplateCache.Builder templateCacheBuilder) {
         this.resolver = resolver;
         this.classLoader = classLoader;
         this.templateConfiguration = createConfiguration(templateClass != null ? templateClass : DefaultMarkupTemplate.class,
@@ -56,6 +100,51 @@ public class GroovyMarkupTemplateHandler implements HttpHandler {
                 expandEmptyElements, newLineString, useDoubleQuotes);
         this.templateResolver = createTemplateResolver();
         this.templateEngine = createEngine();
+        this.defaultEngine = new LocalizedEngine(null, templateEngine);
+        this.lock = new ReentrantLock();
+        this.localizedEngines = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Locale, LocalizedEngine> eldest) {
+                return size() > maxLocales;
+            }
+        };
+        this.templateCache = templateCacheBuilder.build();
+        this.maxLocales = 32;
+    }
+
+    /**
+     * Set the maximum number of locales with an own template engine. The least recently used locales are dropped first.
+     *
+     * @param maxLocales the maximum number of locales
+     */
+    public void setMaxLocales(int maxLocales) {
+        this.maxLocales = maxLocales;
+    }
+
+    /**
+     * Get the template engine for a locale.
+     *
+     * @param locale the locale, or null for the default locale
+     * @return the template engine
+     */
+    public TemplateEngine getTemplateEngine(Locale locale) {
+        return getLocalizedEngine(locale).templateEngine;
+    }
+
+    /**
+     * Get the compiled template of a path for a locale from the template cache.
+     *
+     * @param path the path of the template
+     * @param locale the locale, or null for the default locale
+     * @return the template
+     * @throws IOException if the template can not be read
+     */
+    public Template getTemplate(Path path, Locale locale) throws IOException {
+        return templateCache.get(path, getLocalizedEngine(locale).locale, this::compile);
+    }
+
+    public GroovyTemplateCache getTemplateCache() {
+        return templateCache;
     }
 
     @Override
@@ -70,6 +159,10 @@ public class GroovyMarkupTemplateHandler implements HttpHandler {
             context.getAttributes().put("templateengine", this.templateEngine);
             logger.log(Level.FINER, "setting templateengine " + this.templateEngine);
         }
+        GroovyMarkupTemplateHandler templateHandler = context.getAttributes().get(GroovyMarkupTemplateHandler.class, "templatehandler");
+        if (templateHandler == null) {
+            context.getAttributes().put("templatehandler", this);
+        }
     }
 
     protected TemplateConfiguration createConfiguration(Class<? extends BaseTemplate> templateClass,
@@ -102,7 +195,52 @@ public class GroovyMarkupTemplateHandler implements HttpHandler {
         return new DefaultTemplateResolver(resolver);
     }
 
+    protected DefaultTemplateResolver createTemplateResolver(Locale locale) {
+        return new DefaultTemplateResolver(resolver, locale);
+    }
+
     protected TemplateEngine createEngine() {
+        return createEngine(templateResolver);
+    }
+
+    protected TemplateEngine createEngine(DefaultTemplateResolver templateResolver) {
         return new MarkupTemplateEngine(classLoader, templateConfiguration, templateResolver);
     }
+
+    private GroovyTemplateCache.Compilation compile(Path path, Locale locale) throws IOException {
+        logger.log(Level.FINEST, () -> "groovy templatePath = " + path + " locale = " + locale + " creating by template engine");
+        DefaultTemplateResolver templateResolver = locale != null ? createTemplateResolver(locale) : createTemplateResolver();
+        TemplateEngine templateEngine = createEngine(templateResolver);
+        try {
+            Template template = templateEngine.createTemplate(Files.readString(path));
+            return new GroovyTemplateCache.Compilation(template, templateEngine, templateResolver);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private LocalizedEngine getLocalizedEngine(Locale locale) {
+        if (locale == null || locale.equals(templateConfiguration.getLocale())) {
+            return defaultEngine;
+        }
+        lock.lock();
+        try {
+            return localizedEngines.computeIfAbsent(locale,
+                    l -> new LocalizedEngine(l, createEngine(createTemplateResolver(l))));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static class LocalizedEngine {
+
+        private final Locale locale;
+
+        private final TemplateEngine templateEngine;
+
+        private LocalizedEngine(Locale locale, TemplateEngine templateEngine) {
+            this.locale = locale;
+            this.templateEngine = templateEngine;
+        }
+    }
 }
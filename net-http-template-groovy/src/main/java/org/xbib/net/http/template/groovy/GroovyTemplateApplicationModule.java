@@ -9,6 +9,7 @@ import org.xbib.net.http.server.route.HttpRouterContext;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -43,13 +44,19 @@ public class GroovyTemplateApplicationModule extends BaseApplicationModule {
                     settings.get("markup.declarationEncoding", null),
                     settings.getAsBoolean("markup.expandEmptyElements", true),
                     settings.get("markup.newLine", System.getProperty("line.separator")),
-                    settings.getAsBoolean("markup.useDoubleQuotes", true));
-            this.groovyTemplateRenderer = new GroovyTemplateRenderer();
+                    settings.getAsBoolean("markup.useDoubleQuotes", true),
+                    createTemplateCacheBuilder(settings));
+            this.groovyTemplateRenderer = new GroovyTemplateRenderer(settings.getAsBoolean("markup.streaming", false),
+                    settings.getAsInt("markup.streaming.buffersize", 8192));
         } catch (Exception e) {
             throw new IllegalStateException(e);
         }
     }
 
+    public GroovyMarkupTemplateHandler getTemplateHandler() {
+        return groovyMarkupTemplateHandler;
+    }
+
     @Override
     public void onOpen(HttpRouterContext httpRouterContext) {
         try {
@@ -87,4 +94,12 @@ public class GroovyTemplateApplicationModule extends BaseApplicationModule {
             throw new UncheckedIOException(e);
         }
     }
+
+    private static GroovyTemplateCache.Builder createTemplateCacheBuilder(Settings settings) {
+        // a negative check interval disables checking for modified templates
+        int checkIntervalMillis = settings.getAsInt("markup.cache.checkinterval", 2000);
+        return GroovyTemplateCache.builder()
+                .setMaxSize(settings.getAsInt("markup.cache.maxsize", 1024))
+                .setCheckInterval(checkIntervalMillis >= 0 ? Duration.ofMillis(checkIntervalMillis) : null);
+    }
 }
@@ -0,0 +1,478 @@
+package org.xbib.net.http.template.groovy;
+
+import groovy.text.Template;
+import groovy.text.TemplateEngine;
+import groovy.text.markup.MarkupTemplateEngine;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A bounded cache of compiled templates, by path and locale.
+ *
+ * When many requests miss the same template at the same time, only one of them compiles it, and the others wait
+ * for the result. The modification times of a template and of the templates it included are checked at most once
+ * per check interval, by a background thread. A modified template is recompiled in the background, while requests
+ * keep getting the previous version. A template that was deleted is removed, a template that fails to compile keeps
+ * its previous version. The least recently used templates are evicted when the cache is full.
+ *
+ * Evicted and replaced templates release the class cache of their template engine, so their classes can be
+ * unloaded when the last rendering with them is finished.
+ */
+public class GroovyTemplateCache implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(GroovyTemplateCache.class.getName());
+
+    private final long checkNanos;
+
+    private final ReentrantLock lock;
+
+    private final LinkedHashMap<Key, Entry> map;
+
+    private final Map<Key, CompletableFuture<Entry>> compiling;
+
+    private final ThreadPoolExecutor checker;
+
+    private final LongAdder hits;
+
+    private final LongAdder misses;
+
+    private final LongAdder compiles;
+
+    private final LongAdder recompiles;
+
+    private final LongAdder failures;
+
+    private final LongAdder evictions;
+
+    private final LongAdder compileNanos;
+
+    private final LongAccumulator maxCompileNanos;
+
+    private GroovyTemplateCache(Builder builder) {
+        this.checkNanos = builder.checkInterval != null ? builder.checkInterval.toNanos() : -1L;
+        int maxSize = builder.maxSize;
+        this.lock = new ReentrantLock();
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > maxSize) {
+                    evictions.increment();
+                    eldest.getValue().compilation.release();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.compiling = new ConcurrentHashMap<>();
+        // the thread ends when idle, so a cache that is not closed does not keep a thread
+        this.checker = new ThreadPoolExecutor(0, 1, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "org-xbib-net-server-template-compile");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.compiles = new LongAdder();
+        this.recompiles = new LongAdder();
+        this.failures = new LongAdder();
+        this.evictions = new LongAdder();
+        this.compileNanos = new LongAdder();
+        this.maxCompileNanos = new LongAccumulator(Long::max, 0L);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Get the compiled template of a path for a locale, compiling it if it is not cached.
+     *
+     * @param path the path of the template
+     * @param locale the locale, or null
+     * @param compiler the compiler, kept for recompiling the template in the background
+     * @return the template
+     * @throws IOException if the template can not be read
+     */
+    Template get(Path path, Locale locale, Compiler compiler) throws IOException {
+        Key key = new Key(path, locale);
+        Entry entry;
+        lock.lock();
+        try {
+            entry = map.get(key);
+        } finally {
+            lock.unlock();
+        }
+        if (entry != null) {
+            hits.increment();
+            if (checkNanos >= 0L && System.nanoTime() - entry.checkedNanos >= checkNanos &&
+                    entry.checking.compareAndSet(false, true)) {
+                check(key, entry);
+            }
+            return entry.compilation.template;
+        }
+        misses.increment();
+        CompletableFuture<Entry> future = new CompletableFuture<>();
+        CompletableFuture<Entry> existing = compiling.putIfAbsent(key, future);
+        if (existing != null) {
+            try {
+                return existing.join().compilation.template;
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof IOException ioException) {
+                    throw ioException;
+                }
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw e;
+            }
+        }
+        try {
+            // a compilation that finished between the lookup above and putIfAbsent has already cached the template
+            lock.lock();
+            try {
+                entry = map.get(key);
+            } finally {
+                lock.unlock();
+            }
+            if (entry != null) {
+                future.complete(entry);
+                return entry.compilation.template;
+            }
+            entry = compile(key, compiler);
+            lock.lock();
+            try {
+                Entry previous = map.put(key, entry);
+                if (previous != null) {
+                    previous.compilation.release();
+                }
+            } finally {
+                lock.unlock();
+            }
+            future.complete(entry);
+            return entry.compilation.template;
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            compiling.remove(key, future);
+        }
+    }
+
+    /**
+     * Remove all templates, for example after the template resolver has changed.
+     */
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            map.values().forEach(entry -> entry.compilation.release());
+            map.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return map.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * The number of compilations, including background recompilations.
+     *
+     * @return the compile count
+     */
+    public long getCompileCount() {
+        return compiles.sum();
+    }
+
+    /**
+     * The number of background recompilations of modified templates.
+     *
+     * @return the recompile count
+     */
+    public long getRecompileCount() {
+        return recompiles.sum();
+    }
+
+    public long getCompileFailureCount() {
+        return failures.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getAverageCompileNanos() {
+        long count = compiles.sum();
+        return count > 0L ? compileNanos.sum() / count : 0L;
+    }
+
+    public long getMaxCompileNanos() {
+        return maxCompileNanos.get();
+    }
+
+    @Override
+    public void close() {
+        checker.shutdownNow();
+        invalidateAll();
+    }
+
+    @Override
+    public String toString() {
+        return "[GroovyTemplateCache:size=" + size() +
+                ",hits=" + getHitCount() +
+                ",misses=" + getMissCount() +
+                ",compiles=" + getCompileCount() +
+                ",recompiles=" + getRecompileCount() +
+                ",failures=" + getCompileFailureCount() +
+                ",evictions=" + getEvictionCount() +
+                ",avgCompileMillis=" + TimeUnit.NANOSECONDS.toMillis(getAverageCompileNanos()) +
+                ",maxCompileMillis=" + TimeUnit.NANOSECONDS.toMillis(getMaxCompileNanos()) + "]";
+    }
+
+    private Entry compile(Key key, Compiler compiler) throws IOException {
+        // taken before reading, so a modification during the compilation is not missed
+        FileTime lastModified = Files.getLastModifiedTime(key.path);
+        long start = System.nanoTime();
+        Compilation compilation;
+        try {
+            compilation = compiler.compile(key.path, key.locale);
+        } catch (IOException | RuntimeException e) {
+            failures.increment();
+            throw e;
+        }
+        long nanos = System.nanoTime() - start;
+        compiles.increment();
+        compileNanos.add(nanos);
+        maxCompileNanos.accumulate(nanos);
+        logger.log(Level.FINE, () -> "compiled template " + key.path + " locale = " + key.locale +
+                " in " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms");
+        return new Entry(compilation, compiler, lastModified);
+    }
+
+    private void check(Key key, Entry entry) {
+        try {
+            checker.execute(() -> {
+                try {
+                    if (isModified(key, entry)) {
+                        recompile(key, entry);
+                    }
+                } catch (NoSuchFileException e) {
+                    logger.log(Level.FINE, () -> "template " + key.path + " was removed");
+                    remove(key, entry);
+                } catch (IOException | RuntimeException e) {
+                    logger.log(Level.WARNING, "unable to recompile template " + key.path + ", keeping the previous version: " +
+                            e.getMessage(), e);
+                } finally {
+                    entry.checkedNanos = System.nanoTime();
+                    entry.checking.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            entry.checking.set(false);
+        }
+    }
+
+    private void recompile(Key key, Entry entry) throws IOException {
+        Entry newEntry = compile(key, entry.compiler);
+        recompiles.increment();
+        lock.lock();
+        try {
+            if (map.get(key) == entry) {
+                map.put(key, newEntry);
+                entry.compilation.release();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        // invalidated or evicted during the compilation
+        newEntry.compilation.release();
+    }
+
+    private void remove(Key key, Entry entry) {
+        lock.lock();
+        try {
+            if (map.remove(key, entry)) {
+                entry.compilation.release();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static boolean isModified(Key key, Entry entry) throws IOException {
+        if (!Files.getLastModifiedTime(key.path).equals(entry.lastModified)) {
+            return true;
+        }
+        // the times of included templates are recorded by the resolver when they are resolved
+        for (Map.Entry<Path, FileTime> included : entry.compilation.getIncludedPaths().entrySet()) {
+            try {
+                if (!Files.getLastModifiedTime(included.getKey()).equals(included.getValue())) {
+                    return true;
+                }
+            } catch (NoSuchFileException e) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compiles templates for the cache.
+     */
+    @FunctionalInterface
+    interface Compiler {
+
+        Compilation compile(Path path, Locale locale) throws IOException;
+    }
+
+    /**
+     * A compiled template, with the template engine that compiled it and the resolver of its included templates.
+     */
+    static class Compilation {
+
+        private final Template template;
+
+        private final TemplateEngine templateEngine;
+
+        private final DefaultTemplateResolver templateResolver;
+
+        /**
+         * @param template the template
+         * @param templateEngine the template engine of this template only, or null for a shared template engine
+         * @param templateResolver the resolver of the included templates, or null
+         */
+        Compilation(Template template, TemplateEngine templateEngine, DefaultTemplateResolver templateResolver) {
+            this.template = template;
+            this.templateEngine = templateEngine;
+            this.templateResolver = templateResolver;
+        }
+
+        Map<Path, FileTime> getIncludedPaths() {
+            return templateResolver != null ? templateResolver.getResolvedPaths() : Map.of();
+        }
+
+        void release() {
+            if (templateEngine instanceof MarkupTemplateEngine markupTemplateEngine) {
+                markupTemplateEngine.getTemplateLoader().clearCache();
+            }
+        }
+    }
+
+    private static class Key {
+
+        private final Path path;
+
+        private final Locale locale;
+
+        private Key(Path path, Locale locale) {
+            this.path = path;
+            this.locale = locale;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && path.equals(key.path) && Objects.equals(locale, key.locale);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * path.hashCode() + Objects.hashCode(locale);
+        }
+    }
+
+    private static class Entry {
+
+        private final Compilation compilation;
+
+        private final Compiler compiler;
+
+        private final FileTime lastModified;
+
+        private final AtomicBoolean checking;
+
+        private volatile long checkedNanos;
+
+        private Entry(Compilation compilation, Compiler compiler, FileTime lastModified) {
+            this.compilation = compilation;
+            this.compiler = compiler;
+            this.lastModified = lastModified;
+            this.checking = new AtomicBoolean();
+            this.checkedNanos = System.nanoTime();
+        }
+    }
+
+    public static class Builder {
+
+        private int maxSize;
+
+        private Duration checkInterval;
+
+        private Builder() {
+            this.maxSize = 1024;
+            this.checkInterval = Duration.ofSeconds(2);
+        }
+
+        /**
+         * Set the maximum number of templates. The least recently used templates are evicted first.
+         *
+         * @param maxSize the maximum number of templates
+         * @return this builder
+         */
+        public Builder setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * Set the minimum time between two checks of the modification times of a template.
+         * With null, templates are never checked, like in production deployments with immutable templates.
+         *
+         * @param checkInterval the check interval
+         * @return this builder
+         */
+        public Builder setCheckInterval(Duration checkInterval) {
+            this.checkInterval = checkInterval;
+            return this;
+        }
+
+        public GroovyTemplateCache build() {
+            return new GroovyTemplateCache(this);
+        }
+    }
+}
@@ -14,26 +14,69 @@ import java.nio.charset.StandardCharsets;
 
 import static org.xbib.net.http.HttpHeaderNames.CONTENT_TYPE;
 
+/**
+ * Renders the writable of a template to the response.
+ *
+ * Streaming is off by default. In streaming mode, the template runs and the response is sent right away, when the
+ * renderer is called by the application module after the close handlers, so the outgoing session and cookie headers
+ * are final. The output is held back until it exceeds the buffer size: a short page is sent with a content length,
+ * and a template that fails before that is answered with an error page. Larger output is written in chunks to the
+ * connection while it is produced, so the first bytes reach the client before the page is complete, and large pages
+ * are never held in memory. A template that fails after that closes the connection, and changes to the session
+ * or to cookies while rendering are not sent.
+ * The output is buffered, and sent with a content length, for HTTP status pages, if streaming is off,
+ * or if a handler has set the attribute "bufferresponse" to true because it needs the content length.
+ */
 public class GroovyTemplateRenderer implements HttpHandler {
 
+    private final boolean streaming;
+
+    private final int bufferSize;
+
     public GroovyTemplateRenderer() {
+        this(false, 8192);
+    }
+
+    /**
+     * @param streaming true if the template output should be streamed
+     * @param bufferSize the size of the streamed chunks
+     */
+    public GroovyTemplateRenderer(boolean streaming, int bufferSize) {
+        this.streaming = streaming;
+        this.bufferSize = bufferSize;
     }
 
     @Override
     public void handle(HttpRouterContext context) throws IOException {
         Writable writable = context.getAttributes().get(Writable.class, "writable");
         if (writable != null) {
+            HttpResponseStatus httpResponseStatus = context.getAttributes().get(HttpResponseStatus.class, "_status");
+            if (streaming && httpResponseStatus == null && !context.getAttributes().get(Boolean.class, "bufferresponse", false)) {
+                context.status(HttpResponseStatus.OK)
+                        .header("cache-control", "no-cache") // override default must-revalidate behavior
+                        .header(CONTENT_TYPE, "text/html; charset=" + StandardCharsets.UTF_8.displayName())
+                        .body(outputStream -> write(writable, outputStream), bufferSize);
+                // a failing template is not rendered again when the application modules are told about the failure
+                context.getAttributes().put("writable", null);
+                context.flush();
+                return;
+            }
             DataBuffer dataBuffer = context.getDataBufferFactory().allocateBuffer();
             try (OutputStream outputStream = dataBuffer.asOutputStream()) {
-                Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
-                writable.writeTo(writer);
+                write(writable, outputStream);
             }
-            HttpResponseStatus httpResponseStatus = context.getAttributes().get(HttpResponseStatus.class, "_status", HttpResponseStatus.OK);
-            context.status(httpResponseStatus)
+            context.status(httpResponseStatus != null ? httpResponseStatus : HttpResponseStatus.OK)
                     .header("cache-control", "no-cache") // override default must-revalidate behavior
                     .header("content-length", Integer.toString(dataBuffer.writePosition()))
                     .header(CONTENT_TYPE, "text/html; charset=" + StandardCharsets.UTF_8.displayName())
                     .body(dataBuffer);
         }
     }
+
+    private static void write(Writable writable, OutputStream outputStream) throws IOException {
+        Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+        writable.writeTo(writer);
+        // the writer encodes into a buffer of its own
+        writer.flush();
+    }
 }
@@ -18,9 +18,6 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Locale;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -29,16 +26,10 @@ public class GroovyTemplateResource extends HtmlTemplateResource {
     private static final Logger logger = Logger.getLogger(GroovyTemplateResource.class.getName());
 
     /**
-     * This class might be reused by mtultiple handlers.
-     * We use a concurrent hash map here because in case of "not found" error templating,
-     * the "computeIfAbsent" can be called in a nested way, and would throw a concurrent modification exception.
+     * Templates of engines without a {@link GroovyMarkupTemplateHandler}. This class might be reused by multiple
+     * handlers.
      */
-    private static final Map<Path, Template> templates = new ConcurrentHashMap<>();
-
-    /**
-     * This lock ensures that changing locale and rendering is executed in a pairwisely manner.
-     */
-    private static final ReentrantLock lock = new ReentrantLock();
+    private static final GroovyTemplateCache templateCache = GroovyTemplateCache.builder().build();
 
     protected GroovyTemplateResource(HtmlTemplateResourceHandler templateResourceHandler,
                                      HttpRouterContext httpRouterContext) throws IOException {
@@ -102,58 +93,58 @@ public class GroovyTemplateResource extends HtmlTemplateResource {
             logger.log(Level.WARNING, "unable to render a null path");
             throw new HttpException("internal path error", httpRouterContext, HttpResponseStatus.INTERNAL_SERVER_ERROR);
         }
-        templates.computeIfAbsent(templatePath, path -> {
-            try {
-                logger.log(Level.FINEST, () -> "groovy templatePath = " + path + " creating by template engine");
-                return templateEngine.createTemplate(Files.readString(path));
-            } catch (Exception e) {
-                throw new IllegalArgumentException(e);
-            }
-        });
-        Template template = templates.get(templatePath);
+        Locale locale = negotiateLocale ? findLocale(httpRouterContext, application) : application.getLocale();
+        Template template;
+        GroovyMarkupTemplateHandler templateHandler =
+                httpRouterContext.getAttributes().get(GroovyMarkupTemplateHandler.class, "templatehandler");
+        if (templateHandler != null) {
+            // one template per path and locale, includes are resolved with the locale of the template
+            template = templateHandler.getTemplate(templatePath, locale);
+        } else {
+            // for Groovy template engines without a handler, templates do not depend on a locale
+            template = getTemplate(templateEngine, templatePath);
+        }
         Logger templateLogger = Logger.getLogger("template." + getName().replace('/', '.'));
         Binding binding = new Binding();
         httpRouterContext.getAttributes().forEach(binding::setVariable);
         binding.setVariable("logger", templateLogger);
         binding.setVariable("log", templateLogger);
-        application.getModules().forEach(m -> binding.setVariable(m.getName(), m));
-        DefaultTemplateResolver templateResolver = httpRouterContext.getAttributes().get(DefaultTemplateResolver.class, "templateresolver");
-        if (templateResolver == null) {
-            // for Groovy template engines without a resolver, no need to set a locale
-            Writable writable = template.make(binding.getVariables());
-            httpRouterContext.getAttributes().put("writable", writable);
-            return;
-        }
-        if (!negotiateLocale) {
-            // if no locale negotiation configured, set always the applicaiton locale. This constant value never changes.
-            templateResolver.setLocale(application.getLocale());
-            Writable writable = template.make(binding.getVariables());
-            httpRouterContext.getAttributes().put("writable", writable);
-            return;
+        if (!binding.hasVariable("locale")) {
+            binding.setVariable("locale", locale);
         }
-        // handle programmatic locale change plus template making under lock so no other request/response can interrupt us
-        logger.log(Level.FINEST, () -> "application locale for template = " + application.getLocale());
-        try {
-            lock.lock();
-            templateResolver.setLocale(application.getLocale());
-            // language from request overrides application locale
-            String acceptLanguage = httpRouterContext.getRequestBuilder().getHeaders().get(HttpHeaderNames.ACCEPT_LANGUAGE);
-            if (acceptLanguage != null) {
+        application.getModules().forEach(m -> binding.setVariable(m.getName(), m));
+        Writable writable = template.make(binding.getVariables());
+        httpRouterContext.getAttributes().put("writable", writable);
+    }
+
+    private static Locale findLocale(HttpRouterContext httpRouterContext, Application application) {
+        // language from request overrides application locale
+        String acceptLanguage = httpRouterContext.getRequestBuilder().getHeaders().get(HttpHeaderNames.ACCEPT_LANGUAGE);
+        if (acceptLanguage != null) {
+            try {
                 Locale negotiatedLocale = LocaleNegotiator.findLocale(acceptLanguage);
                 if (negotiatedLocale != null) {
                     logger.log(Level.FINEST, () -> "negotiated locale for template = " + negotiatedLocale);
-                    templateResolver.setLocale(negotiatedLocale);
+                    return negotiatedLocale;
                 }
+            } catch (Exception e) {
+                // fail silently by ignoring negotiation
+                logger.log(Level.FINEST, e.getMessage(), e);
             }
-            Writable writable = template.make(binding.getVariables());
-            httpRouterContext.getAttributes().put("writable", writable);
-        } catch (Exception e) {
-            // fail silently by ignoring negotation
-            templateResolver.setLocale(application.getLocale());
-            Writable writable = template.make(binding.getVariables());
-            httpRouterContext.getAttributes().put("writable", writable);
-        } finally {
-            lock.unlock();
         }
+        logger.log(Level.FINEST, () -> "application locale for template = " + application.getLocale());
+        return application.getLocale();
+    }
+
+    private static Template getTemplate(TemplateEngine templateEngine, Path templatePath) throws IOException {
+        return templateCache.get(templatePath, null, (path, locale) -> {
+            logger.log(Level.FINEST, () -> "groovy templatePath = " + path + " creating by template engine");
+            try {
+                return new GroovyTemplateCache.Compilation(templateEngine.createTemplate(Files.readString(path)),
+                        null, null);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException(e);
+            }
+        });
     }
 }
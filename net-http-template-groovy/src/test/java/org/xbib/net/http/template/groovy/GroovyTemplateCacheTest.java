@@ -0,0 +1,100 @@
+package org.xbib.net.http.template.groovy;
+
+import groovy.text.Template;
+import groovy.text.markup.BaseTemplate;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GroovyTemplateCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testHitsAndEviction() throws IOException {
+        GroovyMarkupTemplateHandler handler = createHandler(GroovyTemplateCache.builder()
+                .setMaxSize(2)
+                .setCheckInterval(null));
+        Path a = write("a.tpl", "p('a')");
+        Path b = write("b.tpl", "p('b')");
+        Path c = write("c.tpl", "p('c')");
+        Template template = handler.getTemplate(a, null);
+        assertSame(template, handler.getTemplate(a, null));
+        handler.getTemplate(b, null);
+        handler.getTemplate(c, null);
+        GroovyTemplateCache cache = handler.getTemplateCache();
+        assertEquals(2, cache.size());
+        assertEquals(1L, cache.getHitCount());
+        assertEquals(3L, cache.getMissCount());
+        assertEquals(3L, cache.getCompileCount());
+        assertEquals(1L, cache.getEvictionCount());
+        assertTrue(cache.getMaxCompileNanos() > 0L);
+        // "a" was evicted
+        assertEquals("<p>a</p>", render(handler.getTemplate(a, null)));
+        assertEquals(4L, cache.getCompileCount());
+    }
+
+    @Test
+    void testRecompileModified() throws Exception {
+        GroovyMarkupTemplateHandler handler = createHandler(GroovyTemplateCache.builder()
+                .setCheckInterval(Duration.ZERO));
+        Path page = write("page.tpl", "include template: 'greeting.tpl'");
+        Path greeting = write("greeting.tpl", "p('hello')");
+        write("greeting_de.tpl", "p('hallo')");
+        assertEquals("<p>hello</p>", render(handler.getTemplate(page, null)));
+        assertEquals("<p>hallo</p>", render(handler.getTemplate(page, Locale.GERMAN)));
+        GroovyTemplateCache cache = handler.getTemplateCache();
+        // the times of the included templates are recorded when they are resolved, before any check
+        Files.writeString(greeting, "p('hi')", StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(greeting, FileTime.fromMillis(System.currentTimeMillis() + 10000L));
+        // the previous version is served until the recompilation is done
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        String content = render(handler.getTemplate(page, null));
+        while (!"<p>hi</p>".equals(content) && System.nanoTime() < deadline) {
+            assertEquals("<p>hello</p>", content);
+            Thread.sleep(10L);
+            content = render(handler.getTemplate(page, null));
+        }
+        assertEquals("<p>hi</p>", content);
+        assertEquals(1L, cache.getRecompileCount());
+        assertEquals("<p>hallo</p>", render(handler.getTemplate(page, Locale.GERMAN)));
+        cache.close();
+    }
+
+    private GroovyMarkupTemplateHandler createHandler(GroovyTemplateCache.Builder builder) {
+        return new GroovyMarkupTemplateHandler(this::resolve, getClass().getClassLoader(), BaseTemplate.class,
+                Locale.ENGLISH, true, false, "  ", false, true, null, true, "\n", true, builder);
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path path = dir.resolve(name);
+        Files.writeString(path, content, StandardCharsets.UTF_8);
+        return path;
+    }
+
+    private Path resolve(String name) {
+        Path path = dir.resolve(name);
+        if (!Files.exists(path)) {
+            throw new IllegalArgumentException("unable to resolve " + name);
+        }
+        return path;
+    }
+
+    private static String render(Template template) throws IOException {
+        StringWriter writer = new StringWriter();
+        template.make(Map.of()).writeTo(writer);
+        return writer.toString();
+    }
+}
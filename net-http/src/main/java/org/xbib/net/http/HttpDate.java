@@ -0,0 +1,285 @@
+package org.xbib.net.http;
+
+import org.xbib.net.util.DateTimeUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * HTTP dates in the preferred format of RFC 9110, the IMF-fixdate {@code "Sun, 06 Nov 1994 08:49:37 GMT"}.
+ *
+ * The date for the {@code Date} header is formatted at most once per second and shared by all threads,
+ * see {@link #currentDate()}. Formatting and parsing work on the characters directly, without
+ * {@link DateTimeFormatter}, time zones, or intermediate objects.
+ */
+public final class HttpDate {
+
+    /**
+     * The value returned by {@link #parse(CharSequence)} for a missing or an invalid date.
+     */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    /**
+     * The length of a formatted date.
+     */
+    public static final int LENGTH = 29;
+
+    private static final String[] DAYS = { "Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat" };
+
+    private static final String[] MONTHS = {
+            "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+    };
+
+    private static final DateTimeFormatter FALLBACK_FORMATTER =
+            DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+
+    private static volatile CurrentDate currentDate = new CurrentDate(Long.MIN_VALUE, null, null);
+
+    private HttpDate() {
+    }
+
+    /**
+     * The current date, for the {@code Date} header. The value changes at most once per second.
+     *
+     * @return the current date
+     */
+    public static String currentDate() {
+        return current().string;
+    }
+
+    /**
+     * The current date, for the {@code Date} header, as US-ASCII bytes. The array must not be modified.
+     *
+     * @return the current date
+     */
+    public static byte[] currentDateBytes() {
+        return current().bytes;
+    }
+
+    /**
+     * Format a date.
+     *
+     * @param instant the instant
+     * @return the formatted date
+     */
+    public static String format(Instant instant) {
+        return format(instant.toEpochMilli());
+    }
+
+    /**
+     * Format a date.
+     *
+     * @param epochMillis the milliseconds since the epoch
+     * @return the formatted date
+     */
+    public static String format(long epochMillis) {
+        byte[] bytes = new byte[LENGTH];
+        if (!format(epochMillis, bytes, 0)) {
+            return FALLBACK_FORMATTER.format(Instant.ofEpochMilli(epochMillis));
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Format a date as US-ASCII bytes into an array, for years from 1 to 9999.
+     *
+     * @param epochMillis the milliseconds since the epoch
+     * @param dst the destination array, with at least {@link #LENGTH} bytes from the offset on
+     * @param offset the offset in the destination array
+     * @return true if the date was formatted, false if the year is out of range
+     */
+    public static boolean format(long epochMillis, byte[] dst, int offset) {
+        long epochSeconds = Math.floorDiv(epochMillis, 1000L);
+        long epochDays = Math.floorDiv(epochSeconds, 86400L);
+        int secondOfDay = (int) Math.floorMod(epochSeconds, 86400L);
+        // civil date from days, see http://howardhinnant.github.io/date_algorithms.html
+        long z = epochDays + 719468L;
+        long era = Math.floorDiv(z, 146097L);
+        int doe = (int) (z - era * 146097L);
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int day = doy - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoe + era * 400L + (month <= 2 ? 1 : 0);
+        if (year < 1L || year > 9999L) {
+            return false;
+        }
+        String dayOfWeek = DAYS[(int) Math.floorMod(epochDays + 4L, 7L)];
+        String monthName = MONTHS[month - 1];
+        int i = offset;
+        dst[i++] = (byte) dayOfWeek.charAt(0);
+        dst[i++] = (byte) dayOfWeek.charAt(1);
+        dst[i++] = (byte) dayOfWeek.charAt(2);
+        dst[i++] = ',';
+        dst[i++] = ' ';
+        i = twoDigits(day, dst, i);
+        dst[i++] = ' ';
+        dst[i++] = (byte) monthName.charAt(0);
+        dst[i++] = (byte) monthName.charAt(1);
+        dst[i++] = (byte) monthName.charAt(2);
+        dst[i++] = ' ';
+        i = twoDigits((int) (year / 100L), dst, i);
+        i = twoDigits((int) (year % 100L), dst, i);
+        dst[i++] = ' ';
+        i = twoDigits(secondOfDay / 3600, dst, i);
+        dst[i++] = ':';
+        i = twoDigits(secondOfDay / 60 % 60, dst, i);
+        dst[i++] = ':';
+        i = twoDigits(secondOfDay % 60, dst, i);
+        dst[i++] = ' ';
+        dst[i++] = 'G';
+        dst[i++] = 'M';
+        dst[i] = 'T';
+        return true;
+    }
+
+    /**
+     * Parse a date. The IMF-fixdate is parsed directly, the day of the month may have one digit,
+     * and the day of the week is not checked. The obsolete RFC 850 and asctime formats are left
+     * to {@link DateTimeUtil#parseDate(String)}.
+     *
+     * @param date the date, or null
+     * @return the milliseconds since the epoch, or {@link #INVALID} if the date is null or invalid
+     */
+    public static long parse(CharSequence date) {
+        if (date == null) {
+            return INVALID;
+        }
+        long millis = parseFixDate(date);
+        if (millis != INVALID) {
+            return millis;
+        }
+        try {
+            Instant instant = DateTimeUtil.parseDate(date.toString());
+            return instant != null ? instant.toEpochMilli() : INVALID;
+        } catch (DateTimeException | IllegalArgumentException e) {
+            return INVALID;
+        }
+    }
+
+    /**
+     * Parse a date.
+     *
+     * @param date the date, or null
+     * @return the instant, or null if the date is null or invalid
+     */
+    public static Instant parseInstant(CharSequence date) {
+        long millis = parse(date);
+        return millis != INVALID ? Instant.ofEpochMilli(millis) : null;
+    }
+
+    private static CurrentDate current() {
+        CurrentDate currentDate = HttpDate.currentDate;
+        long epochSecond = System.currentTimeMillis() / 1000L;
+        if (currentDate.epochSecond != epochSecond) {
+            // concurrent callers may format the same second twice, which is harmless
+            byte[] bytes = new byte[LENGTH];
+            format(epochSecond * 1000L, bytes, 0);
+            currentDate = new CurrentDate(epochSecond, new String(bytes, StandardCharsets.US_ASCII), bytes);
+            HttpDate.currentDate = currentDate;
+        }
+        return currentDate;
+    }
+
+    private static long parseFixDate(CharSequence s) {
+        int length = s.length();
+        int i = 0;
+        // skip the day of the week
+        while (i < length && s.charAt(i) != ',') {
+            i++;
+        }
+        i += 2;
+        if (i >= length || s.charAt(i - 1) != ' ') {
+            return INVALID;
+        }
+        int day = digit(s, i++);
+        if (i < length && s.charAt(i) != ' ') {
+            day = day * 10 + digit(s, i++);
+        }
+        // " Nov 1994 08:49:37 GMT"
+        if (length - i != 22 || s.charAt(i) != ' ' || s.charAt(i + 4) != ' ' || s.charAt(i + 9) != ' '
+                || s.charAt(i + 12) != ':' || s.charAt(i + 15) != ':' || s.charAt(i + 18) != ' '
+                || s.charAt(i + 19) != 'G' || s.charAt(i + 20) != 'M' || s.charAt(i + 21) != 'T') {
+            return INVALID;
+        }
+        int month = month(s, i + 1);
+        int year = digit(s, i + 5) * 1000 + digit(s, i + 6) * 100 + digit(s, i + 7) * 10 + digit(s, i + 8);
+        int hour = digit(s, i + 10) * 10 + digit(s, i + 11);
+        int minute = digit(s, i + 13) * 10 + digit(s, i + 14);
+        int second = digit(s, i + 16) * 10 + digit(s, i + 17);
+        if (day < 1 || month < 1 || year < 1 || hour > 23 || minute > 59 || second > 59
+                || day > lengthOfMonth(year, month)) {
+            return INVALID;
+        }
+        // days from civil date, see http://howardhinnant.github.io/date_algorithms.html
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yoe = y - era * 400;
+        int doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        long epochDays = era * 146097L + doe - 719468L;
+        return ((epochDays * 24L + hour) * 60L + minute) * 60000L + second * 1000L;
+    }
+
+    private static int digit(CharSequence s, int i) {
+        if (i >= s.length()) {
+            return -10000;
+        }
+        char c = s.charAt(i);
+        // a negative value makes the result of the field invalid
+        return c >= '0' && c <= '9' ? c - '0' : -10000;
+    }
+
+    private static int month(CharSequence s, int i) {
+        char c0 = s.charAt(i);
+        char c1 = s.charAt(i + 1);
+        char c2 = s.charAt(i + 2);
+        for (int m = 0; m < MONTHS.length; m++) {
+            String name = MONTHS[m];
+            if (name.charAt(0) == c0 && name.charAt(1) == c1 && name.charAt(2) == c2) {
+                return m + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static int twoDigits(int value, byte[] dst, int i) {
+        dst[i] = (byte) ('0' + value / 10);
+        dst[i + 1] = (byte) ('0' + value % 10);
+        return i + 2;
+    }
+
+    private static class CurrentDate {
+
+        private final long epochSecond;
+
+        private final String string;
+
+        private final byte[] bytes;
+
+        private CurrentDate(long epochSecond, String string, byte[] bytes) {
+            this.epochSecond = epochSecond;
+            this.string = string;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -3,22 +3,52 @@ package org.xbib.net.http;
 import org.xbib.datastructures.common.Pair;
 import org.xbib.net.Headers;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Map;
 
 /**
+ * HTTP headers, an insertion-ordered multimap with case-insensitive names.
+ *
+ * The entries are kept in the order they were added, and are indexed by their lowercased name
+ * in a small hash table, so a lookup does not need to scan all headers. Header names are lowercased once
+ * when an entry is added, and the well-known names of {@link HttpHeaderNames} are shared, so looking up
+ * a header by one of the {@link HttpHeaderNames} constants is a hash lookup with an identity comparison.
+ * The names of the entries are returned as they were added.
+ *
+ * Instances are not thread-safe.
  */
 public class HttpHeaders implements Headers {
 
-    private final List<Pair<String, String>> list;
+    private static final int BUCKETS = 16;
+
+    private static final Map<String, String> KNOWN_NAMES = createKnownNames();
+
+    private final Entry[] buckets;
+
+    private final Entry head;
+
+    private int size;
+
+    private List<Pair<String, String>> entries;
 
     public HttpHeaders() {
-        this.list = new ArrayList<>();
+        this.buckets = new Entry[BUCKETS];
+        this.head = new Entry();
+        head.before = head;
+        head.after = head;
     }
 
     public HttpHeaders(List<Pair<String, String>> list) {
-        this.list = list;
+        this();
+        for (Pair<String, String> pair : list) {
+            add(pair.getKey(), pair.getValue());
+        }
     }
 
     public static HttpHeaders of(List<Pair<String, String>> list) {
@@ -27,21 +57,28 @@ public class HttpHeaders implements Headers {
 
     public static HttpHeaders of(HttpHeaders headers) {
         HttpHeaders httpHeaders = new HttpHeaders();
-        headers.entries().forEach(e -> httpHeaders.add(e.getKey(), e.getValue()));
+        for (Entry e = headers.head.after; e != headers.head; e = e.after) {
+            httpHeaders.add(e.name, e.hash, e.pair);
+        }
         return httpHeaders;
     }
 
     public HttpHeaders add(CharSequence name, String value) {
         if (name != null && value != null) {
-            list.add(Pair.of(name.toString(), value));
+            String s = name.toString();
+            String key = toKey(s);
+            add(key, key.hashCode(), Pair.of(s, value));
         }
         return this;
     }
 
     public HttpHeaders add(CharSequence name, Iterable<?> values) {
+        String s = name.toString();
+        String key = toKey(s);
+        int hash = key.hashCode();
         values.forEach(v -> {
             if (v != null) {
-                list.add(Pair.of(name.toString(), v.toString()));
+                add(key, hash, Pair.of(s, v.toString()));
             }
         });
         return this;
@@ -49,45 +86,200 @@ public class HttpHeaders implements Headers {
 
     public HttpHeaders set(CharSequence name, String value) {
         if (name != null && value != null) {
-            List<Pair<String, String>> list = this.list.stream()
-                    .filter(e -> !e.getKey().equalsIgnoreCase(name.toString())).collect(Collectors.toList());
-            this.list.clear();
-            this.list.addAll(list);
+            String s = name.toString();
+            String key = toKey(s);
+            int hash = key.hashCode();
+            remove(key, hash);
+            add(key, hash, Pair.of(s, value));
         }
-        return add(name, value);
+        return this;
     }
 
     public boolean containsHeader(CharSequence name) {
-        String k = name.toString();
-        Pair<String, String> me = list.stream().filter(e -> e.getKey().equalsIgnoreCase(k)).findFirst().orElse(null);
-        return me != null;
+        return find(name) != null;
     }
 
+    /**
+     * Remove all headers with the given name. The name is compared case-insensitively.
+     *
+     * @param name the header name
+     */
     public void remove(CharSequence name) {
-        this.list.removeIf(pair -> pair.getKey().equals(name.toString()));
+        String key = toKey(name.toString());
+        remove(key, key.hashCode());
     }
 
     @Override
     public String get(CharSequence header) {
-        String k = header.toString();
-        return list.stream().filter(e -> e.getKey().equalsIgnoreCase(k))
-                .map(Pair::getValue).findFirst().orElse(null);
+        Entry e = find(header);
+        return e != null ? e.pair.getValue() : null;
     }
 
     @Override
     public List<String> getAll(CharSequence header) {
-        String k = header.toString();
-        return list.stream().filter(e -> e.getKey().equalsIgnoreCase(k))
-                .map(Pair::getValue).collect(Collectors.toList());
+        String key = toKey(header.toString());
+        int hash = key.hashCode();
+        List<String> list = new ArrayList<>();
+        for (Entry e = buckets[hash & (BUCKETS - 1)]; e != null; e = e.next) {
+            if (e.hash == hash && key.equals(e.name)) {
+                list.add(e.pair.getValue());
+            }
+        }
+        return list;
     }
 
+    /**
+     * The headers in the order they were added. The returned list can not be modified.
+     *
+     * @return the header entries
+     */
     @Override
     public List<Pair<String, String>> entries() {
-        return list;
+        List<Pair<String, String>> entries = this.entries;
+        if (entries == null) {
+            List<Pair<String, String>> list = new ArrayList<>(size);
+            for (Entry e = head.after; e != head; e = e.after) {
+                list.add(e.pair);
+            }
+            entries = Collections.unmodifiableList(list);
+            this.entries = entries;
+        }
+        return entries;
     }
 
     @Override
     public String toString() {
-        return list.toString();
+        return entries().toString();
+    }
+
+    private Entry find(CharSequence name) {
+        String key = toKey(name.toString());
+        int hash = key.hashCode();
+        for (Entry e = buckets[hash & (BUCKETS - 1)]; e != null; e = e.next) {
+            if (e.hash == hash && key.equals(e.name)) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    private void add(String key, int hash, Pair<String, String> pair) {
+        Entry entry = new Entry(key, hash, pair);
+        // append to the bucket, so the entries of a name stay in insertion order
+        int i = hash & (BUCKETS - 1);
+        Entry e = buckets[i];
+        if (e == null) {
+            buckets[i] = entry;
+        } else {
+            while (e.next != null) {
+                e = e.next;
+            }
+            e.next = entry;
+        }
+        entry.before = head.before;
+        entry.after = head;
+        head.before.after = entry;
+        head.before = entry;
+        size++;
+        entries = null;
+    }
+
+    private void remove(String key, int hash) {
+        int i = hash & (BUCKETS - 1);
+        Entry prev = null;
+        Entry e = buckets[i];
+        while (e != null) {
+            Entry next = e.next;
+            if (e.hash == hash && key.equals(e.name)) {
+                if (prev == null) {
+                    buckets[i] = next;
+                } else {
+                    prev.next = next;
+                }
+                e.before.after = e.after;
+                e.after.before = e.before;
+                size--;
+                entries = null;
+            } else {
+                prev = e;
+            }
+            e = next;
+        }
+    }
+
+    /**
+     * The lowercased header name. Well-known names, in lowercase or in their usual capitalization,
+     * are mapped to the {@link HttpHeaderNames} constant without allocating.
+     *
+     * @param name the header name
+     * @return the key of the name
+     */
+    private static String toKey(String name) {
+        String known = KNOWN_NAMES.get(name);
+        if (known != null) {
+            return known;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c >= 'A' && c <= 'Z' || c > 0x7f) {
+                String lowerCase = name.toLowerCase(Locale.ROOT);
+                known = KNOWN_NAMES.get(lowerCase);
+                return known != null ? known : lowerCase;
+            }
+        }
+        return name;
+    }
+
+    private static Map<String, String> createKnownNames() {
+        Map<String, String> map = new HashMap<>();
+        for (Field field : HttpHeaderNames.class.getFields()) {
+            if (field.getType() == String.class && Modifier.isStatic(field.getModifiers())) {
+                try {
+                    String name = (String) field.get(null);
+                    map.put(name, name);
+                    map.put(capitalize(name), name);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        return map;
+    }
+
+    private static String capitalize(String name) {
+        char[] chars = name.toCharArray();
+        boolean start = true;
+        for (int i = 0; i < chars.length; i++) {
+            if (start && chars[i] >= 'a' && chars[i] <= 'z') {
+                chars[i] = (char) (chars[i] - ('a' - 'A'));
+            }
+            start = chars[i] == '-';
+        }
+        return new String(chars);
+    }
+
+    private static class Entry {
+
+        private final String name;
+
+        private final int hash;
+
+        private final Pair<String, String> pair;
+
+        private Entry next;
+
+        private Entry before;
+
+        private Entry after;
+
+        private Entry() {
+            this(null, -1, null);
+        }
+
+        private Entry(String name, int hash, Pair<String, String> pair) {
+            this.name = name;
+            this.hash = hash;
+            this.pair = pair;
+        }
     }
 }
@@ -0,0 +1,66 @@
+package org.xbib.net.http.test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.xbib.net.http.HttpDate;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpDateTest {
+
+    private static final DateTimeFormatter FORMATTER =
+            DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+
+    @Test
+    public void testFormat() {
+        assertEquals("Sun, 06 Nov 1994 08:49:37 GMT",
+                HttpDate.format(ZonedDateTime.of(1994, 11, 6, 8, 49, 37, 0, ZoneOffset.UTC).toInstant()));
+        assertEquals("Thu, 01 Jan 1970 00:00:00 GMT", HttpDate.format(0L));
+        assertEquals("Wed, 31 Dec 1969 23:59:59 GMT", HttpDate.format(-1L));
+        Random random = new Random(42L);
+        for (int i = 0; i < 100000; i++) {
+            long millis = random.nextLong() % 253402300800000L;
+            if (millis < -62135596800000L) {
+                continue;
+            }
+            assertEquals(FORMATTER.format(Instant.ofEpochMilli(millis)), HttpDate.format(millis));
+        }
+    }
+
+    @Test
+    public void testParse() {
+        long millis = ZonedDateTime.of(1994, 11, 6, 8, 49, 37, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+        assertEquals(millis, HttpDate.parse("Sun, 06 Nov 1994 08:49:37 GMT"));
+        assertEquals(millis, HttpDate.parse("Sun, 6 Nov 1994 08:49:37 GMT"));
+        assertEquals(HttpDate.INVALID, HttpDate.parse(null));
+        assertEquals(HttpDate.INVALID, HttpDate.parse(""));
+        assertEquals(HttpDate.INVALID, HttpDate.parse("Sun, 06 Nov 1994 08:49:37"));
+        assertEquals(HttpDate.INVALID, HttpDate.parse("Sun, 31 Nov 1994 08:49:37 GMT"));
+        assertEquals(HttpDate.INVALID, HttpDate.parse("Sun, 06 Xyz 1994 08:49:37 GMT"));
+        assertEquals(HttpDate.INVALID, HttpDate.parse("Sun, 06 Nov 1994 24:49:37 GMT"));
+        assertEquals(HttpDate.INVALID, HttpDate.parse("\"18c4b5e3f21\""));
+        Random random = new Random(42L);
+        for (int i = 0; i < 100000; i++) {
+            long seconds = Math.floorMod(random.nextLong(), 253402300800L);
+            assertEquals(seconds * 1000L, HttpDate.parse(HttpDate.format(seconds * 1000L)));
+        }
+    }
+
+    @Test
+    public void testCurrentDate() {
+        long before = System.currentTimeMillis() / 1000L * 1000L;
+        String date = HttpDate.currentDate();
+        long after = System.currentTimeMillis();
+        long millis = HttpDate.parse(date);
+        assertTrue(millis >= before && millis <= after, date);
+        if (System.currentTimeMillis() / 1000L == millis / 1000L) {
+            assertSame(date, HttpDate.currentDate());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.xbib.net.http.test;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.xbib.net.http.HttpHeaderNames;
+import org.xbib.net.http.HttpHeaders;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpHeadersTest {
+
+    @Test
+    public void testCaseInsensitive() {
+        HttpHeaders headers = new HttpHeaders()
+                .add("Content-Type", "text/html")
+                .add("X-Custom", "a")
+                .add("x-custom", "b")
+                .add("DNT", "1");
+        assertEquals("text/html", headers.get(HttpHeaderNames.CONTENT_TYPE));
+        assertEquals("text/html", headers.get("CONTENT-TYPE"));
+        assertEquals(List.of("a", "b"), headers.getAll("X-CUSTOM"));
+        assertTrue(headers.containsHeader("dnt"));
+        assertFalse(headers.containsHeader(HttpHeaderNames.HOST));
+        assertNull(headers.get(HttpHeaderNames.HOST));
+        assertEquals(List.of(), headers.getAll(HttpHeaderNames.HOST));
+    }
+
+    @Test
+    public void testInsertionOrder() {
+        HttpHeaders headers = new HttpHeaders();
+        for (int i = 0; i < 100; i++) {
+            headers.add("Header-" + i, Integer.toString(i));
+        }
+        headers.add("Header-0", "again");
+        for (int i = 0; i < 100; i++) {
+            assertEquals("Header-" + i, headers.entries().get(i).getKey());
+            assertEquals(Integer.toString(i), headers.get("header-" + i));
+        }
+        assertEquals(101, headers.entries().size());
+        assertEquals(List.of("0", "again"), headers.getAll("Header-0"));
+        HttpHeaders copy = HttpHeaders.of(headers);
+        assertEquals(headers.toString(), copy.toString());
+    }
+
+    @Test
+    public void testSetAndRemove() {
+        HttpHeaders headers = new HttpHeaders()
+                .add("Set-Cookie", "a=1")
+                .add(HttpHeaderNames.CONNECTION, "keep-alive")
+                .add("set-cookie", "b=2");
+        headers.set(HttpHeaderNames.SET_COOKIE, "c=3");
+        assertEquals(List.of("c=3"), headers.getAll("Set-Cookie"));
+        assertEquals("connection", headers.entries().get(0).getKey());
+        assertEquals(2, headers.entries().size());
+        headers.remove("Connection");
+        assertFalse(headers.containsHeader(HttpHeaderNames.CONNECTION));
+        assertEquals(1, headers.entries().size());
+        headers.remove(HttpHeaderNames.SET_COOKIE);
+        assertTrue(headers.entries().isEmpty());
+        headers.add(HttpHeaderNames.SET_COOKIE, "d=4");
+        assertEquals("d=4", headers.get("Set-Cookie"));
+    }
+}